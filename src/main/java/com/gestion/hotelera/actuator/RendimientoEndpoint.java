@@ -0,0 +1,104 @@
+package com.gestion.hotelera.actuator;
+
+import com.gestion.hotelera.aspect.MedicionOperacionesAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoint /actuator/hotelperf: operaciones del camino crítico y métodos de
+ * repositorio más lentos, ordenados por su p99. Los percentiles son los de
+ * la ventana reciente de cada timer; con /actuator/hotelperf/{limite} se
+ * piden más o menos filas.
+ */
+@Component
+@Endpoint(id = "hotelperf")
+public class RendimientoEndpoint {
+
+    static final String REPOSITORIOS = "spring.data.repository.invocations";
+    private static final int LIMITE_POR_DEFECTO = 10;
+
+    private final MeterRegistry meterRegistry;
+
+    public RendimientoEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> rendimiento() {
+        return resumen(LIMITE_POR_DEFECTO);
+    }
+
+    @ReadOperation
+    public Map<String, Object> rendimiento(@Selector int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser positivo");
+        }
+        return resumen(limite);
+    }
+
+    private Map<String, Object> resumen(int limite) {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("operaciones", masLentos(MedicionOperacionesAspect.OBSERVACION, limite));
+        respuesta.put("repositorios", masLentos(REPOSITORIOS, limite));
+        return respuesta;
+    }
+
+    private List<Map<String, Object>> masLentos(String nombre, int limite) {
+        return meterRegistry.find(nombre).timers().stream()
+                .filter(timer -> timer.count() > 0)
+                .map(RendimientoEndpoint::fila)
+                .sorted(Comparator.comparingDouble((Map<String, Object> fila) -> (double) fila.get("p99Ms"))
+                        .reversed())
+                .limit(limite)
+                .toList();
+    }
+
+    private static Map<String, Object> fila(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> fila = new LinkedHashMap<>();
+        if (REPOSITORIOS.equals(timer.getId().getName())) {
+            fila.put("operacion", timer.getId().getTag("repository") + "." + timer.getId().getTag("method"));
+            fila.put("resultado", timer.getId().getTag("state"));
+            fila.put("error", timer.getId().getTag("exception"));
+        } else {
+            fila.put("operacion", timer.getId().getTag("operacion"));
+            fila.put("resultado", timer.getId().getTag("resultado"));
+            fila.put("error", timer.getId().getTag("error"));
+        }
+        fila.put("llamadas", snapshot.count());
+        fila.put("mediaMs", redondear(snapshot.mean(TimeUnit.MILLISECONDS)));
+        fila.put("p50Ms", redondear(percentil(snapshot, 0.5)));
+        fila.put("p99Ms", redondear(percentil(snapshot, 0.99)));
+        fila.put("maximoMs", redondear(snapshot.max(TimeUnit.MILLISECONDS)));
+        return fila;
+    }
+
+    /**
+     * Percentil publicado por el timer; si no se configuró (ver
+     * management.metrics.distribution.percentiles) se usa el máximo.
+     */
+    private static double percentil(HistogramSnapshot snapshot, double percentil) {
+        for (ValueAtPercentile valor : snapshot.percentileValues()) {
+            if (valor.percentile() == percentil) {
+                return valor.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return snapshot.max(TimeUnit.MILLISECONDS);
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+}
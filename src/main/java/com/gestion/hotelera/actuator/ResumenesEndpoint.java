@@ -0,0 +1,59 @@
+package com.gestion.hotelera.actuator;
+
+import com.gestion.hotelera.service.ResumenDiarioService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint /actuator/resumenes: tamaño de los resúmenes diarios de reportes
+ * y, con un POST, su reconstrucción completa desde las reservas.
+ */
+@Component
+@Endpoint(id = "resumenes")
+public class ResumenesEndpoint {
+
+    private final ResumenDiarioService resumenDiarioService;
+
+    public ResumenesEndpoint(ResumenDiarioService resumenDiarioService) {
+        this.resumenDiarioService = resumenDiarioService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> resumenes() {
+        Map<String, Object> respuesta = new LinkedHashMap<>(resumenDiarioService.contarFilas());
+        respuesta.put("ultimaReconstruccion", reconstruccion(resumenDiarioService.getUltimaReconstruccion()));
+        return respuesta;
+    }
+
+    /**
+     * Si otro nodo tiene el lease de la reconstrucción, no se hace nada y
+     * omitida vale true. Si falla, el error llega al cliente.
+     */
+    @WriteOperation
+    public Map<String, Object> reconstruir() {
+        ResumenDiarioService.ResultadoReconstruccion anterior = resumenDiarioService.getUltimaReconstruccion();
+        int reservas = resumenDiarioService.reconstruir();
+        ResumenDiarioService.ResultadoReconstruccion ultima = resumenDiarioService.getUltimaReconstruccion();
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("omitida", ultima == anterior);
+        respuesta.put("reservas", reservas);
+        respuesta.put("reconstruccion", reconstruccion(ultima));
+        return respuesta;
+    }
+
+    private static Map<String, Object> reconstruccion(ResumenDiarioService.ResultadoReconstruccion resultado) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        if (resultado != null) {
+            datos.put("ejecutadaEn", String.valueOf(resultado.ejecutadaEn()));
+            datos.put("reservas", resultado.reservas());
+            datos.put("filas", resultado.filas());
+            datos.put("duracionMs", resultado.duracionMs());
+        }
+        return datos;
+    }
+}
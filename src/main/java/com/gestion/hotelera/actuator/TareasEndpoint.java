@@ -0,0 +1,101 @@
+package com.gestion.hotelera.actuator;
+
+import com.gestion.hotelera.model.BloqueoTarea;
+import com.gestion.hotelera.model.EjecucionTarea;
+import com.gestion.hotelera.service.BloqueoTareaService;
+import com.gestion.hotelera.service.CoordinadorTareas;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint /actuator/tareas: quién tiene el lease de cada tarea programada,
+ * hasta cuándo, y sus últimas ejecuciones.
+ */
+@Component
+@Endpoint(id = "tareas")
+public class TareasEndpoint {
+
+    private static final int EJECUCIONES_RESUMEN = 5;
+    private static final int EJECUCIONES_DETALLE = 50;
+
+    private final BloqueoTareaService bloqueoTareaService;
+    private final CoordinadorTareas coordinadorTareas;
+
+    public TareasEndpoint(BloqueoTareaService bloqueoTareaService, CoordinadorTareas coordinadorTareas) {
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.coordinadorTareas = coordinadorTareas;
+    }
+
+    @ReadOperation
+    public Map<String, Object> tareas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Map<String, Object>> tareas = bloqueoTareaService.obtenerBloqueos().stream()
+                .sorted(Comparator.comparing(BloqueoTarea::getNombre))
+                .map(bloqueo -> {
+                    Map<String, Object> tarea = estado(bloqueo, ahora);
+                    tarea.put("ultimasEjecuciones", ejecuciones(bloqueo.getNombre(), EJECUCIONES_RESUMEN));
+                    return tarea;
+                })
+                .toList();
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("nodo", coordinadorTareas.getNodo());
+        respuesta.put("duracionLeaseMs", coordinadorTareas.getDuracionLease().toMillis());
+        respuesta.put("enCursoEnEsteNodo", coordinadorTareas.getEnCurso());
+        respuesta.put("tareas", tareas);
+        return respuesta;
+    }
+
+    @ReadOperation
+    public Map<String, Object> tarea(@Selector String nombre) {
+        Map<String, Object> respuesta = bloqueoTareaService.obtenerBloqueos().stream()
+                .filter(bloqueo -> bloqueo.getNombre().equals(nombre))
+                .findFirst()
+                .map(bloqueo -> estado(bloqueo, LocalDateTime.now()))
+                .orElseGet(() -> {
+                    Map<String, Object> sinLease = new LinkedHashMap<>();
+                    sinLease.put("nombre", nombre);
+                    return sinLease;
+                });
+        respuesta.put("ejecuciones", ejecuciones(nombre, EJECUCIONES_DETALLE));
+        return respuesta;
+    }
+
+    private Map<String, Object> estado(BloqueoTarea bloqueo, LocalDateTime ahora) {
+        Map<String, Object> tarea = new LinkedHashMap<>();
+        tarea.put("nombre", bloqueo.getNombre());
+        tarea.put("propietario", bloqueo.getPropietario());
+        tarea.put("vigente", bloqueo.getBloqueadoHasta().isAfter(ahora));
+        tarea.put("bloqueadoHasta", String.valueOf(bloqueo.getBloqueadoHasta()));
+        tarea.put("adquiridoEn", String.valueOf(bloqueo.getAdquiridoEn()));
+        tarea.put("ultimoLatido", String.valueOf(bloqueo.getUltimoLatido()));
+        return tarea;
+    }
+
+    private List<Map<String, Object>> ejecuciones(String nombre, int limite) {
+        return bloqueoTareaService.obtenerUltimasEjecuciones(nombre, limite).stream()
+                .map(TareasEndpoint::resumen)
+                .toList();
+    }
+
+    private static Map<String, Object> resumen(EjecucionTarea ejecucion) {
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("nodo", ejecucion.getNodo());
+        resumen.put("inicio", String.valueOf(ejecucion.getInicio()));
+        resumen.put("duracionMs", ejecucion.getDuracionMs());
+        resumen.put("filasProcesadas", ejecucion.getFilasProcesadas());
+        resumen.put("resultado", ejecucion.getResultado());
+        if (ejecucion.getMensajeError() != null) {
+            resumen.put("error", ejecucion.getMensajeError());
+        }
+        return resumen;
+    }
+}
@@ -19,8 +19,11 @@ public class AuditoriaAspect {
         this.auditoriaService = auditoriaService;
     }
 
-    @AfterReturning(pointcut = "execution(* com.gestion.hotelera.service.*.crear*(..)) || " +
-                               "execution(* com.gestion.hotelera.service.*.registrar*(..))", 
+    // AuditoriaService.registrarAccion también encaja en registrar*: sin la exclusión
+    // cada auditoría se audita a sí misma sin fin, abriendo una transacción nueva por nivel
+    @AfterReturning(pointcut = "(execution(* com.gestion.hotelera.service.*.crear*(..)) || " +
+                               "execution(* com.gestion.hotelera.service.*.registrar*(..))) && " +
+                               "!within(com.gestion.hotelera.service.AuditoriaService)", 
                     returning = "result")
     public void auditarCreacion(JoinPoint joinPoint, Object result) {
         try {
@@ -0,0 +1,53 @@
+package com.gestion.hotelera.aspect;
+
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.service.BloqueoHabitaciones;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Toma el lock de la habitación antes de que empiece la transacción de la
+ * reserva y lo suelta después del commit, para que la siguiente reserva de la
+ * misma habitación vea la anterior ya confirmada.
+ */
+@Aspect
+@Component
+@Order(0) // antes que el interceptor transaccional (LOWEST_PRECEDENCE)
+public class BloqueoHabitacionAspect {
+
+    private final BloqueoHabitaciones bloqueoHabitaciones;
+
+    public BloqueoHabitacionAspect(BloqueoHabitaciones bloqueoHabitaciones) {
+        this.bloqueoHabitaciones = bloqueoHabitaciones;
+    }
+
+    @Around("execution(* com.gestion.hotelera.service.ReservaService.crearOActualizarReserva(..)) && args(reserva)")
+    public Object serializarPorHabitacion(ProceedingJoinPoint joinPoint, Reserva reserva) throws Throwable {
+        Long habitacionId = reserva != null && reserva.getHabitacion() != null ? reserva.getHabitacion().getId() : null;
+        if (habitacionId == null) {
+            return joinPoint.proceed();
+        }
+
+        bloqueoHabitaciones.bloquear(habitacionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Llamada dentro de una transacción exterior: el commit llega al terminar esa transacción
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bloqueoHabitaciones.liberar(habitacionId);
+                }
+            });
+            return joinPoint.proceed();
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            bloqueoHabitaciones.liberar(habitacionId);
+        }
+    }
+}
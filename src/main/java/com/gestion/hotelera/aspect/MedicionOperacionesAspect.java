@@ -0,0 +1,48 @@
+package com.gestion.hotelera.aspect;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Envuelve cada método anotado con {@link OperacionMedida} en una
+ * observación de Micrometer. El manejador de métricas de Spring Boot la
+ * convierte en el timer hotel.operacion con las etiquetas operacion,
+ * resultado (exito o error) y error (tipo de la excepción o none).
+ */
+@Aspect
+@Component
+@Order(-1) // antes que TareaExclusivaAspect y la transacción: incluye el commit en la medida
+public class MedicionOperacionesAspect {
+
+    public static final String OBSERVACION = "hotel.operacion";
+
+    private final ObservationRegistry observationRegistry;
+
+    public MedicionOperacionesAspect(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Around("@annotation(operacionMedida)")
+    public Object medir(ProceedingJoinPoint joinPoint, OperacionMedida operacionMedida) throws Throwable {
+        Observation observacion = Observation.createNotStarted(OBSERVACION, observationRegistry)
+                .contextualName(operacionMedida.value())
+                .lowCardinalityKeyValue("operacion", operacionMedida.value())
+                .start();
+        String resultado = "exito";
+        try (Observation.Scope scope = observacion.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            resultado = "error";
+            observacion.error(e);
+            throw e;
+        } finally {
+            observacion.lowCardinalityKeyValue("resultado", resultado);
+            observacion.stop();
+        }
+    }
+}
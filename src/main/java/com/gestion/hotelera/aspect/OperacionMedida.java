@@ -0,0 +1,19 @@
+package com.gestion.hotelera.aspect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un método del camino crítico cuya latencia se mide como observación
+ * hotel.operacion (ver MedicionOperacionesAspect). Las llamadas internas
+ * dentro de la misma clase no pasan por el proxy y no se miden.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OperacionMedida {
+
+    /** Nombre de la operación, usado como etiqueta (por ejemplo reserva.checkin). */
+    String value();
+}
@@ -0,0 +1,20 @@
+package com.gestion.hotelera.aspect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca una tarea programada que debe ejecutarse en un solo nodo a la vez
+ * (ver TareaExclusivaAspect). Si devuelve un número, se registra como filas
+ * procesadas; si la omite porque la ejecuta otro nodo, devuelve el valor por
+ * defecto de su tipo (null, 0 o false).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TareaExclusiva {
+
+    /** Nombre del lease en la tabla bloqueos_tareas. */
+    String value();
+}
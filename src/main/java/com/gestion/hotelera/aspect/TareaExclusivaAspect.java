@@ -0,0 +1,70 @@
+package com.gestion.hotelera.aspect;
+
+import com.gestion.hotelera.service.CoordinadorTareas;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+
+/**
+ * Ejecuta los métodos anotados con {@link TareaExclusiva} solo si este nodo
+ * obtiene el lease de la tarea. El lease se toma antes de abrir la
+ * transacción de la tarea, para confirmarlo aparte y no retener conexiones
+ * en los nodos que no la ejecutan.
+ *
+ * Como queda fuera de la transacción, aquí se tratan los errores de la
+ * tarea: para entonces la transacción ya se deshizo, y no hace falta
+ * capturarlos dentro del método (lo que la dejaría marcada como rollback-only
+ * y haría fallar el commit con UnexpectedRollbackException). En los métodos
+ * {@link Scheduled} se registran y se devuelve el valor de tarea omitida,
+ * porque nadie más los vería; en el resto se propagan a quien la lanzó.
+ *
+ * Si otro nodo tiene el lease se devuelve el valor por defecto del tipo de
+ * retorno: null, 0 o false.
+ */
+@Aspect
+@Component
+@Order(0) // antes que el interceptor transaccional (LOWEST_PRECEDENCE)
+public class TareaExclusivaAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(TareaExclusivaAspect.class);
+
+    private final CoordinadorTareas coordinadorTareas;
+
+    public TareaExclusivaAspect(CoordinadorTareas coordinadorTareas) {
+        this.coordinadorTareas = coordinadorTareas;
+    }
+
+    @Around("@annotation(tareaExclusiva)")
+    public Object ejecutarEnUnSoloNodo(ProceedingJoinPoint joinPoint, TareaExclusiva tareaExclusiva) throws Throwable {
+        MethodSignature firma = (MethodSignature) joinPoint.getSignature();
+        Object siOmitida = valorPorDefecto(firma.getReturnType());
+        try {
+            return coordinadorTareas.ejecutar(tareaExclusiva.value(), joinPoint::proceed, siOmitida);
+        } catch (Exception e) {
+            if (!firma.getMethod().isAnnotationPresent(Scheduled.class)) {
+                throw e;
+            }
+            logger.error("Error en la tarea programada {}: {}", tareaExclusiva.value(), e.getMessage(), e);
+            return siOmitida;
+        }
+    }
+
+    /**
+     * Valor que devuelve la tarea omitida: el de un campo sin inicializar del
+     * mismo tipo, para no fallar al desempaquetar un primitivo.
+     */
+    static Object valorPorDefecto(Class<?> tipo) {
+        if (!tipo.isPrimitive() || tipo == void.class) {
+            return null;
+        }
+        return Array.get(Array.newInstance(tipo, 1), 0);
+    }
+}
@@ -0,0 +1,116 @@
+package com.gestion.hotelera.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de segundo nivel de Hibernate sobre JCache/Caffeine para las
+ * entidades de referencia (habitaciones, servicios, descuentos,
+ * configuración y usuarios), sus identificadores naturales y las consultas
+ * de listas activas.
+ *
+ * Cada región tiene su tamaño máximo y su TTL, ajustables con
+ * app.cache.regiones.&lt;region&gt;.maximo-entradas y .ttl-segundos. La caché es
+ * local a cada nodo y las escrituras de otro nodo no la invalidan: hasta que
+ * caduca, una lectura puede devolver un estado que otra instancia ya cambió,
+ * y una escritura que partiera de esa copia lo desharía. Por eso los cambios
+ * de habitación releen la fila bloqueada (LecturaParaEscribir), los usos de
+ * descuento se suman con un UPDATE y todas las entidades cacheadas llevan
+ * {@code @Version}: un UPDATE hecho sobre una copia antigua falla por
+ * bloqueo optimista en lugar de pisar el cambio. Las regiones se crean aquí
+ * y Hibernate falla al arrancar si una entidad pide una que no existe.
+ *
+ * Los aciertos y fallos se publican como cache.gets{cache=&lt;region&gt;,result=hit|miss}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.cache.segundo-nivel", name = "habilitada", matchIfMissing = true)
+public class CacheSegundoNivelConfig {
+
+    /**
+     * Región con sus valores por defecto; ttlSegundos 0 es sin caducidad.
+     */
+    record Region(String nombre, long maximoEntradas, long ttlSegundos) {
+    }
+
+    static final List<Region> REGIONES = List.of(
+            // El estado de las habitaciones cambia en cada check-in y check-out
+            new Region("habitaciones", 2000, 60),
+            new Region("habitaciones-numero", 2000, 60),
+            new Region("consultas-habitaciones", 20, 60),
+            new Region("servicios", 500, 600),
+            new Region("servicios-opciones", 500, 600),
+            new Region("consultas-servicios", 20, 600),
+            new Region("descuentos", 1000, 120),
+            new Region("descuentos-codigo", 1000, 120),
+            new Region("consultas-descuentos", 100, 120),
+            new Region("configuracion", 10, 600),
+            new Region("consultas-configuracion", 5, 600),
+            new Region("usuarios", 5000, 300),
+            new Region("usuarios-username", 5000, 300),
+            new Region(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, 100, 60),
+            // Marcas de la última escritura por tabla: no deben caducar antes que las consultas
+            new Region(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 10_000, 0));
+
+    /**
+     * Un CacheManager por contexto de Spring (URI propia): los tests levantan
+     * varios contextos en la misma JVM y cada uno cierra el suyo.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(Environment entorno) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hotel-segundo-nivel-" + UUID.randomUUID()),
+                        CacheSegundoNivelConfig.class.getClassLoader());
+        for (Region region : REGIONES) {
+            String prefijo = "app.cache.regiones." + region.nombre() + ".";
+            long maximo = entorno.getProperty(prefijo + "maximo-entradas", Long.class, region.maximoEntradas());
+            long ttl = entorno.getProperty(prefijo + "ttl-segundos", Long.class, region.ttlSegundos());
+            if (maximo <= 0 || ttl < 0) {
+                throw new IllegalArgumentException(
+                        "Tamaño o TTL no válido para la región de caché " + region.nombre());
+            }
+            OptionalLong caducidad = ttl > 0 ? OptionalLong.of(TimeUnit.SECONDS.toNanos(ttl)) : OptionalLong.empty();
+            CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>()
+                    .setMaximumSize(OptionalLong.of(maximo))
+                    .setExpireAfterWrite(caducidad)
+                    .setStoreByValue(false)
+                    .setStatisticsEnabled(true);
+            cacheManager.createCache(region.nombre(), configuracion);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelHibernate(CacheManager cacheManagerSegundoNivel) {
+        return propiedades -> {
+            propiedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            propiedades.put(AvailableSettings.USE_QUERY_CACHE, true);
+            propiedades.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+            propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder metricasCacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+        return registry -> REGIONES.forEach(region -> JCacheMetrics.monitor(registry,
+                cacheManagerSegundoNivel.getCache(region.nombre()), "cache.manager", "hibernate"));
+    }
+}
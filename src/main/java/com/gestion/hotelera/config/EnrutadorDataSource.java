@@ -0,0 +1,232 @@
+package com.gestion.hotelera.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envía las transacciones de solo lectura a la réplica y el resto al
+ * primario. Debe usarse detrás de un LazyConnectionDataSourceProxy: así la
+ * conexión real se pide en la primera sentencia, cuando la transacción ya
+ * sabe si es readOnly.
+ *
+ * Una transacción readOnly va igualmente al primario si la réplica no ha
+ * confirmado su retraso, si la última medida es más antigua que su
+ * caducidad (el monitor se atascó y el valor ya no dice nada), si va más
+ * retrasada que el máximo, o si el mismo
+ * usuario (o el mismo hilo, sin usuario autenticado) confirmó una escritura
+ * hace menos de la ventana de lectura propia: así ve enseguida lo que acaba
+ * de guardar.
+ *
+ * Los refrescos que siguen a un cambio confirmado (cubo de reportes,
+ * dashboard, cola de reportes) corren en otros hilos y guardan lo leído con
+ * la versión nueva de los datos; leen del primario con
+ * {@link #forzarPrimario()}, porque la réplica aún puede no tener el cambio.
+ */
+public class EnrutadorDataSource extends AbstractRoutingDataSource {
+
+    public enum Destino {
+        PRIMARIO, REPLICA
+    }
+
+    static final String METRICA = "hotel.datasource.conexiones";
+    private static final int MAXIMO_USUARIOS = 10_000;
+    private static final ThreadLocal<Boolean> PRIMARIO_FORZADO = new ThreadLocal<>();
+
+    private final long ventanaLecturaPropiaMs;
+    private final long retrasoMaximoMs;
+    private final long caducidadMedidaMs;
+    private final Clock reloj;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Long> escriturasPorUsuario = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> escrituraDelHilo = new ThreadLocal<>();
+    // Retraso negativo mientras no se conozca: hasta el primer latido todo va al primario
+    private volatile MedidaRetraso medida = new MedidaRetraso(-1, 0);
+
+    /**
+     * Retraso medido por un latido y el instante (ms) en que se midió.
+     */
+    private record MedidaRetraso(long retrasoMs, long medidoEn) {
+    }
+
+    public EnrutadorDataSource(DataSource primario, DataSource replica, long ventanaLecturaPropiaMs,
+            long retrasoMaximoMs, long caducidadMedidaMs, Clock reloj, MeterRegistry meterRegistry) {
+        if (ventanaLecturaPropiaMs < 0 || retrasoMaximoMs < 0) {
+            throw new IllegalArgumentException(
+                    "La ventana de lectura propia y el retraso máximo no pueden ser negativos");
+        }
+        if (caducidadMedidaMs <= 0) {
+            throw new IllegalArgumentException("La caducidad de la medida del retraso debe ser positiva");
+        }
+        this.ventanaLecturaPropiaMs = ventanaLecturaPropiaMs;
+        this.retrasoMaximoMs = retrasoMaximoMs;
+        this.caducidadMedidaMs = caducidadMedidaMs;
+        this.reloj = reloj;
+        this.meterRegistry = meterRegistry;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Lleva al primario las transacciones de este hilo hasta cerrar lo
+     * devuelto, también las readOnly. Se puede anidar: al cerrar se recupera
+     * lo que hubiera antes.
+     */
+    public static Forzado forzarPrimario() {
+        Boolean anterior = PRIMARIO_FORZADO.get();
+        PRIMARIO_FORZADO.set(Boolean.TRUE);
+        return () -> {
+            if (anterior == null) {
+                PRIMARIO_FORZADO.remove();
+            } else {
+                PRIMARIO_FORZADO.set(anterior);
+            }
+        };
+    }
+
+    /** El hilo está dentro de un {@link #forzarPrimario()}. */
+    public static boolean isPrimarioForzado() {
+        return Boolean.TRUE.equals(PRIMARIO_FORZADO.get());
+    }
+
+    /**
+     * Fin de un {@link #forzarPrimario()}; se usa con try-with-resources.
+     */
+    @FunctionalInterface
+    public interface Forzado extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscritura();
+            contar(Destino.PRIMARIO, "escritura");
+            return Destino.PRIMARIO;
+        }
+        if (isPrimarioForzado()) {
+            contar(Destino.PRIMARIO, "forzado");
+            return Destino.PRIMARIO;
+        }
+        String motivo = motivoParaPrimario();
+        if (motivo != null) {
+            contar(Destino.PRIMARIO, motivo);
+            return Destino.PRIMARIO;
+        }
+        contar(Destino.REPLICA, "lectura");
+        return Destino.REPLICA;
+    }
+
+    /**
+     * Retraso medido por el último latido, o negativo si la réplica no
+     * respondió, con el instante (ms) de la medida.
+     */
+    public void actualizarRetrasoReplica(long retrasoMs, long medidoEn) {
+        this.medida = new MedidaRetraso(retrasoMs, medidoEn);
+    }
+
+    /**
+     * Retraso según el último latido, o negativo si la réplica no respondió
+     * o la medida ya caducó.
+     */
+    public long getRetrasoReplicaMs() {
+        MedidaRetraso actual = medida;
+        return caducada(actual) ? -1 : actual.retrasoMs();
+    }
+
+    /** La réplica respondió a un latido reciente y no supera el retraso máximo. */
+    public boolean isReplicaUtilizable() {
+        return motivoReplica() == null;
+    }
+
+    private String motivoParaPrimario() {
+        String motivo = motivoReplica();
+        if (motivo != null) {
+            return motivo;
+        }
+        if (escrituraReciente()) {
+            return "lectura-propia";
+        }
+        return null;
+    }
+
+    private String motivoReplica() {
+        MedidaRetraso actual = medida;
+        if (actual.retrasoMs() < 0) {
+            return "replica-no-disponible";
+        }
+        if (caducada(actual)) {
+            return "retraso-desconocido";
+        }
+        if (actual.retrasoMs() > retrasoMaximoMs) {
+            return "replica-retrasada";
+        }
+        return null;
+    }
+
+    private boolean caducada(MedidaRetraso actual) {
+        return reloj.millis() - actual.medidoEn() > caducidadMedidaMs;
+    }
+
+    /**
+     * Al confirmarse la transacción de escritura, abre la ventana de lectura
+     * propia del usuario y del hilo.
+     */
+    private void registrarEscritura() {
+        if (ventanaLecturaPropiaMs == 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String usuario = usuarioActual();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long ahora = reloj.millis();
+                escrituraDelHilo.set(ahora);
+                if (usuario != null) {
+                    escriturasPorUsuario.put(usuario, ahora);
+                    if (escriturasPorUsuario.size() > MAXIMO_USUARIOS) {
+                        escriturasPorUsuario.values().removeIf(marca -> ahora - marca > ventanaLecturaPropiaMs);
+                    }
+                }
+            }
+        });
+    }
+
+    private boolean escrituraReciente() {
+        long ahora = reloj.millis();
+        Long delHilo = escrituraDelHilo.get();
+        if (delHilo != null && ahora - delHilo <= ventanaLecturaPropiaMs) {
+            return true;
+        }
+        String usuario = usuarioActual();
+        Long delUsuario = usuario != null ? escriturasPorUsuario.get(usuario) : null;
+        return delUsuario != null && ahora - delUsuario <= ventanaLecturaPropiaMs;
+    }
+
+    private static String usuarioActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion == null || !autenticacion.isAuthenticated()
+                || autenticacion instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return autenticacion.getName();
+    }
+
+    private void contar(Destino destino, String motivo) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(METRICA, "destino", destino.name().toLowerCase(), "motivo", motivo).increment();
+        }
+    }
+}
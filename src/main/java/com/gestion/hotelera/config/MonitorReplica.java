@@ -0,0 +1,163 @@
+package com.gestion.hotelera.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el retraso de la réplica con latidos, al estilo de pt-heartbeat: en
+ * cada comprobación lee en la réplica el último latido de este nodo y
+ * escribe uno nuevo en el primario. Si la réplica ya tiene el latido
+ * anterior el retraso es 0; si no, es el tiempo transcurrido desde el más
+ * reciente que sí tiene (también en la primera comprobación, porque la
+ * fila puede ser de un arranque anterior). Si la réplica no responde o aún no tiene ningún
+ * latido, el enrutador manda todas las lecturas al primario.
+ *
+ * Cada nodo usa su propia fila (app.tareas.nodo o host + pid + sufijo
+ * aleatorio) para comparar solo instantes de su propio reloj.
+ *
+ * Las comprobaciones corren en un hilo propio y no en el planificador común
+ * de @Scheduled: si una tarea larga lo ocupara, el retraso se quedaría
+ * congelado en su último valor. Aun así cada medida lleva su instante, y el
+ * enrutador la ignora cuando caduca.
+ */
+public class MonitorReplica {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitorReplica.class);
+
+    private final JdbcTemplate primario;
+    private final JdbcTemplate replica;
+    private final EnrutadorDataSource enrutador;
+    private final String nodo;
+    private final long periodoMs;
+    private final Clock reloj;
+    private final ScheduledExecutorService latidos;
+    private volatile String[] sentencias;
+    private long ultimoLatidoEscrito = -1;
+    private boolean replicaCaida;
+
+    public MonitorReplica(DataSource primario, DataSource replica, EnrutadorDataSource enrutador, String nodo,
+            long periodoMs, Clock reloj, MeterRegistry meterRegistry) {
+        if (periodoMs <= 0) {
+            throw new IllegalArgumentException("El intervalo de los latidos de la réplica debe ser positivo");
+        }
+        this.primario = new JdbcTemplate(primario);
+        this.replica = new JdbcTemplate(replica);
+        this.enrutador = enrutador;
+        this.nodo = nodo;
+        this.periodoMs = periodoMs;
+        this.reloj = reloj;
+        this.latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "latido-replica");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        Gauge.builder("hotel.datasource.replica.retraso", enrutador,
+                e -> e.getRetrasoReplicaMs() >= 0 ? e.getRetrasoReplicaMs() / 1000.0 : Double.NaN)
+                .description("Retraso de la réplica según el último latido; NaN si no respondió")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("hotel.datasource.replica.utilizable", enrutador, e -> e.isReplicaUtilizable() ? 1 : 0)
+                .description("1 si las lecturas pueden ir a la réplica, 0 si van todas al primario")
+                .register(meterRegistry);
+    }
+
+    /**
+     * La primera comprobación llega tras un intervalo; hasta entonces las
+     * lecturas van al primario.
+     */
+    @PostConstruct
+    public void iniciar() {
+        latidos.scheduleWithFixedDelay(this::comprobarSinFallar, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        latidos.shutdownNow();
+    }
+
+    public synchronized void comprobar() {
+        String[] sql = sentencias();
+        long ahora = reloj.millis();
+        long retraso;
+        try {
+            List<Long> leido = replica.queryForList(sql[0], Long.class, nodo);
+            if (leido.isEmpty()) {
+                retraso = -1;
+            } else {
+                long latido = leido.get(0);
+                retraso = ultimoLatidoEscrito >= 0 && latido >= ultimoLatidoEscrito ? 0 : Math.max(0, ahora - latido);
+            }
+            if (replicaCaida) {
+                logger.info("La réplica vuelve a responder");
+                replicaCaida = false;
+            }
+        } catch (DataAccessException e) {
+            retraso = -1;
+            if (!replicaCaida) {
+                logger.warn("La réplica no responde; las lecturas van al primario: {}", e.getMessage());
+                replicaCaida = true;
+            }
+        }
+        enrutador.actualizarRetrasoReplica(retraso, ahora);
+
+        try {
+            if (primario.update(sql[1], ahora, nodo) == 0) {
+                primario.update(sql[2], nodo, ahora);
+            }
+            ultimoLatidoEscrito = ahora;
+        } catch (DataAccessException e) {
+            logger.warn("No se pudo escribir el latido de la réplica en el primario: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Un error sin capturar cancelaría las comprobaciones siguientes.
+     */
+    private void comprobarSinFallar() {
+        try {
+            comprobar();
+        } catch (RuntimeException e) {
+            logger.error("Error al comprobar el retraso de la réplica: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lectura, actualización e inserción del latido, con las comillas de
+     * identificador de la base de datos (la tabla se crea con
+     * globally_quoted_identifiers).
+     */
+    private String[] sentencias() {
+        if (sentencias == null) {
+            String q;
+            try {
+                q = JdbcUtils.extractDatabaseMetaData(primario.getDataSource(),
+                        DatabaseMetaData::getIdentifierQuoteString).trim();
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("No se pudo identificar la base de datos del primario", e);
+            }
+            String tabla = q + "latidos_replica" + q;
+            sentencias = new String[] {
+                    "SELECT " + q + "marca" + q + " FROM " + tabla + " WHERE " + q + "nodo" + q + " = ?",
+                    "UPDATE " + tabla + " SET " + q + "marca" + q + " = ? WHERE " + q + "nodo" + q + " = ?",
+                    "INSERT INTO " + tabla + " (" + q + "nodo" + q + ", " + q + "marca" + q + ") VALUES (?, ?)" };
+        }
+        return sentencias;
+    }
+}
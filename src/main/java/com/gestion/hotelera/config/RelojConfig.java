@@ -0,0 +1,20 @@
+package com.gestion.hotelera.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Reloj con el que se comparan instantes guardados: leases de tareas,
+ * versión de datos cacheada y latidos de la réplica. Las pruebas lo
+ * sustituyen por uno que pueden adelantar en lugar de esperar.
+ */
+@Configuration(proxyBeanMethods = false)
+public class RelojConfig {
+
+    @Bean
+    public Clock reloj() {
+        return Clock.systemDefaultZone();
+    }
+}
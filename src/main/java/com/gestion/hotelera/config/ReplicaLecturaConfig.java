@@ -0,0 +1,87 @@
+package com.gestion.hotelera.config;
+
+import com.gestion.hotelera.service.CoordinadorTareas;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+
+/**
+ * Réplica de lectura: con app.datasource.replica.url definida, el DataSource
+ * de la aplicación pasa a ser un {@link EnrutadorDataSource} sobre dos pools
+ * Hikari, el del primario (spring.datasource.*) y el de la réplica
+ * (app.datasource.replica.*). Los pools son beans, así que Actuator publica
+ * sus métricas como hikaricp.connections.* con pool=primario o pool=replica.
+ * Sin la propiedad se usa el DataSource de siempre.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class ReplicaLecturaConfig {
+
+    private static final int CADUCIDAD_EN_LATIDOS = 3;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource poolPrimario(DataSourceProperties propiedades) {
+        HikariDataSource pool = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primario");
+        return pool;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource poolReplica(DataSourceProperties propiedades,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:}") String usuario,
+            @Value("${app.datasource.replica.password:}") String contrasena) {
+        HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url)
+                .username(usuario.isEmpty() ? propiedades.determineUsername() : usuario)
+                .password(contrasena.isEmpty() ? propiedades.determinePassword() : contrasena)
+                .build();
+        pool.setPoolName("replica");
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    @Bean
+    public EnrutadorDataSource enrutadorDataSource(@Qualifier("poolPrimario") DataSource poolPrimario,
+            @Qualifier("poolReplica") DataSource poolReplica, MeterRegistry meterRegistry, Clock reloj,
+            @Value("${app.datasource.replica.ventana-lectura-propia-ms:5000}") long ventanaLecturaPropiaMs,
+            @Value("${app.datasource.replica.retraso-maximo-ms:2000}") long retrasoMaximoMs,
+            @Value("${app.datasource.replica.latido-ms:1000}") long latidoMs) {
+        // Una medida que no se renueva en tres latidos ya no dice nada del retraso
+        return new EnrutadorDataSource(poolPrimario, poolReplica, ventanaLecturaPropiaMs, retrasoMaximoMs,
+                CADUCIDAD_EN_LATIDOS * latidoMs, reloj, meterRegistry);
+    }
+
+    /**
+     * DataSource de JPA, JdbcTemplate y el resto de la aplicación.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutadorDataSource enrutadorDataSource) {
+        return new LazyConnectionDataSourceProxy(enrutadorDataSource);
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("poolPrimario") DataSource poolPrimario,
+            @Qualifier("poolReplica") DataSource poolReplica, EnrutadorDataSource enrutadorDataSource,
+            MeterRegistry meterRegistry, Clock reloj, @Value("${app.tareas.nodo:}") String nodo,
+            @Value("${app.datasource.replica.latido-ms:1000}") long latidoMs) {
+        return new MonitorReplica(poolPrimario, poolReplica, enrutadorDataSource,
+                nodo.isBlank() ? CoordinadorTareas.generarNombreNodo() : nodo.trim(), latidoMs, reloj,
+                meterRegistry);
+    }
+}
@@ -96,6 +96,7 @@ public class SecurityConfig {
 
                                                 // RECEPCIONISTA o ADMIN: gestión operativa
                                                 .requestMatchers("/recepcion/**", 
+                                                                "/dashboard/eventos",
                                                                 "/reservas/checkin/**", 
                                                                 "/reservas/checkout/**")
                                                 .hasAnyAuthority("ROLE_ADMIN", "ROLE_RECEPCIONISTA")
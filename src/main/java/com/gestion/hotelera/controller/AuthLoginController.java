@@ -1,5 +1,6 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.enums.EstadoHabitacion;
 import com.gestion.hotelera.model.Cliente;
 import com.gestion.hotelera.model.Usuario;
 import com.gestion.hotelera.model.Habitacion;
@@ -80,7 +81,7 @@ public class AuthLoginController {
 
             // Agrupar por tipo y obtener una muestra de cada tipo
             Map<String, List<Habitacion>> habitacionesPorTipo = todasHabitaciones.stream()
-                    .filter(h -> "DISPONIBLE".equalsIgnoreCase(h.getEstado()))
+                    .filter(h -> h.getEstadoHabitacion() == EstadoHabitacion.DISPONIBLE)
                     .collect(Collectors.groupingBy(Habitacion::getTipo));
 
             // Obtener una habitación de cada tipo para mostrar en el index
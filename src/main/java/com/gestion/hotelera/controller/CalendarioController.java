@@ -1,100 +1,92 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.service.CalendarioOcupacionService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/calendario")
 @PreAuthorize("hasAnyRole('ADMIN', 'RECEPCIONISTA')")
 public class CalendarioController {
 
-    private final com.gestion.hotelera.service.HabitacionService habitacionService;
-    private final com.gestion.hotelera.service.ReservaService reservaService;
+    private static final Locale ESPANOL = Locale.forLanguageTag("es-ES");
+    private static final DateTimeFormatter FORMATO_DIA = DateTimeFormatter.ofPattern("EEE dd", ESPANOL);
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("MMMM yyyy", ESPANOL);
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd MMM yyyy", ESPANOL);
+
+    private final CalendarioOcupacionService calendarioOcupacionService;
 
-    public CalendarioController(com.gestion.hotelera.service.HabitacionService habitacionService,
-            com.gestion.hotelera.service.ReservaService reservaService) {
-        this.habitacionService = habitacionService;
-        this.reservaService = reservaService;
+    public CalendarioController(CalendarioOcupacionService calendarioOcupacionService) {
+        this.calendarioOcupacionService = calendarioOcupacionService;
     }
 
     @GetMapping
-    public String mostrarCalendario(Model model) {
-        java.time.LocalDate now = java.time.LocalDate.now();
-        java.time.YearMonth yearMonth = java.time.YearMonth.from(now);
-        java.time.LocalDate start = yearMonth.atDay(1);
-        java.time.LocalDate end = yearMonth.atEndOfMonth();
-
-        // 1. Días del mes
-        java.util.List<java.util.Map<String, Object>> diasMes = new java.util.ArrayList<>();
-        java.time.format.DateTimeFormatter dayFormatter = java.time.format.DateTimeFormatter.ofPattern("EEE dd",
-                java.util.Locale.forLanguageTag("es-ES"));
-
-        for (java.time.LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-            java.util.Map<String, Object> diaInfo = new java.util.HashMap<>();
+    public String mostrarCalendario(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) String vista,
+            Model model) {
+        LocalDate hoy = LocalDate.now();
+        CalendarioOcupacionService.Ventana ventana = CalendarioOcupacionService.ventana(
+                CalendarioOcupacionService.Vista.desde(vista), fecha != null ? fecha : hoy);
+        CalendarioOcupacionService.MatrizOcupacion matriz = calendarioOcupacionService.construir(ventana.desde(),
+                ventana.dias());
+
+        List<Map<String, Object>> diasMes = new ArrayList<>(ventana.dias());
+        for (LocalDate date = ventana.desde(); date.isBefore(ventana.hasta()); date = date.plusDays(1)) {
+            Map<String, Object> diaInfo = new HashMap<>();
             diaInfo.put("fecha", date.toString());
-            diaInfo.put("nombre", date.format(dayFormatter));
-            diaInfo.put("esHoy", date.equals(now));
+            diaInfo.put("nombre", date.format(FORMATO_DIA));
+            diaInfo.put("esHoy", date.equals(hoy));
             diasMes.add(diaInfo);
         }
 
-        // 2. Habitaciones
-        java.util.List<com.gestion.hotelera.model.Habitacion> habitaciones = habitacionService
-                .obtenerTodasLasHabitaciones();
-
-        // 3. Mapa de disponibilidad: Map<HabitacionID, Map<Fecha, Estado>>
-        // Estado puede ser: "LIBRE", "OCUPADA", "MANTENIMIENTO", "LIMPIEZA"
-        java.util.Map<Long, java.util.Map<String, String>> disponibilidad = new java.util.HashMap<>();
-
-        java.util.List<com.gestion.hotelera.model.Reserva> reservasMes = reservaService.obtenerReservasPorPeriodo(start,
-                end);
-
-        for (com.gestion.hotelera.model.Habitacion hab : habitaciones) {
-            java.util.Map<String, String> diasEstado = new java.util.HashMap<>();
-
-            // Inicializar como libre
-            for (java.time.LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-                diasEstado.put(date.toString(), "LIBRE");
-            }
-
-            // Marcar ocupadas por reservas
-            for (com.gestion.hotelera.model.Reserva res : reservasMes) {
-                if (res.getHabitacion().getId().equals(hab.getId()) &&
-                        (res.getEstadoReserva().equals("ACTIVA") || res.getEstadoReserva().equals("PENDIENTE"))) {
-
-                    java.time.LocalDate resStart = res.getFechaInicio();
-                    java.time.LocalDate resEnd = res.getFechaFin();
+        model.addAttribute("diasMes", diasMes);
+        model.addAttribute("habitaciones", matriz.getHabitaciones());
+        model.addAttribute("matriz", matriz);
+        model.addAttribute("ventana", ventana);
+        model.addAttribute("vista", ventana.vista().name().toLowerCase(Locale.ROOT));
+        model.addAttribute("mesAnio", titulo(ventana));
 
-                    for (java.time.LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-                        if (!date.isBefore(resStart) && !date.isAfter(resEnd)) {
-                            diasEstado.put(date.toString(), "OCUPADA");
-                        }
-                    }
-                }
-            }
+        return "calendario";
+    }
 
-            // Override con estado actual de la habitación si es relevante (ej.
-            // Mantenimiento)
-            // Esto es simplificado, idealmente tendríamos un historial de estados de
-            // habitación
-            if ("MANTENIMIENTO".equals(hab.getEstado())) {
-                // Para el demo, marcamos hoy como mantenimiento si la habitación está en
-                // mantenimiento
-                diasEstado.put(now.toString(), "MANTENIMIENTO");
-            }
+    /**
+     * Matriz de ocupación codificada por tramos: cada fila es una lista de
+     * pares (estado, días) con los códigos L, O, M y C.
+     */
+    @GetMapping("/api/matriz")
+    @ResponseBody
+    public Map<String, Object> obtenerMatriz(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(defaultValue = "30") int dias) {
+        LocalDate inicio = desde != null ? desde : LocalDate.now();
+        CalendarioOcupacionService.MatrizOcupacion matriz = calendarioOcupacionService.construir(inicio, dias);
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("desde", inicio);
+        respuesta.put("hasta", inicio.plusDays(dias));
+        respuesta.put("dias", dias);
+        respuesta.put("filas", matriz.codificar());
+        return respuesta;
+    }
 
-            disponibilidad.put(hab.getId(), diasEstado);
+    private String titulo(CalendarioOcupacionService.Ventana ventana) {
+        if (ventana.vista() == CalendarioOcupacionService.Vista.MES) {
+            return ventana.desde().format(FORMATO_MES);
         }
-
-        model.addAttribute("diasMes", diasMes);
-        model.addAttribute("habitaciones", habitaciones);
-        model.addAttribute("disponibilidad", disponibilidad);
-        model.addAttribute("mesAnio", yearMonth
-                .format(java.time.format.DateTimeFormatter.ofPattern("MMMM yyyy",
-                        java.util.Locale.forLanguageTag("es-ES"))));
-
-        return "calendario";
+        return ventana.desde().format(FORMATO_FECHA) + " - " + ventana.hasta().minusDays(1).format(FORMATO_FECHA);
     }
 }
@@ -1,5 +1,6 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.model.Cliente;
 import com.gestion.hotelera.model.Reserva;
 import com.gestion.hotelera.service.ClienteService;
@@ -47,10 +48,10 @@ public class ClienteAreaController {
             // Obtener reservas del cliente
             List<Reserva> todasReservas = reservaService.obtenerReservasPorClienteId(cliente.getId());
             long reservasActivas = todasReservas.stream()
-                    .filter(r -> "ACTIVA".equals(r.getEstadoReserva()) || "PENDIENTE".equals(r.getEstadoReserva()))
+                    .filter(r -> r.getEstado() == EstadoReserva.ACTIVA || r.getEstado() == EstadoReserva.PENDIENTE)
                     .count();
             long reservasFinalizadas = todasReservas.stream()
-                    .filter(r -> "FINALIZADA".equals(r.getEstadoReserva()))
+                    .filter(r -> r.getEstado() == EstadoReserva.FINALIZADA)
                     .count();
 
             model.addAttribute("cliente", cliente);
@@ -1,8 +1,10 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.model.Cliente;
 import com.gestion.hotelera.model.Habitacion;
 import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.service.BusquedaDisponibilidadService;
 import com.gestion.hotelera.service.ClienteService;
 import com.gestion.hotelera.service.HabitacionService;
 import com.gestion.hotelera.service.ReservaService;
@@ -14,22 +16,29 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/cliente/reservas")
 public class ClienteReservaController {
 
+    private static final int MARGEN_FECHAS_ALTERNATIVAS = 3;
+
     private final ClienteService clienteService;
     private final HabitacionService habitacionService;
     private final ReservaService reservaService;
+    private final BusquedaDisponibilidadService busquedaDisponibilidadService;
 
     public ClienteReservaController(ClienteService clienteService,
             HabitacionService habitacionService,
-            ReservaService reservaService) {
+            ReservaService reservaService,
+            BusquedaDisponibilidadService busquedaDisponibilidadService) {
         this.clienteService = clienteService;
         this.habitacionService = habitacionService;
         this.reservaService = reservaService;
+        this.busquedaDisponibilidadService = busquedaDisponibilidadService;
     }
 
     @GetMapping("/crear")
@@ -91,7 +100,7 @@ public class ClienteReservaController {
                 return "redirect:/cliente/reservas/crear";
             }
 
-            reserva.setEstadoReserva("PENDIENTE");
+            reserva.setEstado(EstadoReserva.PENDIENTE);
 
             Reserva reservaGuardada = reservaService.crearOActualizarReserva(reserva);
 
@@ -109,6 +118,9 @@ public class ClienteReservaController {
     public String solicitarReserva(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaEntrada,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaSalida,
             @RequestParam String tipo,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(required = false) Integer huespedes,
             Authentication auth,
             RedirectAttributes redirectAttributes) {
         try {
@@ -129,20 +141,22 @@ public class ClienteReservaController {
                 return "redirect:/cliente/reservas/crear";
             }
 
-            // Buscar habitación disponible del tipo seleccionado
-            // Nota: Esto asume que el servicio devuelve habitaciones disponibles para las
-            // fechas por defecto o lógica actual
-            // Idealmente deberíamos pasar las fechas al servicio, pero usaremos la lógica
-            // existente
-            var disponibles = habitacionService.obtenerHabitacionesDisponiblesParaCliente(cliente.getId());
-
-            var habitacionOpt = disponibles.stream()
-                    .filter(h -> h.getTipo().equalsIgnoreCase(tipo))
-                    .findFirst();
+            // La más barata del tipo pedido que esté libre todas las noches del rango
+            var criterios = new BusquedaDisponibilidadService.Criterios(
+                    fechaEntrada, fechaSalida, tipo, precioMin, precioMax, huespedes);
+            var habitacionOpt = busquedaDisponibilidadService.buscarPrimeraDisponible(criterios);
 
             if (habitacionOpt.isEmpty()) {
-                redirectAttributes.addFlashAttribute("errorMessage",
-                        "No hay habitaciones disponibles del tipo " + tipo + " para estas fechas.");
+                List<BusquedaDisponibilidadService.VentanaDisponible> alternativas = busquedaDisponibilidadService
+                        .buscarFechasFlexibles(criterios, MARGEN_FECHAS_ALTERNATIVAS, 3);
+                String mensaje = "No hay habitaciones disponibles del tipo " + tipo + " para estas fechas.";
+                if (!alternativas.isEmpty()) {
+                    mensaje += " Fechas alternativas: " + alternativas.stream()
+                            .map(v -> v.fechaInicio() + " al " + v.fechaFin())
+                            .collect(Collectors.joining(", ")) + ".";
+                }
+                redirectAttributes.addFlashAttribute("errorMessage", mensaje);
+                redirectAttributes.addFlashAttribute("fechasAlternativas", alternativas);
                 return "redirect:/cliente/reservas/crear";
             }
 
@@ -151,7 +165,7 @@ public class ClienteReservaController {
             reserva.setHabitacion(habitacionOpt.get());
             reserva.setFechaInicio(fechaEntrada);
             reserva.setFechaFin(fechaSalida);
-            reserva.setEstadoReserva("PENDIENTE");
+            reserva.setEstado(EstadoReserva.PENDIENTE);
 
             Reserva reservaGuardada = reservaService.crearOActualizarReserva(reserva);
 
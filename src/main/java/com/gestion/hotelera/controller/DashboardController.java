@@ -1,9 +1,10 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.service.ClienteService;
 import com.gestion.hotelera.service.ReservaService;
-import com.gestion.hotelera.service.HabitacionService;
 import com.gestion.hotelera.service.EmpleadoService;
+import com.gestion.hotelera.service.InstantaneaDashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -20,10 +21,10 @@ public class DashboardController {
     private ReservaService reservaService;
 
     @Autowired
-    private HabitacionService habitacionService;
+    private EmpleadoService empleadoService;
 
     @Autowired
-    private EmpleadoService empleadoService;
+    private InstantaneaDashboardService instantaneaDashboardService;
 
     @GetMapping("/dashboard")
     public String mostrarDashboard(Model model, Authentication auth) {
@@ -43,11 +44,11 @@ public class DashboardController {
                         var reservas = reservaService.obtenerReservasPorClienteId(cliente.getId());
 
                         long reservasActivas = reservas.stream()
-                                .filter(r -> "ACTIVA".equals(r.getEstadoReserva())
-                                        || "PENDIENTE".equals(r.getEstadoReserva()))
+                                .filter(r -> r.getEstado() == EstadoReserva.ACTIVA
+                                        || r.getEstado() == EstadoReserva.PENDIENTE)
                                 .count();
                         long reservasFinalizadas = reservas.stream()
-                                .filter(r -> "FINALIZADA".equals(r.getEstadoReserva()))
+                                .filter(r -> r.getEstado() == EstadoReserva.FINALIZADA)
                                 .count();
 
                         model.addAttribute("cliente", cliente);
@@ -75,37 +76,8 @@ public class DashboardController {
                     // Si no se encuentra el empleado, continuar sin ese dato
                 }
 
-                long totalHabitaciones = habitacionService.contarHabitaciones();
-                long totalClientes = clienteService.contarClientes();
-                long totalReservas = reservaService.contarReservas();
-                long habitacionesDisponibles = habitacionService.contarDisponibles();
-                long habitacionesOcupadas = habitacionService.contarOcupadas();
-                long habitacionesMantenimiento = habitacionService.contarEnMantenimiento();
-                long totalEmpleados = empleadoService.contarEmpleados();
-                double ingresosTotales = reservaService.calcularIngresosTotales();
-                long reservasPendientes = reservaService.contarReservasPorEstado("PENDIENTE");
-                long reservasActivas = reservaService.contarReservasPorEstado("ACTIVA");
-                long checkInsHoy = reservaService.contarCheckInsHoy();
-                long checkOutsHoy = reservaService.contarCheckOutsHoy();
-                var ingresosUltimos30Dias = reservaService.getIngresosUltimosDias(30);
-
-                model.addAttribute("totalHabitaciones", totalHabitaciones);
-                model.addAttribute("totalClientes", totalClientes);
-                model.addAttribute("totalReservas", totalReservas);
-                model.addAttribute("habitacionesDisponibles", habitacionesDisponibles);
-                model.addAttribute("habitacionesOcupadas", habitacionesOcupadas);
-                model.addAttribute("habitacionesMantenimiento", habitacionesMantenimiento);
-                model.addAttribute("totalEmpleados", totalEmpleados);
-                model.addAttribute("ingresosTotales", ingresosTotales);
-                model.addAttribute("reservasPendientes", reservasPendientes);
-                model.addAttribute("reservasActivas", reservasActivas);
-                model.addAttribute("ingresosUltimos30Dias", ingresosUltimos30Dias);
-                model.addAttribute("checkInsHoy", checkInsHoy);
-                model.addAttribute("checkOutsHoy", checkOutsHoy);
-                model.addAttribute("checkInsHoy", checkInsHoy);
-                model.addAttribute("checkOutsHoy", checkOutsHoy);
-                model.addAttribute("ultimasReservas", reservaService.obtenerUltimasReservas(5));
-                model.addAttribute("ingresosUltimos30Dias", reservaService.getIngresosUltimosDias(30));
+                // KPIs compartidos: se recalculan como mucho una vez por TTL o cambio de datos
+                model.addAllAttributes(instantaneaDashboardService.obtener().comoModelo());
 
                 return "dashboard";
             }
@@ -0,0 +1,47 @@
+package com.gestion.hotelera.controller;
+
+import com.gestion.hotelera.service.PanelEnVivoService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Eventos en vivo (server-sent events) del panel de recepción y del
+ * dashboard del personal.
+ */
+@Controller
+@PreAuthorize("hasAnyRole('ADMIN', 'RECEPCIONISTA')")
+public class PanelEnVivoController {
+
+    private final PanelEnVivoService panelEnVivoService;
+
+    public PanelEnVivoController(PanelEnVivoService panelEnVivoService) {
+        this.panelEnVivoService = panelEnVivoService;
+    }
+
+    @GetMapping(value = "/recepcion/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> eventosRecepcion() {
+        return suscribir(PanelEnVivoService.RECEPCION);
+    }
+
+    @GetMapping(value = "/dashboard/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> eventosDashboard() {
+        return suscribir(PanelEnVivoService.DASHBOARD);
+    }
+
+    private ResponseEntity<SseEmitter> suscribir(String panel) {
+        try {
+            return ResponseEntity.ok()
+                    .header("Cache-Control", "no-cache")
+                    .header("X-Accel-Buffering", "no")
+                    .body(panelEnVivoService.suscribir(panel));
+        } catch (IllegalStateException e) {
+            // Demasiados paneles abiertos: el navegador reintenta más tarde
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.model.Auditoria;
+import com.gestion.hotelera.model.Habitacion;
 import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.service.ConsultasParalelas;
 import com.gestion.hotelera.service.HabitacionService;
+import com.gestion.hotelera.service.PanelEnVivoService;
 import com.gestion.hotelera.service.ReservaService;
 import com.gestion.hotelera.service.AuditoriaService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,6 +22,7 @@ import java.util.stream.Collectors;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Locale;
+import java.util.function.Supplier;
 
 @Controller
 @RequestMapping("/recepcion")
@@ -27,71 +32,65 @@ public class RecepcionController {
     private final ReservaService reservaService;
     private final HabitacionService habitacionService;
     private final AuditoriaService auditoriaService;
+    private final ConsultasParalelas consultasParalelas;
 
     public RecepcionController(ReservaService reservaService, HabitacionService habitacionService,
-            AuditoriaService auditoriaService) {
+            AuditoriaService auditoriaService, ConsultasParalelas consultasParalelas) {
         this.reservaService = reservaService;
         this.habitacionService = habitacionService;
         this.auditoriaService = auditoriaService;
+        this.consultasParalelas = consultasParalelas;
     }
 
     @GetMapping
     public String mostrarPanelRecepcion(Model model) {
+        // Consultas independientes en paralelo; las que no lleguen a tiempo se muestran vacías
+        ConsultasParalelas.Lote lote = consultasParalelas.nuevoLote("recepcion");
+        Supplier<List<Reserva>> llegadasHoy = lote.enviar("llegadas", reservaService::obtenerLlegadasHoy, List.of());
+        Supplier<List<Reserva>> salidasHoy = lote.enviar("salidas", reservaService::obtenerSalidasHoy, List.of());
+        Supplier<Long> ocupadas = lote.enviar("ocupadas", habitacionService::contarOcupadas, 0L);
+        Supplier<Long> disponibles = lote.enviar("disponibles", habitacionService::contarDisponibles, 0L);
+        Supplier<Long> total = lote.enviar("habitaciones", habitacionService::contarHabitaciones, 0L);
+        Supplier<List<Habitacion>> habitaciones = lote.enviar("listado-habitaciones",
+                habitacionService::obtenerTodasLasHabitaciones, List.of());
+        Supplier<Long> estancias = lote.enviar("estancias",
+                () -> reservaService.contarReservasPorEstado("ACTIVA"), 0L);
+        Supplier<List<Auditoria>> registros = lote.enviar("actividad",
+                () -> auditoriaService.obtenerTodosLosLogs(PageRequest.of(0, 5)).getContent(), List.of());
+        lote.esperar();
+
         // Listas para tablas
-        List<Reserva> llegadas = reservaService.obtenerLlegadasHoy();
-        List<Reserva> salidas = reservaService.obtenerSalidasHoy();
+        List<Reserva> llegadas = llegadasHoy.get();
+        List<Reserva> salidas = salidasHoy.get();
 
         // Estadísticas
         long totalLlegadas = llegadas.size();
         long totalSalidas = salidas.size();
-        long habitacionesOcupadas = habitacionService.contarOcupadas();
-        long habitacionesDisponibles = habitacionService.contarDisponibles();
-        long totalHabitaciones = habitacionService.contarHabitaciones();
+        long habitacionesOcupadas = ocupadas.get();
+        long habitacionesDisponibles = disponibles.get();
+        long totalHabitaciones = total.get();
 
         int porcentajeOcupacion = totalHabitaciones > 0 ? (int) ((habitacionesOcupadas * 100) / totalHabitaciones) : 0;
 
         // Datos para la vista (alineados con la plantilla)
         model.addAttribute("proximasLlegadas", llegadas);
         model.addAttribute("salidas", salidas);
-        model.addAttribute("habitaciones", habitacionService.obtenerTodasLasHabitaciones());
+        model.addAttribute("habitaciones", habitaciones.get());
 
         model.addAttribute("llegadasHoy", totalLlegadas);
         model.addAttribute("salidasHoy", totalSalidas);
-        model.addAttribute("estanciasActuales", reservaService.contarReservasPorEstado("ACTIVA"));
+        model.addAttribute("estanciasActuales", estancias.get());
         model.addAttribute("habitacionesOcupadas", habitacionesOcupadas);
         model.addAttribute("habitacionesDisponibles", habitacionesDisponibles);
         model.addAttribute("porcentajeOcupacion", porcentajeOcupacion);
+        model.addAttribute("datosParciales", lote.isParcial());
 
         // Actividad reciente desde Auditoria
-        var logs = auditoriaService.obtenerTodosLosLogs(PageRequest.of(0, 5)).getContent();
-        var actividadReciente = logs.stream().map(log -> {
-            Map<String, Object> map = new HashMap<>();
-            String tipo = "INFO";
-            if (log.getTipoAccion() != null) {
-                if (log.getTipoAccion().contains("RESERVA"))
-                    tipo = "RESERVA";
-                else if (log.getTipoAccion().contains("CHECKIN"))
-                    tipo = "CHECKIN";
-                else if (log.getTipoAccion().contains("CANCEL"))
-                    tipo = "CANCEL";
-            }
-
-            map.put("tipo", tipo);
-            map.put("titulo", log.getTipoAccion());
-            map.put("descripcion", log.getDetalleAccion());
-
-            long minutes = Duration.between(log.getTimestamp(), LocalDateTime.now()).toMinutes();
-            String tiempo;
-            if (minutes < 60)
-                tiempo = "Hace " + minutes + " minutos";
-            else if (minutes < 1440)
-                tiempo = "Hace " + (minutes / 60) + " horas";
-            else
-                tiempo = "Hace " + (minutes / 1440) + " días";
-
-            map.put("tiempo", tiempo);
-            return map;
-        }).collect(Collectors.toList());
+        var logs = registros.get();
+        var actividadReciente = logs.stream()
+                .map(log -> PanelEnVivoService.describirActividad(log.getTipoAccion(), log.getDetalleAccion(),
+                        log.getTimestamp()))
+                .collect(Collectors.toList());
 
         model.addAttribute("actividadReciente", actividadReciente);
 
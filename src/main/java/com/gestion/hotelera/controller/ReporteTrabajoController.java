@@ -0,0 +1,123 @@
+package com.gestion.hotelera.controller;
+
+import com.gestion.hotelera.enums.EstadoTrabajoReporte;
+import com.gestion.hotelera.enums.PrioridadReporte;
+import com.gestion.hotelera.enums.TipoReporte;
+import com.gestion.hotelera.service.ColaReportes;
+import com.gestion.hotelera.service.ResultadoReporte;
+import com.gestion.hotelera.service.TrabajoReporte;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reportes pesados en segundo plano: se piden con POST, se consulta su
+ * estado y se descargan cuando están listos. Las tres peticiones deben
+ * llegar a la misma instancia (ver {@link ColaReportes}).
+ */
+@Controller
+@RequestMapping("/reportes/trabajos")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReporteTrabajoController {
+
+    private final ColaReportes colaReportes;
+
+    public ReporteTrabajoController(ColaReportes colaReportes) {
+        this.colaReportes = colaReportes;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> enviar(
+            @RequestParam String tipo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(required = false) String prioridad) {
+        if (fechaInicio == null || fechaFin == null) {
+            fechaFin = LocalDate.now();
+            fechaInicio = fechaFin.minusDays(30);
+        }
+        try {
+            TrabajoReporte trabajo = colaReportes.enviar(TipoReporte.fromString(tipo), fechaInicio, fechaFin,
+                    PrioridadReporte.fromString(prioridad));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/reportes/trabajos/" + trabajo.getId()))
+                    .body(aMapa(trabajo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> estado(@PathVariable String id) {
+        return colaReportes.obtenerTrabajo(id)
+                .map(trabajo -> ResponseEntity.ok(aMapa(trabajo)))
+                .orElseGet(ReporteTrabajoController::noEncontrado);
+    }
+
+    /**
+     * Contenido del reporte; 409 con el estado si todavía no está listo o falló.
+     */
+    @GetMapping("/{id}/descarga")
+    public ResponseEntity<?> descargar(@PathVariable String id) {
+        TrabajoReporte trabajo = colaReportes.obtenerTrabajo(id).orElse(null);
+        if (trabajo == null) {
+            return noEncontrado();
+        }
+        if (trabajo.getEstado() != EstadoTrabajoReporte.COMPLETADO) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(aMapa(trabajo));
+        }
+        ResultadoReporte resultado = trabajo.getResultado();
+        ContentDisposition disposicion = trabajo.getTipo() == TipoReporte.IMPRESION
+                ? ContentDisposition.inline().filename(resultado.archivo()).build()
+                : ContentDisposition.attachment().filename(resultado.archivo()).build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(resultado.tipoContenido()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposicion.toString())
+                .body(resultado.contenido());
+    }
+
+    /**
+     * Los trabajos solo existen en el nodo que los recibió y hasta que vence
+     * su retención.
+     */
+    private static ResponseEntity<Map<String, Object>> noEncontrado() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error",
+                "El trabajo no existe en este servidor: pudo caducar o haberse pedido a otra instancia"));
+    }
+
+    private static Map<String, Object> aMapa(TrabajoReporte trabajo) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        mapa.put("id", trabajo.getId());
+        mapa.put("tipo", trabajo.getTipo().name());
+        mapa.put("fechaInicio", trabajo.getFechaInicio().toString());
+        mapa.put("fechaFin", trabajo.getFechaFin().toString());
+        mapa.put("prioridad", trabajo.getPrioridad().name());
+        mapa.put("estado", trabajo.getEstado().getValor());
+        mapa.put("creadoEn", trabajo.getCreadoEn().toString());
+        mapa.put("iniciadoEn", trabajo.getIniciadoEn() != null ? trabajo.getIniciadoEn().toString() : null);
+        mapa.put("terminadoEn", trabajo.getTerminadoEn() != null ? trabajo.getTerminadoEn().toString() : null);
+        mapa.put("desdeCache", trabajo.isDesdeCache());
+        if (trabajo.getError() != null) {
+            mapa.put("error", trabajo.getError());
+        }
+        if (trabajo.getEstado() == EstadoTrabajoReporte.COMPLETADO) {
+            mapa.put("descarga", "/reportes/trabajos/" + trabajo.getId() + "/descarga");
+        }
+        return mapa;
+    }
+}
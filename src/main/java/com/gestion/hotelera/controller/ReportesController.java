@@ -1,17 +1,34 @@
 package com.gestion.hotelera.controller;
 
-import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.enums.DimensionCubo;
+import com.gestion.hotelera.model.ResumenDiario;
+import com.gestion.hotelera.service.ConsultaCubo;
+import com.gestion.hotelera.service.CuboReservasService;
+import com.gestion.hotelera.service.ExportacionReservaService;
+import com.gestion.hotelera.service.ReporteService;
 import com.gestion.hotelera.service.ReservaService;
-import com.gestion.hotelera.service.HabitacionService;
+import com.gestion.hotelera.service.ResultadoCubo;
+import com.gestion.hotelera.service.ResumenDiarioService;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Controller
 @RequestMapping("/reportes")
@@ -19,11 +36,19 @@ import java.util.stream.Collectors;
 public class ReportesController {
 
     private final ReservaService reservaService;
-    private final HabitacionService habitacionService;
+    private final ReporteService reporteService;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ExportacionReservaService exportacionReservaService;
+    private final CuboReservasService cuboReservasService;
 
-    public ReportesController(ReservaService reservaService, HabitacionService habitacionService) {
+    public ReportesController(ReservaService reservaService, ReporteService reporteService,
+            ResumenDiarioService resumenDiarioService, ExportacionReservaService exportacionReservaService,
+            CuboReservasService cuboReservasService) {
         this.reservaService = reservaService;
-        this.habitacionService = habitacionService;
+        this.reporteService = reporteService;
+        this.resumenDiarioService = resumenDiarioService;
+        this.exportacionReservaService = exportacionReservaService;
+        this.cuboReservasService = cuboReservasService;
     }
 
     @GetMapping
@@ -32,50 +57,13 @@ public class ReportesController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             Model model) {
 
-        // Obtener todas las reservas
-        List<Reserva> reservas = reservaService.obtenerTodasLasReservas();
-
         // Default to last 30 days if no dates provided
         if (fechaInicio == null || fechaFin == null) {
             fechaFin = LocalDate.now();
             fechaInicio = fechaFin.minusDays(30);
         }
 
-        // Filtrar por fechas
-        final LocalDate start = fechaInicio;
-        final LocalDate end = fechaFin;
-
-        reservas = reservas.stream()
-                .filter(r -> (r.getFechaInicio().isEqual(start) || r.getFechaInicio().isAfter(start)) &&
-                        (r.getFechaFin().isEqual(end) || r.getFechaFin().isBefore(end)))
-                .collect(Collectors.toList());
-
-        model.addAttribute("fechaInicio", fechaInicio);
-        model.addAttribute("fechaFin", fechaFin);
-
-        // Calcular KPIs basados en las reservas filtradas
-        double ingresosTotales = reservas.stream()
-                .filter(r -> "FINALIZADA".equals(r.getEstadoReserva()) || "ACTIVA".equals(r.getEstadoReserva()))
-                .mapToDouble(Reserva::getTotalPagar)
-                .sum();
-
-        long totalHabitaciones = habitacionService.contarHabitaciones();
-
-        // Ocupación basada en reservas activas en el periodo (aproximación)
-        long habitacionesOcupadas = reservas.stream()
-                .filter(r -> "ACTIVA".equals(r.getEstadoReserva()))
-                .map(Reserva::getHabitacion)
-                .distinct()
-                .count();
-
-        double tasaOcupacion = totalHabitaciones > 0 ? (double) habitacionesOcupadas / totalHabitaciones * 100 : 0.0;
-
-        long reservasFinalizadas = reservas.stream().filter(r -> "FINALIZADA".equals(r.getEstadoReserva())).count();
-        double adr = reservasFinalizadas > 0 ? ingresosTotales / reservasFinalizadas : 0.0;
-
-        model.addAttribute("ingresosTotales", ingresosTotales);
-        model.addAttribute("tasaOcupacion", String.format("%.1f", tasaOcupacion));
-        model.addAttribute("adr", String.format("%.2f", adr));
+        model.addAllAttributes(reporteService.obtenerModeloIndicadores(fechaInicio, fechaFin));
 
         return "reportes";
     }
@@ -123,52 +111,155 @@ public class ReportesController {
         }
     }
 
+    /**
+     * Resúmenes diarios por tipo de habitación: ingresos, descuentos,
+     * llegadas, salidas y noches ocupadas. Solo los días con datos.
+     */
+    @GetMapping("/api/resumen-diario")
+    @ResponseBody
+    public List<Map<String, Object>> getResumenDiario(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        try {
+            if (fechaInicio == null || fechaFin == null || fechaInicio.isAfter(fechaFin)) {
+                return List.of();
+            }
+            return resumenDiarioService.obtenerPorDiaYTipo(fechaInicio, fechaFin).stream()
+                    .map(ReportesController::aMapa)
+                    .toList();
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Análisis multidimensional sobre el cubo de reservas. Ejemplo:
+     * {@code /reportes/api/cubo?agrupar=tipo,mes&canal=WEB,MOSTRADOR&desde=2025-01-01&hasta=2025-12-31}.
+     * Cada dimensión salvo el mes admite una lista de valores separados por comas.
+     */
+    @GetMapping("/api/cubo")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> consultarCubo(
+            @RequestParam(defaultValue = "tipo") String agrupar,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam MultiValueMap<String, String> parametros) {
+        try {
+            List<DimensionCubo> dimensiones = Arrays.stream(agrupar.split(","))
+                    .map(String::trim)
+                    .filter(valor -> !valor.isEmpty())
+                    .map(DimensionCubo::fromParametro)
+                    .toList();
+            Map<DimensionCubo, Set<String>> filtros = new EnumMap<>(DimensionCubo.class);
+            for (DimensionCubo dimension : DimensionCubo.values()) {
+                List<String> valores = parametros.get(dimension.getParametro());
+                if (valores != null) {
+                    filtros.put(dimension, valores.stream()
+                            .flatMap(valor -> Arrays.stream(valor.split(",")))
+                            .map(String::trim)
+                            .filter(valor -> !valor.isEmpty())
+                            .collect(Collectors.toSet()));
+                }
+            }
+            return ResponseEntity.ok(aMapa(cuboReservasService.consultar(
+                    new ConsultaCubo(dimensiones, filtros, desde, hasta, null))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/exportar-pdf")
     public String exportarPdf(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             Model model) {
 
-        // Reutilizar lógica de filtrado (idealmente refactorizar a un servicio privado)
-        List<Reserva> reservas = reservaService.obtenerTodasLasReservas();
-
         if (fechaInicio == null || fechaFin == null) {
             fechaFin = LocalDate.now();
             fechaInicio = fechaFin.minusDays(30);
         }
 
-        final LocalDate start = fechaInicio;
-        final LocalDate end = fechaFin;
+        model.addAllAttributes(reporteService.obtenerModeloIndicadores(fechaInicio, fechaFin));
+        // Pasar lista de reservas para la tabla
+        model.addAttribute("reservas", reporteService.obtenerReservasDelPeriodo(fechaInicio, fechaFin));
 
-        reservas = reservas.stream()
-                .filter(r -> (r.getFechaInicio().isEqual(start) || r.getFechaInicio().isAfter(start)) &&
-                        (r.getFechaFin().isEqual(end) || r.getFechaFin().isBefore(end)))
-                .collect(Collectors.toList());
+        return "reporte-impresion";
+    }
 
-        model.addAttribute("fechaInicio", fechaInicio);
-        model.addAttribute("fechaFin", fechaFin);
-        model.addAttribute("reservas", reservas); // Pasar lista de reservas para la tabla
+    /**
+     * Descarga las reservas del periodo en CSV o XLSX, escritas fila a fila
+     * en la respuesta. El CSV va comprimido con gzip si el cliente lo acepta.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String codificaciones) {
 
-        double ingresosTotales = reservas.stream()
-                .filter(r -> "FINALIZADA".equals(r.getEstadoReserva()) || "ACTIVA".equals(r.getEstadoReserva()))
-                .mapToDouble(Reserva::getTotalPagar)
-                .sum();
+        if (fechaInicio == null || fechaFin == null) {
+            fechaFin = LocalDate.now();
+            fechaInicio = fechaFin.minusDays(30);
+        }
+        ExportacionReservaService.Formato tipo = ExportacionReservaService.Formato.desde(formato);
+        boolean gzip = tipo.isComprimible() && codificaciones != null && codificaciones.contains("gzip");
 
-        long totalHabitaciones = habitacionService.contarHabitaciones();
-        long habitacionesOcupadas = reservas.stream()
-                .filter(r -> "ACTIVA".equals(r.getEstadoReserva()))
-                .map(Reserva::getHabitacion)
-                .distinct()
-                .count();
+        final LocalDate inicio = fechaInicio;
+        final LocalDate fin = fechaFin;
+        StreamingResponseBody cuerpo = salida -> {
+            if (gzip) {
+                GZIPOutputStream comprimida = new GZIPOutputStream(salida, 16 * 1024);
+                exportacionReservaService.exportar(inicio, fin, tipo, comprimida);
+                comprimida.finish();
+            } else {
+                exportacionReservaService.exportar(inicio, fin, tipo, salida);
+            }
+        };
+
+        String archivo = "reservas_" + inicio + "_" + fin + "." + tipo.getExtension();
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(tipo.getTipoContenido()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(archivo).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return respuesta.body(cuerpo);
+    }
 
-        double tasaOcupacion = totalHabitaciones > 0 ? (double) habitacionesOcupadas / totalHabitaciones * 100 : 0.0;
-        long reservasFinalizadas = reservas.stream().filter(r -> "FINALIZADA".equals(r.getEstadoReserva())).count();
-        double adr = reservasFinalizadas > 0 ? ingresosTotales / reservasFinalizadas : 0.0;
+    private static Map<String, Object> aMapa(ResultadoCubo resultado) {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("dimensiones", resultado.dimensiones().stream().map(DimensionCubo::getParametro).toList());
+        respuesta.put("filas", resultado.grupos().stream().map(ReportesController::aMapa).toList());
+        respuesta.put("totales", aMapa(resultado.total()));
+        respuesta.put("reservasEnCubo", resultado.reservasEnCubo());
+        respuesta.put("duracionMs", resultado.duracionMicros() / 1000.0);
+        return respuesta;
+    }
 
-        model.addAttribute("ingresosTotales", ingresosTotales);
-        model.addAttribute("tasaOcupacion", String.format("%.1f", tasaOcupacion));
-        model.addAttribute("adr", String.format("%.2f", adr));
+    private static Map<String, Object> aMapa(ResultadoCubo.Grupo grupo) {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        if (!grupo.valores().isEmpty()) {
+            fila.put("valores", grupo.valores());
+        }
+        fila.put("ingresos", Math.round(grupo.ingresos() * 100.0) / 100.0);
+        fila.put("nochesHabitacion", grupo.nochesHabitacion());
+        fila.put("reservas", grupo.reservas());
+        fila.put("adr", Math.round(grupo.adr() * 100.0) / 100.0);
+        fila.put("revpar", grupo.revpar() != null ? Math.round(grupo.revpar() * 100.0) / 100.0 : null);
+        return fila;
+    }
 
-        return "reporte-impresion";
+    private static Map<String, Object> aMapa(ResumenDiario resumen) {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("fecha", resumen.getFecha().toString());
+        fila.put("tipoHabitacion", resumen.getTipoHabitacion());
+        fila.put("ingresosHabitacion", resumen.getIngresosHabitacion());
+        fila.put("ingresosServicios", resumen.getIngresosServicios());
+        fila.put("descuentos", resumen.getDescuentos());
+        fila.put("checkIns", resumen.getCheckIns());
+        fila.put("checkOuts", resumen.getCheckOuts());
+        fila.put("nochesOcupadas", resumen.getNochesOcupadas());
+        return fila;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.model.Resena;
 import com.gestion.hotelera.model.Reserva;
 import com.gestion.hotelera.service.ResenaService;
@@ -42,7 +43,7 @@ public class ResenaController {
         }
 
         // Verificar que la reserva esté finalizada
-        if (!"FINALIZADA".equals(reserva.getEstadoReserva())) {
+        if (reserva.getEstado() != EstadoReserva.FINALIZADA) {
             return "redirect:/cliente/historial";
         }
 
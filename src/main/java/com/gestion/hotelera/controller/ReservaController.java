@@ -1,8 +1,10 @@
 package com.gestion.hotelera.controller;
 
+import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.model.Cliente;
 import com.gestion.hotelera.model.Habitacion;
 import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.service.BusquedaDisponibilidadService;
 import com.gestion.hotelera.service.ClienteService;
 import com.gestion.hotelera.service.HabitacionService;
 import com.gestion.hotelera.service.ReservaService;
@@ -15,7 +17,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -25,12 +29,14 @@ public class ReservaController {
     private final ClienteService clienteService;
     private final HabitacionService habitacionService;
     private final ReservaService reservaService;
+    private final BusquedaDisponibilidadService busquedaDisponibilidadService;
 
     public ReservaController(ClienteService clienteService, HabitacionService habitacionService,
-            ReservaService reservaService) {
+            ReservaService reservaService, BusquedaDisponibilidadService busquedaDisponibilidadService) {
         this.clienteService = clienteService;
         this.habitacionService = habitacionService;
         this.reservaService = reservaService;
+        this.busquedaDisponibilidadService = busquedaDisponibilidadService;
     }
 
     @GetMapping
@@ -92,7 +98,13 @@ public class ReservaController {
     @GetMapping("/crear")
     public String showCrearReservaForm(Model model,
             @RequestParam(name = "dni", required = false) String dni,
-            @RequestParam(name = "idCliente", required = false) Long idCliente) {
+            @RequestParam(name = "idCliente", required = false) Long idCliente,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(required = false) Integer huespedes) {
         model.addAttribute("cliente", new Cliente());
         model.addAttribute("reserva", new Reserva());
 
@@ -115,10 +127,20 @@ public class ReservaController {
                 }
             }
 
-            model.addAttribute("habitacionesDisponibles",
-                    clienteIdParaHabitaciones != null
-                            ? habitacionService.obtenerHabitacionesDisponiblesParaCliente(clienteIdParaHabitaciones)
-                            : habitacionService.obtenerHabitacionesDisponibles());
+            if (fechaInicio != null && fechaFin != null && fechaInicio.isBefore(fechaFin)) {
+                // Con fechas: solo habitaciones libres todas las noches del rango
+                var resultado = busquedaDisponibilidadService.buscar(new BusquedaDisponibilidadService.Criterios(
+                        fechaInicio, fechaFin, tipo, precioMin, precioMax, huespedes));
+                model.addAttribute("habitacionesDisponibles", resultado.habitaciones());
+                model.addAttribute("disponiblesPorTipo", resultado.disponiblesPorTipo());
+                model.addAttribute("fechaInicio", fechaInicio);
+                model.addAttribute("fechaFin", fechaFin);
+            } else {
+                model.addAttribute("habitacionesDisponibles",
+                        clienteIdParaHabitaciones != null
+                                ? habitacionService.obtenerHabitacionesDisponiblesParaCliente(clienteIdParaHabitaciones)
+                                : habitacionService.obtenerHabitacionesDisponibles());
+            }
         } catch (Exception e) {
             model.addAttribute("errorMessage", "Error al cargar habitaciones disponibles");
             return "reservas";
@@ -179,6 +201,37 @@ public class ReservaController {
         }
     }
 
+    /**
+     * Búsqueda de disponibilidad por fechas. Con margenDias > 0 añade las
+     * ventanas alternativas más baratas dentro de ±margenDias.
+     */
+    @GetMapping("/api/disponibilidad")
+    @ResponseBody
+    public Map<String, Object> buscarDisponibilidad(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(required = false) Integer huespedes,
+            @RequestParam(defaultValue = "0") int margenDias) {
+        Map<String, Object> respuesta = new HashMap<>();
+        try {
+            var criterios = new BusquedaDisponibilidadService.Criterios(
+                    fechaInicio, fechaFin, tipo, precioMin, precioMax, huespedes);
+            var resultado = busquedaDisponibilidadService.buscar(criterios);
+            respuesta.put("habitaciones", resultado.habitaciones());
+            respuesta.put("disponiblesPorTipo", resultado.disponiblesPorTipo());
+            if (margenDias > 0) {
+                respuesta.put("alternativas",
+                        busquedaDisponibilidadService.buscarFechasFlexibles(criterios, margenDias, 5));
+            }
+        } catch (IllegalArgumentException e) {
+            respuesta.put("error", e.getMessage());
+        }
+        return respuesta;
+    }
+
     @GetMapping("/calcular-costo")
     @ResponseBody
     public String calcularCosto(
@@ -229,7 +282,7 @@ public class ReservaController {
                         "La fecha de inicio de la reserva no puede ser anterior a la fecha actual.");
                 return "redirect:/reservas";
             }
-            reserva.setEstadoReserva("PENDIENTE");
+            reserva.setEstado(EstadoReserva.PENDIENTE);
             Reserva reservaGuardada = reservaService.crearOActualizarReserva(reserva);
             redirectAttributes.addFlashAttribute("successMessage",
                     "Reserva creada exitosamente. Puedes añadir servicios adicionales antes del pago.");
@@ -293,7 +346,7 @@ public class ReservaController {
             }
 
             var reserva = reservaOpt.get();
-            if ("FINALIZADA".equals(reserva.getEstadoReserva())) {
+            if (reserva.getEstado() == EstadoReserva.FINALIZADA) {
                 redirectAttributes.addFlashAttribute("errorMessage", "La reserva ya está finalizada.");
                 return "redirect:" + (referer != null ? referer : "/dashboard");
             }
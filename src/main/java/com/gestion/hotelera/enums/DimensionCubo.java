@@ -0,0 +1,46 @@
+package com.gestion.hotelera.enums;
+
+import java.util.Locale;
+
+/**
+ * Dimensiones por las que se puede agrupar y filtrar el cubo de reservas,
+ * con el nombre del parámetro de la API y la etiqueta de valores ausentes.
+ * MES es el mes de la fecha de inicio (yyyy-MM).
+ */
+public enum DimensionCubo {
+    TIPO_HABITACION("tipo", "SIN_TIPO"),
+    MES("mes", null),
+    METODO_PAGO("metodo", "SIN_PAGO"),
+    CANAL("canal", "SIN_CANAL"),
+    DESCUENTO("descuento", "SIN_DESCUENTO"),
+    NACIONALIDAD("nacionalidad", "SIN_NACIONALIDAD"),
+    ESTADO("estado", "SIN_ESTADO");
+
+    private final String parametro;
+    private final String sinValor;
+
+    DimensionCubo(String parametro, String sinValor) {
+        this.parametro = parametro;
+        this.sinValor = sinValor;
+    }
+
+    public String getParametro() {
+        return parametro;
+    }
+
+    public String getSinValor() {
+        return sinValor;
+    }
+
+    public static DimensionCubo fromParametro(String valor) {
+        if (valor != null) {
+            String buscado = valor.trim().toLowerCase(Locale.ROOT);
+            for (DimensionCubo dimension : values()) {
+                if (dimension.parametro.equals(buscado) || dimension.name().equalsIgnoreCase(buscado)) {
+                    return dimension;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Dimensión del cubo no válida: " + valor);
+    }
+}
@@ -0,0 +1,30 @@
+package com.gestion.hotelera.enums;
+
+/**
+ * Estado de una celda habitación × día del calendario de ocupación.
+ */
+public enum EstadoCalendario {
+    LIBRE('L'),
+    OCUPADA('O'),
+    MANTENIMIENTO('M'),
+    LIMPIEZA('C');
+
+    private static final EstadoCalendario[] VALORES = values();
+
+    private final char codigo;
+
+    EstadoCalendario(char codigo) {
+        this.codigo = codigo;
+    }
+
+    /**
+     * Código de una letra usado en la codificación por tramos del calendario.
+     */
+    public char getCodigo() {
+        return codigo;
+    }
+
+    public static EstadoCalendario desdeOrdinal(int ordinal) {
+        return VALORES[ordinal];
+    }
+}
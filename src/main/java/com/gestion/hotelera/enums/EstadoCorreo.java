@@ -0,0 +1,22 @@
+package com.gestion.hotelera.enums;
+
+/**
+ * Estados de un correo en la bandeja de salida. FALLIDO es definitivo: el
+ * correo agotó sus reintentos y queda para revisión manual.
+ */
+public enum EstadoCorreo {
+    PENDIENTE("PENDIENTE"),
+    ENVIANDO("ENVIANDO"),
+    ENVIADO("ENVIADO"),
+    FALLIDO("FALLIDO");
+
+    private final String valor;
+
+    EstadoCorreo(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
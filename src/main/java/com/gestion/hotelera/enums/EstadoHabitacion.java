@@ -1,29 +1,42 @@
 package com.gestion.hotelera.enums;
 
 /**
- * Estados posibles de una habitación en el sistema.
+ * Estados posibles de una habitación en el sistema. En la base de datos se
+ * guarda el código de una letra (ver EstadoHabitacionConverter).
  */
 public enum EstadoHabitacion {
-    DISPONIBLE("DISPONIBLE"),
-    OCUPADA("OCUPADA"),
-    MANTENIMIENTO("MANTENIMIENTO");
+    DISPONIBLE("DISPONIBLE", "D"),
+    OCUPADA("OCUPADA", "O"),
+    MANTENIMIENTO("MANTENIMIENTO", "M");
 
     private final String valor;
+    private final String codigo;
 
-    EstadoHabitacion(String valor) {
+    EstadoHabitacion(String valor, String codigo) {
         this.valor = valor;
+        this.codigo = codigo;
     }
 
     public String getValor() {
         return valor;
     }
 
-    public static EstadoHabitacion fromString(String texto) {
-        if (texto == null || texto.trim().isEmpty()) {
-            return DISPONIBLE; // Default
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public static EstadoHabitacion fromCodigo(String codigo) {
+        for (EstadoHabitacion estado : EstadoHabitacion.values()) {
+            if (estado.codigo.equals(codigo)) {
+                return estado;
+            }
         }
+        throw new IllegalArgumentException("Código de estado de habitación no válido: " + codigo);
+    }
+
+    public static EstadoHabitacion fromString(String texto) {
         for (EstadoHabitacion estado : EstadoHabitacion.values()) {
-            if (estado.valor.equalsIgnoreCase(texto.trim())) {
+            if (texto != null && estado.valor.equalsIgnoreCase(texto.trim())) {
                 return estado;
             }
         }
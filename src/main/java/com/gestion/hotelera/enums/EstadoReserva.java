@@ -1,30 +1,43 @@
 package com.gestion.hotelera.enums;
 
 /**
- * Estados posibles de una reserva en el sistema.
+ * Estados posibles de una reserva en el sistema. En la base de datos se
+ * guarda el código de una letra (ver EstadoReservaConverter).
  */
 public enum EstadoReserva {
-    PENDIENTE("PENDIENTE"),
-    ACTIVA("ACTIVA"),
-    FINALIZADA("FINALIZADA"),
-    CANCELADA("CANCELADA");
+    PENDIENTE("PENDIENTE", "P"),
+    ACTIVA("ACTIVA", "A"),
+    FINALIZADA("FINALIZADA", "F"),
+    CANCELADA("CANCELADA", "C");
 
     private final String valor;
+    private final String codigo;
 
-    EstadoReserva(String valor) {
+    EstadoReserva(String valor, String codigo) {
         this.valor = valor;
+        this.codigo = codigo;
     }
 
     public String getValor() {
         return valor;
     }
 
-    public static EstadoReserva fromString(String texto) {
-        if (texto == null || texto.trim().isEmpty()) {
-            return null;
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public static EstadoReserva fromCodigo(String codigo) {
+        for (EstadoReserva estado : EstadoReserva.values()) {
+            if (estado.codigo.equals(codigo)) {
+                return estado;
+            }
         }
+        throw new IllegalArgumentException("Código de estado de reserva no válido: " + codigo);
+    }
+
+    public static EstadoReserva fromString(String texto) {
         for (EstadoReserva estado : EstadoReserva.values()) {
-            if (estado.valor.equalsIgnoreCase(texto.trim())) {
+            if (texto != null && estado.valor.equalsIgnoreCase(texto.trim())) {
                 return estado;
             }
         }
@@ -0,0 +1,26 @@
+package com.gestion.hotelera.enums;
+
+/**
+ * Estados de un trabajo de la cola de reportes. COMPLETADO y FALLIDO son
+ * definitivos.
+ */
+public enum EstadoTrabajoReporte {
+    PENDIENTE("PENDIENTE"),
+    EN_CURSO("EN_CURSO"),
+    COMPLETADO("COMPLETADO"),
+    FALLIDO("FALLIDO");
+
+    private final String valor;
+
+    EstadoTrabajoReporte(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public boolean isTerminado() {
+        return this == COMPLETADO || this == FALLIDO;
+    }
+}
@@ -0,0 +1,24 @@
+package com.gestion.hotelera.enums;
+
+import java.util.Locale;
+
+/**
+ * Prioridad de un trabajo en la cola de reportes: los de prioridad ALTA se
+ * atienden antes que los pendientes de prioridad menor.
+ */
+public enum PrioridadReporte {
+    ALTA,
+    NORMAL,
+    BAJA;
+
+    public static PrioridadReporte fromString(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return NORMAL;
+        }
+        try {
+            return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Prioridad de reporte no válida: " + valor);
+        }
+    }
+}
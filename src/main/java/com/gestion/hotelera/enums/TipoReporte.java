@@ -0,0 +1,41 @@
+package com.gestion.hotelera.enums;
+
+import java.util.Locale;
+
+/**
+ * Reportes que se pueden generar en segundo plano con la cola de reportes,
+ * con el tipo de contenido y la extensión del resultado.
+ */
+public enum TipoReporte {
+    INDICADORES("application/json", "json"),
+    INGRESOS("application/json", "json"),
+    MOVIMIENTO("application/json", "json"),
+    IMPRESION("text/html;charset=UTF-8", "html");
+
+    private final String tipoContenido;
+    private final String extension;
+
+    TipoReporte(String tipoContenido, String extension) {
+        this.tipoContenido = tipoContenido;
+        this.extension = extension;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static TipoReporte fromString(String valor) {
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("El tipo de reporte es obligatorio");
+        }
+        try {
+            return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de reporte no soportado: " + valor);
+        }
+    }
+}
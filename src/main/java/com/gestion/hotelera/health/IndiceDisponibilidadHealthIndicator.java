@@ -0,0 +1,39 @@
+package com.gestion.hotelera.health;
+
+import com.gestion.hotelera.service.IndiceDisponibilidad;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Health check del índice de disponibilidad en memoria.
+ * Reporta DOWN si la última verificación contra la base de datos encontró diferencias.
+ */
+@Component
+public class IndiceDisponibilidadHealthIndicator implements HealthIndicator {
+
+    private final IndiceDisponibilidad indiceDisponibilidad;
+
+    public IndiceDisponibilidadHealthIndicator(IndiceDisponibilidad indiceDisponibilidad) {
+        this.indiceDisponibilidad = indiceDisponibilidad;
+    }
+
+    @Override
+    public Health health() {
+        if (!indiceDisponibilidad.isInicializado()) {
+            return Health.unknown()
+                    .withDetail("message", "El índice de disponibilidad aún no se ha construido")
+                    .build();
+        }
+
+        List<String> discrepancias = indiceDisponibilidad.getUltimasDiscrepancias();
+        Health.Builder builder = discrepancias.isEmpty() ? Health.up() : Health.down();
+        return builder
+                .withDetail("habitaciones", indiceDisponibilidad.getTotalHabitaciones())
+                .withDetail("ultimaVerificacion", String.valueOf(indiceDisponibilidad.getUltimaVerificacion()))
+                .withDetail("discrepancias", discrepancias.size())
+                .build();
+    }
+}
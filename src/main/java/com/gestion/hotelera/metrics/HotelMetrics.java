@@ -1,110 +1,169 @@
 package com.gestion.hotelera.metrics;
 
-import com.gestion.hotelera.repository.ReservaRepository;
-import com.gestion.hotelera.repository.HabitacionRepository;
-import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.IndicadoresMetricas;
+import com.gestion.hotelera.repository.ReporteReservaRepository;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Métricas personalizadas del negocio hotelero
  * Estas métricas se exponen en /actuator/metrics
+ *
+ * Los valores se recalculan juntos en segundo plano con una sola consulta
+ * y los gauges leen la última instantánea: un scrape no toca la base de
+ * datos. Hasta el primer refresco los gauges valen NaN; si un refresco
+ * falla se conservan los valores anteriores y crece hotel.metrics.antiguedad.
  */
 @Component
 public class HotelMetrics {
 
-    private final ReservaRepository reservaRepository;
-    private final HabitacionRepository habitacionRepository;
-    private final ClienteRepository clienteRepository;
+    private static final Logger logger = LoggerFactory.getLogger(HotelMetrics.class);
 
-    public HotelMetrics(MeterRegistry meterRegistry,
-            ReservaRepository reservaRepository,
-            HabitacionRepository habitacionRepository,
-            ClienteRepository clienteRepository) {
-        this.reservaRepository = reservaRepository;
-        this.habitacionRepository = habitacionRepository;
-        this.clienteRepository = clienteRepository;
+    private final ReporteReservaRepository reporteReservaRepository;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReference<Instantanea> actual = new AtomicReference<>();
+
+    /**
+     * Valores de todas las métricas de negocio en un mismo instante.
+     */
+    record Instantanea(double reservas, double reservasActivas, double reservasPendientes,
+            double reservasFinalizadas, double checkInsHoy, double checkOutsHoy, double ingresosFinalizadas,
+            double habitaciones, double habitacionesDisponibles, double habitacionesOcupadas,
+            double habitacionesMantenimiento, double clientes, long calculadaEnNanos) {
+
+        static Instantanea de(IndicadoresMetricas indicadores, long calculadaEnNanos) {
+            return new Instantanea(valor(indicadores.getReservas()), valor(indicadores.getReservasActivas()),
+                    valor(indicadores.getReservasPendientes()), valor(indicadores.getReservasFinalizadas()),
+                    valor(indicadores.getCheckInsHoy()), valor(indicadores.getCheckOutsHoy()),
+                    valor(indicadores.getIngresosFinalizadas()), valor(indicadores.getHabitaciones()),
+                    valor(indicadores.getHabitacionesDisponibles()), valor(indicadores.getHabitacionesOcupadas()),
+                    valor(indicadores.getHabitacionesMantenimiento()), valor(indicadores.getClientes()),
+                    calculadaEnNanos);
+        }
+
+        /** Porcentaje de ocupación del hotel. */
+        double tasaOcupacion() {
+            return habitaciones > 0 ? (habitacionesOcupadas * 100.0) / habitaciones : 0.0;
+        }
+
+        private static double valor(Number numero) {
+            return numero != null ? numero.doubleValue() : 0.0;
+        }
+    }
+
+    public HotelMetrics(MeterRegistry meterRegistry, ReporteReservaRepository reporteReservaRepository) {
+        this.reporteReservaRepository = reporteReservaRepository;
+        this.meterRegistry = meterRegistry;
 
         // Registrar todas las métricas personalizadas
         registrarMetricasReservas(meterRegistry);
         registrarMetricasHabitaciones(meterRegistry);
         registrarMetricasClientes(meterRegistry);
         registrarMetricasIngresos(meterRegistry);
+        registrarMetricasRefresco(meterRegistry);
+    }
+
+    /**
+     * Recalcula la instantánea de las métricas. Se ejecuta al arrancar y
+     * después cada {@code app.metricas.refresco-ms}.
+     */
+    @Scheduled(initialDelayString = "${app.metricas.retraso-inicial-ms:0}",
+            fixedDelayString = "${app.metricas.refresco-ms:15000}")
+    public void refrescar() {
+        long inicio = System.nanoTime();
+        String resultado = "ok";
+        try {
+            IndicadoresMetricas indicadores = reporteReservaRepository.calcularIndicadoresMetricas(LocalDate.now());
+            actual.set(Instantanea.de(indicadores, System.nanoTime()));
+        } catch (RuntimeException e) {
+            resultado = "error";
+            logger.warn("No se pudieron refrescar las métricas del hotel: {}", e.getMessage());
+        } finally {
+            Timer.builder("hotel.metrics.refresh")
+                    .description("Duración del refresco de las métricas de negocio")
+                    .tag("resultado", resultado)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Segundos desde el último refresco correcto, o NaN si aún no lo hubo. */
+    public double getAntiguedadSegundos() {
+        Instantanea instantanea = actual.get();
+        return instantanea != null ? (System.nanoTime() - instantanea.calculadaEnNanos()) / 1e9 : Double.NaN;
     }
 
     private void registrarMetricasReservas(MeterRegistry registry) {
         // Total de reservas
-        Gauge.builder("hotel.reservas.total", reservaRepository, repo -> repo.count())
+        Gauge.builder("hotel.reservas.total", this, leer(Instantanea::reservas))
                 .description("Número total de reservas en el sistema")
                 .register(registry);
 
         // Reservas activas
-        Gauge.builder("hotel.reservas.activas", reservaRepository,
-                repo -> repo.countByEstadoReservaIgnoreCase("ACTIVA"))
+        Gauge.builder("hotel.reservas.activas", this, leer(Instantanea::reservasActivas))
                 .description("Número de reservas actualmente activas")
                 .tag("estado", "ACTIVA")
                 .register(registry);
 
         // Reservas pendientes
-        Gauge.builder("hotel.reservas.pendientes", reservaRepository,
-                repo -> repo.countByEstadoReservaIgnoreCase("PENDIENTE"))
+        Gauge.builder("hotel.reservas.pendientes", this, leer(Instantanea::reservasPendientes))
                 .description("Número de reservas pendientes")
                 .tag("estado", "PENDIENTE")
                 .register(registry);
 
         // Reservas finalizadas
-        Gauge.builder("hotel.reservas.finalizadas", reservaRepository,
-                repo -> repo.countByEstadoReservaIgnoreCase("FINALIZADA"))
+        Gauge.builder("hotel.reservas.finalizadas", this, leer(Instantanea::reservasFinalizadas))
                 .description("Número de reservas finalizadas")
                 .tag("estado", "FINALIZADA")
                 .register(registry);
 
         // Check-ins de hoy
-        Gauge.builder("hotel.checkins.hoy", reservaRepository,
-                repo -> repo.countByFechaInicio(LocalDate.now()))
+        Gauge.builder("hotel.checkins.hoy", this, leer(Instantanea::checkInsHoy))
                 .description("Número de check-ins programados para hoy")
                 .register(registry);
 
         // Check-outs de hoy
-        Gauge.builder("hotel.checkouts.hoy", reservaRepository,
-                repo -> repo.countByFechaFin(LocalDate.now()))
+        Gauge.builder("hotel.checkouts.hoy", this, leer(Instantanea::checkOutsHoy))
                 .description("Número de check-outs programados para hoy")
                 .register(registry);
     }
 
     private void registrarMetricasHabitaciones(MeterRegistry registry) {
         // Total de habitaciones
-        Gauge.builder("hotel.habitaciones.total", habitacionRepository, repo -> repo.count())
+        Gauge.builder("hotel.habitaciones.total", this, leer(Instantanea::habitaciones))
                 .description("Número total de habitaciones en el hotel")
                 .register(registry);
 
         // Habitaciones disponibles
-        Gauge.builder("hotel.habitaciones.disponibles", habitacionRepository,
-                repo -> repo.countByEstadoIgnoreCase("DISPONIBLE"))
+        Gauge.builder("hotel.habitaciones.disponibles", this, leer(Instantanea::habitacionesDisponibles))
                 .description("Número de habitaciones disponibles")
                 .tag("estado", "DISPONIBLE")
                 .register(registry);
 
         // Habitaciones ocupadas
-        Gauge.builder("hotel.habitaciones.ocupadas", habitacionRepository,
-                repo -> repo.countByEstadoIgnoreCase("OCUPADA"))
+        Gauge.builder("hotel.habitaciones.ocupadas", this, leer(Instantanea::habitacionesOcupadas))
                 .description("Número de habitaciones ocupadas")
                 .tag("estado", "OCUPADA")
                 .register(registry);
 
         // Habitaciones en mantenimiento
-        Gauge.builder("hotel.habitaciones.mantenimiento", habitacionRepository,
-                repo -> repo.countByEstadoIgnoreCase("MANTENIMIENTO"))
+        Gauge.builder("hotel.habitaciones.mantenimiento", this, leer(Instantanea::habitacionesMantenimiento))
                 .description("Número de habitaciones en mantenimiento")
                 .tag("estado", "MANTENIMIENTO")
                 .register(registry);
 
         // Tasa de ocupación (porcentaje)
-        Gauge.builder("hotel.habitaciones.ocupacion.porcentaje", this,
-                metrics -> calcularTasaOcupacion())
+        Gauge.builder("hotel.habitaciones.ocupacion.porcentaje", this, leer(Instantanea::tasaOcupacion))
                 .description("Porcentaje de ocupación del hotel")
                 .baseUnit("percent")
                 .register(registry);
@@ -112,39 +171,34 @@ public class HotelMetrics {
 
     private void registrarMetricasClientes(MeterRegistry registry) {
         // Total de clientes registrados
-        Gauge.builder("hotel.clientes.total", clienteRepository, repo -> repo.count())
+        Gauge.builder("hotel.clientes.total", this, leer(Instantanea::clientes))
                 .description("Número total de clientes registrados")
                 .register(registry);
     }
 
     private void registrarMetricasIngresos(MeterRegistry registry) {
         // Ingresos totales (reservas finalizadas)
-        Gauge.builder("hotel.ingresos.total", this, metrics -> calcularIngresosTotales())
+        Gauge.builder("hotel.ingresos.total", this, leer(Instantanea::ingresosFinalizadas))
                 .description("Ingresos totales de reservas finalizadas")
                 .baseUnit("soles")
                 .register(registry);
     }
 
-    /**
-     * Calcula la tasa de ocupación del hotel
-     */
-    private double calcularTasaOcupacion() {
-        long totalHabitaciones = habitacionRepository.count();
-        if (totalHabitaciones == 0) {
-            return 0.0;
-        }
-
-        long habitacionesOcupadas = habitacionRepository.countByEstadoIgnoreCase("OCUPADA");
-        return (habitacionesOcupadas * 100.0) / totalHabitaciones;
+    private void registrarMetricasRefresco(MeterRegistry registry) {
+        // Antigüedad de la instantánea que leen los gauges
+        Gauge.builder("hotel.metrics.antiguedad", this, HotelMetrics::getAntiguedadSegundos)
+                .description("Segundos desde el último refresco correcto de las métricas de negocio")
+                .baseUnit("seconds")
+                .register(registry);
     }
 
     /**
-     * Calcula los ingresos totales de reservas finalizadas
+     * Función del gauge que lee un valor de la instantánea actual.
      */
-    private double calcularIngresosTotales() {
-        return reservaRepository.findAll().stream()
-                .filter(r -> "FINALIZADA".equalsIgnoreCase(r.getEstadoReserva()))
-                .mapToDouble(r -> r.getTotalPagar() != null ? r.getTotalPagar() : 0.0)
-                .sum();
+    private static ToDoubleFunction<HotelMetrics> leer(ToDoubleFunction<Instantanea> valor) {
+        return metrics -> {
+            Instantanea instantanea = metrics.actual.get();
+            return instantanea != null ? valor.applyAsDouble(instantanea) : Double.NaN;
+        };
     }
 }
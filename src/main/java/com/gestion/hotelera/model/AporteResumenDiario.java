@@ -0,0 +1,139 @@
+package com.gestion.hotelera.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+
+/**
+ * Lo que una reserva tiene sumado en los resúmenes diarios. Al cambiar la
+ * reserva se resta este aporte y se suma el nuevo, sin recorrer el resto de
+ * reservas.
+ */
+@Entity
+@Table(name = "aportes_resumen_diario")
+public class AporteResumenDiario implements Persistable<Long> {
+
+    @Id
+    @Column(name = "reserva_id")
+    private Long reservaId;
+
+    @Column(name = "tipo_habitacion", nullable = false, length = 50)
+    private String tipoHabitacion;
+
+    @Column(name = "estado_reserva", nullable = false, length = 20)
+    private String estadoReserva;
+
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDate fechaInicio;
+
+    @Column(name = "fecha_fin", nullable = false)
+    private LocalDate fechaFin;
+
+    @Column(name = "fecha_salida_real")
+    private LocalDate fechaSalidaReal;
+
+    @Column(name = "monto_habitacion", nullable = false)
+    private double montoHabitacion;
+
+    @Column(name = "monto_servicios", nullable = false)
+    private double montoServicios;
+
+    @Column(name = "monto_descuento", nullable = false)
+    private double montoDescuento;
+
+    // Clave asignada (el ID de la reserva): sin esto save() haría un SELECT previo por fila
+    @Transient
+    private boolean nuevo = true;
+
+    public AporteResumenDiario() {
+    }
+
+    public AporteResumenDiario(Long reservaId) {
+        this.reservaId = reservaId;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarExistente() {
+        this.nuevo = false;
+    }
+
+    @Override
+    public Long getId() {
+        return reservaId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    public Long getReservaId() {
+        return reservaId;
+    }
+
+    public String getTipoHabitacion() {
+        return tipoHabitacion;
+    }
+
+    public void setTipoHabitacion(String tipoHabitacion) {
+        this.tipoHabitacion = tipoHabitacion;
+    }
+
+    public String getEstadoReserva() {
+        return estadoReserva;
+    }
+
+    public void setEstadoReserva(String estadoReserva) {
+        this.estadoReserva = estadoReserva;
+    }
+
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public LocalDate getFechaSalidaReal() {
+        return fechaSalidaReal;
+    }
+
+    public void setFechaSalidaReal(LocalDate fechaSalidaReal) {
+        this.fechaSalidaReal = fechaSalidaReal;
+    }
+
+    public double getMontoHabitacion() {
+        return montoHabitacion;
+    }
+
+    public void setMontoHabitacion(double montoHabitacion) {
+        this.montoHabitacion = montoHabitacion;
+    }
+
+    public double getMontoServicios() {
+        return montoServicios;
+    }
+
+    public void setMontoServicios(double montoServicios) {
+        this.montoServicios = montoServicios;
+    }
+
+    public double getMontoDescuento() {
+        return montoDescuento;
+    }
+
+    public void setMontoDescuento(double montoDescuento) {
+        this.montoDescuento = montoDescuento;
+    }
+}
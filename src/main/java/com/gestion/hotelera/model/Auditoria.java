@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 public class Auditoria {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auditoria_seq")
+    @SequenceGenerator(name = "auditoria_seq", sequenceName = "auditoria_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
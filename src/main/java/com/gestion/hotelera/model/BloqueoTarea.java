@@ -0,0 +1,103 @@
+package com.gestion.hotelera.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease de una tarea programada: solo el nodo propietario la ejecuta mientras
+ * bloqueadoHasta no haya pasado. El propietario lo renueva con latidos
+ * periódicos; si deja de hacerlo, otro nodo lo toma al expirar.
+ */
+@Entity
+@Table(name = "bloqueos_tareas")
+public class BloqueoTarea implements Persistable<String> {
+
+    @Id
+    @Column(name = "nombre", length = 100)
+    private String nombre;
+
+    @Column(name = "propietario", nullable = false, length = 150)
+    private String propietario;
+
+    @Column(name = "bloqueado_hasta", nullable = false)
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(name = "adquirido_en")
+    private LocalDateTime adquiridoEn;
+
+    @Column(name = "ultimo_latido")
+    private LocalDateTime ultimoLatido;
+
+    // La clave es asignada: sin esto save() haría merge y podría pisar el lease de otro nodo
+    @Transient
+    private boolean nuevo = true;
+
+    public BloqueoTarea() {
+    }
+
+    public BloqueoTarea(String nombre, String propietario, LocalDateTime adquiridoEn, LocalDateTime bloqueadoHasta) {
+        this.nombre = nombre;
+        this.propietario = propietario;
+        this.adquiridoEn = adquiridoEn;
+        this.ultimoLatido = adquiridoEn;
+        this.bloqueadoHasta = bloqueadoHasta;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarExistente() {
+        this.nuevo = false;
+    }
+
+    @Override
+    public String getId() {
+        return nombre;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getPropietario() {
+        return propietario;
+    }
+
+    public void setPropietario(String propietario) {
+        this.propietario = propietario;
+    }
+
+    public LocalDateTime getBloqueadoHasta() {
+        return bloqueadoHasta;
+    }
+
+    public void setBloqueadoHasta(LocalDateTime bloqueadoHasta) {
+        this.bloqueadoHasta = bloqueadoHasta;
+    }
+
+    public LocalDateTime getAdquiridoEn() {
+        return adquiridoEn;
+    }
+
+    public void setAdquiridoEn(LocalDateTime adquiridoEn) {
+        this.adquiridoEn = adquiridoEn;
+    }
+
+    public LocalDateTime getUltimoLatido() {
+        return ultimoLatido;
+    }
+
+    public void setUltimoLatido(LocalDateTime ultimoLatido) {
+        this.ultimoLatido = ultimoLatido;
+    }
+}
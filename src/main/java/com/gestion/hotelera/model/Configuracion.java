@@ -1,15 +1,22 @@
 package com.gestion.hotelera.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "configuracion")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "configuracion")
 public class Configuracion {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    private long version;
+
     @Column(name = "nombre_hotel")
     private String nombreHotel;
 
@@ -39,6 +46,10 @@ public class Configuracion {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getNombreHotel() {
         return nombreHotel;
     }
@@ -0,0 +1,187 @@
+package com.gestion.hotelera.model;
+
+import com.gestion.hotelera.enums.EstadoCorreo;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Correo pendiente de envío. Se guarda en la misma transacción que la
+ * operación que lo origina y lo envía después BandejaSalidaCorreo.
+ */
+@Entity
+@Table(name = "correos_salientes", indexes = {
+        @Index(name = "idx_correos_salientes_estado_proximo", columnList = "estado, proximo_intento")
+})
+public class CorreoSaliente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "correos_salientes_seq")
+    @SequenceGenerator(name = "correos_salientes_seq", sequenceName = "correos_salientes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "tipo", length = 50)
+    private String tipo;
+
+    @Column(name = "remitente", length = 150)
+    private String remitente;
+
+    @Column(name = "destinatario", nullable = false, length = 150)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false, length = 200)
+    private String asunto;
+
+    @Column(name = "cuerpo", nullable = false, length = 4000)
+    private String cuerpo;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado = EstadoCorreo.PENDIENTE.getValor();
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+
+    @Column(name = "reclamado_en")
+    private LocalDateTime reclamadoEn;
+
+    @Column(name = "reclamado_por", length = 40)
+    private String reclamadoPor;
+
+    @Column(name = "enviado_en")
+    private LocalDateTime enviadoEn;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    public CorreoSaliente() {
+    }
+
+    public CorreoSaliente(String tipo, String remitente, String destinatario, String asunto, String cuerpo,
+            LocalDateTime creadoEn) {
+        this.tipo = tipo;
+        this.remitente = remitente;
+        this.destinatario = destinatario;
+        this.asunto = asunto;
+        this.cuerpo = cuerpo;
+        this.creadoEn = creadoEn;
+        this.proximoIntento = this.creadoEn;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public String getRemitente() {
+        return remitente;
+    }
+
+    public void setRemitente(String remitente) {
+        this.remitente = remitente;
+    }
+
+    public String getDestinatario() {
+        return destinatario;
+    }
+
+    public void setDestinatario(String destinatario) {
+        this.destinatario = destinatario;
+    }
+
+    public String getAsunto() {
+        return asunto;
+    }
+
+    public void setAsunto(String asunto) {
+        this.asunto = asunto;
+    }
+
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    public void setCuerpo(String cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
+    public LocalDateTime getCreadoEn() {
+        return creadoEn;
+    }
+
+    public void setCreadoEn(LocalDateTime creadoEn) {
+        this.creadoEn = creadoEn;
+    }
+
+    public LocalDateTime getReclamadoEn() {
+        return reclamadoEn;
+    }
+
+    public void setReclamadoEn(LocalDateTime reclamadoEn) {
+        this.reclamadoEn = reclamadoEn;
+    }
+
+    public String getReclamadoPor() {
+        return reclamadoPor;
+    }
+
+    public void setReclamadoPor(String reclamadoPor) {
+        this.reclamadoPor = reclamadoPor;
+    }
+
+    public LocalDateTime getEnviadoEn() {
+        return enviadoEn;
+    }
+
+    public void setEnviadoEn(LocalDateTime enviadoEn) {
+        this.enviadoEn = enviadoEn;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+}
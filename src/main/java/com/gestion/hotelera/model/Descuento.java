@@ -3,6 +3,10 @@ package com.gestion.hotelera.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -11,14 +15,21 @@ import java.util.Set;
 @Entity
 @Table(name = "descuentos")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "descuentos")
+@NaturalIdCache(region = "descuentos-codigo")
 public class Descuento {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    private long version;
+
     @NotBlank(message = "El código es obligatorio")
     @Size(min = 3, max = 20, message = "El código debe tener entre 3 y 20 caracteres")
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true, length = 20)
     private String codigo;
 
@@ -107,6 +118,7 @@ public class Descuento {
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public long getVersion() { return version; }
     public String getCodigo() { return codigo; }
     public void setCodigo(String codigo) { this.codigo = codigo != null ? codigo.toUpperCase().trim() : null; }
     public String getDescripcion() { return descripcion; }
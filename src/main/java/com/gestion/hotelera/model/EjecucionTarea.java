@@ -0,0 +1,128 @@
+package com.gestion.hotelera.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Historial de ejecuciones de las tareas programadas coordinadas entre nodos.
+ */
+@Entity
+@Table(name = "ejecuciones_tareas", indexes = {
+        @Index(name = "idx_ejecuciones_tareas_nombre_inicio", columnList = "nombre_tarea, inicio")
+})
+public class EjecucionTarea {
+
+    public static final String COMPLETADA = "COMPLETADA";
+    public static final String ERROR = "ERROR";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ejecuciones_tareas_seq")
+    @SequenceGenerator(name = "ejecuciones_tareas_seq", sequenceName = "ejecuciones_tareas_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "nombre_tarea", nullable = false, length = 100)
+    private String nombreTarea;
+
+    @Column(name = "nodo", nullable = false, length = 150)
+    private String nodo;
+
+    @Column(name = "inicio", nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(name = "fin")
+    private LocalDateTime fin;
+
+    @Column(name = "duracion_ms")
+    private Long duracionMs;
+
+    @Column(name = "filas_procesadas")
+    private Integer filasProcesadas;
+
+    @Column(name = "resultado", nullable = false, length = 20)
+    private String resultado;
+
+    @Column(name = "mensaje_error", length = 500)
+    private String mensajeError;
+
+    public EjecucionTarea() {
+    }
+
+    public EjecucionTarea(String nombreTarea, String nodo, LocalDateTime inicio) {
+        this.nombreTarea = nombreTarea;
+        this.nodo = nodo;
+        this.inicio = inicio;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNombreTarea() {
+        return nombreTarea;
+    }
+
+    public void setNombreTarea(String nombreTarea) {
+        this.nombreTarea = nombreTarea;
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    public void setNodo(String nodo) {
+        this.nodo = nodo;
+    }
+
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    public void setInicio(LocalDateTime inicio) {
+        this.inicio = inicio;
+    }
+
+    public LocalDateTime getFin() {
+        return fin;
+    }
+
+    public void setFin(LocalDateTime fin) {
+        this.fin = fin;
+    }
+
+    public Long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public void setDuracionMs(Long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+
+    public Integer getFilasProcesadas() {
+        return filasProcesadas;
+    }
+
+    public void setFilasProcesadas(Integer filasProcesadas) {
+        this.filasProcesadas = filasProcesadas;
+    }
+
+    public String getResultado() {
+        return resultado;
+    }
+
+    public void setResultado(String resultado) {
+        this.resultado = resultado;
+    }
+
+    public String getMensajeError() {
+        return mensajeError;
+    }
+
+    public void setMensajeError(String mensajeError) {
+        this.mensajeError = mensajeError;
+    }
+}
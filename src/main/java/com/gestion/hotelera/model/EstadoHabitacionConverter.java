@@ -0,0 +1,27 @@
+package com.gestion.hotelera.model;
+
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda el estado de la habitación como su código de una letra. Al leer
+ * acepta también el nombre completo, por si quedan filas sin migrar (ver
+ * db/migracion/V3).
+ */
+@Converter
+public class EstadoHabitacionConverter implements AttributeConverter<EstadoHabitacion, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoHabitacion estado) {
+        return estado != null ? estado.getCodigo() : null;
+    }
+
+    @Override
+    public EstadoHabitacion convertToEntityAttribute(String codigo) {
+        if (codigo == null) {
+            return null;
+        }
+        return codigo.length() == 1 ? EstadoHabitacion.fromCodigo(codigo) : EstadoHabitacion.fromString(codigo);
+    }
+}
@@ -0,0 +1,28 @@
+package com.gestion.hotelera.model;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda el estado de la reserva como su código de una letra, para que las
+ * búsquedas por estado sean igualdades exactas sobre el índice. Al leer
+ * acepta también el nombre completo, por si quedan filas sin migrar (ver
+ * db/migracion/V3).
+ */
+@Converter
+public class EstadoReservaConverter implements AttributeConverter<EstadoReserva, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoReserva estado) {
+        return estado != null ? estado.getCodigo() : null;
+    }
+
+    @Override
+    public EstadoReserva convertToEntityAttribute(String codigo) {
+        if (codigo == null) {
+            return null;
+        }
+        return codigo.length() == 1 ? EstadoReserva.fromCodigo(codigo) : EstadoReserva.fromString(codigo);
+    }
+}
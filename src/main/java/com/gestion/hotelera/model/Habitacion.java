@@ -1,17 +1,30 @@
 package com.gestion.hotelera.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gestion.hotelera.enums.EstadoHabitacion;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Table(name = "habitaciones")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "habitaciones")
+@NaturalIdCache(region = "habitaciones-numero")
 public class Habitacion {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    private long version;
+
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true, length = 10)
     private String numero;
 
@@ -21,22 +34,29 @@ public class Habitacion {
     @Column(nullable = false)
     private Double precioPorNoche;
 
-    @Column(nullable = false, length = 20)
-    private String estado;
+    @Convert(converter = EstadoHabitacionConverter.class)
+    @Column(nullable = false, length = 1)
+    private EstadoHabitacion estado;
 
     public Habitacion() {}
     public Habitacion(Long id) { this.id = id; }
     public Habitacion(String numero, String tipo, Double precioPorNoche, String estado) {
-        this.numero = numero; this.tipo = tipo; this.precioPorNoche = precioPorNoche; this.estado = estado;
+        this.numero = numero; this.tipo = tipo; this.precioPorNoche = precioPorNoche; setEstado(estado);
     }
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public long getVersion() { return version; }
     public String getNumero() { return numero; }
     public void setNumero(String numero) { this.numero = numero; }
     public String getTipo() { return tipo; }
     public void setTipo(String tipo) { this.tipo = tipo; }
     public Double getPrecioPorNoche() { return precioPorNoche; }
     public void setPrecioPorNoche(Double precioPorNoche) { this.precioPorNoche = precioPorNoche; }
-    public String getEstado() { return estado; }
-    public void setEstado(String estado) { this.estado = estado; }
+    public String getEstado() { return estado != null ? estado.getValor() : null; }
+    public void setEstado(String estado) {
+        this.estado = EstadoHabitacion.fromString(estado);
+    }
+    @JsonIgnore
+    public EstadoHabitacion getEstadoHabitacion() { return estado; }
+    public void setEstadoHabitacion(EstadoHabitacion estado) { this.estado = estado; }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.gestion.hotelera.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Último latido escrito por un nodo en el primario. MonitorReplica lo lee en
+ * la réplica: cuanto más viejo llega allí, más retrasada va la replicación.
+ * Hibernate solo la crea; la leen y escriben con JDBC contra cada pool.
+ */
+@Entity
+@Table(name = "latidos_replica")
+public class LatidoReplica {
+
+    @Id
+    @Column(name = "nodo", length = 150)
+    private String nodo;
+
+    /** Instante del latido en milisegundos desde epoch. */
+    @Column(name = "marca", nullable = false)
+    private Long marca;
+
+    public LatidoReplica() {
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    public Long getMarca() {
+        return marca;
+    }
+}
@@ -0,0 +1,71 @@
+package com.gestion.hotelera.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Script de migración versionado ya aplicado a la base de datos (ver
+ * MigradorEsquema). El checksum detecta scripts modificados después de
+ * aplicarse.
+ */
+@Entity
+@Table(name = "historial_migraciones")
+public class MigracionEsquema {
+
+    @Id
+    @Column(name = "version")
+    private Integer version;
+
+    @Column(name = "descripcion", nullable = false, length = 200)
+    private String descripcion;
+
+    @Column(name = "script", nullable = false, length = 200)
+    private String script;
+
+    @Column(name = "checksum", nullable = false)
+    private Long checksum;
+
+    @Column(name = "aplicada_en", nullable = false)
+    private LocalDateTime aplicadaEn;
+
+    @Column(name = "duracion_ms", nullable = false)
+    private Long duracionMs;
+
+    public MigracionEsquema() {
+    }
+
+    public MigracionEsquema(Integer version, String descripcion, String script, Long checksum,
+            LocalDateTime aplicadaEn, Long duracionMs) {
+        this.version = version;
+        this.descripcion = descripcion;
+        this.script = script;
+        this.checksum = checksum;
+        this.aplicadaEn = aplicadaEn;
+        this.duracionMs = duracionMs;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public Long getChecksum() {
+        return checksum;
+    }
+
+    public LocalDateTime getAplicadaEn() {
+        return aplicadaEn;
+    }
+
+    public Long getDuracionMs() {
+        return duracionMs;
+    }
+}
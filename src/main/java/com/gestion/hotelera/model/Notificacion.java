@@ -9,7 +9,8 @@ import java.time.temporal.ChronoUnit;
 public class Notificacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificaciones_seq")
+    @SequenceGenerator(name = "notificaciones_seq", sequenceName = "notificaciones_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
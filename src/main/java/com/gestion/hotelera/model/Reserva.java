@@ -1,6 +1,8 @@
 package com.gestion.hotelera.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gestion.hotelera.enums.EstadoReserva;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -9,12 +11,16 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 @Entity
-@Table(name = "reservas")
+@Table(name = "reservas", indexes = {
+        @Index(name = "idx_reservas_estado_fecha_inicio", columnList = "estado_reserva, fecha_inicio"),
+        @Index(name = "idx_reservas_estado_fecha_fin", columnList = "estado_reserva, fecha_fin")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Reserva {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_seq")
+    @SequenceGenerator(name = "reservas_seq", sequenceName = "reservas_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -43,8 +49,9 @@ public class Reserva {
     @Column(nullable = false)
     private Double totalPagar;
 
-    @Column(nullable = false, length = 20)
-    private String estadoReserva;
+    @Convert(converter = EstadoReservaConverter.class)
+    @Column(nullable = false, length = 1)
+    private EstadoReserva estadoReserva;
 
     @Column(name = "fecha_salida_real")
     private LocalDate fechaSalidaReal;
@@ -89,7 +96,7 @@ public class Reserva {
         this.horaSalida = horaSalida;
         this.diasEstadia = diasEstadia;
         this.totalPagar = totalPagar;
-        this.estadoReserva = estadoReserva;
+        setEstadoReserva(estadoReserva);
     }
 
     public Reserva() {}
@@ -130,8 +137,17 @@ public class Reserva {
         }
         this.totalPagar = totalPagar;
     }
-    public String getEstadoReserva() { return estadoReserva; }
-    public void setEstadoReserva(String estadoReserva) { this.estadoReserva = estadoReserva; }
+    public String getEstadoReserva() { return estadoReserva != null ? estadoReserva.getValor() : null; }
+    /**
+     * Estado como texto, para formularios y plantillas. Un texto vacío o que
+     * no es ningún estado lanza IllegalArgumentException.
+     */
+    public void setEstadoReserva(String estadoReserva) {
+        this.estadoReserva = EstadoReserva.fromString(estadoReserva);
+    }
+    @JsonIgnore
+    public EstadoReserva getEstado() { return estadoReserva; }
+    public void setEstado(EstadoReserva estado) { this.estadoReserva = estado; }
     public LocalDate getFechaSalidaReal() { return fechaSalidaReal; }
     public void setFechaSalidaReal(LocalDate fechaSalidaReal) { this.fechaSalidaReal = fechaSalidaReal; }
     public Set<Servicio> getServicios() { return servicios; }
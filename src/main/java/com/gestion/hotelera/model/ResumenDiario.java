@@ -0,0 +1,127 @@
+package com.gestion.hotelera.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Agregado diario por tipo de habitación para los reportes: ingresos,
+ * llegadas, salidas y noches ocupadas. Se mantiene sumando los cambios de
+ * cada reserva, así que leer un periodo cuesta una fila por día y tipo.
+ */
+@Entity
+@Table(name = "resumenes_diarios", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumenes_diarios_fecha_tipo", columnNames = { "fecha", "tipo_habitacion" })
+})
+public class ResumenDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resumenes_diarios_seq")
+    @SequenceGenerator(name = "resumenes_diarios_seq", sequenceName = "resumenes_diarios_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "tipo_habitacion", nullable = false, length = 50)
+    private String tipoHabitacion;
+
+    // Importe de la estancia de reservas ACTIVA/FINALIZADA, en su fecha de inicio
+    @Column(name = "ingresos_habitacion", nullable = false)
+    private double ingresosHabitacion;
+
+    @Column(name = "ingresos_servicios", nullable = false)
+    private double ingresosServicios;
+
+    @Column(name = "descuentos", nullable = false)
+    private double descuentos;
+
+    // Importe de la estancia de reservas FINALIZADA, en su fecha de inicio
+    @Column(name = "ingresos_finalizados", nullable = false)
+    private double ingresosFinalizados;
+
+    @Column(name = "check_ins", nullable = false)
+    private long checkIns;
+
+    @Column(name = "check_outs", nullable = false)
+    private long checkOuts;
+
+    @Column(name = "noches_ocupadas", nullable = false)
+    private long nochesOcupadas;
+
+    public ResumenDiario() {
+    }
+
+    public ResumenDiario(LocalDate fecha, String tipoHabitacion) {
+        this.fecha = fecha;
+        this.tipoHabitacion = tipoHabitacion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public String getTipoHabitacion() {
+        return tipoHabitacion;
+    }
+
+    public double getIngresosHabitacion() {
+        return ingresosHabitacion;
+    }
+
+    public void setIngresosHabitacion(double ingresosHabitacion) {
+        this.ingresosHabitacion = ingresosHabitacion;
+    }
+
+    public double getIngresosServicios() {
+        return ingresosServicios;
+    }
+
+    public void setIngresosServicios(double ingresosServicios) {
+        this.ingresosServicios = ingresosServicios;
+    }
+
+    public double getDescuentos() {
+        return descuentos;
+    }
+
+    public void setDescuentos(double descuentos) {
+        this.descuentos = descuentos;
+    }
+
+    public double getIngresosFinalizados() {
+        return ingresosFinalizados;
+    }
+
+    public void setIngresosFinalizados(double ingresosFinalizados) {
+        this.ingresosFinalizados = ingresosFinalizados;
+    }
+
+    public long getCheckIns() {
+        return checkIns;
+    }
+
+    public void setCheckIns(long checkIns) {
+        this.checkIns = checkIns;
+    }
+
+    public long getCheckOuts() {
+        return checkOuts;
+    }
+
+    public void setCheckOuts(long checkOuts) {
+        this.checkOuts = checkOuts;
+    }
+
+    public long getNochesOcupadas() {
+        return nochesOcupadas;
+    }
+
+    public void setNochesOcupadas(long nochesOcupadas) {
+        this.nochesOcupadas = nochesOcupadas;
+    }
+}
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -15,12 +17,17 @@ import java.util.Set;
 @Entity
 @Table(name = "servicios")
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "servicios")
 public class Servicio {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    private long version;
+
     @NotBlank
     @Size(max = 80)
     @Column(nullable = false, length = 80)
@@ -47,6 +54,7 @@ public class Servicio {
     private Set<Reserva> reservas = new HashSet<>();
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "servicios-opciones")
     private List<String> opciones = new ArrayList<>();
 
     public Servicio() {
@@ -67,6 +75,10 @@ public class Servicio {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -0,0 +1,33 @@
+package com.gestion.hotelera.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Contador compartido por todos los nodos que sube con cada cambio de datos
+ * confirmado. ResumenDiarioService lo reparte en varias filas para que los
+ * commits no esperen todos por la misma y usa su suma como versión de los
+ * datos de reportes; Hibernate solo crea la tabla, las filas se leen y
+ * escriben con JDBC.
+ */
+@Entity
+@Table(name = "versiones_datos")
+public class VersionDatos {
+
+    @Id
+    @Column(name = "nombre", length = 50)
+    private String nombre;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    public VersionDatos() {
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
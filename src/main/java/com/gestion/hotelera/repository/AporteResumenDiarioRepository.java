@@ -0,0 +1,25 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.model.AporteResumenDiario;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AporteResumenDiarioRepository extends JpaRepository<AporteResumenDiario, Long> {
+
+    /**
+     * Aportes de las reservas indicadas, bloqueados hasta el fin de la
+     * transacción para que dos cambios de la misma reserva no resten el
+     * mismo aporte dos veces.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM AporteResumenDiario a WHERE a.reservaId IN :reservaIds ORDER BY a.reservaId")
+    List<AporteResumenDiario> findParaModificar(@Param("reservaIds") Collection<Long> reservaIds);
+}
@@ -0,0 +1,37 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.model.BloqueoTarea;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface BloqueoTareaRepository extends JpaRepository<BloqueoTarea, String> {
+
+    /**
+     * Toma el lease solo si ha expirado. El UPDATE condicional es atómico, así
+     * que de varios nodos que lo intentan a la vez solo uno obtiene 1.
+     */
+    @Modifying
+    @Query("UPDATE BloqueoTarea b SET b.propietario = :propietario, b.adquiridoEn = :ahora, "
+            + "b.ultimoLatido = :ahora, b.bloqueadoHasta = :hasta "
+            + "WHERE b.nombre = :nombre AND b.bloqueadoHasta <= :ahora")
+    int adquirirSiExpirado(@Param("nombre") String nombre, @Param("propietario") String propietario,
+            @Param("ahora") LocalDateTime ahora, @Param("hasta") LocalDateTime hasta);
+
+    @Modifying
+    @Query("UPDATE BloqueoTarea b SET b.ultimoLatido = :ahora, b.bloqueadoHasta = :hasta "
+            + "WHERE b.nombre = :nombre AND b.propietario = :propietario")
+    int renovar(@Param("nombre") String nombre, @Param("propietario") String propietario,
+            @Param("ahora") LocalDateTime ahora, @Param("hasta") LocalDateTime hasta);
+
+    @Modifying
+    @Query("UPDATE BloqueoTarea b SET b.bloqueadoHasta = :hasta "
+            + "WHERE b.nombre = :nombre AND b.propietario = :propietario")
+    int liberar(@Param("nombre") String nombre, @Param("propietario") String propietario,
+            @Param("hasta") LocalDateTime hasta);
+}
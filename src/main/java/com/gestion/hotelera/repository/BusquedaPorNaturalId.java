@@ -0,0 +1,14 @@
+package com.gestion.hotelera.repository;
+
+import java.util.Optional;
+
+/**
+ * Búsqueda por el {@code @NaturalId} de la entidad (número de habitación,
+ * nombre de usuario, código de descuento). Hibernate resuelve el
+ * identificador natural desde la caché de segundo nivel y la entidad desde
+ * su región, así que una búsqueda repetida no llega a la base de datos.
+ */
+public interface BusquedaPorNaturalId<T> {
+
+    Optional<T> buscarPorNaturalId(Object valor);
+}
@@ -0,0 +1,34 @@
+package com.gestion.hotelera.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.data.repository.core.RepositoryMethodContext;
+import org.springframework.data.repository.core.support.RepositoryMetadataAccess;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Implementación de {@link BusquedaPorNaturalId} que Spring Data añade a los
+ * repositorios que extienden la interfaz. El tipo de entidad sale de los
+ * metadatos del repositorio que hace la llamada.
+ */
+public class BusquedaPorNaturalIdImpl<T> implements BusquedaPorNaturalId<T>, RepositoryMetadataAccess {
+
+    private final EntityManager entityManager;
+
+    public BusquedaPorNaturalIdImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<T> buscarPorNaturalId(Object valor) {
+        if (valor == null) {
+            return Optional.empty();
+        }
+        @SuppressWarnings("unchecked")
+        Class<T> tipo = (Class<T>) RepositoryMethodContext.getContext().getMetadata().getDomainType();
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(tipo).loadOptional(valor);
+    }
+}
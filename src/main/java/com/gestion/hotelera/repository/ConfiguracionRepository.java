@@ -1,10 +1,20 @@
 package com.gestion.hotelera.repository;
 
 import com.gestion.hotelera.model.Configuracion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ConfiguracionRepository extends JpaRepository<Configuracion, Long> {
     // Generalmente solo habrá un registro de configuración
+
+    @Override
+    @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "consultas-configuracion") })
+    List<Configuracion> findAll();
 }
@@ -0,0 +1,71 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.model.CorreoSaliente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bandeja de salida de correos. Las transiciones de estado son UPDATE
+ * condicionales sobre el estado previo, de modo que varios hilos o nodos
+ * pueden drenar la bandeja sin enviar dos veces el mismo correo.
+ */
+@Repository
+public interface CorreoSalienteRepository extends JpaRepository<CorreoSaliente, Long> {
+
+    @Query("SELECT c.id FROM CorreoSaliente c WHERE c.estado = :estado AND c.proximoIntento <= :ahora "
+            + "ORDER BY c.proximoIntento, c.id")
+    List<Long> findIdsListos(@Param("estado") String estado, @Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    /**
+     * Reclama de una vez los correos que sigan en el estado previo, marcándolos
+     * con la ficha del lote; los que ya reclamó otro hilo no cambian.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = :nuevoEstado, c.reclamadoEn = :ahora, c.reclamadoPor = :ficha "
+            + "WHERE c.id IN :ids AND c.estado = :estadoPrevio")
+    int reclamarLote(@Param("ids") Collection<Long> ids, @Param("estadoPrevio") String estadoPrevio,
+            @Param("nuevoEstado") String nuevoEstado, @Param("ficha") String ficha,
+            @Param("ahora") LocalDateTime ahora);
+
+    List<CorreoSaliente> findByReclamadoPorAndEstado(String reclamadoPor, String estado);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = :nuevoEstado, c.intentos = c.intentos + 1, "
+            + "c.enviadoEn = :ahora, c.ultimoError = NULL WHERE c.id IN :ids AND c.estado = :estadoPrevio")
+    int marcarEnviados(@Param("ids") Collection<Long> ids, @Param("estadoPrevio") String estadoPrevio,
+            @Param("nuevoEstado") String nuevoEstado, @Param("ahora") LocalDateTime ahora);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = :nuevoEstado, c.intentos = c.intentos + 1, "
+            + "c.proximoIntento = :proximoIntento, c.ultimoError = :error "
+            + "WHERE c.id = :id AND c.estado = :estadoPrevio")
+    int marcarFallo(@Param("id") Long id, @Param("estadoPrevio") String estadoPrevio,
+            @Param("nuevoEstado") String nuevoEstado, @Param("proximoIntento") LocalDateTime proximoIntento,
+            @Param("error") String error);
+
+    /**
+     * Devuelve a la cola los correos reclamados por un hilo o nodo que no
+     * llegó a terminar (por ejemplo, porque la instancia se detuvo).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = :nuevoEstado "
+            + "WHERE c.estado = :estadoPrevio AND c.reclamadoEn < :limite")
+    int liberarReclamadosAntesDe(@Param("estadoPrevio") String estadoPrevio,
+            @Param("nuevoEstado") String nuevoEstado, @Param("limite") LocalDateTime limite);
+
+    @Query("SELECT c.estado, COUNT(c) FROM CorreoSaliente c GROUP BY c.estado")
+    List<Object[]> contarPorEstado();
+}
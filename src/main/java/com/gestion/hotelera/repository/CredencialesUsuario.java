@@ -0,0 +1,17 @@
+package com.gestion.hotelera.repository;
+
+/**
+ * Datos de un usuario que deciden si puede autenticarse, leídos siempre de
+ * la tabla y nunca de la caché de segundo nivel. Bastan para construir el
+ * UserDetails de la petición sin cargar la entidad.
+ */
+public interface CredencialesUsuario {
+
+    String getUsername();
+
+    String getPassword();
+
+    String getRol();
+
+    Boolean getActivo();
+}
@@ -1,8 +1,12 @@
 package com.gestion.hotelera.repository;
 
 import com.gestion.hotelera.model.Descuento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
@@ -10,20 +14,41 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DescuentoRepository extends JpaRepository<Descuento, Long> {
-       Optional<Descuento> findByCodigo(String codigo);
+public interface DescuentoRepository extends JpaRepository<Descuento, Long>, BusquedaPorNaturalId<Descuento> {
 
+       /**
+        * Busca por código a través de la caché de identificadores naturales.
+        */
+       default Optional<Descuento> findByCodigo(String codigo) {
+              return buscarPorNaturalId(codigo);
+       }
+
+       @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+                     @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "consultas-descuentos") })
        List<Descuento> findByActivoTrue();
 
+       @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+                     @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "consultas-descuentos") })
        @Query("SELECT d FROM Descuento d WHERE d.activo = true " +
                      "AND d.fechaInicio <= :hoy AND d.fechaFin >= :hoy " +
                      "AND (d.usosMaximos IS NULL OR d.usosActuales < d.usosMaximos)")
        List<Descuento> findDescuentosValidos(@Param("hoy") LocalDate hoy);
 
+       @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+                     @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "consultas-descuentos") })
        @Query("SELECT d FROM Descuento d WHERE d.activo = true " +
                      "AND d.fechaInicio <= :hoy AND d.fechaFin >= :hoy")
        List<Descuento> findDescuentosActivos(@Param("hoy") LocalDate hoy);
 
+       /**
+        * Suma un uso en la base de datos, sin partir del valor cacheado, si
+        * quedan usos disponibles. Devuelve 0 si el descuento ya está agotado.
+        */
+       @Modifying
+       @Query("UPDATE Descuento d SET d.usosActuales = d.usosActuales + 1, d.version = d.version + 1 " +
+                     "WHERE d.id = :id AND (d.usosMaximos IS NULL OR d.usosActuales < d.usosMaximos)")
+       int sumarUso(@Param("id") Long id);
+
        org.springframework.data.domain.Page<Descuento> findByCodigoContainingIgnoreCaseOrDescripcionContainingIgnoreCase(
                      String codigo, String descripcion, org.springframework.data.domain.Pageable pageable);
 }
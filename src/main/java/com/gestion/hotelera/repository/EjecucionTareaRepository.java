@@ -0,0 +1,14 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.model.EjecucionTarea;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EjecucionTareaRepository extends JpaRepository<EjecucionTarea, Long> {
+
+    List<EjecucionTarea> findByNombreTareaOrderByInicioDesc(String nombreTarea, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.gestion.hotelera.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Guardado masivo para los repositorios con muchas altas seguidas. A
+ * diferencia de saveAll, escribe por lotes del tamaño de
+ * hibernate.jdbc.batch_size y saca del contexto de persistencia cada lote
+ * ya escrito, así la memoria no crece con el número de filas.
+ */
+public interface GuardadoEnLote<T> {
+
+    /**
+     * Inserta las entidades nuevas y actualiza las existentes. Devuelve las
+     * entidades guardadas, ya separadas del contexto de persistencia.
+     */
+    List<T> guardarEnLote(Collection<T> entidades);
+}
@@ -0,0 +1,73 @@
+package com.gestion.hotelera.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementación de {@link GuardadoEnLote} que Spring Data añade a los
+ * repositorios que extienden la interfaz. Solo agrupa los INSERT si la
+ * entidad no usa IDs IDENTITY.
+ */
+public class GuardadoEnLoteImpl<T> implements GuardadoEnLote<T> {
+
+    private final EntityManager entityManager;
+    private final int tamanoLote;
+
+    public GuardadoEnLoteImpl(EntityManager entityManager,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser positivo");
+        }
+        this.entityManager = entityManager;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Override
+    @Transactional
+    public List<T> guardarEnLote(Collection<T> entidades) {
+        List<T> guardadas = new ArrayList<>(entidades.size());
+        List<T> lote = new ArrayList<>(Math.min(entidades.size(), tamanoLote));
+        JpaEntityInformation<T, ?> informacion = null;
+        for (T entidad : entidades) {
+            if (informacion == null || !informacion.getJavaType().equals(entidad.getClass())) {
+                informacion = informacion(entidad);
+            }
+            if (informacion.isNew(entidad)) {
+                entityManager.persist(entidad);
+                lote.add(entidad);
+            } else {
+                lote.add(entityManager.merge(entidad));
+            }
+            if (lote.size() == tamanoLote) {
+                escribir(lote, guardadas);
+            }
+        }
+        if (!lote.isEmpty()) {
+            escribir(lote, guardadas);
+        }
+        return guardadas;
+    }
+
+    /**
+     * Envía el lote a la base de datos y lo separa del contexto de persistencia.
+     */
+    private void escribir(List<T> lote, List<T> guardadas) {
+        entityManager.flush();
+        lote.forEach(entityManager::detach);
+        guardadas.addAll(lote);
+        lote.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private JpaEntityInformation<T, ?> informacion(T entidad) {
+        return (JpaEntityInformation<T, ?>) JpaEntityInformationSupport
+                .getEntityInformation(entidad.getClass(), entityManager);
+    }
+}
@@ -1,18 +1,76 @@
 package com.gestion.hotelera.repository;
 
+import com.gestion.hotelera.enums.EstadoHabitacion;
 import com.gestion.hotelera.model.Habitacion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface HabitacionRepository extends JpaRepository<Habitacion, Long> {
-    List<Habitacion> findByEstado(String estado);
+public interface HabitacionRepository extends JpaRepository<Habitacion, Long>, BusquedaPorNaturalId<Habitacion>,
+        LecturaParaEscribir<Habitacion> {
 
-    Optional<Habitacion> findByNumero(String numero);
+    /**
+     * Literales de estado para las consultas JPQL; Hibernate los traduce al
+     * código que guarda EstadoHabitacionConverter.
+     */
+    String DISPONIBLE = "com.gestion.hotelera.enums.EstadoHabitacion.DISPONIBLE";
+    String OCUPADA = "com.gestion.hotelera.enums.EstadoHabitacion.OCUPADA";
+    String MANTENIMIENTO = "com.gestion.hotelera.enums.EstadoHabitacion.MANTENIMIENTO";
 
-    long countByEstado(String estado);
+    List<Habitacion> findByEstado(EstadoHabitacion estado);
 
-    long countByEstadoIgnoreCase(String estado);
+    /**
+     * Busca por número a través de la caché de identificadores naturales.
+     */
+    default Optional<Habitacion> findByNumero(String numero) {
+        return buscarPorNaturalId(numero);
+    }
+
+    /**
+     * Lista completa para recepción, el calendario y el índice de
+     * disponibilidad. El resultado queda en la caché de consultas hasta la
+     * siguiente escritura en habitaciones.
+     */
+    @Override
+    @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "consultas-habitaciones") })
+    List<Habitacion> findAll();
+
+    long countByEstado(EstadoHabitacion estado);
+
+    /**
+     * Bloquea la fila de la habitación (SELECT ... FOR UPDATE) hasta el fin de
+     * la transacción. Serializa las reservas de una misma habitación entre
+     * instancias de la aplicación.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Habitacion h WHERE h.id = :id")
+    Optional<Habitacion> bloquearPorId(@Param("id") Long id);
+
+    /**
+     * Cambia el estado de las habitaciones indicadas salvo las que estén en
+     * mantenimiento. Sube la versión de cada fila como haría Hibernate en un
+     * UPDATE normal. Devuelve el número de filas actualizadas.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Habitacion h SET h.estado = :estado, h.version = h.version + 1 " +
+            "WHERE h.id IN :ids AND h.estado <> :estado AND h.estado <> " + MANTENIMIENTO)
+    int actualizarEstadoEnLote(@Param("ids") Collection<Long> ids, @Param("estado") EstadoHabitacion estado);
+
+    @Query("SELECT h.tipo AS tipo, COUNT(h) AS total FROM Habitacion h GROUP BY h.tipo")
+    List<HabitacionesPorTipo> contarPorTipo();
+
+    @Query("SELECT h.estado AS estado, COUNT(h) AS total FROM Habitacion h GROUP BY h.estado")
+    List<TotalPorEstado> contarPorEstado();
 
     org.springframework.data.domain.Page<Habitacion> findByNumeroContainingIgnoreCaseOrTipoContainingIgnoreCase(
             String numero, String tipo, org.springframework.data.domain.Pageable pageable);
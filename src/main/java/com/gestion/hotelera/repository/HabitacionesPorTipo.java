@@ -0,0 +1,8 @@
+package com.gestion.hotelera.repository;
+
+public interface HabitacionesPorTipo {
+
+    String getTipo();
+
+    Long getTotal();
+}
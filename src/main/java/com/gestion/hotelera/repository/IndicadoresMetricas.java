@@ -0,0 +1,35 @@
+package com.gestion.hotelera.repository;
+
+/**
+ * Valores de las métricas de negocio de HotelMetrics, calculados por la
+ * base de datos en una sola consulta.
+ */
+public interface IndicadoresMetricas {
+
+    Long getReservas();
+
+    Long getReservasActivas();
+
+    Long getReservasPendientes();
+
+    Long getReservasFinalizadas();
+
+    /** Reservas de cualquier estado que empiezan hoy. */
+    Long getCheckInsHoy();
+
+    /** Reservas de cualquier estado que terminan hoy. */
+    Long getCheckOutsHoy();
+
+    /** Total a pagar de las reservas finalizadas. */
+    Double getIngresosFinalizadas();
+
+    Long getHabitaciones();
+
+    Long getHabitacionesDisponibles();
+
+    Long getHabitacionesOcupadas();
+
+    Long getHabitacionesMantenimiento();
+
+    Long getClientes();
+}
@@ -0,0 +1,30 @@
+package com.gestion.hotelera.repository;
+
+/**
+ * KPIs de reportes de un periodo, calculados por la base de datos en una
+ * sola consulta.
+ */
+public interface IndicadoresReporte {
+
+    /** Total a pagar de las reservas ACTIVA y FINALIZADA. */
+    Double getIngresos();
+
+    /** Habitaciones distintas con alguna reserva ACTIVA. */
+    Long getHabitacionesOcupadas();
+
+    Long getReservasFinalizadas();
+
+    Long getTotalHabitaciones();
+
+    /** Ingreso medio por reserva finalizada. */
+    default double getAdr() {
+        long finalizadas = getReservasFinalizadas() != null ? getReservasFinalizadas() : 0L;
+        return finalizadas > 0 ? getIngresos() / finalizadas : 0.0;
+    }
+
+    /** Porcentaje de habitaciones ocupadas sobre el total. */
+    default double getTasaOcupacion() {
+        long total = getTotalHabitaciones() != null ? getTotalHabitaciones() : 0L;
+        return total > 0 ? (double) getHabitacionesOcupadas() / total * 100 : 0.0;
+    }
+}
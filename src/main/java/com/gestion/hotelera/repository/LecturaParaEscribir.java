@@ -0,0 +1,14 @@
+package com.gestion.hotelera.repository;
+
+import java.util.Optional;
+
+/**
+ * Lectura de una entidad cacheada antes de modificarla. La caché de segundo
+ * nivel es local a cada nodo y puede tener un estado que otro nodo ya cambió,
+ * así que aquí la fila se relee de la base de datos con SELECT ... FOR UPDATE
+ * y queda bloqueada hasta el fin de la transacción.
+ */
+public interface LecturaParaEscribir<T> {
+
+    Optional<T> leerParaEscribir(Long id);
+}
@@ -0,0 +1,40 @@
+package com.gestion.hotelera.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.repository.core.RepositoryMethodContext;
+import org.springframework.data.repository.core.support.RepositoryMetadataAccess;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Implementación de {@link LecturaParaEscribir} que Spring Data añade a los
+ * repositorios que extienden la interfaz. Si la entidad ya estaba en el
+ * contexto de persistencia (cargada antes desde la caché) se refresca igual:
+ * una consulta con bloqueo devolvería esa misma instancia sin releerla.
+ */
+public class LecturaParaEscribirImpl<T> implements LecturaParaEscribir<T>, RepositoryMetadataAccess {
+
+    private final EntityManager entityManager;
+
+    public LecturaParaEscribirImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public Optional<T> leerParaEscribir(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        @SuppressWarnings("unchecked")
+        Class<T> tipo = (Class<T>) RepositoryMethodContext.getContext().getMetadata().getDomainType();
+        T entidad = entityManager.find(tipo, id);
+        if (entidad == null) {
+            return Optional.empty();
+        }
+        entityManager.refresh(entidad, LockModeType.PESSIMISTIC_WRITE);
+        return Optional.of(entidad);
+    }
+}
@@ -0,0 +1,9 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.model.MigracionEsquema;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MigracionEsquemaRepository extends JpaRepository<MigracionEsquema, Integer> {
+}
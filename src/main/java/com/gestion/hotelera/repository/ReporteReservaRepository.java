@@ -0,0 +1,100 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.model.Reserva;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.gestion.hotelera.repository.HabitacionRepository.DISPONIBLE;
+import static com.gestion.hotelera.repository.HabitacionRepository.MANTENIMIENTO;
+import static com.gestion.hotelera.repository.HabitacionRepository.OCUPADA;
+import static com.gestion.hotelera.repository.ReservaRepository.ACTIVA;
+import static com.gestion.hotelera.repository.ReservaRepository.FINALIZADA;
+import static com.gestion.hotelera.repository.ReservaRepository.PENDIENTE;
+
+/**
+ * Consultas de reportes sobre reservas: agregados calculados en la base de
+ * datos en lugar de cargar y recorrer las entidades.
+ *
+ * El periodo de los reportes abarca las reservas que empiezan y terminan
+ * dentro de [inicio, fin].
+ */
+@org.springframework.stereotype.Repository
+public interface ReporteReservaRepository extends Repository<Reserva, Long> {
+
+    /**
+     * Ingresos, habitaciones ocupadas, reservas finalizadas y total de
+     * habitaciones en una sola ida y vuelta a la base de datos.
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN r.estadoReserva IN (" + FINALIZADA + ", " + ACTIVA + ") THEN r.totalPagar "
+            + "ELSE 0.0 END), 0.0) AS ingresos, "
+            + "COUNT(DISTINCT CASE WHEN r.estadoReserva = " + ACTIVA + " THEN r.habitacion.id END) AS habitacionesOcupadas, "
+            + "COALESCE(SUM(CASE WHEN r.estadoReserva = " + FINALIZADA + " THEN 1L ELSE 0L END), 0L) AS reservasFinalizadas, "
+            + "(SELECT COUNT(h) FROM Habitacion h) AS totalHabitaciones "
+            + "FROM Reserva r WHERE r.fechaInicio >= :inicio AND r.fechaFin <= :fin")
+    IndicadoresReporte calcularIndicadores(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    /**
+     * Conteos de reservas, habitaciones y clientes e ingresos de las
+     * reservas finalizadas para las métricas, en una sola ida y vuelta.
+     */
+    @Query("SELECT COUNT(r) AS reservas, "
+            + "COALESCE(SUM(CASE WHEN r.estadoReserva = " + ACTIVA + " THEN 1L ELSE 0L END), 0L) AS reservasActivas, "
+            + "COALESCE(SUM(CASE WHEN r.estadoReserva = " + PENDIENTE + " THEN 1L ELSE 0L END), 0L) AS reservasPendientes, "
+            + "COALESCE(SUM(CASE WHEN r.estadoReserva = " + FINALIZADA + " THEN 1L ELSE 0L END), 0L) "
+            + "AS reservasFinalizadas, "
+            + "COALESCE(SUM(CASE WHEN r.fechaInicio = :hoy THEN 1L ELSE 0L END), 0L) AS checkInsHoy, "
+            + "COALESCE(SUM(CASE WHEN r.fechaFin = :hoy THEN 1L ELSE 0L END), 0L) AS checkOutsHoy, "
+            + "COALESCE(SUM(CASE WHEN r.estadoReserva = " + FINALIZADA + " THEN r.totalPagar ELSE 0.0 END), 0.0) "
+            + "AS ingresosFinalizadas, "
+            + "(SELECT COUNT(h) FROM Habitacion h) AS habitaciones, "
+            + "(SELECT COUNT(h) FROM Habitacion h WHERE h.estado = " + DISPONIBLE + ") AS habitacionesDisponibles, "
+            + "(SELECT COUNT(h) FROM Habitacion h WHERE h.estado = " + OCUPADA + ") AS habitacionesOcupadas, "
+            + "(SELECT COUNT(h) FROM Habitacion h WHERE h.estado = " + MANTENIMIENTO + ") AS habitacionesMantenimiento, "
+            + "(SELECT COUNT(c) FROM Cliente c) AS clientes "
+            + "FROM Reserva r")
+    IndicadoresMetricas calcularIndicadoresMetricas(@Param("hoy") LocalDate hoy);
+
+    /**
+     * Reservas del periodo con cliente y habitación ya cargados, para listarlas.
+     */
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.cliente JOIN FETCH r.habitacion "
+            + "WHERE r.fechaInicio >= :inicio AND r.fechaFin <= :fin ORDER BY r.id")
+    List<Reserva> findEnPeriodo(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    /**
+     * Filas del periodo para exportar, leídas como stream por lotes sin
+     * hidratar entidades; requiere una transacción abierta.
+     */
+    @Query("SELECT r.id AS id, c.nombres AS clienteNombres, c.apellidos AS clienteApellidos, c.dni AS clienteDni, "
+            + "h.numero AS habitacionNumero, h.tipo AS habitacionTipo, r.fechaInicio AS fechaInicio, "
+            + "r.fechaFin AS fechaFin, r.diasEstadia AS diasEstadia, r.estadoReserva AS estadoReserva, "
+            + "r.totalPagar AS totalPagar FROM Reserva r JOIN r.cliente c JOIN r.habitacion h "
+            + "WHERE r.fechaInicio >= :inicio AND r.fechaFin <= :fin ORDER BY r.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ReservaExportacion> streamExportacion(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    /**
+     * Todas las reservas con las columnas del cubo de análisis, leídas como
+     * stream por lotes; requiere una transacción abierta.
+     */
+    @Query(SELECT_CUBO + " ORDER BY r.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ReservaCubo> streamCubo();
+
+    @Query(SELECT_CUBO + " WHERE r.id IN :ids")
+    List<ReservaCubo> findCuboPorIds(@Param("ids") Collection<Long> ids);
+
+    String SELECT_CUBO = "SELECT r.id AS id, h.tipo AS tipoHabitacion, r.fechaInicio AS fechaInicio, "
+            + "r.fechaFin AS fechaFin, r.estadoReserva AS estadoReserva, r.totalPagar AS totalPagar, "
+            + "p.metodo AS metodoPago, p.canal AS canal, d.codigo AS codigoDescuento, c.nacionalidad AS nacionalidad "
+            + "FROM Reserva r JOIN r.habitacion h JOIN r.cliente c LEFT JOIN r.pago p LEFT JOIN r.descuento d";
+}
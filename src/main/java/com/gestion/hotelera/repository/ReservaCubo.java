@@ -0,0 +1,30 @@
+package com.gestion.hotelera.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Columnas de una reserva que usa el cubo de análisis, con su pago,
+ * descuento y nacionalidad del cliente.
+ */
+public interface ReservaCubo {
+
+    Long getId();
+
+    String getTipoHabitacion();
+
+    LocalDate getFechaInicio();
+
+    LocalDate getFechaFin();
+
+    String getEstadoReserva();
+
+    Double getTotalPagar();
+
+    String getMetodoPago();
+
+    String getCanal();
+
+    String getCodigoDescuento();
+
+    String getNacionalidad();
+}
@@ -0,0 +1,32 @@
+package com.gestion.hotelera.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Columnas de una reserva para exportarla, leídas sin cargar la entidad ni
+ * sus relaciones.
+ */
+public interface ReservaExportacion {
+
+    Long getId();
+
+    String getClienteNombres();
+
+    String getClienteApellidos();
+
+    String getClienteDni();
+
+    String getHabitacionNumero();
+
+    String getHabitacionTipo();
+
+    LocalDate getFechaInicio();
+
+    LocalDate getFechaFin();
+
+    Integer getDiasEstadia();
+
+    String getEstadoReserva();
+
+    Double getTotalPagar();
+}
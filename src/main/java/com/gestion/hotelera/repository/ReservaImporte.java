@@ -0,0 +1,28 @@
+package com.gestion.hotelera.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección de una reserva con lo que aporta a los resúmenes diarios:
+ * tipo de habitación, fechas, estado e importes (servicios ya sumados).
+ */
+public interface ReservaImporte {
+
+    Long getId();
+
+    String getTipoHabitacion();
+
+    String getEstadoReserva();
+
+    LocalDate getFechaInicio();
+
+    LocalDate getFechaFin();
+
+    LocalDate getFechaSalidaReal();
+
+    Double getTotalPagar();
+
+    Double getMontoServicios();
+
+    Double getMontoDescuento();
+}
@@ -0,0 +1,22 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección mínima de una reserva: habitación, rango de fechas y estado.
+ * Evita hidratar la entidad completa cuando solo se necesita la ocupación.
+ */
+public interface ReservaIntervalo {
+
+    Long getId();
+
+    Long getHabitacionId();
+
+    LocalDate getFechaInicio();
+
+    LocalDate getFechaFin();
+
+    EstadoReserva getEstadoReserva();
+}
@@ -1,52 +1,197 @@
 package com.gestion.hotelera.repository;
 
+import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.model.Reserva;
 import com.gestion.hotelera.model.Habitacion;
 import com.gestion.hotelera.model.Cliente;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservaRepository extends JpaRepository<Reserva, Long> {
 
+    /**
+     * Literales de estado para las consultas JPQL; Hibernate los traduce al
+     * código que guarda EstadoReservaConverter.
+     */
+    String PENDIENTE = "com.gestion.hotelera.enums.EstadoReserva.PENDIENTE";
+    String ACTIVA = "com.gestion.hotelera.enums.EstadoReserva.ACTIVA";
+    String FINALIZADA = "com.gestion.hotelera.enums.EstadoReserva.FINALIZADA";
+    String ESTADOS_VIGENTES = "(" + PENDIENTE + ", " + ACTIVA + ")";
+
     List<Reserva> findByCliente(Cliente cliente);
     List<Reserva> findByHabitacion(Habitacion habitacion);
-    List<Reserva> findByClienteAndEstadoReserva(Cliente cliente, String estadoReserva);
-    boolean existsByClienteAndEstadoReservaIn(Cliente cliente, List<String> estadosActivos);
-    long countByFechaInicioAndEstadoReserva(LocalDate fechaInicio, String estadoReserva);
-    long countByFechaFinAndEstadoReserva(LocalDate fechaFin, String estadoReserva);
-    long countByFechaInicioAndEstadoReservaIn(LocalDate fechaInicio, List<String> estadoReserva);
-    long countByFechaFinAndEstadoReservaIn(LocalDate fechaFin, List<String> estadoReserva);
-    long countByEstadoReserva(String estadoReserva);
-    List<Reserva> findByEstadoReserva(String estadoReserva);
+    List<Reserva> findByClienteAndEstadoReserva(Cliente cliente, EstadoReserva estadoReserva);
+    boolean existsByClienteAndEstadoReservaIn(Cliente cliente, List<EstadoReserva> estadosActivos);
+    long countByFechaInicioAndEstadoReserva(LocalDate fechaInicio, EstadoReserva estadoReserva);
+    long countByFechaFinAndEstadoReserva(LocalDate fechaFin, EstadoReserva estadoReserva);
+    long countByFechaInicioAndEstadoReservaIn(LocalDate fechaInicio, List<EstadoReserva> estadoReserva);
+    long countByFechaFinAndEstadoReservaIn(LocalDate fechaFin, List<EstadoReserva> estadoReserva);
+
+    /**
+     * Igualdad exacta sobre el código del estado: con el índice
+     * (estado_reserva, fecha_inicio) el conteo no lee la tabla.
+     */
+    long countByEstadoReserva(EstadoReserva estadoReserva);
+    List<Reserva> findByEstadoReserva(EstadoReserva estadoReserva);
     long countByFechaSalidaReal(LocalDate fechaSalidaReal);
-    List<Reserva> findByEstadoReservaAndFechaSalidaRealBetween(String estado, LocalDate fechaInicio, LocalDate fechaFin);
+    List<Reserva> findByEstadoReservaAndFechaSalidaRealBetween(EstadoReserva estado, LocalDate fechaInicio, LocalDate fechaFin);
 
-    long countByEstadoReservaIgnoreCase(String estado);
     long countByFechaInicio(LocalDate fechaInicio);
     long countByFechaFin(LocalDate fechaFin);
 
+    @Query("SELECT r.estadoReserva AS estado, COUNT(r) AS total FROM Reserva r GROUP BY r.estadoReserva")
+    List<TotalPorEstado> contarPorEstado();
+
+    /**
+     * Últimas reservas con cliente y habitación ya cargados, para mostrarlas
+     * fuera de la transacción.
+     */
+    @Query("SELECT r FROM Reserva r LEFT JOIN FETCH r.cliente LEFT JOIN FETCH r.habitacion ORDER BY r.id DESC")
+    List<Reserva> findUltimasConDetalle(Pageable pageable);
+
+    /**
+     * Reservas que empiezan el día indicado en ese estado, con cliente y habitación.
+     */
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.cliente JOIN FETCH r.habitacion "
+            + "WHERE r.fechaInicio = :fecha AND r.estadoReserva = :estado ORDER BY r.id")
+    List<Reserva> findLlegadasConDetalle(@Param("fecha") LocalDate fecha, @Param("estado") EstadoReserva estado);
+
+    /**
+     * Reservas que terminan el día indicado en ese estado, con cliente y habitación.
+     */
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.cliente JOIN FETCH r.habitacion "
+            + "WHERE r.fechaFin = :fecha AND r.estadoReserva = :estado ORDER BY r.id")
+    List<Reserva> findSalidasConDetalle(@Param("fecha") LocalDate fecha, @Param("estado") EstadoReserva estado);
+
     @Query("SELECT COUNT(DISTINCT r.habitacion.id) FROM Reserva r WHERE " +
-            "(r.fechaInicio <= :date AND r.fechaFin >= :date AND r.estadoReserva IN ('ACTIVA', 'PENDIENTE'))")
+            "(r.fechaInicio <= :date AND r.fechaFin >= :date AND r.estadoReserva IN " + ESTADOS_VIGENTES + ")")
     long countActiveReservationsOnDate(@Param("date") LocalDate date);
 
-    @Query("SELECT COALESCE(SUM(r.totalPagar), 0.0) FROM Reserva r WHERE r.estadoReserva IN ('PENDIENTE', 'ACTIVA', 'FINALIZADA')")
+    @Query("SELECT COALESCE(SUM(r.totalPagar), 0.0) FROM Reserva r WHERE r.estadoReserva IN (" + PENDIENTE + ", " + ACTIVA + ", " + FINALIZADA + ")")
     Double sumTotalPagarForPendingActiveAndFinalizedReservas();
 
-    @Query("SELECT DISTINCT r.habitacion.id FROM Reserva r WHERE r.cliente.id = :clienteId AND r.estadoReserva IN ('PENDIENTE', 'ACTIVA')")
+    @Query("SELECT DISTINCT r.habitacion.id FROM Reserva r WHERE r.cliente.id = :clienteId AND r.estadoReserva IN " + ESTADOS_VIGENTES)
     List<Long> findHabitacionesReservadasPorCliente(@Param("clienteId") Long clienteId);
 
+    /**
+     * Rango de fechas de todas las reservas pendientes o activas, sin cargar entidades
+     */
+    @Query("SELECT r.id AS id, r.habitacion.id AS habitacionId, r.fechaInicio AS fechaInicio, " +
+            "r.fechaFin AS fechaFin, r.estadoReserva AS estadoReserva " +
+            "FROM Reserva r WHERE r.estadoReserva IN " + ESTADOS_VIGENTES)
+    List<ReservaIntervalo> findIntervalosActivos();
+
+    /**
+     * Estancias PENDIENTE/ACTIVA que tocan alguna noche de [desde, hasta).
+     */
+    @Query("SELECT r.id AS id, r.habitacion.id AS habitacionId, r.fechaInicio AS fechaInicio, " +
+            "r.fechaFin AS fechaFin, r.estadoReserva AS estadoReserva FROM Reserva r " +
+            "WHERE r.estadoReserva IN " + ESTADOS_VIGENTES + " AND r.fechaInicio < :hasta AND r.fechaFin > :desde")
+    List<ReservaIntervalo> findIntervalosActivosEnRango(@Param("desde") LocalDate desde,
+                                                       @Param("hasta") LocalDate hasta);
+
+    /**
+     * Reservas pendientes o activas cuya fecha de fin ya pasó
+     */
+    @Query("SELECT r.id AS id, r.habitacion.id AS habitacionId, r.fechaInicio AS fechaInicio, " +
+            "r.fechaFin AS fechaFin, r.estadoReserva AS estadoReserva FROM Reserva r " +
+            "WHERE r.estadoReserva IN " + ESTADOS_VIGENTES + " AND r.fechaFin < :fecha")
+    List<ReservaIntervalo> findIntervalosVencidos(@Param("fecha") LocalDate fecha);
+
+    /**
+     * Reservas pendientes cuya fecha de inicio ya llegó
+     */
+    @Query("SELECT r.id AS id, r.habitacion.id AS habitacionId, r.fechaInicio AS fechaInicio, " +
+            "r.fechaFin AS fechaFin, r.estadoReserva AS estadoReserva FROM Reserva r " +
+            "WHERE r.estadoReserva = " + PENDIENTE + " AND r.fechaInicio <= :fecha")
+    List<ReservaIntervalo> findIntervalosPendientesIniciados(@Param("fecha") LocalDate fecha);
+
+    /**
+     * Reservas PENDIENTE que empiezan en la fecha indicada, con cliente y
+     * habitación ya cargados, para los recordatorios de check-in. Se leen
+     * como stream por lotes de filas; requiere una transacción abierta.
+     */
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.cliente c JOIN FETCH r.habitacion " +
+            "WHERE r.estadoReserva = " + PENDIENTE + " AND r.fechaInicio = :fecha " +
+            "AND c.email IS NOT NULL AND c.email <> ''")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    Stream<Reserva> streamPendientesQueInician(@Param("fecha") LocalDate fecha);
+
+    /**
+     * Importes de todas las reservas para reconstruir los resúmenes diarios,
+     * leídos como stream sin hidratar entidades; requiere una transacción abierta.
+     */
+    @Query(SELECT_IMPORTES)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ReservaImporte> streamImportes();
+
+    @Query(SELECT_IMPORTES + " WHERE r.id IN :ids")
+    List<ReservaImporte> findImportesPorIds(@Param("ids") Collection<Long> ids);
+
+    String SELECT_IMPORTES = "SELECT r.id AS id, h.tipo AS tipoHabitacion, r.estadoReserva AS estadoReserva, " +
+            "r.fechaInicio AS fechaInicio, r.fechaFin AS fechaFin, r.fechaSalidaReal AS fechaSalidaReal, " +
+            "r.totalPagar AS totalPagar, r.montoDescuento AS montoDescuento, " +
+            "(SELECT COALESCE(SUM(s.precio), 0.0) FROM Reserva r2 JOIN r2.servicios s WHERE r2.id = r.id) " +
+            "AS montoServicios FROM Reserva r JOIN r.habitacion h";
+
+    /**
+     * Bloquea hasta el final de la transacción las reservas indicadas que
+     * sigan en alguno de los estados y devuelve sus IDs. Una cancelación
+     * concurrente espera a que se confirme el cambio o ya ha confirmado y
+     * la reserva no aparece.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r.id FROM Reserva r WHERE r.id IN :ids AND r.estadoReserva IN :estados ORDER BY r.id")
+    List<Long> bloquearEnEstados(@Param("ids") Collection<Long> ids,
+                                 @Param("estados") Collection<EstadoReserva> estados);
+
+    /**
+     * Cambia el estado de las reservas indicadas que sigan en alguno de los
+     * estados previos. Devuelve el número de filas actualizadas.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Reserva r SET r.estadoReserva = :nuevoEstado " +
+            "WHERE r.id IN :ids AND r.estadoReserva IN :estadosPrevios")
+    int actualizarEstadoEnLote(@Param("ids") Collection<Long> ids,
+                               @Param("estadosPrevios") Collection<EstadoReserva> estadosPrevios,
+                               @Param("nuevoEstado") EstadoReserva nuevoEstado);
+
+    /**
+     * Habitaciones con una reserva pendiente o activa en curso en la fecha,
+     * contando el día de salida
+     */
+    @Query("SELECT DISTINCT r.habitacion.id FROM Reserva r WHERE r.estadoReserva IN " + ESTADOS_VIGENTES +
+            " AND r.fechaInicio <= :fecha AND r.fechaFin >= :fecha")
+    List<Long> findHabitacionesConEstanciaEnCurso(@Param("fecha") LocalDate fecha);
+
+    /**
+     * Habitaciones con una reserva pendiente o activa que ocupa la noche de la fecha indicada
+     */
+    @Query("SELECT DISTINCT r.habitacion.id FROM Reserva r WHERE r.estadoReserva IN " + ESTADOS_VIGENTES +
+            " AND r.fechaInicio <= :fecha AND r.fechaFin > :fecha")
+    List<Long> findHabitacionesOcupadasEnFecha(@Param("fecha") LocalDate fecha);
+
     /**
      * Verifica si existe una reserva activa o pendiente para una habitación en un rango de fechas
      * Excluye la reserva actual si se está actualizando (reservaId != null)
      */
     @Query("SELECT COUNT(r) > 0 FROM Reserva r WHERE r.habitacion.id = :habitacionId " +
-            "AND r.estadoReserva IN ('PENDIENTE', 'ACTIVA') " +
-            "AND (:fechaInicio < r.fechaFin AND :fechaFin > r.fechaInicio) " +
+            "AND r.estadoReserva IN " + ESTADOS_VIGENTES +
+            " AND (:fechaInicio < r.fechaFin AND :fechaFin > r.fechaInicio) " +
             "AND (:reservaId IS NULL OR r.id != :reservaId)")
     boolean existeReservaEnRangoFechas(@Param("habitacionId") Long habitacionId,
                                        @Param("fechaInicio") LocalDate fechaInicio,
@@ -57,9 +202,10 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
      * Encuentra todas las reservas activas o pendientes que están dentro de un rango de fechas
      */
     @Query("SELECT r FROM Reserva r WHERE r.habitacion.id = :habitacionId " +
-            "AND r.estadoReserva IN ('PENDIENTE', 'ACTIVA') " +
-            "AND (:fechaInicio < r.fechaFin AND :fechaFin > r.fechaInicio) " +
-            "AND (:reservaId IS NULL OR r.id != :reservaId)")
+            "AND r.estadoReserva IN " + ESTADOS_VIGENTES +
+            " AND (:fechaInicio < r.fechaFin AND :fechaFin > r.fechaInicio) " +
+            "AND (:reservaId IS NULL OR r.id != :reservaId) " +
+            "ORDER BY r.fechaInicio, r.id")
     List<Reserva> findReservasConflictivas(@Param("habitacionId") Long habitacionId,
                                            @Param("fechaInicio") LocalDate fechaInicio,
                                            @Param("fechaFin") LocalDate fechaFin,
@@ -0,0 +1,51 @@
+package com.gestion.hotelera.repository;
+
+import com.gestion.hotelera.model.ResumenDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ResumenDiarioRepository extends JpaRepository<ResumenDiario, Long>, GuardadoEnLote<ResumenDiario> {
+
+    List<ResumenDiario> findByFechaBetweenAndTipoHabitacionIn(LocalDate desde, LocalDate hasta,
+            Collection<String> tiposHabitacion);
+
+    List<ResumenDiario> findByFechaBetweenOrderByFechaAscTipoHabitacionAsc(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Suma los incrementos a la fila del día y tipo en un solo UPDATE, sin
+     * leerla antes: dos transacciones que tocan el mismo día no se pisan.
+     */
+    @Modifying
+    @Query("UPDATE ResumenDiario r SET r.ingresosHabitacion = r.ingresosHabitacion + :ingresosHabitacion, "
+            + "r.ingresosServicios = r.ingresosServicios + :ingresosServicios, "
+            + "r.descuentos = r.descuentos + :descuentos, "
+            + "r.ingresosFinalizados = r.ingresosFinalizados + :ingresosFinalizados, "
+            + "r.checkIns = r.checkIns + :checkIns, r.checkOuts = r.checkOuts + :checkOuts, "
+            + "r.nochesOcupadas = r.nochesOcupadas + :nochesOcupadas "
+            + "WHERE r.fecha = :fecha AND r.tipoHabitacion = :tipoHabitacion")
+    int sumar(@Param("fecha") LocalDate fecha, @Param("tipoHabitacion") String tipoHabitacion,
+            @Param("ingresosHabitacion") double ingresosHabitacion,
+            @Param("ingresosServicios") double ingresosServicios,
+            @Param("descuentos") double descuentos,
+            @Param("ingresosFinalizados") double ingresosFinalizados,
+            @Param("checkIns") long checkIns, @Param("checkOuts") long checkOuts,
+            @Param("nochesOcupadas") long nochesOcupadas);
+
+    @Query("SELECT r.fecha AS fecha, SUM(r.ingresosHabitacion) AS ingresosHabitacion, "
+            + "SUM(r.ingresosServicios) AS ingresosServicios, SUM(r.descuentos) AS descuentos, "
+            + "SUM(r.ingresosFinalizados) AS ingresosFinalizados, SUM(r.checkIns) AS checkIns, "
+            + "SUM(r.checkOuts) AS checkOuts, SUM(r.nochesOcupadas) AS nochesOcupadas "
+            + "FROM ResumenDiario r WHERE r.fecha BETWEEN :desde AND :hasta GROUP BY r.fecha ORDER BY r.fecha")
+    List<ResumenDiarioTotales> sumarPorDia(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT COALESCE(SUM(r.ingresosFinalizados), 0.0) FROM ResumenDiario r")
+    double sumIngresosFinalizados();
+}
@@ -0,0 +1,25 @@
+package com.gestion.hotelera.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Resúmenes diarios de un día sumados para todos los tipos de habitación.
+ */
+public interface ResumenDiarioTotales {
+
+    LocalDate getFecha();
+
+    Double getIngresosHabitacion();
+
+    Double getIngresosServicios();
+
+    Double getDescuentos();
+
+    Double getIngresosFinalizados();
+
+    Long getCheckIns();
+
+    Long getCheckOuts();
+
+    Long getNochesOcupadas();
+}
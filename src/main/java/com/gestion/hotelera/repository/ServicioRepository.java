@@ -1,13 +1,18 @@
 package com.gestion.hotelera.repository;
 
 import com.gestion.hotelera.model.Servicio;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface ServicioRepository extends JpaRepository<Servicio, Long> {
+
+    @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "consultas-servicios") })
     List<Servicio> findByActivoTrue();
 }
-
@@ -0,0 +1,11 @@
+package com.gestion.hotelera.repository;
+
+/**
+ * Número de filas con un mismo estado.
+ */
+public interface TotalPorEstado {
+
+    String getEstado();
+
+    Long getTotal();
+}
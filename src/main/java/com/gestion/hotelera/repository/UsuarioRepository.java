@@ -2,11 +2,29 @@ package com.gestion.hotelera.repository;
 
 import com.gestion.hotelera.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-    Optional<Usuario> findByUsername(String username);
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, BusquedaPorNaturalId<Usuario> {
+
+    /**
+     * Va por la caché de identificadores naturales en lugar de consultar la
+     * tabla. La autenticación no la usa: lee findCredencialesByUsername.
+     */
+    default Optional<Usuario> findByUsername(String username) {
+        return buscarPorNaturalId(username);
+    }
+
+    /**
+     * Nombre, contraseña, rol y estado actuales, sin pasar por la caché: un usuario
+     * desactivado o con la contraseña cambiada en otro nodo deja de valer en
+     * la siguiente petición y no al caducar la región.
+     */
+    @Query("SELECT u.username AS username, u.password AS password, u.rol AS rol, u.activo AS activo "
+            + "FROM Usuario u WHERE u.username = :username")
+    Optional<CredencialesUsuario> findCredencialesByUsername(@Param("username") String username);
 }
@@ -52,7 +52,7 @@ public class JwtService {
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return (username.equals(userDetails.getUsername()) && userDetails.isEnabled() && !isTokenExpired(token));
     }
 
     private Claims getAllClaims(String token) {
@@ -0,0 +1,10 @@
+package com.gestion.hotelera.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado al registrar acciones en la auditoría. En un lote se
+ * indica el detalle del primer registro y cuántos se guardaron.
+ */
+public record ActividadRegistrada(String tipoAccion, String detalleAccion, int registros, LocalDateTime timestamp) {
+}
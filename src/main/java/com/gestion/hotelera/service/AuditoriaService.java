@@ -1,9 +1,12 @@
 package com.gestion.hotelera.service;
 
+import com.gestion.hotelera.aspect.OperacionMedida;
 import com.gestion.hotelera.model.Auditoria;
 import com.gestion.hotelera.model.Empleado;
 import com.gestion.hotelera.repository.AuditoriaRepository;
 import com.gestion.hotelera.repository.EmpleadoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
@@ -13,6 +16,9 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,13 +26,22 @@ public class AuditoriaService {
 
     private final AuditoriaRepository auditoriaRepository;
     private final EmpleadoRepository empleadoRepository;
+    private final ApplicationEventPublisher eventos;
 
     public AuditoriaService(AuditoriaRepository auditoriaRepository, EmpleadoRepository empleadoRepository) {
+        this(auditoriaRepository, empleadoRepository, null);
+    }
+
+    @Autowired
+    public AuditoriaService(AuditoriaRepository auditoriaRepository, EmpleadoRepository empleadoRepository,
+            ApplicationEventPublisher eventos) {
         this.auditoriaRepository = auditoriaRepository;
         this.empleadoRepository = empleadoRepository;
+        this.eventos = eventos;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @OperacionMedida("auditoria.registrar")
     public Auditoria registrarAccion(String tipoAccion, String detalleAccion, String entidadAfectada,
             Long entidadAfectadaId) {
         if (tipoAccion == null || tipoAccion.trim().isEmpty()) {
@@ -36,21 +51,7 @@ public class AuditoriaService {
             throw new IllegalArgumentException("El detalle de acción no puede estar vacío");
         }
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUsername = null;
-        if (authentication != null && authentication.isAuthenticated()
-                && !(authentication.getPrincipal() instanceof String)) {
-            currentUsername = authentication.getName();
-        } else if (authentication != null && authentication.isAuthenticated()
-                && (authentication.getPrincipal() instanceof String)) {
-            currentUsername = authentication.getName();
-        }
-
-        Empleado empleado = null;
-        if (currentUsername != null && !currentUsername.equals("anonymousUser")) {
-            Optional<Empleado> empleadoOptional = empleadoRepository.findByUsuarioUsername(currentUsername);
-            empleado = empleadoOptional.orElse(null);
-        }
+        Empleado empleado = obtenerEmpleadoActual();
 
         Auditoria logEntry = new Auditoria();
         logEntry.setTimestamp(LocalDateTime.now());
@@ -60,7 +61,42 @@ public class AuditoriaService {
         logEntry.setEntidadAfectada(entidadAfectada);
         logEntry.setEntidadAfectadaId(entidadAfectadaId);
 
-        return auditoriaRepository.save(logEntry);
+        Auditoria guardado = auditoriaRepository.save(logEntry);
+        publicarActividad(tipoAccion, detalleAccion, 1, logEntry.getTimestamp());
+        return guardado;
+    }
+
+    /**
+     * Registra varias acciones del mismo tipo en una sola transacción, por
+     * ejemplo los cambios masivos de las tareas programadas. La clave del
+     * mapa es el ID de la entidad afectada y el valor el detalle. Los
+     * registros se insertan en lotes JDBC.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<Auditoria> registrarAccionesEnLote(String tipoAccion, String entidadAfectada,
+            Map<Long, String> detallesPorEntidad) {
+        if (tipoAccion == null || tipoAccion.trim().isEmpty()) {
+            throw new IllegalArgumentException("El tipo de acción no puede estar vacío");
+        }
+        if (detallesPorEntidad == null || detallesPorEntidad.isEmpty()) {
+            return List.of();
+        }
+        Empleado empleado = obtenerEmpleadoActual();
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Auditoria> registros = new ArrayList<>(detallesPorEntidad.size());
+        detallesPorEntidad.forEach((entidadId, detalle) -> {
+            Auditoria logEntry = new Auditoria();
+            logEntry.setTimestamp(ahora);
+            logEntry.setEmpleado(empleado);
+            logEntry.setTipoAccion(tipoAccion);
+            logEntry.setDetalleAccion(detalle);
+            logEntry.setEntidadAfectada(entidadAfectada);
+            logEntry.setEntidadAfectadaId(entidadId);
+            registros.add(logEntry);
+        });
+        List<Auditoria> guardados = auditoriaRepository.guardarEnLote(registros);
+        publicarActividad(tipoAccion, registros.get(0).getDetalleAccion(), registros.size(), ahora);
+        return guardados;
     }
 
     public Page<Auditoria> obtenerTodosLosLogs(Pageable pageable) {
@@ -106,4 +142,29 @@ public class AuditoriaService {
             return auditoriaRepository.findByTimestampBetween(start, end, pageable);
         }
     }
-}
\ No newline at end of file
+
+    private void publicarActividad(String tipoAccion, String detalle, int registros, LocalDateTime timestamp) {
+        if (eventos != null) {
+            eventos.publishEvent(new ActividadRegistrada(tipoAccion, detalle, registros, timestamp));
+        }
+    }
+
+    private Empleado obtenerEmpleadoActual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String currentUsername = null;
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication.getPrincipal() instanceof String)) {
+            currentUsername = authentication.getName();
+        } else if (authentication != null && authentication.isAuthenticated()
+                && (authentication.getPrincipal() instanceof String)) {
+            currentUsername = authentication.getName();
+        }
+
+        Empleado empleado = null;
+        if (currentUsername != null && !currentUsername.equals("anonymousUser")) {
+            Optional<Empleado> empleadoOptional = empleadoRepository.findByUsuarioUsername(currentUsername);
+            empleado = empleadoOptional.orElse(null);
+        }
+        return empleado;
+    }
+}
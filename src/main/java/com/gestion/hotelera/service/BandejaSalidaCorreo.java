@@ -0,0 +1,341 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoCorreo;
+import com.gestion.hotelera.model.CorreoSaliente;
+import com.gestion.hotelera.repository.CorreoSalienteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bandeja de salida de correos (patrón outbox).
+ *
+ * EmailService guarda cada correo como una fila PENDIENTE dentro de la
+ * transacción de la reserva o el pago, así que el correo existe si y solo si
+ * la operación se confirma, y la transacción ya no espera al servidor SMTP.
+ * Tras el commit se despierta un pool acotado de hilos; cada hilo reserva
+ * cupo en el límite por minuto, reclama las filas que caben con un UPDATE
+ * condicional y las entrega en una sola sesión SMTP (ver EnvioCorreoSmtp).
+ * Como la espera por cupo es anterior al reclamo, un lote reclamado nunca
+ * pasa RECLAMO_EXPIRA esperando a la cuota. Un fallo reprograma el correo con
+ * espera exponencial; al agotar los intentos queda FALLIDO. Un sondeo
+ * periódico recoge los reintentos vencidos y los correos que quedaron a
+ * medias si una instancia se detuvo (entrega al menos una vez).
+ */
+@Service
+public class BandejaSalidaCorreo {
+
+    private static final Logger logger = LoggerFactory.getLogger(BandejaSalidaCorreo.class);
+
+    private static final Duration RECLAMO_EXPIRA = Duration.ofMinutes(10);
+    private static final int LONGITUD_MAXIMA_ERROR = 500;
+
+    private final CorreoSalienteRepository correoSalienteRepository;
+    private final EnvioCorreoSmtp envioCorreoSmtp;
+    private final boolean habilitada;
+    private final int hilos;
+    private final int tamanoLote;
+    private final int intentosMaximos;
+    private final Duration esperaInicial;
+    private final Duration esperaMaxima;
+    private final Clock reloj;
+    private final ExecutorService trabajadores;
+    private final AtomicInteger trabajadoresActivos = new AtomicInteger();
+    // Evita que un correo encolado justo cuando el último hilo terminaba espere al sondeo
+    private final AtomicBoolean avisoPendiente = new AtomicBoolean();
+
+    private final Map<EstadoCorreo, AtomicLong> totalPorEstado = new EnumMap<>(EstadoCorreo.class);
+    private final Counter enviados;
+    private final Counter reintentos;
+    private final Counter fallidos;
+    private final Timer duracionEnvio;
+
+    public BandejaSalidaCorreo(CorreoSalienteRepository correoSalienteRepository,
+            EnvioCorreoSmtp envioCorreoSmtp,
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.bandeja-salida.habilitada:true}") boolean habilitada,
+            @Value("${app.mail.bandeja-salida.hilos:2}") int hilos,
+            @Value("${app.mail.bandeja-salida.tamano-lote:50}") int tamanoLote,
+            @Value("${app.mail.bandeja-salida.intentos-maximos:5}") int intentosMaximos,
+            @Value("${app.mail.bandeja-salida.espera-inicial-ms:30000}") long esperaInicialMs,
+            @Value("${app.mail.bandeja-salida.espera-maxima-ms:3600000}") long esperaMaximaMs,
+            Clock reloj) {
+        if (hilos < 1 || tamanoLote < 1 || intentosMaximos < 1) {
+            throw new IllegalArgumentException(
+                    "La bandeja de salida necesita al menos un hilo, un correo por lote y un intento");
+        }
+        this.correoSalienteRepository = correoSalienteRepository;
+        this.envioCorreoSmtp = envioCorreoSmtp;
+        this.habilitada = habilitada;
+        this.hilos = hilos;
+        this.tamanoLote = tamanoLote;
+        this.intentosMaximos = intentosMaximos;
+        this.esperaInicial = Duration.ofMillis(Math.max(1, esperaInicialMs));
+        this.esperaMaxima = Duration.ofMillis(Math.max(esperaInicialMs, esperaMaximaMs));
+        this.reloj = reloj;
+
+        AtomicInteger secuencia = new AtomicInteger();
+        this.trabajadores = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread hilo = new Thread(r, "correo-saliente-" + secuencia.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+
+        for (EstadoCorreo estado : EstadoCorreo.values()) {
+            AtomicLong total = new AtomicLong();
+            totalPorEstado.put(estado, total);
+            Gauge.builder("hotel.correos.bandeja", total, AtomicLong::get)
+                    .description("Correos en la bandeja de salida por estado (al último sondeo)")
+                    .tag("estado", estado.getValor())
+                    .register(meterRegistry);
+        }
+        this.enviados = contador(meterRegistry, "enviado");
+        this.reintentos = contador(meterRegistry, "reintento");
+        this.fallidos = contador(meterRegistry, "fallido");
+        this.duracionEnvio = Timer.builder("hotel.correos.envio")
+                .description("Tiempo de entrega de un lote al servidor SMTP")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        trabajadores.shutdown();
+    }
+
+    /**
+     * Guarda el correo en la transacción en curso (o en una propia) y pide su
+     * envío cuando esa transacción se confirme.
+     */
+    @Transactional
+    public CorreoSaliente encolar(String tipo, String remitente, String destinatario, String asunto, String cuerpo) {
+        CorreoSaliente correo = correoSalienteRepository.save(
+                new CorreoSaliente(tipo, remitente, destinatario, asunto, cuerpo, LocalDateTime.now(reloj)));
+        alConfirmar(this::despertar);
+        return correo;
+    }
+
+    /**
+     * Pone a trabajar un hilo más del pool, sin pasar del máximo configurado.
+     */
+    public void despertar() {
+        if (!habilitada) {
+            return;
+        }
+        avisoPendiente.set(true);
+        int activos = trabajadoresActivos.get();
+        while (activos < hilos) {
+            if (trabajadoresActivos.compareAndSet(activos, activos + 1)) {
+                try {
+                    trabajadores.execute(this::drenar);
+                } catch (RejectedExecutionException e) {
+                    trabajadoresActivos.decrementAndGet(); // la aplicación se está deteniendo
+                }
+                return;
+            }
+            activos = trabajadoresActivos.get();
+        }
+    }
+
+    /**
+     * Red de seguridad: devuelve a la cola los reclamos abandonados, refresca
+     * las métricas por estado y despierta a los hilos para los reintentos.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.bandeja-salida.sondeo-ms:15000}")
+    public void sondear() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            int liberados = correoSalienteRepository.liberarReclamadosAntesDe(EstadoCorreo.ENVIANDO.getValor(),
+                    EstadoCorreo.PENDIENTE.getValor(), LocalDateTime.now(reloj).minus(RECLAMO_EXPIRA));
+            if (liberados > 0) {
+                logger.warn("{} correos reclamados sin terminar vuelven a la bandeja de salida", liberados);
+            }
+            refrescarTotales();
+            despertar();
+        } catch (Exception e) {
+            logger.error("Error al sondear la bandeja de salida de correos: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<EstadoCorreo, Long> getTotalesPorEstado() {
+        Map<EstadoCorreo, Long> totales = new EnumMap<>(EstadoCorreo.class);
+        totalPorEstado.forEach((estado, total) -> totales.put(estado, total.get()));
+        return totales;
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private void drenar() {
+        try {
+            boolean huboTrabajo = true;
+            while (huboTrabajo && habilitada) {
+                avisoPendiente.set(false);
+                List<Long> ids = correoSalienteRepository.findIdsListos(EstadoCorreo.PENDIENTE.getValor(),
+                        LocalDateTime.now(reloj), PageRequest.of(0, tamanoLote));
+                huboTrabajo = !ids.isEmpty();
+                if (huboTrabajo) {
+                    procesarLote(ids);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error al drenar la bandeja de salida de correos: {}", e.getMessage(), e);
+        } finally {
+            trabajadoresActivos.decrementAndGet();
+            if (avisoPendiente.get()) {
+                despertar();
+            }
+        }
+    }
+
+    /**
+     * Reserva cupo de envío, reclama los correos del lote que quepan y sigan
+     * pendientes y los entrega en una sola sesión SMTP. Los que ya reclamó
+     * otro hilo se ignoran y su cupo se devuelve; los que no caben quedan
+     * pendientes para la siguiente vuelta.
+     */
+    private void procesarLote(List<Long> ids) throws InterruptedException {
+        int cupo = envioCorreoSmtp.reservarCupo(ids.size());
+        String ficha = UUID.randomUUID().toString();
+        int reclamados = 0;
+        try {
+            reclamados = correoSalienteRepository.reclamarLote(ids.subList(0, cupo),
+                    EstadoCorreo.PENDIENTE.getValor(), EstadoCorreo.ENVIANDO.getValor(), ficha, LocalDateTime.now(reloj));
+        } finally {
+            envioCorreoSmtp.devolverCupo(cupo - reclamados);
+        }
+        if (reclamados == 0) {
+            return;
+        }
+        List<CorreoSaliente> correos = correoSalienteRepository.findByReclamadoPorAndEstado(ficha,
+                EstadoCorreo.ENVIANDO.getValor());
+        List<SimpleMailMessage> mensajes = correos.stream().map(BandejaSalidaCorreo::mensaje).toList();
+
+        long inicio = System.nanoTime();
+        List<EnvioCorreoSmtp.ResultadoEnvio> resultados = envioCorreoSmtp.enviarLoteReservado(mensajes);
+        duracionEnvio.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+        List<Long> entregados = new ArrayList<>(correos.size());
+        for (int i = 0; i < correos.size(); i++) {
+            EnvioCorreoSmtp.ResultadoEnvio resultado = resultados.get(i);
+            if (resultado.enviado()) {
+                entregados.add(correos.get(i).getId());
+            } else {
+                registrarFallo(correos.get(i), resultado.error());
+            }
+        }
+        if (!entregados.isEmpty()) {
+            correoSalienteRepository.marcarEnviados(entregados, EstadoCorreo.ENVIANDO.getValor(),
+                    EstadoCorreo.ENVIADO.getValor(), LocalDateTime.now(reloj));
+            enviados.increment(entregados.size());
+        }
+        logger.info("Lote de {} correos entregado: {} enviados, {} con error", correos.size(), entregados.size(),
+                correos.size() - entregados.size());
+    }
+
+    private void registrarFallo(CorreoSaliente correo, Exception e) {
+        int intento = correo.getIntentos() + 1;
+        boolean definitivo = intento >= intentosMaximos
+                || e instanceof MailParseException || e instanceof MailPreparationException;
+        String error = recortar(e.getClass().getSimpleName() + ": " + e.getMessage());
+        LocalDateTime proximoIntento = LocalDateTime.now(reloj).plus(espera(intento));
+        correoSalienteRepository.marcarFallo(correo.getId(), EstadoCorreo.ENVIANDO.getValor(),
+                (definitivo ? EstadoCorreo.FALLIDO : EstadoCorreo.PENDIENTE).getValor(), proximoIntento, error);
+        if (definitivo) {
+            fallidos.increment();
+            logger.error("Correo {} a {} descartado tras {} intentos: {}", correo.getId(),
+                    correo.getDestinatario(), intento, error);
+        } else {
+            reintentos.increment();
+            logger.warn("Fallo al enviar el correo {} a {} (intento {}), se reintentará a las {}: {}",
+                    correo.getId(), correo.getDestinatario(), intento, proximoIntento, error);
+        }
+    }
+
+    /** Espera antes del siguiente intento: inicial * 2^(intento-1), acotada. */
+    private Duration espera(int intento) {
+        long factor = 1L << Math.min(intento - 1, 30);
+        long esperaMs = esperaInicial.toMillis() > esperaMaxima.toMillis() / factor
+                ? esperaMaxima.toMillis()
+                : esperaInicial.toMillis() * factor;
+        return Duration.ofMillis(esperaMs);
+    }
+
+    private void refrescarTotales() {
+        totalPorEstado.values().forEach(total -> total.set(0));
+        for (Object[] fila : correoSalienteRepository.contarPorEstado()) {
+            for (EstadoCorreo estado : EstadoCorreo.values()) {
+                if (estado.getValor().equals(fila[0])) {
+                    totalPorEstado.get(estado).set(((Number) fila[1]).longValue());
+                }
+            }
+        }
+    }
+
+    private static SimpleMailMessage mensaje(CorreoSaliente correo) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(correo.getRemitente());
+        message.setTo(correo.getDestinatario());
+        message.setSubject(correo.getAsunto());
+        message.setText(correo.getCuerpo());
+        return message;
+    }
+
+    private static Counter contador(MeterRegistry registry, String resultado) {
+        return Counter.builder("hotel.correos.procesados")
+                .description("Intentos de envío de la bandeja de salida por resultado")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    private static String recortar(String mensaje) {
+        return mensaje.length() > LONGITUD_MAXIMA_ERROR ? mensaje.substring(0, LONGITUD_MAXIMA_ERROR) : mensaje;
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
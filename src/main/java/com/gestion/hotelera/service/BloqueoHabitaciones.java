@@ -0,0 +1,95 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.repository.HabitacionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializa las reservas de una misma habitación.
+ *
+ * Cada habitación se asigna a una franja de un conjunto fijo de locks, de modo
+ * que las reservas de habitaciones distintas avanzan en paralelo salvo
+ * colisión de franja. El lock en memoria se toma antes de abrir la
+ * transacción (ver BloqueoHabitacionAspect) para que quien espera no retenga
+ * una conexión del pool. Dentro de la transacción se bloquea además la fila
+ * de la habitación, lo que cubre varias instancias de la aplicación.
+ */
+@Component
+public class BloqueoHabitaciones {
+
+    private static final Logger logger = LoggerFactory.getLogger(BloqueoHabitaciones.class);
+
+    private final HabitacionRepository habitacionRepository;
+    private final ReentrantLock[] franjas;
+    private final long esperaMaximaMs;
+    private final boolean bloqueoBaseDeDatos;
+
+    public BloqueoHabitaciones(HabitacionRepository habitacionRepository,
+            @Value("${app.reservas.bloqueo.franjas:64}") int numeroFranjas,
+            @Value("${app.reservas.bloqueo.espera-ms:5000}") long esperaMaximaMs,
+            @Value("${app.reservas.bloqueo.base-datos:true}") boolean bloqueoBaseDeDatos) {
+        this.habitacionRepository = habitacionRepository;
+        this.franjas = new ReentrantLock[Integer.highestOneBit(Math.max(1, numeroFranjas - 1)) << 1];
+        for (int i = 0; i < franjas.length; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.bloqueoBaseDeDatos = bloqueoBaseDeDatos;
+    }
+
+    /**
+     * Toma el lock en memoria de la habitación. Debe liberarse con
+     * {@link #liberar(Long)} desde el mismo hilo.
+     */
+    public void bloquear(Long habitacionId) {
+        ReentrantLock lock = franjaDe(habitacionId);
+        try {
+            if (!lock.tryLock(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("Tiempo de espera agotado bloqueando la habitación {}", habitacionId);
+                throw new IllegalStateException(
+                        "La habitación está siendo reservada en este momento. Intente nuevamente.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reserva interrumpida mientras esperaba la habitación", e);
+        }
+    }
+
+    public void liberar(Long habitacionId) {
+        franjaDe(habitacionId).unlock();
+    }
+
+    /**
+     * Bloquea la fila de la habitación hasta el fin de la transacción en curso,
+     * si la guarda en base de datos está habilitada.
+     */
+    public void bloquearFila(Long habitacionId) {
+        if (bloqueoBaseDeDatos && habitacionId != null) {
+            habitacionRepository.bloquearPorId(habitacionId);
+        }
+    }
+
+    /**
+     * Indica si la fila de la habitación se bloquea en la base de datos; en ese
+     * caso la comprobación final de solapamientos debe hacerse contra la base
+     * de datos y no solo contra el índice en memoria de esta instancia.
+     */
+    public boolean isBloqueoBaseDeDatos() {
+        return bloqueoBaseDeDatos;
+    }
+
+    int getNumeroFranjas() {
+        return franjas.length;
+    }
+
+    ReentrantLock franjaDe(Long habitacionId) {
+        int hash = habitacionId.hashCode();
+        hash ^= (hash >>> 16);
+        return franjas[hash & (franjas.length - 1)];
+    }
+}
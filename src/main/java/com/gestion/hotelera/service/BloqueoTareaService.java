@@ -0,0 +1,76 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.BloqueoTarea;
+import com.gestion.hotelera.model.EjecucionTarea;
+import com.gestion.hotelera.repository.BloqueoTareaRepository;
+import com.gestion.hotelera.repository.EjecucionTareaRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Operaciones sobre los leases de tareas y su historial. Cada una confirma en
+ * su propia transacción para que los demás nodos la vean de inmediato, aunque
+ * la tarea que las usa tenga su transacción abierta.
+ */
+@Service
+public class BloqueoTareaService {
+
+    private final BloqueoTareaRepository bloqueoTareaRepository;
+    private final EjecucionTareaRepository ejecucionTareaRepository;
+
+    public BloqueoTareaService(BloqueoTareaRepository bloqueoTareaRepository,
+            EjecucionTareaRepository ejecucionTareaRepository) {
+        this.bloqueoTareaRepository = bloqueoTareaRepository;
+        this.ejecucionTareaRepository = ejecucionTareaRepository;
+    }
+
+    /**
+     * Intenta tomar el lease de la tarea hasta la hora indicada. Si la fila
+     * aún no existe la inserta; cuando otro nodo la inserta a la vez, el
+     * INSERT falla por clave duplicada y la excepción llega al llamador.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean adquirir(String nombre, String propietario, LocalDateTime ahora, LocalDateTime hasta) {
+        if (bloqueoTareaRepository.adquirirSiExpirado(nombre, propietario, ahora, hasta) == 1) {
+            return true;
+        }
+        if (bloqueoTareaRepository.existsById(nombre)) {
+            return false;
+        }
+        bloqueoTareaRepository.saveAndFlush(new BloqueoTarea(nombre, propietario, ahora, hasta));
+        return true;
+    }
+
+    /**
+     * Extiende el lease; devuelve false si el nodo ya no es el propietario.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean renovar(String nombre, String propietario, LocalDateTime ahora, LocalDateTime hasta) {
+        return bloqueoTareaRepository.renovar(nombre, propietario, ahora, hasta) == 1;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void liberar(String nombre, String propietario, LocalDateTime hasta) {
+        bloqueoTareaRepository.liberar(nombre, propietario, hasta);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public EjecucionTarea guardarEjecucion(EjecucionTarea ejecucion) {
+        return ejecucionTareaRepository.save(ejecucion);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BloqueoTarea> obtenerBloqueos() {
+        return bloqueoTareaRepository.findAll();
+    }
+
+    @Transactional(readOnly = true)
+    public List<EjecucionTarea> obtenerUltimasEjecuciones(String nombreTarea, int limite) {
+        return ejecucionTareaRepository.findByNombreTareaOrderByInicioDesc(nombreTarea, PageRequest.of(0, limite));
+    }
+}
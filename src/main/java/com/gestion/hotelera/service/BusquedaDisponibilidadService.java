@@ -0,0 +1,199 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de habitaciones libres para un rango de fechas.
+ *
+ * Carga las habitaciones una sola vez y resuelve la ocupación con el índice de
+ * disponibilidad; si el índice aún no está cargado, con una única consulta de
+ * las estancias del rango. Nunca hace una consulta por habitación.
+ */
+@Service
+public class BusquedaDisponibilidadService {
+
+    public static final int MAX_MARGEN_DIAS = 14;
+
+    private final HabitacionRepository habitacionRepository;
+    private final ReservaRepository reservaRepository;
+    private final IndiceDisponibilidad indiceDisponibilidad;
+
+    @Autowired
+    public BusquedaDisponibilidadService(HabitacionRepository habitacionRepository,
+            ReservaRepository reservaRepository,
+            IndiceDisponibilidad indiceDisponibilidad) {
+        this.habitacionRepository = habitacionRepository;
+        this.reservaRepository = reservaRepository;
+        this.indiceDisponibilidad = indiceDisponibilidad;
+    }
+
+    /**
+     * Filtros de la búsqueda. Tipo, precios y huéspedes son opcionales.
+     */
+    public record Criterios(LocalDate fechaInicio, LocalDate fechaFin, String tipo,
+            Double precioMinimo, Double precioMaximo, Integer huespedes) {
+
+        public Criterios {
+            if (fechaInicio == null || fechaFin == null) {
+                throw new IllegalArgumentException("Las fechas de inicio y fin son obligatorias");
+            }
+            if (!fechaInicio.isBefore(fechaFin)) {
+                throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la fecha de fin");
+            }
+            if (precioMinimo != null && precioMaximo != null && precioMinimo > precioMaximo) {
+                throw new IllegalArgumentException("El precio mínimo no puede superar al máximo");
+            }
+        }
+
+        public Criterios(LocalDate fechaInicio, LocalDate fechaFin, String tipo) {
+            this(fechaInicio, fechaFin, tipo, null, null, null);
+        }
+
+        Criterios desplazados(long dias) {
+            return new Criterios(fechaInicio.plusDays(dias), fechaFin.plusDays(dias), tipo,
+                    precioMinimo, precioMaximo, huespedes);
+        }
+    }
+
+    /**
+     * Habitaciones libres para todo el rango, de la más barata a la más cara,
+     * y cuántas quedan por tipo.
+     */
+    public record Resultado(List<Habitacion> habitaciones, Map<String, Long> disponiblesPorTipo) {
+    }
+
+    /**
+     * Ventana de fechas alternativa con la habitación más barata libre en ella.
+     */
+    public record VentanaDisponible(LocalDate fechaInicio, LocalDate fechaFin, long desplazamientoDias,
+            Habitacion habitacion, double total) {
+    }
+
+    @Transactional(readOnly = true)
+    public Resultado buscar(Criterios criterios) {
+        List<Habitacion> candidatas = filtrarCandidatas(habitacionRepository.findAll(), criterios);
+        Ocupacion ocupacion = cargarOcupacion(criterios.fechaInicio(), criterios.fechaFin());
+        return resolver(candidatas, criterios, ocupacion);
+    }
+
+    /**
+     * Primera habitación (la más barata) libre para los criterios indicados.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Habitacion> buscarPrimeraDisponible(Criterios criterios) {
+        return buscar(criterios).habitaciones().stream().findFirst();
+    }
+
+    /**
+     * Modo de fechas flexibles: prueba la misma duración desplazada hasta
+     * ±margenDias (sin empezar antes de hoy) y devuelve las ventanas más
+     * baratas, a igual precio la más cercana a las fechas pedidas.
+     */
+    @Transactional(readOnly = true)
+    public List<VentanaDisponible> buscarFechasFlexibles(Criterios criterios, int margenDias, int limite) {
+        int margen = Math.max(0, Math.min(margenDias, MAX_MARGEN_DIAS));
+        List<Habitacion> candidatas = filtrarCandidatas(habitacionRepository.findAll(), criterios);
+        if (candidatas.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        Ocupacion ocupacion = cargarOcupacion(criterios.fechaInicio().minusDays(margen),
+                criterios.fechaFin().plusDays(margen));
+        long noches = criterios.fechaFin().toEpochDay() - criterios.fechaInicio().toEpochDay();
+        LocalDate hoy = LocalDate.now();
+
+        List<VentanaDisponible> ventanas = new ArrayList<>();
+        for (int desplazamiento = -margen; desplazamiento <= margen; desplazamiento++) {
+            Criterios ventana = criterios.desplazados(desplazamiento);
+            if (ventana.fechaInicio().isBefore(hoy)) {
+                continue;
+            }
+            List<Habitacion> libres = resolver(candidatas, ventana, ocupacion).habitaciones();
+            if (!libres.isEmpty()) {
+                Habitacion masBarata = libres.get(0);
+                ventanas.add(new VentanaDisponible(ventana.fechaInicio(), ventana.fechaFin(), desplazamiento,
+                        masBarata, masBarata.getPrecioPorNoche() * noches));
+            }
+        }
+        ventanas.sort(Comparator.comparingDouble(VentanaDisponible::total)
+                .thenComparingLong(v -> Math.abs(v.desplazamientoDias()))
+                .thenComparing(VentanaDisponible::fechaInicio));
+        return ventanas.size() > limite ? List.copyOf(ventanas.subList(0, limite)) : ventanas;
+    }
+
+    /**
+     * Huéspedes que admite un tipo de habitación. El modelo no guarda la
+     * capacidad, así que se deduce del nombre del tipo.
+     */
+    static int capacidadPorTipo(String tipo) {
+        String normalizado = tipo != null ? tipo.trim().toUpperCase(Locale.ROOT) : "";
+        if (normalizado.startsWith("SIMPLE") || normalizado.startsWith("INDIVIDUAL")) {
+            return 1;
+        }
+        if (normalizado.startsWith("TRIPLE")) {
+            return 3;
+        }
+        if (normalizado.contains("SUITE") || normalizado.startsWith("FAMILIAR")) {
+            return 4;
+        }
+        return 2;
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private List<Habitacion> filtrarCandidatas(List<Habitacion> habitaciones, Criterios criterios) {
+        String tipo = criterios.tipo() != null && !criterios.tipo().isBlank()
+                ? criterios.tipo().trim().toUpperCase(Locale.ROOT)
+                : null;
+        return habitaciones.stream()
+                .filter(h -> h.getEstadoHabitacion() != EstadoHabitacion.MANTENIMIENTO)
+                .filter(h -> tipo == null
+                        || (h.getTipo() != null && h.getTipo().toUpperCase(Locale.ROOT).startsWith(tipo)))
+                .filter(h -> h.getPrecioPorNoche() != null)
+                .filter(h -> criterios.precioMinimo() == null || h.getPrecioPorNoche() >= criterios.precioMinimo())
+                .filter(h -> criterios.precioMaximo() == null || h.getPrecioPorNoche() <= criterios.precioMaximo())
+                .filter(h -> criterios.huespedes() == null || capacidadPorTipo(h.getTipo()) >= criterios.huespedes())
+                .sorted(Comparator.comparing(Habitacion::getPrecioPorNoche)
+                        .thenComparing(Habitacion::getNumero, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    private Resultado resolver(List<Habitacion> candidatas, Criterios criterios, Ocupacion ocupacion) {
+        LocalDate hoy = LocalDate.now();
+        boolean incluyeHoy = !criterios.fechaInicio().isAfter(hoy) && criterios.fechaFin().isAfter(hoy);
+        List<Habitacion> libres = candidatas.stream()
+                .filter(h -> !(incluyeHoy && h.getEstadoHabitacion() == EstadoHabitacion.OCUPADA))
+                .filter(h -> ocupacion.estaLibre(h.getId(), criterios.fechaInicio(), criterios.fechaFin()))
+                .toList();
+        Map<String, Long> porTipo = libres.stream()
+                .collect(Collectors.groupingBy(Habitacion::getTipo, TreeMap::new, Collectors.counting()));
+        return new Resultado(libres, porTipo);
+    }
+
+    private Ocupacion cargarOcupacion(LocalDate desde, LocalDate hasta) {
+        if (indiceDisponibilidad.isInicializado()) {
+            return (habitacionId, inicio, fin) -> indiceDisponibilidad.estaLibre(habitacionId, inicio, fin);
+        }
+        Map<Long, List<ReservaIntervalo>> porHabitacion = reservaRepository
+                .findIntervalosActivosEnRango(desde, hasta).stream()
+                .filter(i -> i.getHabitacionId() != null)
+                .collect(Collectors.groupingBy(ReservaIntervalo::getHabitacionId));
+        return (habitacionId, inicio, fin) -> porHabitacion.getOrDefault(habitacionId, List.of()).stream()
+                .noneMatch(i -> inicio.isBefore(i.getFechaFin()) && fin.isAfter(i.getFechaInicio()));
+    }
+
+    @FunctionalInterface
+    private interface Ocupacion {
+        boolean estaLibre(Long habitacionId, LocalDate inicio, LocalDate fin);
+    }
+}
@@ -0,0 +1,82 @@
+package com.gestion.hotelera.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultados de reportes ya generados, acotados por número de entradas y por
+ * bytes, con expulsión del menos usado. Las entradas caducan tras la
+ * retención indicada; al guardar un resultado se descartan los de versiones
+ * de datos anteriores, que ya no se pueden volver a pedir.
+ */
+final class CacheResultadosReporte {
+
+    private final int maximoEntradas;
+    private final long maximoBytes;
+    private final Duration retencion;
+    private final Clock reloj;
+    private final LinkedHashMap<ClaveReporte, ResultadoReporte> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    CacheResultadosReporte(int maximoEntradas, long maximoBytes, Duration retencion, Clock reloj) {
+        this.maximoEntradas = maximoEntradas;
+        this.maximoBytes = maximoBytes;
+        this.retencion = retencion;
+        this.reloj = reloj;
+    }
+
+    synchronized ResultadoReporte obtener(ClaveReporte clave) {
+        ResultadoReporte resultado = entradas.get(clave);
+        if (resultado != null && caducado(resultado)) {
+            quitar(clave);
+            return null;
+        }
+        return resultado;
+    }
+
+    synchronized void guardar(ClaveReporte clave, ResultadoReporte resultado) {
+        if (maximoEntradas <= 0 || resultado.tamano() > maximoBytes) {
+            return;
+        }
+        Iterator<Map.Entry<ClaveReporte, ResultadoReporte>> it = entradas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ClaveReporte, ResultadoReporte> entrada = it.next();
+            if (entrada.getKey().versionDatos() < clave.versionDatos() || caducado(entrada.getValue())) {
+                bytes -= entrada.getValue().tamano();
+                it.remove();
+            }
+        }
+        quitar(clave);
+        entradas.put(clave, resultado);
+        bytes += resultado.tamano();
+
+        it = entradas.entrySet().iterator();
+        while ((entradas.size() > maximoEntradas || bytes > maximoBytes) && it.hasNext()) {
+            bytes -= it.next().getValue().tamano();
+            it.remove();
+        }
+    }
+
+    synchronized int tamano() {
+        return entradas.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    private void quitar(ClaveReporte clave) {
+        ResultadoReporte anterior = entradas.remove(clave);
+        if (anterior != null) {
+            bytes -= anterior.tamano();
+        }
+    }
+
+    private boolean caducado(ResultadoReporte resultado) {
+        return resultado.generadoEn().plus(retencion).isBefore(LocalDateTime.now(reloj));
+    }
+}
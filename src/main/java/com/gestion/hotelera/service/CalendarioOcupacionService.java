@@ -0,0 +1,246 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoCalendario;
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Calendario de ocupación habitación × día.
+ *
+ * La matriz se materializa para la ventana pedida a partir del índice de
+ * disponibilidad, que ya se actualiza de forma incremental con cada reserva y
+ * cambio de estado de habitación. Cada celda es un byte con el ordinal de
+ * {@link EstadoCalendario}; sin índice se usa una única consulta de las
+ * estancias de la ventana.
+ */
+@Service
+public class CalendarioOcupacionService {
+
+    public static final int MAX_DIAS = 366;
+
+    private static final byte OCUPADA = (byte) EstadoCalendario.OCUPADA.ordinal();
+    private static final byte LIMPIEZA = (byte) EstadoCalendario.LIMPIEZA.ordinal();
+    private static final byte MANTENIMIENTO = (byte) EstadoCalendario.MANTENIMIENTO.ordinal();
+
+    private final HabitacionRepository habitacionRepository;
+    private final ReservaRepository reservaRepository;
+    private final IndiceDisponibilidad indiceDisponibilidad;
+
+    public CalendarioOcupacionService(HabitacionRepository habitacionRepository,
+            ReservaRepository reservaRepository) {
+        this(habitacionRepository, reservaRepository, null);
+    }
+
+    @Autowired
+    public CalendarioOcupacionService(HabitacionRepository habitacionRepository,
+            ReservaRepository reservaRepository,
+            IndiceDisponibilidad indiceDisponibilidad) {
+        this.habitacionRepository = habitacionRepository;
+        this.reservaRepository = reservaRepository;
+        this.indiceDisponibilidad = indiceDisponibilidad;
+    }
+
+    public enum Vista {
+        SEMANA, MES, TRIMESTRE;
+
+        public static Vista desde(String texto) {
+            if (texto == null || texto.isBlank()) {
+                return MES;
+            }
+            try {
+                return valueOf(texto.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Vista de calendario no válida: " + texto);
+            }
+        }
+    }
+
+    /**
+     * Rango de días [desde, hasta) que muestra una vista, con el inicio de
+     * la ventana anterior y de la siguiente para navegar.
+     */
+    public record Ventana(Vista vista, LocalDate desde, LocalDate hasta, LocalDate anterior, LocalDate siguiente) {
+
+        public int dias() {
+            return (int) (hasta.toEpochDay() - desde.toEpochDay());
+        }
+    }
+
+    /**
+     * Tramo de días consecutivos con el mismo estado.
+     */
+    public record Tramo(char estado, int dias) {
+    }
+
+    public record FilaCodificada(Long habitacionId, String numero, String tipo, List<Tramo> tramos) {
+    }
+
+    /**
+     * Matriz materializada para una ventana: una fila por habitación, una
+     * columna por día.
+     */
+    public static final class MatrizOcupacion {
+
+        private final LocalDate desde;
+        private final int dias;
+        private final List<Habitacion> habitaciones;
+        private final byte[][] celdas;
+
+        MatrizOcupacion(LocalDate desde, int dias, List<Habitacion> habitaciones, byte[][] celdas) {
+            this.desde = desde;
+            this.dias = dias;
+            this.habitaciones = habitaciones;
+            this.celdas = celdas;
+        }
+
+        public LocalDate getDesde() {
+            return desde;
+        }
+
+        public int getDias() {
+            return dias;
+        }
+
+        public List<Habitacion> getHabitaciones() {
+            return habitaciones;
+        }
+
+        public EstadoCalendario estado(int fila, int dia) {
+            return EstadoCalendario.desdeOrdinal(celdas[fila][dia]);
+        }
+
+        public List<Tramo> tramos(int fila) {
+            byte[] celdasFila = celdas[fila];
+            List<Tramo> tramos = new ArrayList<>();
+            int inicio = 0;
+            for (int dia = 1; dia <= dias; dia++) {
+                if (dia == dias || celdasFila[dia] != celdasFila[inicio]) {
+                    tramos.add(new Tramo(EstadoCalendario.desdeOrdinal(celdasFila[inicio]).getCodigo(), dia - inicio));
+                    inicio = dia;
+                }
+            }
+            return tramos;
+        }
+
+        public List<FilaCodificada> codificar() {
+            List<FilaCodificada> filas = new ArrayList<>(habitaciones.size());
+            for (int i = 0; i < habitaciones.size(); i++) {
+                Habitacion habitacion = habitaciones.get(i);
+                filas.add(new FilaCodificada(habitacion.getId(), habitacion.getNumero(), habitacion.getTipo(),
+                        tramos(i)));
+            }
+            return filas;
+        }
+    }
+
+    /**
+     * Ventana de la vista que contiene la fecha: la semana (de lunes a
+     * domingo), el mes o el trimestre natural.
+     */
+    public static Ventana ventana(Vista vista, LocalDate fecha) {
+        return switch (vista) {
+            case SEMANA -> {
+                LocalDate lunes = fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                yield new Ventana(vista, lunes, lunes.plusWeeks(1), lunes.minusWeeks(1), lunes.plusWeeks(1));
+            }
+            case MES -> {
+                LocalDate primero = fecha.withDayOfMonth(1);
+                yield new Ventana(vista, primero, primero.plusMonths(1), primero.minusMonths(1), primero.plusMonths(1));
+            }
+            case TRIMESTRE -> {
+                LocalDate primero = fecha.with(IsoFields.DAY_OF_QUARTER, 1);
+                yield new Ventana(vista, primero, primero.plusMonths(3), primero.minusMonths(3), primero.plusMonths(3));
+            }
+        };
+    }
+
+    /**
+     * Construye la matriz de [desde, desde + dias). Las noches de reservas
+     * pendientes o activas son OCUPADA; el día de salida que no empieza otra
+     * estancia, LIMPIEZA; y hoy, MANTENIMIENTO si la habitación lo está.
+     */
+    @Transactional(readOnly = true)
+    public MatrizOcupacion construir(LocalDate desde, int dias) {
+        if (desde == null) {
+            throw new IllegalArgumentException("La fecha de inicio del calendario es obligatoria");
+        }
+        if (dias < 1 || dias > MAX_DIAS) {
+            throw new IllegalArgumentException("El calendario debe abarcar entre 1 y " + MAX_DIAS + " días");
+        }
+        List<Habitacion> habitaciones = habitacionRepository.findAll().stream()
+                .sorted(Comparator.comparing(Habitacion::getNumero, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        LocalDate hasta = desde.plusDays(dias);
+        Estancias estancias = cargarEstancias(desde, hasta);
+        long primerDia = desde.toEpochDay();
+        long hoy = LocalDate.now().toEpochDay() - primerDia;
+
+        byte[][] celdas = new byte[habitaciones.size()][];
+        for (int i = 0; i < habitaciones.size(); i++) {
+            Habitacion habitacion = habitaciones.get(i);
+            byte[] fila = new byte[dias];
+            List<long[]> rangos = estancias.de(habitacion.getId(), desde, hasta);
+            for (long[] rango : rangos) {
+                int inicio = (int) Math.max(0, rango[0] - primerDia);
+                int fin = (int) Math.min(dias, rango[1] - primerDia);
+                if (inicio < fin) {
+                    Arrays.fill(fila, inicio, fin, OCUPADA);
+                }
+            }
+            for (long[] rango : rangos) {
+                long salida = rango[1] - primerDia;
+                if (salida >= 0 && salida < dias && fila[(int) salida] != OCUPADA) {
+                    fila[(int) salida] = LIMPIEZA;
+                }
+            }
+            if (hoy >= 0 && hoy < dias
+                    && habitacion.getEstadoHabitacion() == EstadoHabitacion.MANTENIMIENTO) {
+                fila[(int) hoy] = MANTENIMIENTO;
+            }
+            celdas[i] = fila;
+        }
+        return new MatrizOcupacion(desde, dias, habitaciones, celdas);
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    /**
+     * Estancias que tocan la ventana, incluidas las que terminan el primer
+     * día (su día de salida es de limpieza).
+     */
+    private Estancias cargarEstancias(LocalDate desde, LocalDate hasta) {
+        if (indiceDisponibilidad != null && indiceDisponibilidad.isInicializado()) {
+            return (habitacionId, inicio, fin) -> indiceDisponibilidad
+                    .buscarConflictos(habitacionId, inicio.minusDays(1), fin, null, Integer.MAX_VALUE).stream()
+                    .map(e -> new long[] { e.fechaInicio().toEpochDay(), e.fechaFin().toEpochDay() })
+                    .toList();
+        }
+        Map<Long, List<long[]>> porHabitacion = reservaRepository
+                .findIntervalosActivosEnRango(desde.minusDays(1), hasta).stream()
+                .filter(i -> i.getHabitacionId() != null && i.getFechaInicio() != null && i.getFechaFin() != null)
+                .collect(Collectors.groupingBy(ReservaIntervalo::getHabitacionId,
+                        Collectors.mapping(i -> {
+                            long inicio = i.getFechaInicio().toEpochDay();
+                            return new long[] { inicio, Math.max(i.getFechaFin().toEpochDay(), inicio + 1) };
+                        }, Collectors.toList())));
+        return (habitacionId, inicio, fin) -> porHabitacion.getOrDefault(habitacionId, List.of());
+    }
+
+    @FunctionalInterface
+    private interface Estancias {
+        List<long[]> de(Long habitacionId, LocalDate desde, LocalDate hasta);
+    }
+}
@@ -0,0 +1,16 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.TipoReporte;
+
+import java.time.LocalDate;
+
+/**
+ * Identifica un resultado de reporte: mismo tipo, mismos parámetros y misma
+ * versión de datos dan el mismo contenido.
+ */
+record ClaveReporte(TipoReporte tipo, LocalDate fechaInicio, LocalDate fechaFin, long versionDatos) {
+
+    ClaveReporte conVersion(long version) {
+        return new ClaveReporte(tipo, fechaInicio, fechaFin, version);
+    }
+}
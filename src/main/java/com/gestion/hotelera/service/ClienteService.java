@@ -10,7 +10,6 @@ import com.gestion.hotelera.repository.ReservaRepository;
 import com.gestion.hotelera.repository.UsuarioRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -34,18 +33,20 @@ public class ClienteService {
     private final ReservaRepository reservaRepository;
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ResumenDiarioService resumenDiarioService;
 
-    @Autowired
     public ClienteService(ClienteRepository clienteRepository,
             AuditoriaService auditoriaService,
             ReservaRepository reservaRepository,
             UsuarioRepository usuarioRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            ResumenDiarioService resumenDiarioService) {
         this.clienteRepository = clienteRepository;
         this.auditoriaService = auditoriaService;
         this.reservaRepository = reservaRepository;
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.resumenDiarioService = resumenDiarioService;
     }
 
     @Transactional
@@ -250,6 +251,11 @@ public class ClienteService {
         return clienteGuardado;
     }
 
+    /**
+     * Solo se borran reservas finalizadas o canceladas; igual que al borrar
+     * una reserva suelta, se retiran de los resúmenes diarios (lo que además
+     * sube la versión de datos de los reportes y avisa al cubo y al panel).
+     */
     private void validarYEliminarReservasCliente(Cliente cliente) {
         List<Reserva> reservas = reservaRepository.findByCliente(cliente);
         List<ClienteConReservasActivasException.ReservaActivaResumen> reservasActivas = reservas.stream()
@@ -263,15 +269,12 @@ public class ClienteService {
 
         if (!reservas.isEmpty()) {
             reservaRepository.deleteAll(reservas);
+            resumenDiarioService.contabilizarReservas(reservas.stream().map(Reserva::getId).toList());
         }
     }
 
     private boolean esReservaActiva(Reserva reserva) {
-        if (reserva.getEstadoReserva() == null) {
-            return false;
-        }
-        String estado = reserva.getEstadoReserva().toUpperCase();
-        return estado.equals(EstadoReserva.ACTIVA.getValor()) || estado.equals(EstadoReserva.PENDIENTE.getValor());
+        return reserva.getEstado() == EstadoReserva.ACTIVA || reserva.getEstado() == EstadoReserva.PENDIENTE;
     }
 
     private ClienteConReservasActivasException.ReservaActivaResumen mapearResumenReservaActiva(Reserva reserva) {
@@ -289,7 +292,7 @@ public class ClienteService {
         cliente.setTotalReservas((long) reservas.size());
 
         reservas.stream()
-                .filter(r -> EstadoReserva.FINALIZADA.getValor().equalsIgnoreCase(r.getEstadoReserva()))
+                .filter(r -> r.getEstado() == EstadoReserva.FINALIZADA)
                 .map(Reserva::getFechaFin)
                 .max(java.util.Comparator.naturalOrder())
                 .ifPresent(cliente::setUltimaEstancia);
@@ -0,0 +1,264 @@
+package com.gestion.hotelera.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestion.hotelera.config.EnrutadorDataSource;
+import com.gestion.hotelera.enums.PrioridadReporte;
+import com.gestion.hotelera.enums.TipoReporte;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de reportes pesados que se generan fuera de los hilos de Tomcat.
+ *
+ * Cada petición devuelve un trabajo con su ID; un pool acotado de hilos de
+ * baja prioridad atiende los trabajos por prioridad y orden de llegada. Los
+ * resultados se guardan en una caché acotada con clave (tipo, parámetros,
+ * versión de datos): peticiones iguales reutilizan el resultado hasta que
+ * cambian las reservas o habitaciones, y una petición igual a otra en curso
+ * recibe ese mismo trabajo. La versión de datos es común a todas las
+ * instancias ({@link ResumenDiarioService#getVersionDatos()}): un cambio
+ * hecho en otra deja de coincidir con los resultados cacheados aquí.
+ *
+ * Los trabajos y sus resultados viven en la memoria del nodo que los
+ * recibió, durante app.reportes.trabajos.retencion-ms: con varias
+ * instancias el balanceador debe mantener la sesión en el mismo nodo
+ * (sticky sessions) o la consulta del trabajo en otro devuelve 404.
+ */
+@Service
+public class ColaReportes {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColaReportes.class);
+
+    private static final Locale LOCALE_REPORTES = Locale.forLanguageTag("es-PE");
+
+    private final ReporteService reporteService;
+    private final ReservaService reservaService;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ITemplateEngine templateEngine;
+    private final ObjectMapper objectMapper;
+    private final int capacidadCola;
+    private final Duration retencion;
+    private final Clock reloj;
+    private final CacheResultadosReporte cache;
+    private final ThreadPoolExecutor trabajadores;
+    private final Map<String, TrabajoReporte> trabajos = new ConcurrentHashMap<>();
+    // Trabajos pendientes o en curso por clave, para no generar dos veces lo mismo
+    private final Map<ClaveReporte, TrabajoReporte> enCurso = new ConcurrentHashMap<>();
+    private final AtomicLong llegadas = new AtomicLong();
+
+    public ColaReportes(ReporteService reporteService,
+            ReservaService reservaService,
+            ResumenDiarioService resumenDiarioService,
+            ITemplateEngine templateEngine,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.reportes.trabajos.hilos:2}") int hilos,
+            @Value("${app.reportes.trabajos.capacidad-cola:50}") int capacidadCola,
+            @Value("${app.reportes.trabajos.prioridad-hilos:4}") int prioridadHilos,
+            @Value("${app.reportes.trabajos.retencion-ms:900000}") long retencionMs,
+            @Value("${app.reportes.cache.maximo-entradas:100}") int maximoEntradas,
+            @Value("${app.reportes.cache.maximo-bytes:67108864}") long maximoBytes,
+            Clock reloj) {
+        if (hilos < 1 || capacidadCola < 1) {
+            throw new IllegalArgumentException("La cola de reportes necesita al menos un hilo y un hueco en la cola");
+        }
+        if (prioridadHilos < Thread.MIN_PRIORITY || prioridadHilos > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("Prioridad de hilos fuera de rango: " + prioridadHilos);
+        }
+        this.reporteService = reporteService;
+        this.reservaService = reservaService;
+        this.resumenDiarioService = resumenDiarioService;
+        this.templateEngine = templateEngine;
+        this.objectMapper = objectMapper;
+        this.capacidadCola = capacidadCola;
+        this.retencion = Duration.ofMillis(Math.max(0, retencionMs));
+        this.reloj = reloj;
+        this.cache = new CacheResultadosReporte(maximoEntradas, maximoBytes, retencion, reloj);
+
+        AtomicInteger secuencia = new AtomicInteger();
+        this.trabajadores = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+                r -> {
+                    Thread hilo = new Thread(r, "reportes-" + secuencia.incrementAndGet());
+                    hilo.setDaemon(true);
+                    hilo.setPriority(prioridadHilos);
+                    return hilo;
+                });
+
+        Gauge.builder("hotel.reportes.cola", trabajadores, t -> t.getQueue().size())
+                .description("Trabajos de reportes esperando un hilo")
+                .register(meterRegistry);
+        Gauge.builder("hotel.reportes.cache.bytes", cache, CacheResultadosReporte::bytes)
+                .description("Bytes de resultados de reportes en caché")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        trabajadores.shutdownNow();
+    }
+
+    /**
+     * Pide un reporte. Si ya hay un resultado para los mismos parámetros y
+     * datos, el trabajo nace completado; si hay uno igual en curso, se
+     * devuelve ese. Lanza IllegalStateException si la cola está llena.
+     */
+    public TrabajoReporte enviar(TipoReporte tipo, LocalDate fechaInicio, LocalDate fechaFin,
+            PrioridadReporte prioridad) {
+        if (tipo == null || fechaInicio == null || fechaFin == null) {
+            throw new IllegalArgumentException("El tipo de reporte y las fechas son obligatorios");
+        }
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        purgarTerminados();
+        PrioridadReporte prioridadTrabajo = prioridad != null ? prioridad : PrioridadReporte.NORMAL;
+        ClaveReporte clave = new ClaveReporte(tipo, fechaInicio, fechaFin, resumenDiarioService.getVersionDatos());
+
+        ResultadoReporte enCache = cache.obtener(clave);
+        if (enCache != null) {
+            TrabajoReporte trabajo = new TrabajoReporte(nuevoId(), clave, prioridadTrabajo, reloj);
+            trabajo.completar(enCache, true);
+            trabajos.put(trabajo.getId(), trabajo);
+            return trabajo;
+        }
+
+        synchronized (enCurso) {
+            TrabajoReporte existente = enCurso.get(clave);
+            if (existente != null) {
+                return existente;
+            }
+            if (trabajadores.getQueue().size() >= capacidadCola) {
+                throw new IllegalStateException("La cola de reportes está llena, inténtelo más tarde");
+            }
+            TrabajoReporte trabajo = new TrabajoReporte(nuevoId(), clave, prioridadTrabajo, reloj);
+            // Se registra antes de encolarlo: un trabajo que falla enseguida ya se encuentra para quitarlo
+            trabajos.put(trabajo.getId(), trabajo);
+            enCurso.put(clave, trabajo);
+            try {
+                trabajadores.execute(new TareaPriorizada(trabajo, llegadas.incrementAndGet()));
+            } catch (RejectedExecutionException e) {
+                trabajos.remove(trabajo.getId());
+                enCurso.remove(clave, trabajo);
+                throw new IllegalStateException("La cola de reportes no acepta trabajos", e);
+            }
+            return trabajo;
+        }
+    }
+
+    public Optional<TrabajoReporte> obtenerTrabajo(String id) {
+        return Optional.ofNullable(id).map(trabajos::get);
+    }
+
+    public int getTrabajosEnCola() {
+        return trabajadores.getQueue().size();
+    }
+
+    public int getResultadosEnCache() {
+        return cache.tamano();
+    }
+
+    private void ejecutar(TrabajoReporte trabajo) {
+        trabajo.iniciar();
+        try {
+            // La versión se lee antes de generar: si los datos cambian mientras tanto, la siguiente petición ya no coincide
+            long version = resumenDiarioService.getVersionDatos();
+            ResultadoReporte resultado;
+            // El resultado queda en caché con esa versión: se genera desde el primario, no desde la réplica
+            try (EnrutadorDataSource.Forzado primario = EnrutadorDataSource.forzarPrimario()) {
+                resultado = generar(trabajo.getClave(), version);
+            }
+            cache.guardar(trabajo.getClave().conVersion(version), resultado);
+            // Fuera de "en curso" antes de darlo por terminado: quien lo vea terminado y vuelva a pedirlo
+            // no debe recibir este mismo trabajo
+            enCurso.remove(trabajo.getClave(), trabajo);
+            trabajo.completar(resultado, false);
+            logger.debug("Reporte {} generado: {} ({} bytes)", trabajo.getId(), trabajo.getTipo(), resultado.tamano());
+        } catch (Throwable e) {
+            // También los Error (un OutOfMemoryError al generar un reporte grande): el trabajo no puede quedar
+            // EN_CURSO, porque las peticiones iguales se seguirían uniendo a él
+            logger.warn("Error al generar el reporte {} ({}): {}", trabajo.getId(), trabajo.getTipo(), e.getMessage());
+            enCurso.remove(trabajo.getClave(), trabajo);
+            trabajo.fallar(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private ResultadoReporte generar(ClaveReporte clave, long version) throws Exception {
+        LocalDate inicio = clave.fechaInicio();
+        LocalDate fin = clave.fechaFin();
+        byte[] contenido = switch (clave.tipo()) {
+            case INDICADORES -> objectMapper.writeValueAsBytes(reporteService.obtenerModeloIndicadores(inicio, fin));
+            case INGRESOS -> objectMapper.writeValueAsBytes(reservaService.getIngresosPorPeriodo(inicio, fin));
+            case MOVIMIENTO -> objectMapper.writeValueAsBytes(reservaService.getMovimientoPorPeriodo(inicio, fin));
+            case IMPRESION -> {
+                Context contexto = new Context(LOCALE_REPORTES);
+                contexto.setVariables(reporteService.obtenerModeloIndicadores(inicio, fin));
+                contexto.setVariable("reservas", reporteService.obtenerReservasDelPeriodo(inicio, fin));
+                yield templateEngine.process("reporte-impresion", contexto).getBytes(StandardCharsets.UTF_8);
+            }
+        };
+        String archivo = "reporte-" + clave.tipo().name().toLowerCase(Locale.ROOT) + "_" + inicio + "_" + fin
+                + "." + clave.tipo().getExtension();
+        return new ResultadoReporte(contenido, clave.tipo().getTipoContenido(), archivo, version, LocalDateTime.now(reloj));
+    }
+
+    private void purgarTerminados() {
+        LocalDateTime limite = LocalDateTime.now(reloj).minus(retencion);
+        trabajos.values().removeIf(t -> t.getEstado().isTerminado() && t.getTerminadoEn().isBefore(limite));
+    }
+
+    private static String nuevoId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Tarea del pool ordenada por prioridad y, a igual prioridad, por llegada.
+     */
+    private final class TareaPriorizada implements Runnable, Comparable<TareaPriorizada> {
+
+        private final TrabajoReporte trabajo;
+        private final long llegada;
+
+        TareaPriorizada(TrabajoReporte trabajo, long llegada) {
+            this.trabajo = trabajo;
+            this.llegada = llegada;
+        }
+
+        @Override
+        public void run() {
+            ejecutar(trabajo);
+        }
+
+        @Override
+        public int compareTo(TareaPriorizada otra) {
+            int porPrioridad = trabajo.getPrioridad().compareTo(otra.trabajo.getPrioridad());
+            return porPrioridad != 0 ? porPrioridad : Long.compare(llegada, otra.llegada);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.DimensionCubo;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Consulta sobre el cubo de reservas: dimensiones por las que agrupar,
+ * valores permitidos por dimensión y periodo de fecha de inicio. Con
+ * habitaciones por tipo y un periodo acotado se calcula también el RevPAR.
+ */
+public record ConsultaCubo(List<DimensionCubo> agrupar, Map<DimensionCubo, Set<String>> filtros,
+        LocalDate desde, LocalDate hasta, Map<String, Long> habitacionesPorTipo) {
+
+    public ConsultaCubo {
+        agrupar = agrupar != null ? List.copyOf(agrupar) : List.of();
+        if (new HashSet<>(agrupar).size() != agrupar.size()) {
+            throw new IllegalArgumentException("Una dimensión solo se puede agrupar una vez");
+        }
+        Map<DimensionCubo, Set<String>> copia = new EnumMap<>(DimensionCubo.class);
+        if (filtros != null) {
+            filtros.forEach((dimension, valores) -> {
+                if (dimension == DimensionCubo.MES) {
+                    throw new IllegalArgumentException("Para acotar meses use el periodo desde/hasta");
+                }
+                copia.put(dimension, Set.copyOf(valores));
+            });
+        }
+        filtros = copia;
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        habitacionesPorTipo = habitacionesPorTipo != null ? Map.copyOf(habitacionesPorTipo) : Map.of();
+    }
+
+    public ConsultaCubo conFiltro(DimensionCubo dimension, Set<String> valores) {
+        Map<DimensionCubo, Set<String>> nuevos = new EnumMap<>(DimensionCubo.class);
+        nuevos.putAll(filtros);
+        nuevos.put(dimension, valores);
+        return new ConsultaCubo(agrupar, nuevos, desde, hasta, habitacionesPorTipo);
+    }
+
+    public ConsultaCubo conHabitaciones(Map<String, Long> habitaciones) {
+        return new ConsultaCubo(agrupar, filtros, desde, hasta, habitaciones);
+    }
+}
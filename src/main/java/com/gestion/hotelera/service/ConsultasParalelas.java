@@ -0,0 +1,290 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.EnrutadorDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta a la vez las consultas independientes de una página (conteos,
+ * listados) para que su latencia sea la de la más lenta y no la suma.
+ *
+ * Cada consulta corre en su propia transacción de solo lectura en un pool
+ * acotado de hilos, que es también el máximo de conexiones que ocupa. El
+ * pool no tiene cola: una consulta solo va a otro hilo si hay uno libre y su
+ * página no ocupa ya {@code hilos-por-pagina}; si no, se ejecuta en el hilo
+ * de la petición en vez de esperar detrás de las de otras páginas. Una
+ * página espera hasta su plazo; las consultas del pool que no han terminado
+ * se cancelan y la página se muestra con sus valores por defecto (las que
+ * corrieron en el hilo de la petición ya terminaron). Con 0 hilos todas las
+ * consultas se ejecutan una tras otra en el hilo que llama.
+ *
+ * Los resultados se usan fuera de su transacción: las entidades deben
+ * llegar con las asociaciones que se vayan a mostrar ya cargadas. Si el hilo
+ * que envía está en {@link EnrutadorDataSource#forzarPrimario()}, las
+ * consultas también van al primario.
+ */
+@Service
+public class ConsultasParalelas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultasParalelas.class);
+
+    private final TransactionTemplate lectura;
+    private final MeterRegistry meterRegistry;
+    private final Duration plazo;
+    private final ExecutorService ejecutor;
+    /** Hilos libres del pool: quien no consigue uno ejecuta la consulta él mismo. */
+    private final Semaphore libres;
+    private final int hilosPorPagina;
+
+    public ConsultasParalelas(PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.consultas-paralelas.hilos:4}") int hilos,
+            @Value("${app.consultas-paralelas.hilos-por-pagina:2}") int hilosPorPagina,
+            @Value("${app.consultas-paralelas.plazo-ms:2000}") long plazoMs) {
+        if (plazoMs < 1) {
+            throw new IllegalArgumentException("El plazo de las páginas debe ser de al menos 1 ms");
+        }
+        if (hilos > 0 && hilosPorPagina < 1) {
+            throw new IllegalArgumentException("Cada página debe poder usar al menos un hilo");
+        }
+        this.hilosPorPagina = hilosPorPagina;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.plazo = Duration.ofMillis(plazoMs);
+        if (hilos > 0) {
+            AtomicInteger secuencia = new AtomicInteger();
+            this.libres = new Semaphore(hilos);
+            // Sin cola: el semáforo garantiza que hay un hilo para cada consulta que se envía
+            this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    r -> {
+                        Thread hilo = new Thread(r, "consulta-paralela-" + secuencia.incrementAndGet());
+                        hilo.setDaemon(true);
+                        return hilo;
+                    });
+        } else {
+            this.libres = null;
+            this.ejecutor = null;
+        }
+    }
+
+    /**
+     * Nuevo grupo de consultas de la página indicada, con el plazo por defecto.
+     */
+    public Lote nuevoLote(String pagina) {
+        return new Lote(pagina, plazo);
+    }
+
+    public Lote nuevoLote(String pagina, Duration plazoPagina) {
+        return new Lote(pagina, plazoPagina);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (ejecutor != null) {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Consultas de una página. Se envían con {@link #enviar}, se espera una
+     * vez con {@link #esperar()} y después se leen sus resultados.
+     */
+    public final class Lote {
+
+        private final String pagina;
+        private final long limite;
+        private final long inicio = System.nanoTime();
+        private final List<Consulta<?>> consultas = new ArrayList<>();
+        private final List<String> incompletas = new ArrayList<>();
+        /** Consultas de la página en el pool; baja desde los hilos del pool al terminar. */
+        private final AtomicInteger enPool = new AtomicInteger();
+        private boolean esperado;
+
+        private Lote(String pagina, Duration plazoPagina) {
+            this.pagina = pagina;
+            this.limite = inicio + plazoPagina.toNanos();
+        }
+
+        /**
+         * Lanza la consulta y devuelve cómo leer su resultado tras
+         * {@link #esperar()}: el valor obtenido o {@code porDefecto} si
+         * falló o no terminó a tiempo. Si no hay un hilo libre para la
+         * página, la consulta se ejecuta aquí antes de volver.
+         */
+        public <T> Supplier<T> enviar(String nombre, Supplier<T> consulta, T porDefecto) {
+            if (esperado) {
+                throw new IllegalStateException("El lote de la página " + pagina + " ya se ha esperado");
+            }
+            Consulta<T> nueva = new Consulta<>(nombre, consulta, porDefecto);
+            consultas.add(nueva);
+            if (!enviarAlPool(nueva.tarea)) {
+                if (ejecutor != null) {
+                    meterRegistry.counter("hotel.pagina.consulta.en-linea", "pagina", pagina).increment();
+                }
+                nueva.tarea.run();
+            }
+            return nueva;
+        }
+
+        private boolean enviarAlPool(FutureTask<?> tarea) {
+            if (ejecutor == null) {
+                return false;
+            }
+            if (enPool.incrementAndGet() > hilosPorPagina || !libres.tryAcquire()) {
+                enPool.decrementAndGet();
+                return false;
+            }
+            try {
+                ejecutor.execute(() -> {
+                    try {
+                        tarea.run();
+                    } finally {
+                        // Antes de que el hilo vuelva al pool: la siguiente consulta puede
+                        // encontrarlo aún ocupado y ejecutarse en el hilo que la envía
+                        enPool.decrementAndGet();
+                        libres.release();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                enPool.decrementAndGet();
+                libres.release();
+                return false;
+            }
+        }
+
+        /**
+         * Espera a todas las consultas hasta el plazo de la página y cancela
+         * las que sigan pendientes.
+         */
+        public Lote esperar() {
+            if (esperado) {
+                return this;
+            }
+            esperado = true;
+            for (Consulta<?> consulta : consultas) {
+                consulta.esperar();
+            }
+            meterRegistry.timer("hotel.pagina", "pagina", pagina, "parcial", String.valueOf(isParcial()))
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            if (isParcial()) {
+                logger.warn("Página {} mostrada sin: {}", pagina, incompletas);
+            }
+            return this;
+        }
+
+        /** La página se muestra sin alguna de sus consultas. */
+        public boolean isParcial() {
+            return !incompletas.isEmpty();
+        }
+
+        public List<String> getIncompletas() {
+            return List.copyOf(incompletas);
+        }
+
+        private final class Consulta<T> implements Supplier<T> {
+
+            private final String nombre;
+            private final T porDefecto;
+            private final FutureTask<T> tarea;
+            private T valor;
+
+            Consulta(String nombre, Supplier<T> consulta, T porDefecto) {
+                this.nombre = nombre;
+                this.porDefecto = porDefecto;
+                // Con el usuario de la página, para que EnrutadorDataSource respete su lectura propia
+                boolean primario = EnrutadorDataSource.isPrimarioForzado();
+                this.tarea = new FutureTask<>(new DelegatingSecurityContextCallable<>(
+                        () -> medir(nombre, () -> leer(consulta, primario))));
+                this.valor = porDefecto;
+            }
+
+            void esperar() {
+                try {
+                    valor = tarea.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException | CancellationException e) {
+                    tarea.cancel(true);
+                    registrarIncompleta("plazo", System.nanoTime() - inicio);
+                } catch (ExecutionException e) {
+                    logger.error("Error en la consulta {} de la página {}: {}", nombre, pagina,
+                            e.getCause().getMessage(), e.getCause());
+                    incompletas.add(nombre);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    tarea.cancel(true);
+                    registrarIncompleta("interrumpida", System.nanoTime() - inicio);
+                }
+            }
+
+            private void registrarIncompleta(String resultado, long nanos) {
+                incompletas.add(nombre);
+                temporizador(nombre, resultado).record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public T get() {
+                if (!esperado) {
+                    throw new IllegalStateException("Hay que esperar el lote antes de leer " + nombre);
+                }
+                return valor != null ? valor : porDefecto;
+            }
+        }
+
+        private <T> T leer(Supplier<T> consulta, boolean primario) {
+            if (!primario) {
+                return lectura.execute(estado -> consulta.get());
+            }
+            try (EnrutadorDataSource.Forzado forzado = EnrutadorDataSource.forzarPrimario()) {
+                return lectura.execute(estado -> consulta.get());
+            }
+        }
+
+        private <T> T medir(String nombre, Supplier<T> consulta) {
+            long comienzo = System.nanoTime();
+            String resultado = "ok";
+            try {
+                return consulta.get();
+            } catch (RuntimeException e) {
+                resultado = "error";
+                throw e;
+            } finally {
+                temporizador(nombre, resultado).record(System.nanoTime() - comienzo, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer temporizador(String nombre, String resultado) {
+            return Timer.builder("hotel.pagina.consulta")
+                    .description("Duración de cada consulta de las páginas con consultas en paralelo")
+                    .tag("pagina", pagina)
+                    .tag("consulta", nombre)
+                    .tag("resultado", resultado)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.EjecucionTarea;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Garantiza que cada tarea programada se ejecute en un solo nodo aunque todas
+ * las instancias la disparen a la vez.
+ *
+ * Antes de ejecutar, el nodo toma el lease de la tarea en la tabla
+ * bloqueos_tareas; mientras la tarea corre lo renueva con un latido cada
+ * tercio de su duración. Si el nodo cae, el lease expira y el siguiente
+ * disparo de otro nodo lo toma. Al terminar se guarda la ejecución (duración
+ * y filas procesadas) y el lease se conserva al menos la retención mínima,
+ * para que un nodo con el reloj algo atrasado no repita la misma ejecución.
+ * Los instantes se toman del reloj de cada nodo, que se supone sincronizado.
+ * Las pruebas inyectan un reloj que adelantan para que el lease caduque.
+ */
+@Component
+public class CoordinadorTareas {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoordinadorTareas.class);
+
+    private static final int LONGITUD_MAXIMA_ERROR = 500;
+
+    /**
+     * Trabajo de una tarea; puede lanzar cualquier excepción, que se propaga
+     * tras registrar la ejecución.
+     */
+    @FunctionalInterface
+    public interface Tarea<T> {
+        T ejecutar() throws Throwable;
+    }
+
+    private final BloqueoTareaService bloqueoTareaService;
+    private final String nodo;
+    private final Duration duracionLease;
+    private final Duration retencionMinima;
+    private final Clock reloj;
+    private final ScheduledExecutorService latidos;
+    private final Set<String> enCurso = ConcurrentHashMap.newKeySet();
+
+    public CoordinadorTareas(BloqueoTareaService bloqueoTareaService,
+            @Value("${app.tareas.nodo:}") String nodo,
+            @Value("${app.tareas.bloqueo.duracion-ms:300000}") long duracionLeaseMs,
+            @Value("${app.tareas.bloqueo.retencion-minima-ms:60000}") long retencionMinimaMs,
+            Clock reloj) {
+        if (duracionLeaseMs <= 0) {
+            throw new IllegalArgumentException("La duración del lease de tareas debe ser positiva");
+        }
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.nodo = nodo == null || nodo.isBlank() ? generarNombreNodo() : nodo.trim();
+        this.duracionLease = Duration.ofMillis(duracionLeaseMs);
+        this.retencionMinima = Duration.ofMillis(Math.max(0, retencionMinimaMs));
+        this.reloj = reloj;
+        this.latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "latido-tareas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    public void detener() {
+        latidos.shutdownNow();
+    }
+
+    /**
+     * Ejecuta la tarea si este nodo obtiene su lease. Si lo tiene otro nodo,
+     * no hace nada y devuelve {@code siOmitida}. Cuando la tarea devuelve un
+     * número se guarda como filas procesadas.
+     */
+    public <T> T ejecutar(String nombre, Tarea<T> tarea, T siOmitida) throws Throwable {
+        LocalDateTime inicio = LocalDateTime.now(reloj);
+        if (!adquirir(nombre, inicio)) {
+            logger.debug("Tarea {} omitida en el nodo {}: la ejecuta otro nodo", nombre, nodo);
+            return siOmitida;
+        }
+
+        long periodoMs = Math.max(1, duracionLease.toMillis() / 3);
+        ScheduledFuture<?> latido = latidos.scheduleAtFixedRate(() -> renovar(nombre), periodoMs, periodoMs,
+                TimeUnit.MILLISECONDS);
+        enCurso.add(nombre);
+        long comienzo = System.nanoTime();
+        EjecucionTarea ejecucion = new EjecucionTarea(nombre, nodo, inicio);
+        try {
+            T resultado = tarea.ejecutar();
+            ejecucion.setResultado(EjecucionTarea.COMPLETADA);
+            if (resultado instanceof Number filas) {
+                ejecucion.setFilasProcesadas(filas.intValue());
+            }
+            return resultado;
+        } catch (Throwable e) {
+            ejecucion.setResultado(EjecucionTarea.ERROR);
+            ejecucion.setMensajeError(recortar(e.getClass().getSimpleName() + ": " + e.getMessage()));
+            throw e;
+        } finally {
+            latido.cancel(false);
+            enCurso.remove(nombre);
+            LocalDateTime fin = LocalDateTime.now(reloj);
+            ejecucion.setFin(fin);
+            ejecucion.setDuracionMs((System.nanoTime() - comienzo) / 1_000_000);
+            finalizar(nombre, ejecucion, inicio, fin);
+        }
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    public Duration getDuracionLease() {
+        return duracionLease;
+    }
+
+    /**
+     * Tareas que este nodo está ejecutando ahora mismo.
+     */
+    public Set<String> getEnCurso() {
+        return Set.copyOf(enCurso);
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private boolean adquirir(String nombre, LocalDateTime ahora) {
+        try {
+            return bloqueoTareaService.adquirir(nombre, nodo, ahora, ahora.plus(duracionLease));
+        } catch (DataAccessException e) {
+            // Otro nodo insertó la fila del lease al mismo tiempo
+            logger.debug("No se pudo adquirir el lease de la tarea {}: {}", nombre, e.getMessage());
+            return false;
+        }
+    }
+
+    private void renovar(String nombre) {
+        try {
+            LocalDateTime ahora = LocalDateTime.now(reloj);
+            if (!bloqueoTareaService.renovar(nombre, nodo, ahora, ahora.plus(duracionLease))) {
+                logger.warn("El nodo {} perdió el lease de la tarea {} mientras la ejecutaba", nodo, nombre);
+            }
+        } catch (Exception e) {
+            logger.warn("Error al renovar el lease de la tarea {}: {}", nombre, e.getMessage());
+        }
+    }
+
+    private void finalizar(String nombre, EjecucionTarea ejecucion, LocalDateTime inicio, LocalDateTime fin) {
+        try {
+            bloqueoTareaService.guardarEjecucion(ejecucion);
+        } catch (Exception e) {
+            logger.error("Error al guardar la ejecución de la tarea {}: {}", nombre, e.getMessage());
+        }
+        try {
+            LocalDateTime retenidoHasta = inicio.plus(retencionMinima);
+            bloqueoTareaService.liberar(nombre, nodo, retenidoHasta.isAfter(fin) ? retenidoHasta : fin);
+        } catch (Exception e) {
+            // El lease expirará solo al cumplirse su duración
+            logger.error("Error al liberar el lease de la tarea {}: {}", nombre, e.getMessage());
+        }
+    }
+
+    private static String recortar(String mensaje) {
+        return mensaje.length() > LONGITUD_MAXIMA_ERROR ? mensaje.substring(0, LONGITUD_MAXIMA_ERROR) : mensaje;
+    }
+
+    /**
+     * Nombre de la instancia cuando app.tareas.nodo está vacío.
+     */
+    public static String generarNombreNodo() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "desconocido";
+        }
+        // El sufijo distingue varios contextos dentro de la misma JVM
+        return host + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,512 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.DimensionCubo;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reservas en columnas de tipos primitivos para análisis multidimensional:
+ * cada dimensión de texto se codifica con un diccionario en un int[], la
+ * fecha de inicio como día epoch, el mes como año * 12 + mes e importes en
+ * double[]. Una consulta recorre las columnas en paralelo con fork-join;
+ * cada tramo agrupa en arrays propios (directos si hay pocas combinaciones,
+ * tabla hash de claves long si no) que luego se combinan.
+ *
+ * Las reservas se añaden o sustituyen por ID y se retiran marcando su fila;
+ * las filas retiradas se recuperan al recargar el cubo. No es seguro para
+ * hilos: quien lo use debe impedir escrituras durante una consulta.
+ */
+public class CuboColumnar {
+
+    private static final DimensionCubo[] DIMENSIONES = DimensionCubo.values();
+    private static final int MES = DimensionCubo.MES.ordinal();
+    private static final int CAPACIDAD_INICIAL = 1024;
+    // Tramo mínimo por tarea; con más filas se reparten unas cuatro tareas por hilo
+    private static final int FILAS_POR_TAREA = 1 << 16;
+    private static final int TAREAS_POR_HILO = 4;
+    private static final int MAXIMO_GRUPOS_DIRECTOS = 1 << 16;
+
+    /**
+     * Una reserva tal como se guarda en el cubo.
+     */
+    public record Fila(long reservaId, String tipoHabitacion, LocalDate fechaInicio, LocalDate fechaFin,
+            String estado, String metodoPago, String canal, String descuento, String nacionalidad, double ingresos) {
+
+        String valor(DimensionCubo dimension) {
+            String valor = switch (dimension) {
+                case TIPO_HABITACION -> tipoHabitacion;
+                case METODO_PAGO -> metodoPago;
+                case CANAL -> canal;
+                case DESCUENTO -> descuento;
+                case NACIONALIDAD -> nacionalidad;
+                case ESTADO -> estado;
+                case MES -> throw new IllegalArgumentException("MES no usa diccionario");
+            };
+            return valor == null || valor.isBlank() ? dimension.getSinValor() : valor.trim();
+        }
+    }
+
+    private final Diccionario[] diccionarios = new Diccionario[DIMENSIONES.length];
+    private final int[][] codigos = new int[DIMENSIONES.length][];
+    private int[] dias = new int[CAPACIDAD_INICIAL];
+    private int[] noches = new int[CAPACIDAD_INICIAL];
+    private double[] ingresos = new double[CAPACIDAD_INICIAL];
+    private boolean[] vigente = new boolean[CAPACIDAD_INICIAL];
+    // Fila + 1 de cada ID de reserva; 0 = sin fila
+    private int[] filaPorId = new int[CAPACIDAD_INICIAL];
+    private int filas;
+    private int vigentes;
+    private int mesMinimo = Integer.MAX_VALUE;
+    private int mesMaximo = Integer.MIN_VALUE;
+
+    public CuboColumnar() {
+        for (DimensionCubo dimension : DIMENSIONES) {
+            codigos[dimension.ordinal()] = new int[CAPACIDAD_INICIAL];
+            if (dimension != DimensionCubo.MES) {
+                diccionarios[dimension.ordinal()] = new Diccionario();
+            }
+        }
+    }
+
+    /** Reservas vigentes en el cubo. */
+    public int getReservas() {
+        return vigentes;
+    }
+
+    /** Filas ocupadas, incluidas las de reservas retiradas. */
+    public int getFilas() {
+        return filas;
+    }
+
+    /**
+     * Añade la reserva o sustituye la fila que ya tenía. Sin fecha de inicio
+     * no se puede situar en el tiempo y queda fuera.
+     */
+    public void guardar(Fila fila) {
+        if (fila.reservaId() <= 0 || fila.reservaId() >= Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("ID de reserva fuera de rango para el cubo: " + fila.reservaId());
+        }
+        if (fila.fechaInicio() == null) {
+            retirar(fila.reservaId());
+            return;
+        }
+        int id = (int) fila.reservaId();
+        asegurarId(id);
+        int indice = filaPorId[id] - 1;
+        if (indice < 0) {
+            asegurarCapacidad(filas + 1);
+            indice = filas++;
+            filaPorId[id] = indice + 1;
+            vigentes++;
+        }
+        for (DimensionCubo dimension : DIMENSIONES) {
+            if (dimension != DimensionCubo.MES) {
+                codigos[dimension.ordinal()][indice] = diccionarios[dimension.ordinal()].codigo(fila.valor(dimension));
+            }
+        }
+        LocalDate inicio = fila.fechaInicio();
+        int mes = inicio.getYear() * 12 + inicio.getMonthValue() - 1;
+        codigos[MES][indice] = mes;
+        mesMinimo = Math.min(mesMinimo, mes);
+        mesMaximo = Math.max(mesMaximo, mes);
+        dias[indice] = (int) inicio.toEpochDay();
+        noches[indice] = fila.fechaFin() != null
+                ? (int) Math.max(0, fila.fechaFin().toEpochDay() - inicio.toEpochDay()) : 0;
+        ingresos[indice] = fila.ingresos();
+        vigente[indice] = true;
+    }
+
+    /**
+     * Quita la reserva del cubo si estaba.
+     */
+    public void retirar(long reservaId) {
+        if (reservaId <= 0 || reservaId >= filaPorId.length) {
+            return;
+        }
+        int indice = filaPorId[(int) reservaId] - 1;
+        if (indice >= 0) {
+            vigente[indice] = false;
+            filaPorId[(int) reservaId] = 0;
+            vigentes--;
+        }
+    }
+
+    public ResultadoCubo consultar(ConsultaCubo consulta, ForkJoinPool pool) {
+        long inicio = System.nanoTime();
+        Plan plan = new Plan(consulta);
+        Parcial parcial = filas == 0 ? plan.nuevoParcial() : pool.invoke(new Escaneo(plan, 0, filas,
+                Math.max(FILAS_POR_TAREA, filas / (pool.getParallelism() * TAREAS_POR_HILO) + 1)));
+
+        List<Map.Entry<String, ResultadoCubo.Grupo>> ordenados = new ArrayList<>();
+        double ingresosTotales = 0;
+        long nochesTotales = 0;
+        long reservasTotales = 0;
+        for (int i = 0; i < parcial.tamano(); i++) {
+            long reservas = parcial.reservasEn(i);
+            if (reservas == 0) {
+                continue;
+            }
+            List<String> valores = plan.decodificar(parcial.claveEn(i));
+            ordenados.add(Map.entry(String.join("\u0000", valores), new ResultadoCubo.Grupo(valores,
+                    parcial.ingresosEn(i), parcial.nochesEn(i), reservas, plan.revpar(valores, parcial.ingresosEn(i)))));
+            ingresosTotales += parcial.ingresosEn(i);
+            nochesTotales += parcial.nochesEn(i);
+            reservasTotales += reservas;
+        }
+        ordenados.sort(Map.Entry.comparingByKey());
+        List<ResultadoCubo.Grupo> grupos = ordenados.stream().map(Map.Entry::getValue).toList();
+        ResultadoCubo.Grupo total = new ResultadoCubo.Grupo(List.of(), ingresosTotales, nochesTotales,
+                reservasTotales, plan.revparTotal(ingresosTotales));
+        return new ResultadoCubo(consulta.agrupar(), grupos, total, vigentes, (System.nanoTime() - inicio) / 1_000);
+    }
+
+    private void asegurarId(int id) {
+        if (id >= filaPorId.length) {
+            filaPorId = Arrays.copyOf(filaPorId, Math.max(id + 1, filaPorId.length * 2));
+        }
+    }
+
+    private void asegurarCapacidad(int necesaria) {
+        if (necesaria <= dias.length) {
+            return;
+        }
+        int capacidad = Math.max(necesaria, dias.length + (dias.length >> 1));
+        for (int d = 0; d < codigos.length; d++) {
+            codigos[d] = Arrays.copyOf(codigos[d], capacidad);
+        }
+        dias = Arrays.copyOf(dias, capacidad);
+        noches = Arrays.copyOf(noches, capacidad);
+        ingresos = Arrays.copyOf(ingresos, capacidad);
+        vigente = Arrays.copyOf(vigente, capacidad);
+    }
+
+    /**
+     * Columnas, filtros y radios de la clave de grupo de una consulta,
+     * resueltos una vez antes de recorrer las filas.
+     */
+    private final class Plan {
+
+        private final ConsultaCubo consulta;
+        private final int[][] columnasFiltro;
+        private final boolean[][] permitidos;
+        private final int[][] columnasGrupo;
+        private final DimensionCubo[] dimensionesGrupo;
+        private final long[] radios;
+        private final int[] desplazamientos;
+        private final long combinaciones;
+        private final int diaDesde;
+        private final int diaHasta;
+        private final long totalHabitaciones;
+        private final String[] etiquetasMes;
+        private final int[] dias = CuboColumnar.this.dias;
+        private final int[] noches = CuboColumnar.this.noches;
+        private final double[] ingresos = CuboColumnar.this.ingresos;
+        private final boolean[] vigente = CuboColumnar.this.vigente;
+
+        Plan(ConsultaCubo consulta) {
+            this.consulta = consulta;
+            List<Map.Entry<DimensionCubo, Set<String>>> filtros = new ArrayList<>(consulta.filtros().entrySet());
+            columnasFiltro = new int[filtros.size()][];
+            permitidos = new boolean[filtros.size()][];
+            for (int f = 0; f < filtros.size(); f++) {
+                int dimension = filtros.get(f).getKey().ordinal();
+                columnasFiltro[f] = codigos[dimension];
+                permitidos[f] = new boolean[diccionarios[dimension].tamano()];
+                for (String valor : filtros.get(f).getValue()) {
+                    int codigo = diccionarios[dimension].buscar(valor);
+                    if (codigo >= 0) {
+                        permitidos[f][codigo] = true;
+                    }
+                }
+            }
+
+            int grupos = consulta.agrupar().size();
+            dimensionesGrupo = consulta.agrupar().toArray(new DimensionCubo[0]);
+            columnasGrupo = new int[grupos][];
+            radios = new long[grupos];
+            desplazamientos = new int[grupos];
+            long producto = 1;
+            for (int g = 0; g < grupos; g++) {
+                int dimension = dimensionesGrupo[g].ordinal();
+                columnasGrupo[g] = codigos[dimension];
+                if (dimension == MES) {
+                    radios[g] = filas == 0 ? 1 : mesMaximo - mesMinimo + 1;
+                    desplazamientos[g] = filas == 0 ? 0 : mesMinimo;
+                } else {
+                    radios[g] = Math.max(1, diccionarios[dimension].tamano());
+                }
+                try {
+                    producto = Math.multiplyExact(producto, radios[g]);
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Demasiadas combinaciones de grupos en la consulta");
+                }
+            }
+            combinaciones = producto;
+            diaDesde = consulta.desde() != null ? (int) consulta.desde().toEpochDay() : Integer.MIN_VALUE;
+            diaHasta = consulta.hasta() != null ? (int) consulta.hasta().toEpochDay() : Integer.MAX_VALUE;
+            totalHabitaciones = consulta.habitacionesPorTipo().values().stream().mapToLong(Long::longValue).sum();
+            etiquetasMes = new String[filas == 0 ? 0 : mesMaximo - mesMinimo + 1];
+            for (int m = 0; m < etiquetasMes.length; m++) {
+                int codigo = mesMinimo + m;
+                etiquetasMes[m] = YearMonth.of(Math.floorDiv(codigo, 12), Math.floorMod(codigo, 12) + 1).toString();
+            }
+        }
+
+        Parcial nuevoParcial() {
+            return combinaciones <= MAXIMO_GRUPOS_DIRECTOS ? new Parcial((int) combinaciones) : new Parcial();
+        }
+
+        Parcial escanear(int desde, int hasta) {
+            Parcial parcial = nuevoParcial();
+            int filtrosActivos = columnasFiltro.length;
+            int grupos = columnasGrupo.length;
+            filas:
+            for (int i = desde; i < hasta; i++) {
+                if (!vigente[i]) {
+                    continue;
+                }
+                int dia = dias[i];
+                if (dia < diaDesde || dia > diaHasta) {
+                    continue;
+                }
+                for (int f = 0; f < filtrosActivos; f++) {
+                    if (!permitidos[f][columnasFiltro[f][i]]) {
+                        continue filas;
+                    }
+                }
+                long clave = 0;
+                for (int g = 0; g < grupos; g++) {
+                    clave = clave * radios[g] + (columnasGrupo[g][i] - desplazamientos[g]);
+                }
+                parcial.sumar(clave, ingresos[i], noches[i]);
+            }
+            return parcial;
+        }
+
+        List<String> decodificar(long clave) {
+            String[] valores = new String[dimensionesGrupo.length];
+            for (int g = dimensionesGrupo.length - 1; g >= 0; g--) {
+                int codigo = (int) (clave % radios[g]) + desplazamientos[g];
+                clave /= radios[g];
+                valores[g] = dimensionesGrupo[g] == DimensionCubo.MES
+                        ? etiquetasMes[codigo - mesMinimo]
+                        : diccionarios[dimensionesGrupo[g].ordinal()].valor(codigo);
+            }
+            return List.of(valores);
+        }
+
+        /**
+         * Ingresos entre noches disponibles: habitaciones del tipo (o todas)
+         * por días del mes dentro del periodo (o del periodo completo).
+         */
+        Double revpar(List<String> valores, double ingresosGrupo) {
+            Long habitaciones = totalHabitaciones;
+            LocalDate desde = consulta.desde();
+            LocalDate hasta = consulta.hasta();
+            for (int g = 0; g < dimensionesGrupo.length; g++) {
+                if (dimensionesGrupo[g] == DimensionCubo.TIPO_HABITACION) {
+                    habitaciones = consulta.habitacionesPorTipo().get(valores.get(g));
+                } else if (dimensionesGrupo[g] == DimensionCubo.MES) {
+                    YearMonth mes = YearMonth.parse(valores.get(g));
+                    desde = desde == null || mes.atDay(1).isAfter(desde) ? mes.atDay(1) : desde;
+                    hasta = hasta == null || mes.atEndOfMonth().isBefore(hasta) ? mes.atEndOfMonth() : hasta;
+                }
+            }
+            return calcularRevpar(ingresosGrupo, habitaciones, desde, hasta);
+        }
+
+        Double revparTotal(double ingresosTotales) {
+            return calcularRevpar(ingresosTotales, totalHabitaciones, consulta.desde(), consulta.hasta());
+        }
+
+        private Double calcularRevpar(double ingresosGrupo, Long habitaciones, LocalDate desde, LocalDate hasta) {
+            if (habitaciones == null || habitaciones <= 0 || desde == null || hasta == null || hasta.isBefore(desde)) {
+                return null;
+            }
+            long dias = hasta.toEpochDay() - desde.toEpochDay() + 1;
+            return ingresosGrupo / (habitaciones * dias);
+        }
+    }
+
+    private static final class Escaneo extends RecursiveTask<Parcial> {
+
+        private final Plan plan;
+        private final int desde;
+        private final int hasta;
+        private final int tramo;
+
+        Escaneo(Plan plan, int desde, int hasta, int tramo) {
+            this.plan = plan;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.tramo = tramo;
+        }
+
+        @Override
+        protected Parcial compute() {
+            if (hasta - desde <= tramo) {
+                return plan.escanear(desde, hasta);
+            }
+            int medio = (desde + hasta) >>> 1;
+            Escaneo izquierda = new Escaneo(plan, desde, medio, tramo);
+            izquierda.fork();
+            Parcial derecha = new Escaneo(plan, medio, hasta, tramo).compute();
+            return izquierda.join().combinar(derecha);
+        }
+    }
+
+    /**
+     * Acumulados por clave de grupo de un tramo de filas: arrays indexados
+     * por la clave si las combinaciones son pocas, o tabla hash abierta.
+     */
+    private static final class Parcial {
+
+        private final boolean directo;
+        private long[] claves;
+        private double[] ingresos;
+        private long[] noches;
+        private long[] reservas;
+        private int ocupadas;
+
+        Parcial(int combinaciones) {
+            directo = true;
+            claves = null;
+            ingresos = new double[combinaciones];
+            noches = new long[combinaciones];
+            reservas = new long[combinaciones];
+        }
+
+        Parcial() {
+            directo = false;
+            reservar(64);
+        }
+
+        private void reservar(int capacidad) {
+            claves = new long[capacidad];
+            Arrays.fill(claves, -1L);
+            ingresos = new double[capacidad];
+            noches = new long[capacidad];
+            reservas = new long[capacidad];
+            ocupadas = 0;
+        }
+
+        void sumar(long clave, double importe, long nochesFila) {
+            int i = directo ? (int) clave : posicion(clave);
+            ingresos[i] += importe;
+            noches[i] += nochesFila;
+            reservas[i]++;
+        }
+
+        private void acumular(long clave, double importe, long nochesGrupo, long reservasGrupo) {
+            int i = directo ? (int) clave : posicion(clave);
+            ingresos[i] += importe;
+            noches[i] += nochesGrupo;
+            reservas[i] += reservasGrupo;
+        }
+
+        private int posicion(long clave) {
+            int mascara = claves.length - 1;
+            int i = (int) (mezclar(clave) & mascara);
+            while (claves[i] != -1L && claves[i] != clave) {
+                i = (i + 1) & mascara;
+            }
+            if (claves[i] == -1L) {
+                if ((ocupadas + 1) * 2 > claves.length) {
+                    crecer();
+                    return posicion(clave);
+                }
+                claves[i] = clave;
+                ocupadas++;
+            }
+            return i;
+        }
+
+        private void crecer() {
+            long[] clavesAnteriores = claves;
+            double[] ingresosAnteriores = ingresos;
+            long[] nochesAnteriores = noches;
+            long[] reservasAnteriores = reservas;
+            reservar(claves.length * 2);
+            for (int i = 0; i < clavesAnteriores.length; i++) {
+                if (clavesAnteriores[i] != -1L) {
+                    acumular(clavesAnteriores[i], ingresosAnteriores[i], nochesAnteriores[i], reservasAnteriores[i]);
+                }
+            }
+        }
+
+        Parcial combinar(Parcial otro) {
+            for (int i = 0; i < otro.tamano(); i++) {
+                if (otro.reservas[i] > 0) {
+                    acumular(otro.claveEn(i), otro.ingresos[i], otro.noches[i], otro.reservas[i]);
+                }
+            }
+            return this;
+        }
+
+        int tamano() {
+            return reservas.length;
+        }
+
+        long claveEn(int i) {
+            return directo ? i : claves[i];
+        }
+
+        double ingresosEn(int i) {
+            return ingresos[i];
+        }
+
+        long nochesEn(int i) {
+            return noches[i];
+        }
+
+        long reservasEn(int i) {
+            return reservas[i];
+        }
+
+        private static long mezclar(long clave) {
+            long h = clave * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 32);
+        }
+    }
+
+    /**
+     * Códigos enteros consecutivos para los valores de texto de una dimensión.
+     */
+    private static final class Diccionario {
+
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+
+        int codigo(String valor) {
+            Integer codigo = codigos.get(valor);
+            if (codigo == null) {
+                codigo = valores.size();
+                codigos.put(valor, codigo);
+                valores.add(valor);
+            }
+            return codigo;
+        }
+
+        int buscar(String valor) {
+            Integer codigo = valor != null ? codigos.get(valor.trim()) : null;
+            return codigo != null ? codigo : -1;
+        }
+
+        String valor(int codigo) {
+            return valores.get(codigo);
+        }
+
+        int tamano() {
+            return valores.size();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.EnrutadorDataSource;
+import com.gestion.hotelera.enums.DimensionCubo;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.HabitacionesPorTipo;
+import com.gestion.hotelera.repository.ReporteReservaRepository;
+import com.gestion.hotelera.repository.ReservaCubo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Cubo de reservas en memoria para los análisis por tipo de habitación,
+ * mes, método de pago, canal, descuento, nacionalidad y estado.
+ *
+ * Se carga al arrancar la aplicación, en un hilo propio; una consulta que
+ * llegue antes espera a esa carga en lugar de repetirla. Después, las
+ * reservas que {@link ResumenDiarioService} contabiliza se apuntan tras el
+ * commit y se releen por ID antes de la siguiente consulta o en el refresco
+ * periódico. El refresco y la recarga completa corren en ese mismo hilo, no
+ * en el planificador común de @Scheduled: una recarga de millones de filas
+ * no retrasa las demás tareas programadas. El cubo nuevo sustituye al
+ * anterior de una vez al terminar.
+ * Los cambios que no pasan por reservas (nacionalidad de un cliente, tipo
+ * de una habitación) se recogen en la recarga completa periódica. Los datos
+ * son de esta instancia.
+ */
+@Service
+public class CuboReservasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CuboReservasService.class);
+
+    private static final int TAMANO_LOTE = 500;
+    static final Set<String> ESTADOS_CON_INGRESOS = Set.of(EstadoReserva.ACTIVA.getValor(),
+            EstadoReserva.FINALIZADA.getValor());
+
+    private final ReporteReservaRepository reporteReservaRepository;
+    private final HabitacionRepository habitacionRepository;
+    private final TransactionTemplate lectura;
+    private final ForkJoinPool pool;
+    private final long refrescoMs;
+    private final long recargaMs;
+    private final ScheduledExecutorService actualizador;
+
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    // Serializa cargas y refrescos para que una lectura antigua no pise otra más nueva
+    private final ReentrantLock actualizacion = new ReentrantLock();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private volatile boolean cargaIniciada;
+    private volatile CuboColumnar cubo;
+    private volatile long cargadoEn;
+    // Primera carga, en curso o terminada; se vuelve a lanzar si falló
+    private CompletableFuture<Void> cargaInicial;
+
+    public CuboReservasService(ReporteReservaRepository reporteReservaRepository,
+            HabitacionRepository habitacionRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.reportes.cubo.hilos:0}") int hilos,
+            @Value("${app.reportes.cubo.refresco-ms:5000}") long refrescoMs,
+            @Value("${app.reportes.cubo.recarga-ms:3600000}") long recargaMs) {
+        this.reporteReservaRepository = reporteReservaRepository;
+        this.habitacionRepository = habitacionRepository;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.pool = new ForkJoinPool(hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors());
+        this.refrescoMs = refrescoMs;
+        this.recargaMs = recargaMs;
+        this.actualizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "cubo-reservas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        Gauge.builder("hotel.reportes.cubo.reservas", this, servicio -> {
+                    CuboColumnar actual = servicio.cubo;
+                    return actual != null ? actual.getReservas() : 0;
+                })
+                .description("Reservas cargadas en el cubo de análisis")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Agrupa las reservas según la consulta. Sin filtro de estado solo
+     * cuentan las reservas activas y finalizadas, como en los demás reportes.
+     */
+    public ResultadoCubo consultar(ConsultaCubo consulta) {
+        asegurarCargado();
+        aplicarPendientes();
+
+        ConsultaCubo completa = consulta.conHabitaciones(habitacionesPorTipo());
+        if (!completa.filtros().containsKey(DimensionCubo.ESTADO)) {
+            completa = completa.conFiltro(DimensionCubo.ESTADO, ESTADOS_CON_INGRESOS);
+        }
+        cerrojo.readLock().lock();
+        try {
+            return cubo.consultar(completa, pool);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lee todas las reservas en un cubo nuevo y lo sustituye al terminar;
+     * mientras tanto las consultas usan el anterior.
+     */
+    public int recargar() {
+        actualizacion.lock();
+        try {
+            long inicio = System.nanoTime();
+            cargaIniciada = true;
+            CuboColumnar nuevo = leer(estado -> {
+                CuboColumnar cargado = new CuboColumnar();
+                try (Stream<ReservaCubo> reservas = reporteReservaRepository.streamCubo()) {
+                    Iterator<ReservaCubo> iterador = reservas.iterator();
+                    while (iterador.hasNext()) {
+                        cargado.guardar(aFila(iterador.next()));
+                    }
+                }
+                return cargado;
+            });
+            cerrojo.writeLock().lock();
+            try {
+                cubo = nuevo;
+                cargadoEn = System.currentTimeMillis();
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+            logger.info("Cubo de reservas cargado en {} ms - Reservas: {}",
+                    (System.nanoTime() - inicio) / 1_000_000, nuevo.getReservas());
+            return nuevo.getReservas();
+        } finally {
+            actualizacion.unlock();
+        }
+    }
+
+    /**
+     * Apunta las reservas cambiadas una vez confirmada la transacción, para
+     * que al releerlas se vea el estado definitivo.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarReservas(ReservasModificadas evento) {
+        // Antes de empezar la carga no hace falta: la carga ya las leerá
+        if (cargaIniciada) {
+            pendientes.addAll(evento.reservaIds());
+        }
+    }
+
+    /**
+     * Lanza la primera carga y programa el refresco periódico en el hilo
+     * del cubo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        lanzarCargaInicial();
+        if (refrescoMs > 0) {
+            actualizador.scheduleWithFixedDelay(this::refrescar, refrescoMs, refrescoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void refrescar() {
+        if (cubo == null) {
+            return;
+        }
+        try {
+            if (recargaMs > 0 && System.currentTimeMillis() - cargadoEn >= recargaMs) {
+                recargar();
+            } else {
+                aplicarPendientes();
+            }
+        } catch (Exception e) {
+            logger.error("Error al refrescar el cubo de reservas: {}", e.getMessage(), e);
+        }
+    }
+
+    public int getReservasPendientes() {
+        return pendientes.size();
+    }
+
+    @PreDestroy
+    public void detener() {
+        actualizador.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private void asegurarCargado() {
+        if (cubo != null) {
+            return;
+        }
+        try {
+            lanzarCargaInicial().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("No se pudo cargar el cubo de reservas", e.getCause());
+        }
+    }
+
+    private synchronized CompletableFuture<Void> lanzarCargaInicial() {
+        if (cargaInicial == null || cargaInicial.isCompletedExceptionally()) {
+            cargaInicial = CompletableFuture.runAsync(this::recargar, actualizador);
+        }
+        return cargaInicial;
+    }
+
+    private void aplicarPendientes() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        actualizacion.lock();
+        try {
+            List<Long> ids = new ArrayList<>(pendientes);
+            for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE) {
+                List<Long> lote = ids.subList(desde, Math.min(ids.size(), desde + TAMANO_LOTE));
+                // Se quitan antes de leer para no perder un aviso que llegue durante la lectura,
+                // y se vuelven a apuntar si la lectura falla
+                pendientes.removeAll(lote);
+                try {
+                    aplicarLote(lote);
+                } catch (RuntimeException | Error e) {
+                    pendientes.addAll(lote);
+                    throw e;
+                }
+            }
+        } finally {
+            actualizacion.unlock();
+        }
+    }
+
+    private void aplicarLote(List<Long> lote) {
+        List<ReservaCubo> leidas = leer(estado -> reporteReservaRepository.findCuboPorIds(lote));
+        Set<Long> retiradas = new HashSet<>(lote);
+        cerrojo.writeLock().lock();
+        try {
+            for (ReservaCubo reserva : leidas) {
+                cubo.guardar(aFila(reserva));
+                retiradas.remove(reserva.getId());
+            }
+            retiradas.forEach(cubo::retirar);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lo leído pasa a ser el estado del cubo hasta el siguiente aviso, así
+     * que se lee del primario: la réplica puede no tener aún las reservas
+     * que acaban de avisar.
+     */
+    private <T> T leer(TransactionCallback<T> consulta) {
+        try (EnrutadorDataSource.Forzado primario = EnrutadorDataSource.forzarPrimario()) {
+            return lectura.execute(consulta);
+        }
+    }
+
+    private Map<String, Long> habitacionesPorTipo() {
+        Map<String, Long> habitaciones = new HashMap<>();
+        for (HabitacionesPorTipo tipo : habitacionRepository.contarPorTipo()) {
+            String nombre = tipo.getTipo() != null && !tipo.getTipo().isBlank()
+                    ? tipo.getTipo().trim() : DimensionCubo.TIPO_HABITACION.getSinValor();
+            habitaciones.merge(nombre, tipo.getTotal(), Long::sum);
+        }
+        return habitaciones;
+    }
+
+    static CuboColumnar.Fila aFila(ReservaCubo reserva) {
+        return new CuboColumnar.Fila(reserva.getId(), reserva.getTipoHabitacion(), reserva.getFechaInicio(),
+                reserva.getFechaFin(), reserva.getEstadoReserva(), reserva.getMetodoPago(), reserva.getCanal(),
+                reserva.getCodigoDescuento(), reserva.getNacionalidad(),
+                reserva.getTotalPagar() != null ? reserva.getTotalPagar() : 0.0);
+    }
+}
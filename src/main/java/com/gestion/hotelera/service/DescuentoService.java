@@ -94,11 +94,11 @@ public class DescuentoService {
 
     @Transactional
     public void incrementarUso(Descuento descuento) {
-        if (descuento != null && descuento.getUsosActuales() != null) {
-            descuento.setUsosActuales(descuento.getUsosActuales() + 1);
-            descuentoRepository.save(descuento);
-            logger.debug("Incrementado uso del descuento: ID={}, Usos={}", descuento.getId(),
-                    descuento.getUsosActuales());
+        if (descuento != null && descuento.getId() != null) {
+            if (descuentoRepository.sumarUso(descuento.getId()) == 0) {
+                throw new IllegalStateException("El descuento " + descuento.getCodigo() + " ya no tiene usos disponibles");
+            }
+            logger.debug("Incrementado uso del descuento: ID={}", descuento.getId());
         }
     }
 
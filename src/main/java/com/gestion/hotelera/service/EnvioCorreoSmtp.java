@@ -0,0 +1,195 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.aspect.OperacionMedida;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entrega lotes de correos al servidor SMTP.
+ *
+ * Cada lote viaja en una sola sesión SMTP (una conexión, un STARTTLS y una
+ * autenticación) en lugar de abrir una por mensaje. Un límite por minuto
+ * opcional, compartido por todos los hilos, respeta la cuota del proveedor:
+ * quien tiene filas que reclamar reserva antes el cupo con
+ * {@link #reservarCupo} para no retenerlas mientras espera.
+ * El resultado se informa por destinatario: un rechazo no invalida el resto
+ * del lote.
+ */
+@Component
+public class EnvioCorreoSmtp {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvioCorreoSmtp.class);
+
+    private static final long MINUTO_NS = 60_000_000_000L;
+
+    /**
+     * Resultado del envío de un mensaje del lote; error es null si se entregó.
+     */
+    public record ResultadoEnvio(String destinatario, Exception error) {
+        public boolean enviado() {
+            return error == null;
+        }
+    }
+
+    private final JavaMailSender mailSender;
+    private final int maximoPorMinuto;
+
+    // Cubeta de fichas: se rellena de forma continua hasta maximoPorMinuto
+    private double fichas;
+    private long ultimaRecarga = System.nanoTime();
+
+    public EnvioCorreoSmtp(JavaMailSender mailSender,
+            @Value("${app.mail.bandeja-salida.maximo-por-minuto:0}") int maximoPorMinuto) {
+        this.mailSender = mailSender;
+        this.maximoPorMinuto = Math.max(0, maximoPorMinuto);
+        this.fichas = this.maximoPorMinuto;
+    }
+
+    /**
+     * Envía los mensajes y devuelve un resultado por mensaje, en el mismo
+     * orden. Si hay límite por minuto, el lote se parte en tramos que caben
+     * en la cuota y cada tramo espera a tener cupo.
+     */
+    @OperacionMedida("correo.smtp")
+    public List<ResultadoEnvio> enviarLote(List<SimpleMailMessage> mensajes) throws InterruptedException {
+        List<ResultadoEnvio> resultados = new ArrayList<>(mensajes.size());
+        int tramo = maximoPorMinuto > 0 ? maximoPorMinuto : Math.max(1, mensajes.size());
+        for (int desde = 0; desde < mensajes.size(); desde += tramo) {
+            List<SimpleMailMessage> parte = mensajes.subList(desde, Math.min(desde + tramo, mensajes.size()));
+            esperarCupo(parte.size());
+            resultados.addAll(enviarEnUnaSesion(parte));
+        }
+        return resultados;
+    }
+
+    /**
+     * Espera a que haya cupo para hasta {@code maximo} mensajes (como mucho
+     * el límite por minuto) y lo reserva. Devuelve cuántos mensajes caben;
+     * se envían con {@link #enviarLoteReservado} y lo que no se use se
+     * devuelve con {@link #devolverCupo}. Sin límite no espera.
+     */
+    public int reservarCupo(int maximo) throws InterruptedException {
+        if (maximoPorMinuto <= 0 || maximo <= 0) {
+            return Math.max(0, maximo);
+        }
+        int cantidad = Math.min(maximo, maximoPorMinuto);
+        esperarCupo(cantidad);
+        return cantidad;
+    }
+
+    public synchronized void devolverCupo(int cantidad) {
+        if (maximoPorMinuto <= 0 || cantidad <= 0) {
+            return;
+        }
+        fichas = Math.min(maximoPorMinuto, fichas + cantidad);
+        notifyAll();
+    }
+
+    /**
+     * Envía en una sola sesión mensajes cuyo cupo ya se reservó con
+     * {@link #reservarCupo}, sin volver a esperar.
+     */
+    @OperacionMedida("correo.smtp")
+    public List<ResultadoEnvio> enviarLoteReservado(List<SimpleMailMessage> mensajes) {
+        return enviarEnUnaSesion(mensajes);
+    }
+
+    public int getMaximoPorMinuto() {
+        return maximoPorMinuto;
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private List<ResultadoEnvio> enviarEnUnaSesion(List<SimpleMailMessage> mensajes) {
+        List<ResultadoEnvio> resultados = new ArrayList<>(mensajes.size());
+        List<MimeMessage> preparados = new ArrayList<>(mensajes.size());
+        List<Integer> posiciones = new ArrayList<>(mensajes.size());
+        for (SimpleMailMessage mensaje : mensajes) {
+            resultados.add(new ResultadoEnvio(destinatario(mensaje), null));
+            try {
+                preparados.add(preparar(mensaje));
+                posiciones.add(resultados.size() - 1);
+            } catch (Exception e) {
+                resultados.set(resultados.size() - 1, new ResultadoEnvio(destinatario(mensaje), e));
+            }
+        }
+        if (preparados.isEmpty()) {
+            return resultados;
+        }
+
+        try {
+            mailSender.send(preparados.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Solo los mensajes listados fallaron; el resto se entregó en la misma sesión
+            Map<Object, Exception> fallidos = e.getFailedMessages();
+            if (fallidos.isEmpty()) {
+                marcarTodos(resultados, posiciones, e);
+            }
+            for (int i = 0; i < preparados.size(); i++) {
+                Exception error = fallidos.get(preparados.get(i));
+                if (error != null) {
+                    int posicion = posiciones.get(i);
+                    resultados.set(posicion, new ResultadoEnvio(resultados.get(posicion).destinatario(), error));
+                }
+            }
+        } catch (Exception e) {
+            // Conexión o autenticación: no se entregó ninguno
+            marcarTodos(resultados, posiciones, e);
+        }
+        long fallidos = resultados.stream().filter(r -> !r.enviado()).count();
+        logger.debug("Lote SMTP de {} mensajes enviado en una sesión ({} rechazados)", mensajes.size(), fallidos);
+        return resultados;
+    }
+
+    private MimeMessage preparar(SimpleMailMessage mensaje) throws Exception {
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, false, StandardCharsets.UTF_8.name());
+        if (mensaje.getFrom() != null) {
+            helper.setFrom(mensaje.getFrom());
+        }
+        helper.setTo(mensaje.getTo());
+        helper.setSubject(mensaje.getSubject());
+        helper.setText(mensaje.getText());
+        return mime;
+    }
+
+    private synchronized void esperarCupo(int cantidad) throws InterruptedException {
+        if (maximoPorMinuto <= 0) {
+            return;
+        }
+        while (true) {
+            long ahora = System.nanoTime();
+            fichas = Math.min(maximoPorMinuto, fichas + (ahora - ultimaRecarga) * (double) maximoPorMinuto / MINUTO_NS);
+            ultimaRecarga = ahora;
+            if (fichas >= cantidad) {
+                fichas -= cantidad;
+                return;
+            }
+            long esperaMs = (long) Math.ceil((cantidad - fichas) * 60_000.0 / maximoPorMinuto);
+            wait(Math.max(1, esperaMs)); // libera el monitor mientras espera
+        }
+    }
+
+    private static void marcarTodos(List<ResultadoEnvio> resultados, List<Integer> posiciones, Exception error) {
+        for (int posicion : posiciones) {
+            resultados.set(posicion, new ResultadoEnvio(resultados.get(posicion).destinatario(), error));
+        }
+    }
+
+    private static String destinatario(SimpleMailMessage mensaje) {
+        String[] destinatarios = mensaje.getTo();
+        return destinatarios != null && destinatarios.length > 0 ? destinatarios[0] : null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.gestion.hotelera.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV en UTF-8 (con BOM para que Excel respete los acentos), separado por
+ * comas y con comillas solo cuando el valor las necesita. Los textos que
+ * empiezan como una fórmula llevan delante un apóstrofo, para que la hoja de
+ * cálculo los muestre como texto en vez de evaluarlos.
+ */
+final class EscritorCsv implements EscritorTabla {
+
+    private final Writer salida;
+
+    EscritorCsv(OutputStream salida) throws IOException {
+        this.salida = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 16 * 1024);
+        this.salida.write('\uFEFF');
+    }
+
+    @Override
+    public void encabezado(String... columnas) throws IOException {
+        fila((Object[]) columnas);
+    }
+
+    @Override
+    public void fila(Object... valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                salida.write(',');
+            }
+            if (valores[i] instanceof String texto) {
+                escribirCampo(neutralizarFormula(texto));
+            } else if (valores[i] != null) {
+                escribirCampo(valores[i].toString());
+            }
+        }
+        salida.write("\r\n");
+    }
+
+    private static String neutralizarFormula(String valor) {
+        if (valor.isEmpty()) {
+            return valor;
+        }
+        char primero = valor.charAt(0);
+        boolean formula = primero == '=' || primero == '+' || primero == '-' || primero == '@'
+                || primero == '\t' || primero == '\r';
+        return formula ? "'" + valor : valor;
+    }
+
+    private void escribirCampo(String valor) throws IOException {
+        boolean comillas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        if (!comillas) {
+            salida.write(valor);
+            return;
+        }
+        salida.write('"');
+        salida.write(valor.replace("\"", "\"\""));
+        salida.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        salida.flush();
+    }
+}
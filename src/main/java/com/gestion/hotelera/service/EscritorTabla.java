@@ -0,0 +1,18 @@
+package com.gestion.hotelera.service;
+
+import java.io.IOException;
+
+/**
+ * Escribe una tabla fila a fila sobre un stream de salida sin guardar las
+ * filas en memoria. close() termina el documento pero no cierra la salida.
+ */
+interface EscritorTabla extends AutoCloseable {
+
+    void encabezado(String... columnas) throws IOException;
+
+    /** Valores admitidos: texto, números y LocalDate; null deja la celda vacía. */
+    void fila(Object... valores) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,211 @@
+package com.gestion.hotelera.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Libro XLSX (SpreadsheetML) escrito en streaming: cada hoja se comprime en
+ * el zip a medida que llegan las filas, con el texto en línea para no
+ * acumular una tabla de cadenas compartidas. Las partes que enumeran las
+ * hojas se escriben al final, cuando ya se sabe cuántas hay; al llegar al
+ * límite de filas de Excel se abre otra hoja con el mismo encabezado.
+ */
+final class EscritorXlsx implements EscritorTabla {
+
+    /** Filas por hoja que admite Excel, encabezado incluido. */
+    static final int MAXIMO_FILAS_EXCEL = 1_048_576;
+
+    private static final String NS_HOJA = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_RELACIONES = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String TIPO_RELACION = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final LocalDate ORIGEN_EXCEL = LocalDate.of(1899, 12, 30);
+
+    // Índices de cellXfs en styles.xml
+    private static final int ESTILO_FECHA = 1;
+    private static final int ESTILO_ENCABEZADO = 2;
+
+    private final ZipOutputStream zip;
+    private final Writer xml;
+    private final int filasPorHoja;
+    private final String nombreHoja;
+    private String[] columnas;
+    private int hojas;
+    private int filasEnHoja;
+
+    EscritorXlsx(OutputStream salida, String nombreHoja) {
+        this(salida, nombreHoja, MAXIMO_FILAS_EXCEL);
+    }
+
+    EscritorXlsx(OutputStream salida, String nombreHoja, int filasPorHoja) {
+        if (filasPorHoja < 2) {
+            throw new IllegalArgumentException("Una hoja necesita al menos el encabezado y una fila");
+        }
+        this.zip = new ZipOutputStream(salida, StandardCharsets.UTF_8);
+        this.xml = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+        this.nombreHoja = nombreHoja;
+        this.filasPorHoja = filasPorHoja;
+    }
+
+    @Override
+    public void encabezado(String... columnas) throws IOException {
+        this.columnas = columnas.clone();
+        if (hojas == 0) {
+            abrirHoja();
+        }
+    }
+
+    @Override
+    public void fila(Object... valores) throws IOException {
+        if (hojas == 0) {
+            abrirHoja();
+        } else if (filasEnHoja >= filasPorHoja) {
+            cerrarHoja();
+            abrirHoja();
+        }
+        xml.write("<row>");
+        for (Object valor : valores) {
+            escribirCelda(valor, 0);
+        }
+        xml.write("</row>");
+        filasEnHoja++;
+    }
+
+    private void abrirHoja() throws IOException {
+        hojas++;
+        filasEnHoja = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + hojas + ".xml"));
+        xml.write(XML);
+        xml.write("<worksheet xmlns=\"" + NS_HOJA + "\"><sheetData>");
+        if (columnas != null) {
+            xml.write("<row>");
+            for (String columna : columnas) {
+                escribirCelda(columna, ESTILO_ENCABEZADO);
+            }
+            xml.write("</row>");
+            filasEnHoja++;
+        }
+    }
+
+    private void cerrarHoja() throws IOException {
+        xml.write("</sheetData></worksheet>");
+        xml.flush();
+        zip.closeEntry();
+    }
+
+    private void escribirCelda(Object valor, int estilo) throws IOException {
+        if (valor == null) {
+            xml.write("<c/>");
+        } else if (valor instanceof Number numero) {
+            xml.write("<c><v>" + numero + "</v></c>");
+        } else if (valor instanceof LocalDate fecha) {
+            xml.write("<c s=\"" + ESTILO_FECHA + "\"><v>" + ChronoUnit.DAYS.between(ORIGEN_EXCEL, fecha) + "</v></c>");
+        } else {
+            xml.write(estilo != 0 ? "<c s=\"" + estilo + "\" t=\"inlineStr\"><is><t>" : "<c t=\"inlineStr\"><is><t>");
+            escaparTexto(valor.toString());
+            xml.write("</t></is></c>");
+        }
+    }
+
+    private void escaparTexto(String texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&' -> xml.write("&amp;");
+                case '<' -> xml.write("&lt;");
+                case '>' -> xml.write("&gt;");
+                default -> {
+                    // XML 1.0 no admite la mayoría de caracteres de control
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        xml.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (hojas == 0) {
+            abrirHoja();
+        }
+        cerrarHoja();
+        escribirParte("xl/styles.xml", estilos());
+        escribirParte("xl/workbook.xml", libro());
+        escribirParte("xl/_rels/workbook.xml.rels", relacionesLibro());
+        escribirParte("[Content_Types].xml", tiposContenido());
+        escribirParte("_rels/.rels", XML + "<Relationships xmlns=\"" + NS_RELACIONES + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + TIPO_RELACION + "officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        zip.finish();
+        zip.flush();
+    }
+
+    private void escribirParte(String nombre, String contenido) throws IOException {
+        zip.putNextEntry(new ZipEntry(nombre));
+        xml.write(contenido);
+        xml.flush();
+        zip.closeEntry();
+    }
+
+    private String libro() {
+        StringBuilder libro = new StringBuilder(XML).append("<workbook xmlns=\"").append(NS_HOJA)
+                .append("\" xmlns:r=\"").append(TIPO_RELACION.substring(0, TIPO_RELACION.length() - 1))
+                .append("\"><sheets>");
+        for (int i = 1; i <= hojas; i++) {
+            String nombre = i == 1 ? nombreHoja : nombreHoja + " " + i;
+            libro.append("<sheet name=\"").append(nombre).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return libro.append("</sheets></workbook>").toString();
+    }
+
+    private String relacionesLibro() {
+        StringBuilder relaciones = new StringBuilder(XML).append("<Relationships xmlns=\"").append(NS_RELACIONES)
+                .append("\">");
+        for (int i = 1; i <= hojas; i++) {
+            relaciones.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(TIPO_RELACION)
+                    .append("worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        return relaciones.append("<Relationship Id=\"rId").append(hojas + 1).append("\" Type=\"")
+                .append(TIPO_RELACION).append("styles\" Target=\"styles.xml\"/></Relationships>").toString();
+    }
+
+    private String tiposContenido() {
+        String tipo = "application/vnd.openxmlformats-officedocument.spreadsheetml.";
+        StringBuilder tipos = new StringBuilder(XML)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"").append(tipo).append("sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"").append(tipo).append("styles+xml\"/>");
+        for (int i = 1; i <= hojas; i++) {
+            tipos.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ContentType=\"")
+                    .append(tipo).append("worksheet+xml\"/>");
+        }
+        return tipos.append("</Types>").toString();
+    }
+
+    private static String estilos() {
+        return XML + "<styleSheet xmlns=\"" + NS_HOJA + "\">"
+                + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+                + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+                + "</styleSheet>";
+    }
+}
@@ -0,0 +1,62 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+
+import java.time.LocalDate;
+
+/**
+ * Estancia [fechaInicio, fechaFin) de una reserva pendiente o activa tal como
+ * la guarda el índice de disponibilidad.
+ */
+public record EstanciaReservada(
+        Long reservaId,
+        Long habitacionId,
+        LocalDate fechaInicio,
+        LocalDate fechaFin,
+        EstadoReserva estadoReserva) implements ReservaIntervalo {
+
+    public static EstanciaReservada desde(Reserva reserva) {
+        return new EstanciaReservada(
+                reserva.getId(),
+                reserva.getHabitacion() != null ? reserva.getHabitacion().getId() : null,
+                reserva.getFechaInicio(),
+                reserva.getFechaFin(),
+                reserva.getEstado());
+    }
+
+    public static EstanciaReservada desde(ReservaIntervalo intervalo) {
+        return new EstanciaReservada(intervalo.getId(), intervalo.getHabitacionId(), intervalo.getFechaInicio(),
+                intervalo.getFechaFin(), intervalo.getEstadoReserva());
+    }
+
+    public EstanciaReservada conEstado(EstadoReserva nuevoEstado) {
+        return new EstanciaReservada(reservaId, habitacionId, fechaInicio, fechaFin, nuevoEstado);
+    }
+
+    @Override
+    public Long getId() {
+        return reservaId;
+    }
+
+    @Override
+    public Long getHabitacionId() {
+        return habitacionId;
+    }
+
+    @Override
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    @Override
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    @Override
+    public EstadoReserva getEstadoReserva() {
+        return estadoReserva;
+    }
+}
@@ -0,0 +1,99 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.repository.ReporteReservaRepository;
+import com.gestion.hotelera.repository.ReservaExportacion;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de reservas a CSV o XLSX. Las filas se leen de la base de
+ * datos por lotes y se escriben según llegan, así que la memoria usada no
+ * depende del número de reservas exportadas.
+ */
+@Service
+public class ExportacionReservaService {
+
+    static final String[] COLUMNAS = { "ID", "Nombres", "Apellidos", "DNI", "Habitación", "Tipo",
+            "Fecha inicio", "Fecha fin", "Noches", "Estado", "Total" };
+
+    public enum Formato {
+        CSV("text/csv;charset=UTF-8", "csv", true),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", false);
+
+        private final String tipoContenido;
+        private final String extension;
+        private final boolean comprimible;
+
+        Formato(String tipoContenido, String extension, boolean comprimible) {
+            this.tipoContenido = tipoContenido;
+            this.extension = extension;
+            this.comprimible = comprimible;
+        }
+
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /** XLSX ya es un zip: comprimirlo otra vez no ahorra nada. */
+        public boolean isComprimible() {
+            return comprimible;
+        }
+
+        public static Formato desde(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return CSV;
+            }
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: " + valor);
+            }
+        }
+    }
+
+    private final ReporteReservaRepository reporteReservaRepository;
+
+    public ExportacionReservaService(ReporteReservaRepository reporteReservaRepository) {
+        this.reporteReservaRepository = reporteReservaRepository;
+    }
+
+    /**
+     * Escribe las reservas del periodo en la salida y devuelve cuántas se
+     * exportaron. No cierra la salida.
+     */
+    @Transactional(readOnly = true)
+    public long exportar(LocalDate inicio, LocalDate fin, Formato formato, OutputStream salida) throws IOException {
+        long exportadas = 0;
+        try (Stream<ReservaExportacion> reservas = reporteReservaRepository.streamExportacion(inicio, fin);
+                EscritorTabla escritor = abrirEscritor(formato, salida)) {
+            escritor.encabezado(COLUMNAS);
+            Iterator<ReservaExportacion> filas = reservas.iterator();
+            while (filas.hasNext()) {
+                ReservaExportacion r = filas.next();
+                escritor.fila(r.getId(), r.getClienteNombres(), r.getClienteApellidos(), r.getClienteDni(),
+                        r.getHabitacionNumero(), r.getHabitacionTipo(), r.getFechaInicio(), r.getFechaFin(),
+                        r.getDiasEstadia(), r.getEstadoReserva(), r.getTotalPagar());
+                exportadas++;
+            }
+        }
+        return exportadas;
+    }
+
+    private static EscritorTabla abrirEscritor(Formato formato, OutputStream salida) throws IOException {
+        return switch (formato) {
+            case CSV -> new EscritorCsv(salida);
+            case XLSX -> new EscritorXlsx(salida, "Reservas");
+        };
+    }
+}
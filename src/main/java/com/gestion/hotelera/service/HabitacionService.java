@@ -1,40 +1,440 @@
 package com.gestion.hotelera.service;
 
 import com.gestion.hotelera.enums.EstadoHabitacion;
-import com.gestion.hotelera.enums.EstadoReserva;
-import com.gestion.hotelera.model.Habitacion;habitacionRepository.deleteById(id);registrarAuditoriaEliminacion(habitacion);logger.info("Habitación eliminada: ID={}, Número={}",id,habitacion.getNumero());}
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-@Transactional(readOnly=true)public Page<Habitacion>obtenerHabitacionesPaginadas(Pageable pageable,String search){if(search!=null&&!search.trim().isEmpty()){return habitacionRepository.findByNumeroContainingIgnoreCaseOrTipoContainingIgnoreCase(search,search,pageable);}return habitacionRepository.findAll(pageable);}
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
-// ============== MÉTODOS PRIVADOS DE AYUDA ==============
+@Service
+public class HabitacionService {
 
-/**
- * Optimización: Obtiene IDs de habitaciones con reservas activas en una sola
- * consulta,
- * evitando N+1 queries.
- */
-private Set<Long>obtenerIdsHabitacionesConReservasActivas(LocalDate fecha){List<Reserva>todasReservas=reservaRepository.findAll();
+    private static final Logger logger = LoggerFactory.getLogger(HabitacionService.class);
 
-return todasReservas.stream().filter(r->esReservaActivaEnFecha(r,fecha)).map(r->r.getHabitacion().getId()).collect(Collectors.toSet());}
+    private final HabitacionRepository habitacionRepository;
+    private final AuditoriaService auditoriaService;
+    private final ReservaRepository reservaRepository;
+    private final IndiceDisponibilidad indiceDisponibilidad;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ApplicationEventPublisher eventos;
 
-private boolean esReservaActivaEnFecha(Reserva reserva,LocalDate fecha){if(reserva.getHabitacion()==null||reserva.getFechaInicio()==null||reserva.getFechaFin()==null){return false;}
+    public HabitacionService(HabitacionRepository habitacionRepository, AuditoriaService auditoriaService,
+            ReservaRepository reservaRepository, IndiceDisponibilidad indiceDisponibilidad,
+            ResumenDiarioService resumenDiarioService, ApplicationEventPublisher eventos) {
+        this.habitacionRepository = habitacionRepository;
+        this.auditoriaService = auditoriaService;
+        this.reservaRepository = reservaRepository;
+        this.indiceDisponibilidad = indiceDisponibilidad;
+        this.resumenDiarioService = resumenDiarioService;
+        this.eventos = eventos;
+    }
 
-String estado=reserva.getEstadoReserva();boolean esEstadoActivo=EstadoReserva.ACTIVA.getValor().equals(estado)||EstadoReserva.PENDIENTE.getValor().equals(estado);
+    @Transactional
+    public void inicializarHabitacionesSiNoExisten() {
+        if (habitacionRepository.count() > 0) {
+            return;
+        }
+        List<Habitacion> iniciales = List.of(
+                new Habitacion("101", "SUITE PRESIDENCIAL", 450.0, EstadoHabitacion.DISPONIBLE.getValor()),
+                new Habitacion("201", "SUITE JUNIOR", 350.0, EstadoHabitacion.DISPONIBLE.getValor()),
+                new Habitacion("301", "DOBLE", 280.0, EstadoHabitacion.DISPONIBLE.getValor()),
+                new Habitacion("401", "SIMPLE", 180.0, EstadoHabitacion.DISPONIBLE.getValor()));
+        habitacionRepository.saveAll(iniciales)
+                .forEach(h -> notificarIndice(h.getId(), h.getEstadoHabitacion()));
+        logger.info("Habitaciones iniciales creadas: {}", iniciales.size());
+    }
 
-return esEstadoActivo&&!reserva.getFechaInicio().isAfter(fecha)&&!reserva.getFechaFin().isBefore(fecha);}
+    @Transactional(readOnly = true)
+    public List<Habitacion> obtenerTodasLasHabitaciones() {
+        return habitacionRepository.findAll();
+    }
 
-private void validarNumeroUnico(String numero,Habitacion habitacionExistente){if(!habitacionExistente.getNumero().equals(numero)){Optional<Habitacion>existeOtra=habitacionRepository.findByNumero(numero);if(existeOtra.isPresent()&&!existeOtra.get().getId().equals(habitacionExistente.getId())){throw new IllegalArgumentException("El número de habitación '"+numero+"' ya está en uso.");}}}
+    @Transactional(readOnly = true)
+    public List<Habitacion> obtenerHabitacionesPorIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return habitacionRepository.findAllById(ids);
+    }
 
-private Habitacion actualizarDatosHabitacion(Habitacion existente,Habitacion actualizada){existente.setNumero(actualizada.getNumero());existente.setTipo(actualizada.getTipo());existente.setPrecioPorNoche(actualizada.getPrecioPorNoche());existente.setEstado(actualizada.getEstado());
+    @Transactional(readOnly = true)
+    public Optional<Habitacion> buscarHabitacionPorId(Long id) {
+        if (id == null || id <= 0) {
+            return Optional.empty();
+        }
+        try {
+            return habitacionRepository.findById(id);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
 
-Habitacion habitacionGuardada=habitacionRepository.save(existente);registrarAuditoriaActualizacion(habitacionGuardada);logger.info("Habitación actualizada: ID={}, Número={}",habitacionGuardada.getId(),habitacionGuardada.getNumero());return habitacionGuardada;}
+    /**
+     * Habitaciones en estado DISPONIBLE que no tienen la noche de hoy reservada.
+     */
+    @Transactional(readOnly = true)
+    public List<Habitacion> obtenerHabitacionesDisponibles() {
+        List<Habitacion> disponibles = habitacionRepository.findByEstado(EstadoHabitacion.DISPONIBLE);
+        Set<Long> ocupadasHoy = obtenerIdsHabitacionesConReservasActivas(LocalDate.now());
+        if (ocupadasHoy.isEmpty()) {
+            return disponibles;
+        }
+        return disponibles.stream()
+                .filter(h -> !ocupadasHoy.contains(h.getId()))
+                .toList();
+    }
 
-private void eliminarReservasAsociadas(Habitacion habitacion){List<Reserva>reservas=reservaRepository.findByHabitacion(habitacion);if(!reservas.isEmpty()){reservaRepository.deleteAll(reservas);logger.debug("Eliminadas {} reservas asociadas a habitación ID={}",reservas.size(),habitacion.getId());}}
+    @Transactional(readOnly = true)
+    public List<Habitacion> obtenerHabitacionesDisponiblesParaCliente(Long clienteId) {
+        List<Habitacion> disponibles = obtenerHabitacionesDisponibles();
+        if (clienteId == null) {
+            return disponibles;
+        }
+        Set<Long> reservadasPorCliente = new HashSet<>(reservaRepository.findHabitacionesReservadasPorCliente(clienteId));
+        return disponibles.stream()
+                .filter(h -> !reservadasPorCliente.contains(h.getId()))
+                .toList();
+    }
 
-private void registrarAuditoriaCreacion(Habitacion habitacion){if(habitacion.getId()!=null){auditoriaService.registrarAccion("CREACION_HABITACION","Nueva habitación registrada: #"+habitacion.getNumero()+" ("+habitacion.getTipo()+", $"+habitacion.getPrecioPorNoche()+")","Habitacion",habitacion.getId());}}
+    @Transactional(readOnly = true)
+    public List<Habitacion> obtenerHabitacionesEnMantenimiento() {
+        return habitacionRepository.findByEstado(EstadoHabitacion.MANTENIMIENTO);
+    }
 
-private void registrarAuditoriaActualizacion(Habitacion habitacion){if(habitacion.getId()!=null){auditoriaService.registrarAccion("ACTUALIZACION_HABITACION","Habitación #"+habitacion.getNumero()+" (ID: "+habitacion.getId()+") actualizada. Nuevo estado: "+habitacion.getEstado(),"Habitacion",habitacion.getId());}}
+    @Transactional
+    public Habitacion crearHabitacion(Habitacion habitacion) {
+        if (habitacion == null) {
+            throw new IllegalArgumentException("La habitación no puede ser nula");
+        }
+        if (habitacion.getNumero() == null || habitacion.getNumero().trim().isEmpty()) {
+            throw new IllegalArgumentException("El número de habitación es obligatorio");
+        }
+        if (habitacionRepository.findByNumero(habitacion.getNumero()).isPresent()) {
+            throw new IllegalArgumentException("El número de habitación '" + habitacion.getNumero() + "' ya está en uso.");
+        }
+        if (habitacion.getEstadoHabitacion() == null) {
+            habitacion.setEstadoHabitacion(EstadoHabitacion.DISPONIBLE);
+        }
 
-private void registrarAuditoriaCambioEstado(Habitacion habitacion,String estadoAnterior,String nuevoEstado){if(habitacion.getId()!=null){auditoriaService.registrarAccion("CAMBIO_ESTADO_HABITACION","Estado de habitación #"+habitacion.getNumero()+" (ID: "+habitacion.getId()+") cambiado de '"+estadoAnterior+"' a '"+nuevoEstado+"'.","Habitacion",habitacion.getId());}}
+        Habitacion guardada = habitacionRepository.save(habitacion);
+        registrarAuditoriaCreacion(guardada);
+        notificarIndice(guardada.getId(), guardada.getEstadoHabitacion());
+        notificarCambioDatos();
+        logger.info("Habitación creada: ID={}, Número={}", guardada.getId(), guardada.getNumero());
+        return guardada;
+    }
 
-private void registrarAuditoriaEliminacion(Habitacion habitacion){if(habitacion.getId()!=null){auditoriaService.registrarAccion("ELIMINACION_HABITACION","Habitación #"+habitacion.getNumero()+" (ID: "+habitacion.getId()+") eliminada.","Habitacion",habitacion.getId());}}}
\ No newline at end of file
+    @Transactional
+    public Habitacion actualizarHabitacion(Habitacion habitacion) {
+        if (habitacion == null || habitacion.getId() == null) {
+            throw new IllegalArgumentException("La habitación a actualizar debe tener un ID");
+        }
+        Habitacion existente = habitacionRepository.leerParaEscribir(habitacion.getId())
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Habitación no encontrada con ID: " + habitacion.getId()));
+
+        validarNumeroUnico(habitacion.getNumero(), existente);
+        Habitacion actualizada = actualizarDatosHabitacion(existente, habitacion);
+        notificarCambioDatos();
+        if (actualizada.getEstado() != null) {
+            publicarEstados(Map.of(actualizada.getId(), actualizada.getEstado()));
+        }
+        return actualizada;
+    }
+
+    @Transactional
+    public Habitacion actualizarEstadoHabitacion(Long id, String nuevoEstado) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID de la habitación no puede ser nulo");
+        }
+        EstadoHabitacion estadoNormalizado = EstadoHabitacion.fromString(nuevoEstado);
+        Habitacion habitacion = habitacionRepository.leerParaEscribir(id)
+                .orElseThrow(() -> new IllegalArgumentException("Habitación no encontrada con ID: " + id));
+
+        EstadoHabitacion estadoAnterior = habitacion.getEstadoHabitacion();
+        if (estadoNormalizado == estadoAnterior) {
+            return habitacion;
+        }
+
+        habitacion.setEstadoHabitacion(estadoNormalizado);
+        habitacionRepository.save(habitacion);
+        registrarAuditoriaCambioEstado(habitacion, estadoAnterior, estadoNormalizado);
+        notificarIndice(id, estadoNormalizado);
+        notificarCambioDatos();
+        publicarEstados(Map.of(id, estadoNormalizado.getValor()));
+        logger.debug("Estado de habitación ID={} cambiado de {} a {}", id, estadoAnterior, estadoNormalizado);
+        return habitacion;
+    }
+
+    /**
+     * Cambia en bloque el estado de las habitaciones indicadas, salvo las que
+     * estén en mantenimiento, con un único UPDATE y un único lote de auditoría.
+     * Devuelve el número de habitaciones actualizadas.
+     */
+    @Transactional
+    public int cambiarEstadoEnLote(Collection<Habitacion> habitaciones, EstadoHabitacion estadoNormalizado) {
+        List<Habitacion> aCambiar = habitaciones.stream()
+                .filter(h -> h.getId() != null)
+                .filter(h -> h.getEstadoHabitacion() != estadoNormalizado)
+                .filter(h -> h.getEstadoHabitacion() != EstadoHabitacion.MANTENIMIENTO)
+                .toList();
+        if (aCambiar.isEmpty()) {
+            return 0;
+        }
+
+        int actualizadas = habitacionRepository.actualizarEstadoEnLote(
+                aCambiar.stream().map(Habitacion::getId).toList(), estadoNormalizado);
+        Map<Long, String> detalles = new LinkedHashMap<>();
+        Map<Long, String> estados = new LinkedHashMap<>();
+        for (Habitacion habitacion : aCambiar) {
+            estados.put(habitacion.getId(), estadoNormalizado.getValor());
+            detalles.put(habitacion.getId(), "Estado de habitación #" + habitacion.getNumero() + " (ID: "
+                    + habitacion.getId() + ") cambiado de '" + habitacion.getEstado() + "' a '"
+                    + estadoNormalizado + "'.");
+            notificarIndice(habitacion.getId(), estadoNormalizado);
+        }
+        auditoriaService.registrarAccionesEnLote("CAMBIO_ESTADO_HABITACION", "Habitacion", detalles);
+        notificarCambioDatos();
+        publicarEstados(estados);
+        logger.debug("{} habitaciones cambiadas a {}", actualizadas, estadoNormalizado);
+        return actualizadas;
+    }
+
+    @Transactional
+    public void eliminarHabitacion(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID de la habitación no puede ser nulo");
+        }
+        Habitacion habitacion = habitacionRepository.leerParaEscribir(id)
+                .orElseThrow(() -> new IllegalArgumentException("Habitación no encontrada con ID: " + id));
+
+        eliminarReservasAsociadas(habitacion);
+        habitacionRepository.deleteById(id);
+        registrarAuditoriaEliminacion(habitacion);
+        indiceDisponibilidad.retirarHabitacion(id);
+        notificarCambioDatos();
+        logger.info("Habitación eliminada: ID={}, Número={}", id, habitacion.getNumero());
+    }
+
+    /**
+     * Indica si la habitación existe y está físicamente disponible en este momento.
+     */
+    @Transactional(readOnly = true)
+    public boolean estaDisponible(Long id) {
+        return buscarHabitacionPorId(id)
+                .map(h -> h.getEstadoHabitacion() == EstadoHabitacion.DISPONIBLE)
+                .orElse(false);
+    }
+
+    /**
+     * Indica si la habitación puede reservarse para las noches [inicio, fin).
+     * Cuando el índice de disponibilidad está cargado la respuesta se obtiene
+     * sin consultar la base de datos.
+     */
+    @Transactional(readOnly = true)
+    public boolean estaDisponible(Long id, LocalDate inicio, LocalDate fin) {
+        return estaDisponible(id, inicio, fin, null);
+    }
+
+    /**
+     * Igual que {@link #estaDisponible(Long, LocalDate, LocalDate)} pero sin
+     * tener en cuenta la reserva indicada, para poder modificar una reserva
+     * existente sin que choque consigo misma.
+     */
+    @Transactional(readOnly = true)
+    public boolean estaDisponible(Long id, LocalDate inicio, LocalDate fin, Long reservaIdExcluida) {
+        if (id == null || inicio == null || fin == null) {
+            return false;
+        }
+
+        boolean usarIndice = indiceDisponibilidad.isInicializado();
+        EstadoHabitacion estado;
+        if (usarIndice) {
+            Optional<EstadoHabitacion> estadoIndice = indiceDisponibilidad.obtenerEstadoHabitacion(id);
+            if (estadoIndice.isEmpty()) {
+                return false;
+            }
+            estado = estadoIndice.get();
+        } else {
+            Optional<Habitacion> habitacion = buscarHabitacionPorId(id);
+            if (habitacion.isEmpty()) {
+                return false;
+            }
+            estado = habitacion.get().getEstadoHabitacion();
+        }
+
+        if (estado == EstadoHabitacion.MANTENIMIENTO) {
+            return false;
+        }
+        LocalDate hoy = LocalDate.now();
+        boolean incluyeHoy = !inicio.isAfter(hoy) && fin.isAfter(hoy);
+        if (incluyeHoy && estado == EstadoHabitacion.OCUPADA
+                && !ocupadaPorReservaExcluida(id, hoy, reservaIdExcluida, usarIndice)) {
+            return false;
+        }
+
+        if (usarIndice) {
+            return indiceDisponibilidad.buscarConflicto(id, inicio, fin, reservaIdExcluida).isEmpty();
+        }
+        return !reservaRepository.existeReservaEnRangoFechas(id, inicio, fin, reservaIdExcluida);
+    }
+
+    @Transactional(readOnly = true)
+    public long contarHabitaciones() {
+        return habitacionRepository.count();
+    }
+
+    /**
+     * Habitaciones en estado DISPONIBLE sin reserva para la noche de hoy.
+     */
+    @Transactional(readOnly = true)
+    public long contarDisponibles() {
+        if (indiceDisponibilidad.isInicializado()) {
+            return indiceDisponibilidad.contarDisponiblesEn(LocalDate.now());
+        }
+        return obtenerHabitacionesDisponibles().size();
+    }
+
+    @Transactional(readOnly = true)
+    public long contarOcupadas() {
+        return habitacionRepository.countByEstado(EstadoHabitacion.OCUPADA);
+    }
+
+    @Transactional(readOnly = true)
+    public long contarEnMantenimiento() {
+        return habitacionRepository.countByEstado(EstadoHabitacion.MANTENIMIENTO);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Habitacion> obtenerHabitacionesPaginadas(Pageable pageable, String search) {
+        if (search != null && !search.trim().isEmpty()) {
+            return habitacionRepository.findByNumeroContainingIgnoreCaseOrTipoContainingIgnoreCase(search, search,
+                    pageable);
+        }
+        return habitacionRepository.findAll(pageable);
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    /**
+     * Una habitación OCUPADA hoy no bloquea la edición de la reserva que la ocupa.
+     */
+    private boolean ocupadaPorReservaExcluida(Long id, LocalDate hoy, Long reservaIdExcluida, boolean usarIndice) {
+        if (reservaIdExcluida == null) {
+            return false;
+        }
+        if (!usarIndice) {
+            return true;
+        }
+        return indiceDisponibilidad.buscarConflicto(id, hoy, hoy.plusDays(1), null)
+                .map(e -> reservaIdExcluida.equals(e.reservaId()))
+                .orElse(false);
+    }
+
+    /**
+     * IDs de habitaciones con la noche de la fecha reservada. Usa el índice en
+     * memoria y, si aún no está cargado, una única consulta agregada.
+     */
+    private Set<Long> obtenerIdsHabitacionesConReservasActivas(LocalDate fecha) {
+        if (indiceDisponibilidad.isInicializado()) {
+            return indiceDisponibilidad.obtenerIdsOcupadasEn(fecha);
+        }
+        return new HashSet<>(reservaRepository.findHabitacionesOcupadasEnFecha(fecha));
+    }
+
+    private void notificarIndice(Long habitacionId, EstadoHabitacion estado) {
+        indiceDisponibilidad.actualizarHabitacion(habitacionId, estado);
+    }
+
+    private void validarNumeroUnico(String numero, Habitacion habitacionExistente) {
+        if (!habitacionExistente.getNumero().equals(numero)) {
+            Optional<Habitacion> existeOtra = habitacionRepository.findByNumero(numero);
+            if (existeOtra.isPresent() && !existeOtra.get().getId().equals(habitacionExistente.getId())) {
+                throw new IllegalArgumentException("El número de habitación '" + numero + "' ya está en uso.");
+            }
+        }
+    }
+
+    private Habitacion actualizarDatosHabitacion(Habitacion existente, Habitacion actualizada) {
+        existente.setNumero(actualizada.getNumero());
+        existente.setTipo(actualizada.getTipo());
+        existente.setPrecioPorNoche(actualizada.getPrecioPorNoche());
+        existente.setEstadoHabitacion(actualizada.getEstadoHabitacion());
+
+        Habitacion habitacionGuardada = habitacionRepository.save(existente);
+        registrarAuditoriaActualizacion(habitacionGuardada);
+        notificarIndice(habitacionGuardada.getId(), habitacionGuardada.getEstadoHabitacion());
+        logger.info("Habitación actualizada: ID={}, Número={}", habitacionGuardada.getId(),
+                habitacionGuardada.getNumero());
+        return habitacionGuardada;
+    }
+
+    private void notificarCambioDatos() {
+        resumenDiarioService.marcarCambioDatos();
+    }
+
+    private void publicarEstados(Map<Long, String> estadoPorHabitacion) {
+        eventos.publishEvent(new HabitacionesModificadas(estadoPorHabitacion));
+    }
+
+    private void eliminarReservasAsociadas(Habitacion habitacion) {
+        List<Reserva> reservas = reservaRepository.findByHabitacion(habitacion);
+        if (!reservas.isEmpty()) {
+            reservaRepository.deleteAll(reservas);
+            resumenDiarioService.contabilizarReservas(reservas.stream().map(Reserva::getId).toList());
+            logger.debug("Eliminadas {} reservas asociadas a habitación ID={}", reservas.size(), habitacion.getId());
+        }
+    }
+
+    private void registrarAuditoriaCreacion(Habitacion habitacion) {
+        if (habitacion.getId() != null) {
+            auditoriaService.registrarAccion("CREACION_HABITACION",
+                    "Nueva habitación registrada: #" + habitacion.getNumero() + " (" + habitacion.getTipo() + ", $"
+                            + habitacion.getPrecioPorNoche() + ")",
+                    "Habitacion", habitacion.getId());
+        }
+    }
+
+    private void registrarAuditoriaActualizacion(Habitacion habitacion) {
+        if (habitacion.getId() != null) {
+            auditoriaService.registrarAccion("ACTUALIZACION_HABITACION",
+                    "Habitación #" + habitacion.getNumero() + " (ID: " + habitacion.getId()
+                            + ") actualizada. Nuevo estado: " + habitacion.getEstado(),
+                    "Habitacion", habitacion.getId());
+        }
+    }
+
+    private void registrarAuditoriaCambioEstado(Habitacion habitacion, EstadoHabitacion estadoAnterior,
+            EstadoHabitacion nuevoEstado) {
+        if (habitacion.getId() != null) {
+            auditoriaService.registrarAccion("CAMBIO_ESTADO_HABITACION",
+                    "Estado de habitación #" + habitacion.getNumero() + " (ID: " + habitacion.getId()
+                            + ") cambiado de '" + estadoAnterior + "' a '" + nuevoEstado + "'.",
+                    "Habitacion", habitacion.getId());
+        }
+    }
+
+    private void registrarAuditoriaEliminacion(Habitacion habitacion) {
+        if (habitacion.getId() != null) {
+            auditoriaService.registrarAccion("ELIMINACION_HABITACION",
+                    "Habitación #" + habitacion.getNumero() + " (ID: " + habitacion.getId() + ") eliminada.",
+                    "Habitacion", habitacion.getId());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.gestion.hotelera.service;
+
+import java.util.Map;
+
+/**
+ * Evento publicado al cambiar el estado de una o varias habitaciones, con
+ * el nuevo estado de cada una por ID. Quien necesite ver solo datos
+ * confirmados debe escucharlo tras el commit.
+ */
+public record HabitacionesModificadas(Map<Long, String> estadoPorHabitacion) {
+
+    public HabitacionesModificadas {
+        estadoPorHabitacion = Map.copyOf(estadoPorHabitacion);
+    }
+}
@@ -0,0 +1,442 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de disponibilidad por habitación y noche.
+ *
+ * Se construye al arrancar a partir de las reservas PENDIENTE/ACTIVA y se
+ * mantiene al día con los cambios de estado que hace ReservaService. Los
+ * cambios se aplican después del commit para no reflejar transacciones que
+ * terminan en rollback. Los que llegan mientras se recarga el índice desde la
+ * base de datos se repiten sobre el índice nuevo antes de publicarlo.
+ */
+@Component
+public class IndiceDisponibilidad {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceDisponibilidad.class);
+
+    private final ReservaRepository reservaRepository;
+    private final HabitacionRepository habitacionRepository;
+    /** Este mismo bean a través del proxy, para que las llamadas internas sean transaccionales. */
+    private final IndiceDisponibilidad propio;
+
+    private final Object cerrojoCambios = new Object();
+    private final Object cerrojoRecarga = new Object();
+    /** Cambios aplicados durante la recarga en curso; null si no hay ninguna. Protegido por cerrojoCambios. */
+    private List<Runnable> cambiosDuranteRecarga;
+    /** Habitación en la que está registrada cada reserva del índice. Protegido por cerrojoCambios. */
+    private Map<Long, Long> habitacionPorReserva = new HashMap<>();
+
+    private volatile Map<Long, OcupacionHabitacion> habitaciones = new ConcurrentHashMap<>();
+    private volatile boolean inicializado = false;
+    private volatile LocalDateTime ultimaVerificacion;
+    private volatile List<String> ultimasDiscrepancias = List.of();
+
+    @Value("${app.disponibilidad.verificacion.habilitada:false}")
+    private boolean verificacionHabilitada;
+
+    @Value("${app.disponibilidad.verificacion.reparar:true}")
+    private boolean repararDiscrepancias;
+
+    @Autowired
+    public IndiceDisponibilidad(ReservaRepository reservaRepository, HabitacionRepository habitacionRepository,
+            @Lazy IndiceDisponibilidad propio) {
+        this.reservaRepository = reservaRepository;
+        this.habitacionRepository = habitacionRepository;
+        this.propio = propio;
+    }
+
+    /**
+     * Carga habitaciones e intervalos en una sola transacción y sustituye el
+     * índice. Los cambios confirmados durante la carga se aplican al índice
+     * anterior y se repiten sobre el nuevo; son idempotentes, así que da
+     * igual que la carga ya los hubiera leído.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        synchronized (cerrojoRecarga) {
+            long inicio = System.nanoTime();
+            synchronized (cerrojoCambios) {
+                cambiosDuranteRecarga = new ArrayList<>();
+            }
+            Map<Long, OcupacionHabitacion> nuevo;
+            try {
+                nuevo = cargarDesdeBaseDeDatos();
+            } catch (RuntimeException | Error e) {
+                synchronized (cerrojoCambios) {
+                    cambiosDuranteRecarga = null;
+                }
+                throw e;
+            }
+            int repetidos;
+            synchronized (cerrojoCambios) {
+                habitaciones = nuevo;
+                habitacionPorReserva = indexarReservas(nuevo);
+                repetidos = cambiosDuranteRecarga.size();
+                cambiosDuranteRecarga.forEach(Runnable::run);
+                cambiosDuranteRecarga = null;
+                inicializado = true;
+            }
+            logger.info("Índice de disponibilidad construido: {} habitaciones en {} ms ({} cambios repetidos)",
+                    nuevo.size(), (System.nanoTime() - inicio) / 1_000_000, repetidos);
+        }
+    }
+
+    public boolean isInicializado() {
+        return inicializado;
+    }
+
+    // ============== CONSULTAS ==============
+
+    /**
+     * Indica si ninguna noche de [inicio, fin) está tomada por una reserva
+     * pendiente o activa. No considera el estado físico de la habitación.
+     */
+    public boolean estaLibre(Long habitacionId, LocalDate inicio, LocalDate fin) {
+        OcupacionHabitacion ocupacion = habitaciones.get(habitacionId);
+        if (ocupacion == null) {
+            return true;
+        }
+        long desde = inicio.toEpochDay();
+        return !ocupacion.hayOcupacion(desde, Math.max(fin.toEpochDay(), desde + 1));
+    }
+
+    public boolean estaOcupadaEn(Long habitacionId, LocalDate fecha) {
+        return !estaLibre(habitacionId, fecha, fecha.plusDays(1));
+    }
+
+    public Set<Long> obtenerIdsOcupadasEn(LocalDate fecha) {
+        long dia = fecha.toEpochDay();
+        Set<Long> ocupadas = new HashSet<>();
+        habitaciones.forEach((id, ocupacion) -> {
+            if (ocupacion.hayOcupacion(dia, dia + 1)) {
+                ocupadas.add(id);
+            }
+        });
+        return ocupadas;
+    }
+
+    /**
+     * Habitaciones en estado DISPONIBLE cuya noche de la fecha indicada está libre.
+     */
+    public long contarDisponiblesEn(LocalDate fecha) {
+        long dia = fecha.toEpochDay();
+        return habitaciones.values().stream()
+                .filter(o -> o.getEstado() == EstadoHabitacion.DISPONIBLE)
+                .filter(o -> !o.hayOcupacion(dia, dia + 1))
+                .count();
+    }
+
+    /**
+     * Primera reserva pendiente o activa (por fecha de inicio) que se solapa
+     * con [inicio, fin), ignorando la reserva excluida. Resuelve el conflicto
+     * con el árbol de intervalos de la habitación, sin consultar la base de datos.
+     */
+    public Optional<EstanciaReservada> buscarConflicto(Long habitacionId, LocalDate inicio, LocalDate fin,
+            Long reservaIdExcluida) {
+        List<EstanciaReservada> conflictos = buscarConflictos(habitacionId, inicio, fin, reservaIdExcluida, 1);
+        return conflictos.isEmpty() ? Optional.empty() : Optional.of(conflictos.get(0));
+    }
+
+    public List<EstanciaReservada> buscarConflictos(Long habitacionId, LocalDate inicio, LocalDate fin,
+            Long reservaIdExcluida, int limite) {
+        OcupacionHabitacion ocupacion = habitaciones.get(habitacionId);
+        if (ocupacion == null || inicio == null || fin == null) {
+            return List.of();
+        }
+        long desde = inicio.toEpochDay();
+        return ocupacion.buscarSolapamientos(desde, Math.max(fin.toEpochDay(), desde + 1), reservaIdExcluida, limite)
+                .stream()
+                .map(e -> new EstanciaReservada(e.reservaId, habitacionId, LocalDate.ofEpochDay(e.inicio),
+                        LocalDate.ofEpochDay(e.fin), e.estado))
+                .toList();
+    }
+
+    public Optional<EstadoHabitacion> obtenerEstadoHabitacion(Long habitacionId) {
+        OcupacionHabitacion ocupacion = habitaciones.get(habitacionId);
+        return ocupacion != null ? Optional.ofNullable(ocupacion.getEstado()) : Optional.empty();
+    }
+
+    // ============== ACTUALIZACIONES ==============
+
+    /**
+     * Refleja el estado actual de la reserva: la registra si está pendiente o
+     * activa y la retira en cualquier otro caso. Si cambió de habitación, la
+     * retira de la anterior sin recorrer las demás.
+     */
+    public void actualizarReserva(Reserva reserva) {
+        if (reserva == null || reserva.getId() == null || reserva.getHabitacion() == null) {
+            return;
+        }
+        Long reservaId = reserva.getId();
+        Long habitacionId = reserva.getHabitacion().getId();
+        LocalDate inicio = reserva.getFechaInicio();
+        LocalDate fin = reserva.getFechaFin();
+        EstadoReserva estadoReserva = reserva.getEstado();
+        boolean ocupa = esEstadoQueOcupa(estadoReserva) && inicio != null && fin != null;
+
+        alConfirmar(() -> {
+            if (ocupa) {
+                registrarEstancia(reservaId, habitacionId, inicio, fin, estadoReserva);
+            } else {
+                retirarEstancia(reservaId);
+            }
+        });
+    }
+
+    /**
+     * Aplica un cambio de estado en bloque a reservas leídas como intervalos,
+     * tal como hacen las actualizaciones masivas de las tareas programadas.
+     */
+    public void actualizarEstadoReservas(List<ReservaIntervalo> intervalos, EstadoReserva nuevoEstado) {
+        if (intervalos == null || intervalos.isEmpty()) {
+            return;
+        }
+        boolean ocupa = esEstadoQueOcupa(nuevoEstado);
+        List<ReservaIntervalo> copia = List.copyOf(intervalos);
+        alConfirmar(() -> {
+            for (ReservaIntervalo intervalo : copia) {
+                if (intervalo.getHabitacionId() == null) {
+                    continue;
+                }
+                if (ocupa && intervalo.getFechaInicio() != null && intervalo.getFechaFin() != null) {
+                    registrarEstancia(intervalo.getId(), intervalo.getHabitacionId(), intervalo.getFechaInicio(),
+                            intervalo.getFechaFin(), nuevoEstado);
+                } else {
+                    retirarEstancia(intervalo.getId());
+                }
+            }
+        });
+    }
+
+    public void retirarReserva(Long reservaId) {
+        if (reservaId == null) {
+            return;
+        }
+        alConfirmar(() -> retirarEstancia(reservaId));
+    }
+
+    public void actualizarHabitacion(Long habitacionId, EstadoHabitacion estado) {
+        if (habitacionId == null) {
+            return;
+        }
+        alConfirmar(() -> habitaciones.computeIfAbsent(habitacionId, id -> new OcupacionHabitacion(estado))
+                .setEstado(estado));
+    }
+
+    public void retirarHabitacion(Long habitacionId) {
+        if (habitacionId == null) {
+            return;
+        }
+        alConfirmar(() -> {
+            OcupacionHabitacion ocupacion = habitaciones.remove(habitacionId);
+            if (ocupacion != null) {
+                ocupacion.copiarIdsReservas().forEach(habitacionPorReserva::remove);
+            }
+        });
+    }
+
+    // ============== VERIFICACIÓN DE CONSISTENCIA ==============
+
+    /**
+     * Compara el índice con la base de datos y devuelve las diferencias
+     * encontradas. Una lista vacía significa que el índice es consistente.
+     */
+    @Transactional(readOnly = true)
+    public List<String> verificarConsistencia() {
+        Map<Long, OcupacionHabitacion> esperado = cargarDesdeBaseDeDatos();
+        Map<Long, OcupacionHabitacion> actual = habitaciones;
+        List<String> discrepancias = new ArrayList<>();
+
+        Set<Long> ids = new TreeSet<>(esperado.keySet());
+        ids.addAll(actual.keySet());
+        for (Long id : ids) {
+            OcupacionHabitacion enBaseDeDatos = esperado.get(id);
+            OcupacionHabitacion enIndice = actual.get(id);
+            if (enBaseDeDatos == null || enIndice == null) {
+                discrepancias.add("Habitación " + id + (enIndice == null ? " ausente en el índice"
+                        : " presente en el índice pero no en la base de datos"));
+                continue;
+            }
+            if (!Objects.equals(enBaseDeDatos.getEstado(), enIndice.getEstado())) {
+                discrepancias.add("Habitación " + id + ": estado '" + enIndice.getEstado()
+                        + "' en el índice y '" + enBaseDeDatos.getEstado() + "' en la base de datos");
+            }
+            compararEstancias(id, enBaseDeDatos.copiarEstancias(), enIndice.copiarEstancias(), discrepancias);
+            if (enBaseDeDatos.contarNoches() != enIndice.contarNoches()) {
+                discrepancias.add("Habitación " + id + ": " + enIndice.contarNoches()
+                        + " noches ocupadas en el índice y " + enBaseDeDatos.contarNoches() + " en la base de datos");
+            }
+        }
+
+        ultimaVerificacion = LocalDateTime.now();
+        ultimasDiscrepancias = List.copyOf(discrepancias);
+        return discrepancias;
+    }
+
+    @Scheduled(cron = "${app.disponibilidad.verificacion.cron:0 15 * * * ?}")
+    public void verificacionProgramada() {
+        if (!verificacionHabilitada || !inicializado) {
+            return;
+        }
+        try {
+            List<String> discrepancias = propio.verificarConsistencia();
+            if (discrepancias.isEmpty()) {
+                logger.debug("Índice de disponibilidad consistente con la base de datos");
+                return;
+            }
+            logger.warn("Índice de disponibilidad con {} discrepancias: {}", discrepancias.size(),
+                    discrepancias.subList(0, Math.min(discrepancias.size(), 10)));
+            if (repararDiscrepancias) {
+                propio.reconstruir();
+            }
+        } catch (Exception e) {
+            logger.error("Error al verificar el índice de disponibilidad: {}", e.getMessage(), e);
+        }
+    }
+
+    public LocalDateTime getUltimaVerificacion() {
+        return ultimaVerificacion;
+    }
+
+    public List<String> getUltimasDiscrepancias() {
+        return ultimasDiscrepancias;
+    }
+
+    public int getTotalHabitaciones() {
+        return habitaciones.size();
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private Map<Long, OcupacionHabitacion> cargarDesdeBaseDeDatos() {
+        Map<Long, OcupacionHabitacion> nuevo = new ConcurrentHashMap<>();
+        for (Habitacion habitacion : habitacionRepository.findAll()) {
+            nuevo.put(habitacion.getId(), new OcupacionHabitacion(habitacion.getEstadoHabitacion()));
+        }
+        for (ReservaIntervalo intervalo : reservaRepository.findIntervalosActivos()) {
+            if (intervalo.getHabitacionId() == null || intervalo.getFechaInicio() == null
+                    || intervalo.getFechaFin() == null) {
+                continue;
+            }
+            long desde = intervalo.getFechaInicio().toEpochDay();
+            nuevo.computeIfAbsent(intervalo.getHabitacionId(), id -> new OcupacionHabitacion(null))
+                    .registrar(intervalo.getId(), desde, Math.max(intervalo.getFechaFin().toEpochDay(), desde + 1),
+                            intervalo.getEstadoReserva());
+        }
+        return nuevo;
+    }
+
+    private static Map<Long, Long> indexarReservas(Map<Long, OcupacionHabitacion> ocupaciones) {
+        Map<Long, Long> indice = new HashMap<>();
+        ocupaciones.forEach((habitacionId, ocupacion) -> ocupacion.copiarIdsReservas()
+                .forEach(reservaId -> indice.put(reservaId, habitacionId)));
+        return indice;
+    }
+
+    /**
+     * Registra la estancia en su habitación y la retira de la habitación en la
+     * que estaba, si era otra. Se llama con cerrojoCambios tomado.
+     */
+    private void registrarEstancia(Long reservaId, Long habitacionId, LocalDate inicio, LocalDate fin,
+            EstadoReserva estadoReserva) {
+        Long anterior = habitacionPorReserva.put(reservaId, habitacionId);
+        if (anterior != null && !anterior.equals(habitacionId)) {
+            OcupacionHabitacion ocupacion = habitaciones.get(anterior);
+            if (ocupacion != null) {
+                ocupacion.retirar(reservaId);
+            }
+        }
+        long desde = inicio.toEpochDay();
+        habitaciones.computeIfAbsent(habitacionId, id -> new OcupacionHabitacion(null))
+                .registrar(reservaId, desde, Math.max(fin.toEpochDay(), desde + 1), estadoReserva);
+    }
+
+    /** Retira la estancia de la habitación en la que está registrada. Se llama con cerrojoCambios tomado. */
+    private void retirarEstancia(Long reservaId) {
+        Long habitacionId = habitacionPorReserva.remove(reservaId);
+        if (habitacionId == null) {
+            return;
+        }
+        OcupacionHabitacion ocupacion = habitaciones.get(habitacionId);
+        if (ocupacion != null) {
+            ocupacion.retirar(reservaId);
+        }
+    }
+
+    private void compararEstancias(Long habitacionId, Map<Long, long[]> esperadas, Map<Long, long[]> actuales,
+            List<String> discrepancias) {
+        Set<Long> reservas = new TreeSet<>(esperadas.keySet());
+        reservas.addAll(actuales.keySet());
+        for (Long reservaId : reservas) {
+            long[] esperada = esperadas.get(reservaId);
+            long[] actual = actuales.get(reservaId);
+            if (!Arrays.equals(esperada, actual)) {
+                discrepancias.add("Habitación " + habitacionId + ", reserva " + reservaId + ": "
+                        + describir(actual) + " en el índice y " + describir(esperada) + " en la base de datos");
+            }
+        }
+    }
+
+    private String describir(long[] rango) {
+        if (rango == null) {
+            return "sin registro";
+        }
+        return "[" + LocalDate.ofEpochDay(rango[0]) + ", " + LocalDate.ofEpochDay(rango[1]) + ")";
+    }
+
+    private boolean esEstadoQueOcupa(EstadoReserva estadoReserva) {
+        return estadoReserva != null && estadoReserva.esActiva();
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(accion);
+                }
+            });
+        } else {
+            aplicar(accion);
+        }
+    }
+
+    /**
+     * Aplica el cambio al índice vigente y, si hay una recarga en curso, lo
+     * guarda para repetirlo sobre el índice nuevo.
+     */
+    private void aplicar(Runnable accion) {
+        synchronized (cerrojoCambios) {
+            accion.run();
+            if (cambiosDuranteRecarga != null) {
+                cambiosDuranteRecarga.add(accion);
+            }
+        }
+    }
+}
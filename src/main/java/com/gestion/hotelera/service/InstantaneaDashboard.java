@@ -0,0 +1,55 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.Reserva;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * KPIs del dashboard de personal calculados juntos en un momento dado. Las
+ * reservas recientes llevan cliente y habitación cargados. Si es parcial,
+ * alguna consulta no terminó a tiempo y su valor es el de por defecto.
+ */
+public record InstantaneaDashboard(long totalHabitaciones, long habitacionesDisponibles,
+        long habitacionesOcupadas, long habitacionesMantenimiento, long totalClientes, long totalReservas,
+        long reservasPendientes, long reservasActivas, long checkInsHoy, long checkOutsHoy, long totalEmpleados,
+        double ingresosTotales, List<Map<String, Object>> ingresosUltimos30Dias, List<Reserva> ultimasReservas,
+        boolean parcial, long versionDatos, LocalDateTime calculadaEn) {
+
+    public InstantaneaDashboard {
+        ingresosUltimos30Dias = List.copyOf(ingresosUltimos30Dias);
+        ultimasReservas = List.copyOf(ultimasReservas);
+    }
+
+    public long antiguedadSegundos() {
+        return Math.max(0, Duration.between(calculadaEn, LocalDateTime.now()).getSeconds());
+    }
+
+    /**
+     * Atributos con los nombres que usa la plantilla del dashboard.
+     */
+    public Map<String, Object> comoModelo() {
+        Map<String, Object> modelo = new LinkedHashMap<>();
+        modelo.put("totalHabitaciones", totalHabitaciones);
+        modelo.put("totalClientes", totalClientes);
+        modelo.put("totalReservas", totalReservas);
+        modelo.put("habitacionesDisponibles", habitacionesDisponibles);
+        modelo.put("habitacionesOcupadas", habitacionesOcupadas);
+        modelo.put("habitacionesMantenimiento", habitacionesMantenimiento);
+        modelo.put("totalEmpleados", totalEmpleados);
+        modelo.put("ingresosTotales", ingresosTotales);
+        modelo.put("reservasPendientes", reservasPendientes);
+        modelo.put("reservasActivas", reservasActivas);
+        modelo.put("ingresosUltimos30Dias", ingresosUltimos30Dias);
+        modelo.put("checkInsHoy", checkInsHoy);
+        modelo.put("checkOutsHoy", checkOutsHoy);
+        modelo.put("ultimasReservas", ultimasReservas);
+        modelo.put("instantaneaCalculadaEn", calculadaEn);
+        modelo.put("antiguedadInstantanea", antiguedadSegundos());
+        modelo.put("datosParciales", parcial);
+        return modelo;
+    }
+}
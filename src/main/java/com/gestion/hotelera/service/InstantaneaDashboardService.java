@@ -0,0 +1,202 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.EnrutadorDataSource;
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import com.gestion.hotelera.repository.TotalPorEstado;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Instantánea de los KPIs del dashboard compartida por todos los usuarios.
+ *
+ * Se recalcula cuando vence su TTL o cuando cambia la versión de datos de
+ * {@link ResumenDiarioService}, que sube tras confirmar cambios de reservas,
+ * pagos o habitaciones. Solo un hilo recalcula a la vez; el resto espera
+ * ese mismo resultado en lugar de lanzar sus propias consultas. Una
+ * instantánea a la que le falta alguna consulta se muestra pero no se
+ * reutiliza.
+ */
+@Service
+public class InstantaneaDashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstantaneaDashboardService.class);
+
+    private static final int DIAS_INGRESOS = 30;
+    private static final int ULTIMAS_RESERVAS = 5;
+
+    private final ReservaService reservaService;
+    private final HabitacionService habitacionService;
+    private final ClienteService clienteService;
+    private final EmpleadoService empleadoService;
+    private final ReservaRepository reservaRepository;
+    private final HabitacionRepository habitacionRepository;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ConsultasParalelas consultasParalelas;
+    private final long ttlMs;
+    private final Clock reloj;
+
+    private volatile InstantaneaDashboard actual;
+    private final AtomicReference<CompletableFuture<InstantaneaDashboard>> enCalculo = new AtomicReference<>();
+    private final AtomicLong calculos = new AtomicLong();
+
+    public InstantaneaDashboardService(ReservaService reservaService,
+            HabitacionService habitacionService,
+            ClienteService clienteService,
+            EmpleadoService empleadoService,
+            ReservaRepository reservaRepository,
+            HabitacionRepository habitacionRepository,
+            ResumenDiarioService resumenDiarioService,
+            ConsultasParalelas consultasParalelas,
+            @Value("${app.dashboard.instantanea.ttl-ms:30000}") long ttlMs,
+            Clock reloj) {
+        this.reservaService = reservaService;
+        this.habitacionService = habitacionService;
+        this.clienteService = clienteService;
+        this.empleadoService = empleadoService;
+        this.reservaRepository = reservaRepository;
+        this.habitacionRepository = habitacionRepository;
+        this.resumenDiarioService = resumenDiarioService;
+        this.consultasParalelas = consultasParalelas;
+        this.ttlMs = ttlMs;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Instantánea vigente, recalculándola si hace falta.
+     */
+    public InstantaneaDashboard obtener() {
+        InstantaneaDashboard instantanea = actual;
+        if (vigente(instantanea)) {
+            return instantanea;
+        }
+        CompletableFuture<InstantaneaDashboard> propio = new CompletableFuture<>();
+        CompletableFuture<InstantaneaDashboard> ajeno = enCalculo.compareAndExchange(null, propio);
+        if (ajeno != null) {
+            return esperar(ajeno);
+        }
+        try {
+            // Otro hilo pudo terminar entre la primera comprobación y el reclamo
+            instantanea = actual;
+            if (!vigente(instantanea)) {
+                // Se guarda con la versión de datos actual: se lee del primario, que ya tiene el cambio
+                try (EnrutadorDataSource.Forzado primario = EnrutadorDataSource.forzarPrimario()) {
+                    instantanea = calcular();
+                }
+                actual = instantanea;
+            }
+            propio.complete(instantanea);
+            return instantanea;
+        } catch (Throwable e) {
+            // También los Error: quien espera en esperar() no puede quedarse bloqueado
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCalculo.set(null);
+        }
+    }
+
+    /** Veces que se ha recalculado la instantánea desde el arranque. */
+    public long getCalculos() {
+        return calculos.get();
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private boolean vigente(InstantaneaDashboard instantanea) {
+        return instantanea != null
+                && !instantanea.parcial()
+                && instantanea.versionDatos() == resumenDiarioService.getVersionDatos()
+                && !instantanea.calculadaEn().plusNanos(ttlMs * 1_000_000).isBefore(LocalDateTime.now(reloj));
+    }
+
+    /**
+     * Las consultas se lanzan en paralelo, cada una en su transacción de
+     * solo lectura; los conteos por estado van agrupados y los ingresos
+     * salen de los resúmenes diarios.
+     */
+    private InstantaneaDashboard calcular() {
+        long inicio = System.nanoTime();
+        // Se lee antes de consultar: un cambio durante el cálculo deja la instantánea vencida
+        long version = resumenDiarioService.getVersionDatos();
+        ConsultasParalelas.Lote lote = consultasParalelas.nuevoLote("dashboard");
+        Supplier<List<TotalPorEstado>> habitaciones = lote.enviar("habitaciones-por-estado",
+                habitacionRepository::contarPorEstado, List.of());
+        Supplier<List<TotalPorEstado>> reservas = lote.enviar("reservas-por-estado",
+                reservaRepository::contarPorEstado, List.of());
+        Supplier<Long> disponibles = lote.enviar("disponibles", habitacionService::contarDisponibles, 0L);
+        Supplier<Long> clientes = lote.enviar("clientes", clienteService::contarClientes, 0L);
+        Supplier<Long> checkIns = lote.enviar("check-ins", reservaService::contarCheckInsHoy, 0L);
+        Supplier<Long> checkOuts = lote.enviar("check-outs", reservaService::contarCheckOutsHoy, 0L);
+        Supplier<Long> empleados = lote.enviar("empleados", empleadoService::contarEmpleados, 0L);
+        Supplier<Double> ingresos = lote.enviar("ingresos", reservaService::calcularIngresosTotales, 0.0);
+        Supplier<List<Map<String, Object>>> ingresosPorDia = lote.enviar("ingresos-por-dia",
+                () -> reservaService.getIngresosUltimosDias(DIAS_INGRESOS), List.of());
+        Supplier<List<Reserva>> ultimas = lote.enviar("ultimas-reservas",
+                () -> reservaRepository.findUltimasConDetalle(PageRequest.of(0, ULTIMAS_RESERVAS)), List.of());
+        lote.esperar();
+
+        InstantaneaDashboard instantanea = new InstantaneaDashboard(
+                sumar(habitaciones.get(), null),
+                disponibles.get(),
+                sumar(habitaciones.get(), EstadoHabitacion.OCUPADA.getValor()),
+                sumar(habitaciones.get(), EstadoHabitacion.MANTENIMIENTO.getValor()),
+                clientes.get(),
+                sumar(reservas.get(), null),
+                sumar(reservas.get(), EstadoReserva.PENDIENTE.getValor()),
+                sumar(reservas.get(), EstadoReserva.ACTIVA.getValor()),
+                checkIns.get(),
+                checkOuts.get(),
+                empleados.get(),
+                ingresos.get(),
+                ingresosPorDia.get(),
+                ultimas.get(),
+                lote.isParcial(),
+                version,
+                LocalDateTime.now(reloj));
+        calculos.incrementAndGet();
+        logger.debug("Instantánea del dashboard calculada en {} ms", (System.nanoTime() - inicio) / 1_000_000);
+        return instantanea;
+    }
+
+    /**
+     * Total de filas con el estado indicado, sin distinguir mayúsculas, o
+     * de todas si es null.
+     */
+    private static long sumar(List<TotalPorEstado> totales, String estado) {
+        return totales.stream()
+                .filter(total -> estado == null || estado.equalsIgnoreCase(total.getEstado()))
+                .mapToLong(total -> total.getTotal() != null ? total.getTotal() : 0L)
+                .sum();
+    }
+
+    private static InstantaneaDashboard esperar(CompletableFuture<InstantaneaDashboard> calculo) {
+        try {
+            return calculo.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Árbol de intervalos (AVL aumentado con el fin máximo de cada subárbol) con
+ * las estancias [inicio, fin) de una habitación, en días epoch.
+ *
+ * Inserción y borrado cuestan O(log n); buscar el primer solapamiento cuesta
+ * O(log n) y listar k solapamientos O(k log n). No es thread-safe: el acceso
+ * lo sincroniza OcupacionHabitacion.
+ */
+final class IntervaloReservas {
+
+    static final class Estancia {
+        final long inicio;
+        final long fin;
+        final Long reservaId;
+        final EstadoReserva estado;
+
+        Estancia(long inicio, long fin, Long reservaId, EstadoReserva estado) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.reservaId = reservaId;
+            this.estado = estado;
+        }
+    }
+
+    private static final class Nodo {
+        final Estancia estancia;
+        long finMaximo;
+        int altura = 1;
+        Nodo izquierdo;
+        Nodo derecho;
+
+        Nodo(Estancia estancia) {
+            this.estancia = estancia;
+            this.finMaximo = estancia.fin;
+        }
+    }
+
+    private Nodo raiz;
+    private int tamano;
+
+    int size() {
+        return tamano;
+    }
+
+    void insertar(Estancia estancia) {
+        raiz = insertar(raiz, estancia);
+        tamano++;
+    }
+
+    boolean eliminar(long inicio, Long reservaId) {
+        int antes = tamano;
+        raiz = eliminar(raiz, inicio, reservaId);
+        return tamano < antes;
+    }
+
+    /**
+     * Solapamientos con [inicio, fin) ordenados por fecha de inicio, sin la
+     * reserva excluida y con un máximo de {@code limite} resultados.
+     */
+    List<Estancia> buscarSolapamientos(long inicio, long fin, Long reservaExcluida, int limite) {
+        List<Estancia> resultado = new ArrayList<>();
+        if (limite > 0 && inicio < fin) {
+            recolectar(raiz, inicio, fin, reservaExcluida, limite, resultado);
+        }
+        return resultado;
+    }
+
+    private void recolectar(Nodo nodo, long inicio, long fin, Long reservaExcluida, int limite,
+            List<Estancia> resultado) {
+        if (nodo == null || nodo.finMaximo <= inicio || resultado.size() >= limite) {
+            return;
+        }
+        recolectar(nodo.izquierdo, inicio, fin, reservaExcluida, limite, resultado);
+        if (resultado.size() >= limite) {
+            return;
+        }
+        Estancia estancia = nodo.estancia;
+        if (estancia.inicio >= fin) {
+            return;
+        }
+        if (estancia.fin > inicio && !estancia.reservaId.equals(reservaExcluida)) {
+            resultado.add(estancia);
+        }
+        recolectar(nodo.derecho, inicio, fin, reservaExcluida, limite, resultado);
+    }
+
+    private static int comparar(long inicio, Long reservaId, Estancia estancia) {
+        int porInicio = Long.compare(inicio, estancia.inicio);
+        return porInicio != 0 ? porInicio : Long.compare(reservaId, estancia.reservaId);
+    }
+
+    private Nodo insertar(Nodo nodo, Estancia estancia) {
+        if (nodo == null) {
+            return new Nodo(estancia);
+        }
+        if (comparar(estancia.inicio, estancia.reservaId, nodo.estancia) < 0) {
+            nodo.izquierdo = insertar(nodo.izquierdo, estancia);
+        } else {
+            nodo.derecho = insertar(nodo.derecho, estancia);
+        }
+        return balancear(nodo);
+    }
+
+    private Nodo eliminar(Nodo nodo, long inicio, Long reservaId) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = comparar(inicio, reservaId, nodo.estancia);
+        if (comparacion < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, inicio, reservaId);
+        } else if (comparacion > 0) {
+            nodo.derecho = eliminar(nodo.derecho, inicio, reservaId);
+        } else {
+            tamano--;
+            if (nodo.izquierdo == null || nodo.derecho == null) {
+                return nodo.izquierdo != null ? nodo.izquierdo : nodo.derecho;
+            }
+            Nodo sucesor = nodo.derecho;
+            while (sucesor.izquierdo != null) {
+                sucesor = sucesor.izquierdo;
+            }
+            Nodo reemplazo = new Nodo(sucesor.estancia);
+            tamano++;
+            reemplazo.derecho = eliminar(nodo.derecho, sucesor.estancia.inicio, sucesor.estancia.reservaId);
+            reemplazo.izquierdo = nodo.izquierdo;
+            nodo = reemplazo;
+        }
+        return balancear(nodo);
+    }
+
+    private static int altura(Nodo nodo) {
+        return nodo == null ? 0 : nodo.altura;
+    }
+
+    private static void actualizar(Nodo nodo) {
+        nodo.altura = 1 + Math.max(altura(nodo.izquierdo), altura(nodo.derecho));
+        long maximo = nodo.estancia.fin;
+        if (nodo.izquierdo != null) {
+            maximo = Math.max(maximo, nodo.izquierdo.finMaximo);
+        }
+        if (nodo.derecho != null) {
+            maximo = Math.max(maximo, nodo.derecho.finMaximo);
+        }
+        nodo.finMaximo = maximo;
+    }
+
+    private static Nodo balancear(Nodo nodo) {
+        actualizar(nodo);
+        int factor = altura(nodo.izquierdo) - altura(nodo.derecho);
+        if (factor > 1) {
+            if (altura(nodo.izquierdo.izquierdo) < altura(nodo.izquierdo.derecho)) {
+                nodo.izquierdo = rotarIzquierda(nodo.izquierdo);
+            }
+            return rotarDerecha(nodo);
+        }
+        if (factor < -1) {
+            if (altura(nodo.derecho.derecho) < altura(nodo.derecho.izquierdo)) {
+                nodo.derecho = rotarDerecha(nodo.derecho);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.izquierdo;
+        nodo.izquierdo = nuevaRaiz.derecho;
+        nuevaRaiz.derecho = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.derecho;
+        nodo.derecho = nuevaRaiz.izquierdo;
+        nuevaRaiz.izquierdo = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+}
@@ -0,0 +1,253 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.MigracionEsquema;
+import com.gestion.hotelera.repository.MigracionEsquemaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Aplica al arrancar los scripts de migración versionados, al estilo de
+ * Flyway: {@code <ubicacion>/<proveedor>/V<n>__<descripcion>.sql}, con un
+ * directorio por base de datos (h2, mysql) porque cambian las comillas de
+ * los identificadores.
+ *
+ * Cada script se aplica una sola vez, en orden de versión, y queda en
+ * historial_migraciones con su checksum; si un script aplicado cambia, el
+ * arranque falla. Las tablas y columnas las sigue creando Hibernate
+ * (ddl-auto), así que los scripts corren después y se encargan de índices y
+ * migraciones de datos. Solo migra el nodo que obtiene el lease
+ * "migraciones-esquema"; los demás esperan a que historial_migraciones tenga
+ * todas las versiones antes de terminar de arrancar, y fallan si no ocurre
+ * en app.migraciones.espera-maxima-ms. Los DDL de MySQL se confirman uno a uno: si un
+ * script falla a medias hay que deshacer a mano lo aplicado antes de
+ * reintentarlo.
+ */
+@Component
+public class MigradorEsquema implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigradorEsquema.class);
+
+    static final String TAREA = "migraciones-esquema";
+    private static final Pattern NOMBRE_SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final DataSource dataSource;
+    private final MigracionEsquemaRepository migracionEsquemaRepository;
+    private final CoordinadorTareas coordinadorTareas;
+    private final boolean habilitadas;
+    private final String ubicacion;
+    private final long esperaMaximaMs;
+    private final long intervaloEsperaMs;
+    private volatile String proveedor;
+
+    /**
+     * Script de migración encontrado en el classpath.
+     */
+    record Script(int version, String descripcion, String nombre, Resource recurso, long checksum) {
+    }
+
+    public MigradorEsquema(DataSource dataSource, MigracionEsquemaRepository migracionEsquemaRepository,
+            CoordinadorTareas coordinadorTareas,
+            @Value("${app.migraciones.habilitadas:true}") boolean habilitadas,
+            @Value("${app.migraciones.ubicacion:classpath:db/migracion}") String ubicacion,
+            @Value("${app.migraciones.espera-maxima-ms:600000}") long esperaMaximaMs,
+            @Value("${app.migraciones.intervalo-espera-ms:2000}") long intervaloEsperaMs) {
+        if (esperaMaximaMs < 0 || intervaloEsperaMs <= 0) {
+            throw new IllegalArgumentException("Espera de migraciones no válida");
+        }
+        this.dataSource = dataSource;
+        this.migracionEsquemaRepository = migracionEsquemaRepository;
+        this.coordinadorTareas = coordinadorTareas;
+        this.habilitadas = habilitadas;
+        this.ubicacion = ubicacion;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.intervaloEsperaMs = intervaloEsperaMs;
+    }
+
+    /**
+     * Migra antes de que arranquen las tareas programadas y los runners de
+     * inicio. Si otro nodo tiene el lease, espera a que termine; si ese nodo
+     * cae, el lease caduca y lo toma este.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!habilitadas) {
+            logger.info("Migraciones del esquema deshabilitadas (app.migraciones.habilitadas=false)");
+            return;
+        }
+        long limite = System.nanoTime() + esperaMaximaMs * 1_000_000;
+        try {
+            while (coordinadorTareas.ejecutar(TAREA, this::migrar, null) == null) {
+                List<Integer> pendientes = versionesPendientes();
+                if (pendientes.isEmpty()) {
+                    return;
+                }
+                if (System.nanoTime() - limite >= 0) {
+                    throw new IllegalStateException("Otro nodo no terminó las migraciones del esquema en "
+                            + esperaMaximaMs + " ms; pendientes: " + pendientes);
+                }
+                logger.info("Esperando a que otro nodo aplique las migraciones {}", pendientes);
+                Thread.sleep(intervaloEsperaMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando las migraciones del esquema", e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("No se pudieron aplicar las migraciones del esquema", e);
+        }
+    }
+
+    /**
+     * Versiones de los scripts que aún no están en historial_migraciones.
+     */
+    List<Integer> versionesPendientes() {
+        String proveedorActual = getProveedor();
+        if (proveedorActual == null) {
+            return List.of();
+        }
+        Set<Integer> aplicadas = migracionEsquemaRepository.findAll().stream()
+                .map(MigracionEsquema::getVersion)
+                .collect(Collectors.toSet());
+        return buscarScripts(proveedorActual).stream()
+                .map(Script::version)
+                .filter(version -> !aplicadas.contains(version))
+                .toList();
+    }
+
+    /**
+     * Aplica en orden los scripts pendientes. Devuelve cuántos se aplicaron.
+     */
+    public int migrar() {
+        String proveedorActual = getProveedor();
+        if (proveedorActual == null) {
+            return 0;
+        }
+        Map<Integer, MigracionEsquema> aplicadas = migracionEsquemaRepository.findAll().stream()
+                .collect(Collectors.toMap(MigracionEsquema::getVersion, Function.identity()));
+
+        int aplicadasAhora = 0;
+        for (Script script : buscarScripts(proveedorActual)) {
+            MigracionEsquema previa = aplicadas.get(script.version());
+            if (previa != null) {
+                if (previa.getChecksum() != script.checksum()) {
+                    throw new IllegalStateException("El script de migración " + script.nombre()
+                            + " cambió después de aplicarse; cree una versión nueva en lugar de editarlo");
+                }
+                continue;
+            }
+            long comienzo = System.nanoTime();
+            ejecutar(script);
+            long duracionMs = (System.nanoTime() - comienzo) / 1_000_000;
+            migracionEsquemaRepository.save(new MigracionEsquema(script.version(), script.descripcion(),
+                    script.nombre(), script.checksum(), LocalDateTime.now(), duracionMs));
+            logger.info("Migración {} aplicada en {} ms", script.nombre(), duracionMs);
+            aplicadasAhora++;
+        }
+        return aplicadasAhora;
+    }
+
+    /**
+     * Directorio de scripts de la base de datos conectada (h2 o mysql), o
+     * null si no hay scripts para ella.
+     */
+    public String getProveedor() {
+        if (proveedor == null) {
+            String producto;
+            try {
+                producto = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("No se pudo identificar la base de datos", e);
+            }
+            String nombre = producto.toLowerCase(Locale.ROOT);
+            if (nombre.contains("h2")) {
+                proveedor = "h2";
+            } else if (nombre.contains("mysql") || nombre.contains("mariadb")) {
+                proveedor = "mysql";
+            } else {
+                logger.warn("No hay scripts de migración para la base de datos {}", producto);
+                return null;
+            }
+        }
+        return proveedor;
+    }
+
+    List<Script> buscarScripts(String proveedorActual) {
+        Resource[] recursos;
+        try {
+            recursos = new PathMatchingResourcePatternResolver()
+                    .getResources(ubicacion + "/" + proveedorActual + "/V*__*.sql");
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudieron leer los scripts de migración", e);
+        }
+
+        List<Script> scripts = new ArrayList<>();
+        for (Resource recurso : recursos) {
+            Matcher nombre = NOMBRE_SCRIPT.matcher(String.valueOf(recurso.getFilename()));
+            if (!nombre.matches()) {
+                throw new IllegalStateException("Nombre de script de migración no válido: " + recurso.getFilename());
+            }
+            scripts.add(new Script(Integer.parseInt(nombre.group(1)), nombre.group(2).replace('_', ' '),
+                    recurso.getFilename(), recurso, checksum(recurso)));
+        }
+        scripts.sort(Comparator.comparingInt(Script::version));
+        for (int i = 1; i < scripts.size(); i++) {
+            if (scripts.get(i).version() == scripts.get(i - 1).version()) {
+                throw new IllegalStateException("Versión de migración repetida: " + scripts.get(i).nombre());
+            }
+        }
+        return scripts;
+    }
+
+    private void ejecutar(Script script) {
+        Connection conexion = DataSourceUtils.getConnection(dataSource);
+        try {
+            ScriptUtils.executeSqlScript(conexion, new EncodedResource(script.recurso(), StandardCharsets.UTF_8));
+        } finally {
+            DataSourceUtils.releaseConnection(conexion, dataSource);
+        }
+    }
+
+    /**
+     * CRC32 del script con los saltos de línea normalizados, para que el
+     * checksum no dependa del sistema en el que se editó.
+     */
+    private static long checksum(Resource recurso) {
+        try {
+            String contenido = recurso.getContentAsString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+            CRC32 crc = new CRC32();
+            crc.update(contenido.getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el script " + recurso.getFilename(), e);
+        }
+    }
+}
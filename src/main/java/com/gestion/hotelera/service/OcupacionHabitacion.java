@@ -0,0 +1,196 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.enums.EstadoReserva;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ocupación por noches de una habitación, guardada como mapa de bits.
+ * El bit i representa la noche del día epoch (diaBase + i); una estancia
+ * [inicio, fin) ocupa las noches inicio .. fin - 1.
+ *
+ * Las estancias se guardan además en un árbol de intervalos para saber qué
+ * reserva provoca un conflicto sin volver a la base de datos. Al retirar o
+ * mover una estancia solo se vuelven a marcar las que se solapan con ella,
+ * que el árbol encuentra sin recorrer el resto.
+ */
+final class OcupacionHabitacion {
+
+    private static final long PALABRA_COMPLETA = 0xffffffffffffffffL;
+
+    private final Map<Long, IntervaloReservas.Estancia> estancias = new HashMap<>();
+    private final IntervaloReservas intervalos = new IntervaloReservas();
+    private long diaBase;
+    private long[] palabras = new long[0];
+    private volatile EstadoHabitacion estado;
+
+    OcupacionHabitacion(EstadoHabitacion estado) {
+        this.estado = estado;
+    }
+
+    EstadoHabitacion getEstado() {
+        return estado;
+    }
+
+    void setEstado(EstadoHabitacion estado) {
+        this.estado = estado;
+    }
+
+    synchronized void registrar(Long reservaId, long inicio, long fin, EstadoReserva estadoReserva) {
+        IntervaloReservas.Estancia anterior = estancias.get(reservaId);
+        if (anterior != null && anterior.inicio == inicio && anterior.fin == fin && anterior.estado == estadoReserva) {
+            return;
+        }
+        IntervaloReservas.Estancia nueva = new IntervaloReservas.Estancia(inicio, fin, reservaId, estadoReserva);
+        estancias.put(reservaId, nueva);
+        if (anterior != null) {
+            intervalos.eliminar(anterior.inicio, reservaId);
+            recalcular(anterior.inicio, anterior.fin);
+        }
+        intervalos.insertar(nueva);
+        aplicar(inicio, fin, true);
+    }
+
+    synchronized boolean retirar(Long reservaId) {
+        IntervaloReservas.Estancia anterior = estancias.remove(reservaId);
+        if (anterior == null) {
+            return false;
+        }
+        intervalos.eliminar(anterior.inicio, reservaId);
+        recalcular(anterior.inicio, anterior.fin);
+        return true;
+    }
+
+    synchronized boolean contieneReserva(Long reservaId) {
+        return estancias.containsKey(reservaId);
+    }
+
+    synchronized Set<Long> copiarIdsReservas() {
+        return Set.copyOf(estancias.keySet());
+    }
+
+    synchronized Map<Long, long[]> copiarEstancias() {
+        Map<Long, long[]> copia = new HashMap<>();
+        estancias.forEach((id, estancia) -> copia.put(id, new long[] { estancia.inicio, estancia.fin }));
+        return copia;
+    }
+
+    /**
+     * Estancias que se solapan con [inicio, fin), ordenadas por fecha de
+     * inicio y sin la reserva excluida.
+     */
+    synchronized List<IntervaloReservas.Estancia> buscarSolapamientos(long inicio, long fin, Long reservaExcluida,
+            int limite) {
+        return intervalos.buscarSolapamientos(inicio, fin, reservaExcluida, limite);
+    }
+
+    /**
+     * Indica si alguna noche de [inicio, fin) está ocupada.
+     */
+    synchronized boolean hayOcupacion(long inicio, long fin) {
+        long desde = Math.max(inicio, diaBase);
+        long hasta = Math.min(fin, diaBase + palabras.length * 64L);
+        if (desde >= hasta) {
+            return false;
+        }
+        int primera = (int) ((desde - diaBase) >>> 6);
+        int ultima = (int) ((hasta - 1 - diaBase) >>> 6);
+        long mascaraInicial = PALABRA_COMPLETA << (desde - diaBase);
+        long mascaraFinal = PALABRA_COMPLETA >>> -(hasta - diaBase);
+        if (primera == ultima) {
+            return (palabras[primera] & mascaraInicial & mascaraFinal) != 0;
+        }
+        if ((palabras[primera] & mascaraInicial) != 0 || (palabras[ultima] & mascaraFinal) != 0) {
+            return true;
+        }
+        for (int i = primera + 1; i < ultima; i++) {
+            if (palabras[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized long contarNoches() {
+        long total = 0;
+        for (long palabra : palabras) {
+            total += Long.bitCount(palabra);
+        }
+        return total;
+    }
+
+    /**
+     * Libera las noches de [inicio, fin) y vuelve a marcar las de las
+     * estancias que aún se solapan con ese rango.
+     */
+    private void recalcular(long inicio, long fin) {
+        aplicar(inicio, fin, false);
+        for (IntervaloReservas.Estancia estancia : intervalos.buscarSolapamientos(inicio, fin, null,
+                Integer.MAX_VALUE)) {
+            long desde = Math.max(inicio, estancia.inicio);
+            long hasta = Math.min(fin, estancia.fin);
+            if (desde < hasta) {
+                aplicar(desde, hasta, true);
+            }
+        }
+    }
+
+    private void aplicar(long inicio, long fin, boolean ocupar) {
+        if (inicio >= fin) {
+            return;
+        }
+        if (ocupar) {
+            asegurarCapacidad(inicio, fin);
+        } else {
+            inicio = Math.max(inicio, diaBase);
+            fin = Math.min(fin, diaBase + palabras.length * 64L);
+            if (inicio >= fin) {
+                return;
+            }
+        }
+        int primera = (int) ((inicio - diaBase) >>> 6);
+        int ultima = (int) ((fin - 1 - diaBase) >>> 6);
+        long mascaraInicial = PALABRA_COMPLETA << (inicio - diaBase);
+        long mascaraFinal = PALABRA_COMPLETA >>> -(fin - diaBase);
+        if (primera == ultima) {
+            escribir(primera, mascaraInicial & mascaraFinal, ocupar);
+            return;
+        }
+        escribir(primera, mascaraInicial, ocupar);
+        for (int i = primera + 1; i < ultima; i++) {
+            palabras[i] = ocupar ? PALABRA_COMPLETA : 0L;
+        }
+        escribir(ultima, mascaraFinal, ocupar);
+    }
+
+    private void escribir(int indice, long mascara, boolean ocupar) {
+        if (ocupar) {
+            palabras[indice] |= mascara;
+        } else {
+            palabras[indice] &= ~mascara;
+        }
+    }
+
+    private void asegurarCapacidad(long inicio, long fin) {
+        long nuevaBase = Math.floorDiv(inicio, 64L) * 64L;
+        if (palabras.length == 0) {
+            diaBase = nuevaBase;
+            palabras = new long[(int) ((fin - diaBase + 63) / 64)];
+            return;
+        }
+        long finActual = diaBase + palabras.length * 64L;
+        nuevaBase = Math.min(diaBase, nuevaBase);
+        long nuevoFin = Math.max(finActual, fin);
+        if (nuevaBase == diaBase && nuevoFin == finActual) {
+            return;
+        }
+        long[] ampliadas = new long[(int) ((nuevoFin - nuevaBase + 63) / 64)];
+        System.arraycopy(palabras, 0, ampliadas, (int) ((diaBase - nuevaBase) / 64), palabras.length);
+        palabras = ampliadas;
+        diaBase = nuevaBase;
+    }
+}
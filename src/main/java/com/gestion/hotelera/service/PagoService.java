@@ -1,5 +1,6 @@
 package com.gestion.hotelera.service;
 
+import com.gestion.hotelera.aspect.OperacionMedida;
 import com.gestion.hotelera.dto.PagoRequest;
 import com.gestion.hotelera.dto.PagoResponse;
 import com.gestion.hotelera.enums.EstadoReserva;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -28,19 +30,23 @@ public class PagoService {
     private final ReservaService reservaService;
     private final ReservaRepository reservaRepository;
     private final EmailService emailService;
+    private final ResumenDiarioService resumenDiarioService;
 
     @Autowired
     public PagoService(PagoRepository pagoRepository,
             ReservaService reservaService,
             ReservaRepository reservaRepository,
-            EmailService emailService) {
+            EmailService emailService,
+            ResumenDiarioService resumenDiarioService) {
         this.pagoRepository = pagoRepository;
         this.reservaService = reservaService;
         this.reservaRepository = reservaRepository;
         this.emailService = emailService;
+        this.resumenDiarioService = resumenDiarioService;
     }
 
     @Transactional(rollbackFor = Exception.class)
+    @OperacionMedida("pago.procesar")
     public PagoResponse procesarPago(PagoRequest pagoRequest) {
         validarPagoRequest(pagoRequest);
 
@@ -180,6 +186,7 @@ public class PagoService {
         reserva.setPago(pago);
         reserva.setEstadoReserva(EstadoReserva.ACTIVA.getValor());
         reservaRepository.save(reserva);
+        resumenDiarioService.contabilizarReservas(List.of(reserva.getId()));
         logger.debug("Reserva actualizada con pago - Reserva ID: {}", reserva.getId());
     }
 
@@ -0,0 +1,536 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.repository.ReservaImporte;
+import com.gestion.hotelera.repository.ReservaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difunde por server-sent events los cambios del panel de recepción y del
+ * dashboard a todos los navegadores conectados, para que no recarguen la
+ * página cada pocos segundos.
+ *
+ * Los cambios de reservas se agrupan y se consultan una sola vez por
+ * intervalo, y los contadores se recalculan cuando cambia la versión de
+ * datos de {@link ResumenDiarioService}: la carga de la base de datos no
+ * depende del número de clientes. Cada cliente tiene una cola acotada que
+ * vacía un pool pequeño de hilos compartido (no hay un hilo por conexión);
+ * si la cola se llena, el cliente es lento y se le desconecta. El
+ * navegador vuelve a conectarse solo y recibe los contadores actuales.
+ *
+ * El envío es una escritura bloqueante del servlet. Si una escritura dura
+ * más de app.panel.sse.escritura-maxima-ms, se desconecta a ese cliente y el
+ * pool suma un hilo mientras esa escritura siga bloqueada, para que los
+ * demás clientes no esperen detrás de él. El emisor solo se cierra desde el
+ * hilo que le escribe: complete() espera al mismo bloqueo que send().
+ *
+ * La difusión, el latido y la vigilancia de escrituras corren en dos hilos
+ * propios y no en el planificador común de @Scheduled, que comparten las
+ * tareas largas (cubo, barrido de reservas, métricas): mientras una de ellas
+ * lo ocupara, nadie expulsaría a los clientes bloqueados. Con dos hilos, una
+ * difusión lenta por la base de datos tampoco frena la vigilancia.
+ */
+@Service
+public class PanelEnVivoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PanelEnVivoService.class);
+
+    public static final String RECEPCION = "recepcion";
+    public static final String DASHBOARD = "dashboard";
+    private static final Set<String> PANELES = Set.of(RECEPCION, DASHBOARD);
+
+    private static final long REINTENTO_MS = 3_000;
+    private static final long CONTADORES_MAX_MS = 60_000;
+
+    private final ReservaService reservaService;
+    private final HabitacionService habitacionService;
+    private final ReservaRepository reservaRepository;
+    private final InstantaneaDashboardService instantaneaDashboardService;
+    private final ResumenDiarioService resumenDiarioService;
+    private final MeterRegistry meterRegistry;
+    private final int capacidadCola;
+    private final int maximoClientes;
+    private final long timeoutMs;
+    private final int hilos;
+    private final long escrituraMaximaMs;
+    private final long intervaloMs;
+    private final long latidoMs;
+    private final ThreadPoolExecutor emisor;
+    private final ScheduledExecutorService programador;
+    private final Clock reloj;
+    private int hilosExtra;
+
+    private final Map<Long, Suscriptor> suscriptores = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Set<Long> reservasPendientes = ConcurrentHashMap.newKeySet();
+    private final Map<String, Map<String, Object>> ultimosContadores = new ConcurrentHashMap<>();
+    private volatile long versionContadores = -1;
+    private volatile long contadoresCalculadosEn;
+
+    public PanelEnVivoService(ReservaService reservaService,
+            HabitacionService habitacionService,
+            ReservaRepository reservaRepository,
+            InstantaneaDashboardService instantaneaDashboardService,
+            ResumenDiarioService resumenDiarioService,
+            MeterRegistry meterRegistry,
+            @Value("${app.panel.sse.hilos:2}") int hilos,
+            @Value("${app.panel.sse.cola:32}") int capacidadCola,
+            @Value("${app.panel.sse.maximo-clientes:500}") int maximoClientes,
+            @Value("${app.panel.sse.timeout-ms:1800000}") long timeoutMs,
+            @Value("${app.panel.sse.escritura-maxima-ms:5000}") long escrituraMaximaMs,
+            @Value("${app.panel.sse.intervalo-ms:1000}") long intervaloMs,
+            @Value("${app.panel.sse.latido-ms:15000}") long latidoMs,
+            Clock reloj) {
+        if (hilos < 1 || capacidadCola < 1) {
+            throw new IllegalArgumentException("El panel en vivo necesita al menos un hilo y una cola de 1 evento");
+        }
+        if (escrituraMaximaMs <= 0) {
+            throw new IllegalArgumentException("El tiempo máximo de escritura del panel debe ser positivo");
+        }
+        if (intervaloMs <= 0 || latidoMs <= 0) {
+            throw new IllegalArgumentException("El intervalo y el latido del panel deben ser positivos");
+        }
+        this.reservaService = reservaService;
+        this.habitacionService = habitacionService;
+        this.reservaRepository = reservaRepository;
+        this.instantaneaDashboardService = instantaneaDashboardService;
+        this.resumenDiarioService = resumenDiarioService;
+        this.meterRegistry = meterRegistry;
+        this.capacidadCola = capacidadCola;
+        this.maximoClientes = maximoClientes;
+        this.timeoutMs = timeoutMs;
+        this.hilos = hilos;
+        this.escrituraMaximaMs = escrituraMaximaMs;
+        this.intervaloMs = intervaloMs;
+        this.latidoMs = latidoMs;
+        this.reloj = reloj;
+        AtomicInteger hilo = new AtomicInteger();
+        this.emisor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "panel-sse-" + hilo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        AtomicInteger hiloProgramado = new AtomicInteger();
+        this.programador = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread t = new Thread(r, "panel-sse-ciclo-" + hiloProgramado.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("hotel.panel.sse.clientes", suscriptores, Map::size)
+                .description("Navegadores conectados a los eventos del panel")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        programar(this::difundirCambios, intervaloMs);
+        programar(this::vigilarEscrituras, intervaloMs);
+        programar(this::enviarLatido, latidoMs);
+    }
+
+    /**
+     * Conecta un navegador a los eventos del panel indicado y le envía los
+     * últimos contadores conocidos.
+     */
+    public SseEmitter suscribir(String panel) {
+        if (!PANELES.contains(panel)) {
+            throw new IllegalArgumentException("Panel desconocido: " + panel);
+        }
+        if (suscriptores.size() >= maximoClientes) {
+            throw new IllegalStateException("Se alcanzó el máximo de " + maximoClientes + " paneles conectados");
+        }
+        SseEmitter emitter = nuevoEmisor(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(secuencia.incrementAndGet(), panel, emitter);
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor.id));
+        emitter.onTimeout(() -> suscriptores.remove(suscriptor.id));
+        emitter.onError(e -> suscriptores.remove(suscriptor.id));
+        suscriptores.put(suscriptor.id, suscriptor);
+
+        Map<String, Object> contadores = ultimosContadores.get(panel);
+        if (contadores != null) {
+            encolar(suscriptor, SseEmitter.event().name("contadores").data(contadores).reconnectTime(REINTENTO_MS));
+        } else {
+            // Sin contadores aún: el próximo ciclo los calcula
+            versionContadores = -1;
+            encolar(suscriptor, SseEmitter.event().comment("conectado").reconnectTime(REINTENTO_MS));
+        }
+        return emitter;
+    }
+
+    public int getClientesConectados() {
+        return suscriptores.size();
+    }
+
+    // ============== ORÍGENES DE EVENTOS ==============
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarReservas(ReservasModificadas evento) {
+        if (!suscriptores.isEmpty()) {
+            reservasPendientes.addAll(evento.reservaIds());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarHabitaciones(HabitacionesModificadas evento) {
+        List<Map<String, Object>> habitaciones = new ArrayList<>();
+        evento.estadoPorHabitacion().forEach((id, estado) -> {
+            Map<String, Object> habitacion = new LinkedHashMap<>();
+            habitacion.put("id", id);
+            habitacion.put("estado", estado);
+            habitaciones.add(habitacion);
+        });
+        difundir(null, "habitaciones", habitaciones);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRegistrarActividad(ActividadRegistrada evento) {
+        String descripcion = evento.registros() > 1
+                ? evento.registros() + " registros. " + evento.detalleAccion()
+                : evento.detalleAccion();
+        difundir(RECEPCION, "actividad", describirActividad(evento.tipoAccion(), descripcion, evento.timestamp()));
+    }
+
+    /**
+     * Envía los estados de las reservas cambiadas en el intervalo y, si
+     * cambiaron los datos o pasó un minuto, los contadores de cada panel.
+     * Sin clientes conectados no consulta nada.
+     */
+    public void difundirCambios() {
+        if (suscriptores.isEmpty()) {
+            reservasPendientes.clear();
+            return;
+        }
+        try {
+            difundirReservas();
+            long version = resumenDiarioService.getVersionDatos();
+            if (version != versionContadores
+                    || reloj.millis() - contadoresCalculadosEn > CONTADORES_MAX_MS) {
+                versionContadores = version;
+                contadoresCalculadosEn = reloj.millis();
+                difundirContadores(RECEPCION, contadoresRecepcion());
+                difundirContadores(DASHBOARD, contadoresDashboard());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error preparando los eventos del panel en vivo: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Latido periódico: mantiene abiertas las conexiones a través de proxies
+     * y descubre los navegadores que ya se fueron.
+     */
+    public void enviarLatido() {
+        for (Suscriptor suscriptor : suscriptores.values()) {
+            encolar(suscriptor, SseEmitter.event().comment("latido"));
+        }
+    }
+
+    /**
+     * Desconecta a los clientes cuya escritura lleva más del máximo
+     * bloqueada y compensa el hilo que ocupan hasta que se liberen.
+     */
+    public void vigilarEscrituras() {
+        long ahora = reloj.millis();
+        for (Suscriptor suscriptor : suscriptores.values()) {
+            boolean bloqueado;
+            synchronized (suscriptor) {
+                bloqueado = suscriptor.escribiendoDesde != 0 && !suscriptor.bloqueado
+                        && ahora - suscriptor.escribiendoDesde > escrituraMaximaMs;
+                if (bloqueado) {
+                    suscriptor.bloqueado = true;
+                    ajustarHilosExtra(1);
+                }
+            }
+            if (bloqueado) {
+                expulsar(suscriptor, "bloqueado", null);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        suscriptores.values().forEach(suscriptor -> suscriptor.emitter.complete());
+        suscriptores.clear();
+        programador.shutdownNow();
+        emisor.shutdownNow();
+    }
+
+    /**
+     * Elemento de actividad reciente tal como lo muestra el panel de recepción.
+     */
+    public static Map<String, Object> describirActividad(String tipoAccion, String descripcion,
+            LocalDateTime timestamp) {
+        Map<String, Object> map = new HashMap<>();
+        String tipo = "INFO";
+        if (tipoAccion != null) {
+            if (tipoAccion.contains("RESERVA"))
+                tipo = "RESERVA";
+            else if (tipoAccion.contains("CHECKIN"))
+                tipo = "CHECKIN";
+            else if (tipoAccion.contains("CANCEL"))
+                tipo = "CANCEL";
+        }
+
+        map.put("tipo", tipo);
+        map.put("titulo", tipoAccion);
+        map.put("descripcion", descripcion);
+
+        long minutes = Duration.between(timestamp, LocalDateTime.now()).toMinutes();
+        String tiempo;
+        if (minutes < 60)
+            tiempo = "Hace " + minutes + " minutos";
+        else if (minutes < 1440)
+            tiempo = "Hace " + (minutes / 60) + " horas";
+        else
+            tiempo = "Hace " + (minutes / 1440) + " días";
+
+        map.put("tiempo", tiempo);
+        return map;
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    /** Punto de extensión para las pruebas. */
+    protected SseEmitter nuevoEmisor(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * Un error sin capturar cancelaría las ejecuciones siguientes de la tarea.
+     */
+    private void programar(Runnable tarea, long periodoMs) {
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                logger.error("Error en el ciclo del panel en vivo: {}", e.getMessage(), e);
+            }
+        }, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void difundirReservas() {
+        if (reservasPendientes.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new TreeSet<>(reservasPendientes);
+        reservasPendientes.removeAll(ids);
+        Map<Long, Map<String, Object>> reservas = new LinkedHashMap<>();
+        // Las que ya no existen se envían sin estado
+        ids.forEach(id -> reservas.put(id, reserva(id, null, null, null)));
+        for (ReservaImporte importe : reservaRepository.findImportesPorIds(ids)) {
+            reservas.put(importe.getId(), reserva(importe.getId(), importe.getEstadoReserva(),
+                    importe.getFechaInicio(), importe.getFechaFin()));
+        }
+        difundir(null, "reservas", List.copyOf(reservas.values()));
+    }
+
+    private static Map<String, Object> reserva(Long id, String estado, Object fechaInicio, Object fechaFin) {
+        Map<String, Object> reserva = new LinkedHashMap<>();
+        reserva.put("id", id);
+        reserva.put("estado", estado);
+        reserva.put("fechaInicio", fechaInicio != null ? fechaInicio.toString() : null);
+        reserva.put("fechaFin", fechaFin != null ? fechaFin.toString() : null);
+        return reserva;
+    }
+
+    private void difundirContadores(String panel, Map<String, Object> contadores) {
+        if (!contadores.equals(ultimosContadores.put(panel, contadores))) {
+            difundir(panel, "contadores", contadores);
+        }
+    }
+
+    /** Mismos cálculos que la carga del panel de recepción. */
+    private Map<String, Object> contadoresRecepcion() {
+        long ocupadas = habitacionService.contarOcupadas();
+        long total = habitacionService.contarHabitaciones();
+        Map<String, Object> contadores = new LinkedHashMap<>();
+        contadores.put("llegadasHoy", reservaService.obtenerLlegadasHoy().size());
+        contadores.put("salidasHoy", reservaService.obtenerSalidasHoy().size());
+        contadores.put("estanciasActuales", reservaService.contarReservasPorEstado("ACTIVA"));
+        contadores.put("habitacionesOcupadas", ocupadas);
+        contadores.put("habitacionesDisponibles", habitacionService.contarDisponibles());
+        contadores.put("porcentajeOcupacion", total > 0 ? (int) ((ocupadas * 100) / total) : 0);
+        return contadores;
+    }
+
+    /** Indicadores de la instantánea compartida del dashboard. */
+    private Map<String, Object> contadoresDashboard() {
+        InstantaneaDashboard instantanea = instantaneaDashboardService.obtener();
+        Map<String, Object> contadores = new LinkedHashMap<>();
+        contadores.put("totalHabitaciones", instantanea.totalHabitaciones());
+        contadores.put("habitacionesOcupadas", instantanea.habitacionesOcupadas());
+        contadores.put("habitacionesDisponibles", instantanea.habitacionesDisponibles());
+        contadores.put("habitacionesMantenimiento", instantanea.habitacionesMantenimiento());
+        contadores.put("porcentajeOcupacion", instantanea.totalHabitaciones() > 0
+                ? (instantanea.habitacionesOcupadas() * 100) / instantanea.totalHabitaciones() : 0);
+        contadores.put("ingresosTotales", instantanea.ingresosTotales());
+        contadores.put("checkInsHoy", instantanea.checkInsHoy());
+        contadores.put("checkOutsHoy", instantanea.checkOutsHoy());
+        contadores.put("reservasPendientes", instantanea.reservasPendientes());
+        contadores.put("reservasActivas", instantanea.reservasActivas());
+        return contadores;
+    }
+
+    /**
+     * Encola el evento para los clientes del panel indicado, o de todos si es null.
+     */
+    private void difundir(String panel, String nombre, Object datos) {
+        for (Suscriptor suscriptor : suscriptores.values()) {
+            if (panel == null || panel.equals(suscriptor.panel)) {
+                encolar(suscriptor, SseEmitter.event().name(nombre).data(datos));
+            }
+        }
+    }
+
+    private void encolar(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento) {
+        if (!suscriptor.pendientes.offer(evento)) {
+            expulsar(suscriptor, "lento", null);
+            return;
+        }
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            try {
+                emisor.execute(() -> vaciar(suscriptor));
+            } catch (RejectedExecutionException e) {
+                suscriptor.enviando.set(false);
+            }
+        }
+    }
+
+    /**
+     * Envía los eventos pendientes de un cliente. Solo un hilo vacía la cola
+     * de cada cliente a la vez, así que sus eventos llegan en orden. Si se le
+     * desconectó mientras escribía, lo cierra este hilo al volver del envío.
+     */
+    private void vaciar(Suscriptor suscriptor) {
+        do {
+            SseEmitter.SseEventBuilder evento;
+            while ((evento = suscriptor.pendientes.poll()) != null) {
+                synchronized (suscriptor) {
+                    if (suscriptor.retirado) {
+                        break;
+                    }
+                    suscriptor.escribiendoDesde = reloj.millis();
+                }
+                try {
+                    suscriptor.emitter.send(evento);
+                } catch (IOException | IllegalStateException e) {
+                    expulsar(suscriptor, "error", e);
+                } finally {
+                    synchronized (suscriptor) {
+                        suscriptor.escribiendoDesde = 0;
+                        if (suscriptor.bloqueado) {
+                            suscriptor.bloqueado = false;
+                            ajustarHilosExtra(-1);
+                        }
+                    }
+                }
+            }
+            if (suscriptor.retirado) {
+                cerrar(suscriptor);
+                return;
+            }
+            suscriptor.enviando.set(false);
+            // Un evento encolado justo antes de soltar el turno se envía ahora
+        } while (!suscriptor.pendientes.isEmpty() && suscriptor.enviando.compareAndSet(false, true));
+    }
+
+    /**
+     * Quita al cliente y lo cierra, salvo que esté a mitad de un envío: en
+     * ese caso lo cierra el hilo que escribe cuando el envío vuelva.
+     */
+    private void expulsar(Suscriptor suscriptor, String motivo, Exception causa) {
+        if (suscriptores.remove(suscriptor.id) == null) {
+            return;
+        }
+        boolean escribiendo;
+        synchronized (suscriptor) {
+            suscriptor.retirado = true;
+            escribiendo = suscriptor.escribiendoDesde != 0;
+        }
+        suscriptor.pendientes.clear();
+        meterRegistry.counter("hotel.panel.sse.desconexiones", "motivo", motivo).increment();
+        logger.debug("Panel {} #{} desconectado ({}): {}", suscriptor.panel, suscriptor.id, motivo,
+                causa != null ? causa.getMessage() : "cola llena o escritura bloqueada");
+        if (!escribiendo) {
+            cerrar(suscriptor);
+        }
+    }
+
+    private static void cerrar(Suscriptor suscriptor) {
+        try {
+            suscriptor.emitter.complete();
+        } catch (RuntimeException e) {
+            // La conexión ya estaba cerrada
+        }
+    }
+
+    /**
+     * Un hilo más (o menos) por cada escritura bloqueada, hasta cuatro veces
+     * los hilos configurados.
+     */
+    private void ajustarHilosExtra(int cambio) {
+        synchronized (emisor) {
+            hilosExtra += cambio;
+            int total = hilos + Math.min(Math.max(hilosExtra, 0), hilos * 4);
+            if (total > emisor.getMaximumPoolSize()) {
+                emisor.setMaximumPoolSize(total);
+                emisor.setCorePoolSize(total);
+            } else if (total < emisor.getMaximumPoolSize()) {
+                emisor.setCorePoolSize(total);
+                emisor.setMaximumPoolSize(total);
+            }
+        }
+    }
+
+    private final class Suscriptor {
+
+        private final long id;
+        private final String panel;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> pendientes;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        // Protegidos por el monitor del suscriptor; escribiendoDesde es 0 fuera de un envío
+        private volatile long escribiendoDesde;
+        private boolean bloqueado;
+        private volatile boolean retirado;
+
+        Suscriptor(long id, String panel, SseEmitter emitter) {
+            this.id = id;
+            this.panel = panel;
+            this.emitter = emitter;
+            this.pendientes = new ArrayBlockingQueue<>(capacidadCola);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispara la activación y finalización de cada reserva en el momento en que
+ * le corresponde, en lugar de esperar al barrido de TareaProgramadaService.
+ *
+ * Mantiene una cola de prioridad con el próximo evento de cada reserva: una
+ * PENDIENTE se activa al empezar el día de fechaInicio y una ACTIVA se
+ * finaliza al empezar el día siguiente a fechaFin (los mismos límites que usa
+ * el barrido). Un hilo dedicado duerme hasta el evento más próximo. Los
+ * cambios de una reserva reemplazan su evento; el anterior queda en la cola
+ * y se descarta al salir.
+ */
+@Component
+public class PlanificadorTransiciones {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanificadorTransiciones.class);
+
+    /** Espera máxima entre comprobaciones, por si cambia el reloj del sistema. */
+    private static final long ESPERA_MAXIMA_MS = 60_000;
+    private static final long REINTENTO_MS = 60_000;
+
+    enum Transicion {
+        ACTIVAR, FINALIZAR
+    }
+
+    static final class Evento implements Comparable<Evento> {
+        final long instanteMs;
+        final Transicion transicion;
+        final EstanciaReservada estancia;
+
+        Evento(long instanteMs, Transicion transicion, EstanciaReservada estancia) {
+            this.instanteMs = instanteMs;
+            this.transicion = transicion;
+            this.estancia = estancia;
+        }
+
+        @Override
+        public int compareTo(Evento otro) {
+            int porInstante = Long.compare(instanteMs, otro.instanteMs);
+            return porInstante != 0 ? porInstante : Long.compare(estancia.reservaId(), otro.estancia.reservaId());
+        }
+    }
+
+    private final ReservaRepository reservaRepository;
+    private final TareaProgramadaService tareaProgramadaService;
+    private final Clock reloj;
+    private final ZoneId zona;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition cambioEnCabeza = lock.newCondition();
+    private final PriorityQueue<Evento> cola = new PriorityQueue<>();
+    private final Map<Long, Evento> vigentes = new HashMap<>();
+
+    @Value("${app.reservas.planificador.habilitado:true}")
+    private boolean habilitado = true;
+
+    private volatile Thread hilo;
+
+    public PlanificadorTransiciones(ReservaRepository reservaRepository,
+            TareaProgramadaService tareaProgramadaService, Clock reloj) {
+        this.reservaRepository = reservaRepository;
+        this.tareaProgramadaService = tareaProgramadaService;
+        this.reloj = reloj;
+        this.zona = reloj.getZone();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            logger.info("Planificador de transiciones de reservas deshabilitado");
+            return;
+        }
+        reconstruir();
+        Thread nuevo = new Thread(this::ejecutar, "planificador-reservas");
+        nuevo.setDaemon(true);
+        hilo = nuevo;
+        nuevo.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        Thread actual = hilo;
+        hilo = null;
+        if (actual != null) {
+            actual.interrupt();
+        }
+    }
+
+    /**
+     * Vuelve a cargar los eventos de todas las reservas pendientes o activas
+     * con una sola consulta por estado.
+     */
+    public void reconstruir() {
+        List<ReservaIntervalo> intervalos = reservaRepository.findIntervalosActivos();
+        long ahora = reloj.millis();
+        lock.lock();
+        try {
+            cola.clear();
+            vigentes.clear();
+            for (ReservaIntervalo intervalo : intervalos) {
+                programar(EstanciaReservada.desde(intervalo), ahora);
+            }
+            cambioEnCabeza.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Planificador de transiciones cargado con {} reservas", vigentes.size());
+    }
+
+    /**
+     * Reprograma la reserva tras un alta, edición, check-in, check-out o
+     * cancelación. Se aplica al confirmar la transacción en curso.
+     */
+    public void reprogramar(Reserva reserva) {
+        if (reserva == null || reserva.getId() == null) {
+            return;
+        }
+        EstanciaReservada estancia = EstanciaReservada.desde(reserva);
+        alConfirmar(() -> {
+            lock.lock();
+            try {
+                programar(estancia, reloj.millis());
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public void cancelar(Long reservaId) {
+        if (reservaId == null) {
+            return;
+        }
+        alConfirmar(() -> {
+            lock.lock();
+            try {
+                vigentes.remove(reservaId);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public int getPendientes() {
+        lock.lock();
+        try {
+            return vigentes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Instante (epoch ms) del próximo evento, o empty si no hay ninguno.
+     */
+    public OptionalLong proximoInstante() {
+        lock.lock();
+        try {
+            descartarObsoletos();
+            Evento cabeza = cola.peek();
+            return cabeza != null ? OptionalLong.of(cabeza.instanteMs) : OptionalLong.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aplica en un solo lote todos los eventos vencidos a la hora indicada y
+     * devuelve cuántos se procesaron.
+     */
+    int procesarVencidos(long ahoraMs) {
+        List<Evento> vencidos = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!cola.isEmpty() && cola.peek().instanteMs <= ahoraMs) {
+                Evento evento = cola.poll();
+                if (vigentes.get(evento.estancia.reservaId()) == evento) {
+                    vigentes.remove(evento.estancia.reservaId());
+                    vencidos.add(evento);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (vencidos.isEmpty()) {
+            return 0;
+        }
+
+        List<EstanciaReservada> aFinalizar = new ArrayList<>();
+        List<EstanciaReservada> aActivar = new ArrayList<>();
+        for (Evento evento : vencidos) {
+            (evento.transicion == Transicion.ACTIVAR ? aActivar : aFinalizar).add(evento.estancia);
+        }
+        Set<Long> activadas;
+        try {
+            activadas = tareaProgramadaService.aplicarTransiciones(aFinalizar, aActivar);
+        } catch (Exception e) {
+            logger.error("Error al aplicar {} transiciones de reservas, se reintentará: {}", vencidos.size(),
+                    e.getMessage(), e);
+            reencolar(vencidos, ahoraMs + REINTENTO_MS);
+            return 0;
+        }
+
+        lock.lock();
+        try {
+            // La activada pasa a esperar su finalización, salvo que haya cambiado mientras tanto;
+            // la que no se activó (cancelada antes del UPDATE) no se vuelve a programar
+            for (EstanciaReservada estancia : aActivar) {
+                if (activadas.contains(estancia.reservaId()) && !vigentes.containsKey(estancia.reservaId())) {
+                    programar(estancia.conEstado(EstadoReserva.ACTIVA), ahoraMs);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return vencidos.size();
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    private void ejecutar() {
+        while (hilo == Thread.currentThread()) {
+            lock.lock();
+            try {
+                descartarObsoletos();
+                Evento cabeza = cola.peek();
+                long espera = cabeza == null ? ESPERA_MAXIMA_MS : cabeza.instanteMs - reloj.millis();
+                if (espera > 0) {
+                    cambioEnCabeza.await(Math.min(espera, ESPERA_MAXIMA_MS), TimeUnit.MILLISECONDS);
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            procesarVencidos(reloj.millis());
+        }
+    }
+
+    /** Debe llamarse con el lock tomado. */
+    private void programar(EstanciaReservada estancia, long ahoraMs) {
+        Evento evento = siguienteEvento(estancia, ahoraMs);
+        if (evento == null) {
+            vigentes.remove(estancia.reservaId());
+            return;
+        }
+        vigentes.put(estancia.reservaId(), evento);
+        cola.add(evento);
+        if (cola.peek() == evento) {
+            cambioEnCabeza.signalAll();
+        }
+        if (cola.size() > 2 * vigentes.size() + 1024) {
+            cola.clear();
+            cola.addAll(vigentes.values());
+        }
+    }
+
+    private Evento siguienteEvento(EstanciaReservada estancia, long ahoraMs) {
+        if (estancia.fechaInicio() == null || estancia.fechaFin() == null) {
+            return null;
+        }
+        long finalizacion = inicioDelDia(estancia.fechaFin().plusDays(1));
+        if (estancia.estadoReserva() == EstadoReserva.PENDIENTE) {
+            // Si ya terminó sin activarse, se finaliza directamente como hace el barrido
+            return finalizacion <= ahoraMs
+                    ? new Evento(finalizacion, Transicion.FINALIZAR, estancia)
+                    : new Evento(inicioDelDia(estancia.fechaInicio()), Transicion.ACTIVAR, estancia);
+        }
+        if (estancia.estadoReserva() == EstadoReserva.ACTIVA) {
+            return new Evento(finalizacion, Transicion.FINALIZAR, estancia);
+        }
+        return null;
+    }
+
+    private void reencolar(List<Evento> eventos, long instanteMs) {
+        lock.lock();
+        try {
+            for (Evento evento : eventos) {
+                Long reservaId = evento.estancia.reservaId();
+                if (!vigentes.containsKey(reservaId)) {
+                    Evento reintento = new Evento(instanteMs, evento.transicion, evento.estancia);
+                    vigentes.put(reservaId, reintento);
+                    cola.add(reintento);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Debe llamarse con el lock tomado. */
+    private void descartarObsoletos() {
+        while (!cola.isEmpty() && vigentes.get(cola.peek().estancia.reservaId()) != cola.peek()) {
+            cola.poll();
+        }
+    }
+
+    private long inicioDelDia(LocalDate fecha) {
+        return fecha.atStartOfDay(zona).toInstant().toEpochMilli();
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.IndicadoresReporte;
+import com.gestion.hotelera.repository.ReporteReservaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * KPIs y listados de la pantalla de reportes, resueltos con consultas de
+ * agregación en lugar de recorrer todas las reservas en memoria.
+ */
+@Service
+public class ReporteService {
+
+    private final ReporteReservaRepository reporteReservaRepository;
+
+    public ReporteService(ReporteReservaRepository reporteReservaRepository) {
+        this.reporteReservaRepository = reporteReservaRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public IndicadoresReporte calcularIndicadores(LocalDate inicio, LocalDate fin) {
+        return reporteReservaRepository.calcularIndicadores(inicio, fin);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Reserva> obtenerReservasDelPeriodo(LocalDate inicio, LocalDate fin) {
+        return reporteReservaRepository.findEnPeriodo(inicio, fin);
+    }
+
+    /**
+     * Atributos de la pantalla de reportes para el periodo, con el mismo
+     * formato que muestran las vistas.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerModeloIndicadores(LocalDate inicio, LocalDate fin) {
+        IndicadoresReporte indicadores = calcularIndicadores(inicio, fin);
+        Map<String, Object> modelo = new LinkedHashMap<>();
+        modelo.put("fechaInicio", inicio);
+        modelo.put("fechaFin", fin);
+        modelo.put("ingresosTotales", indicadores.getIngresos().doubleValue());
+        modelo.put("tasaOcupacion", String.format("%.1f", indicadores.getTasaOcupacion()));
+        modelo.put("adr", String.format("%.2f", indicadores.getAdr()));
+        return modelo;
+    }
+}
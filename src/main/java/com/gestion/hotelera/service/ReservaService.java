@@ -1,5 +1,6 @@
 package com.gestion.hotelera.service;
 
+import com.gestion.hotelera.aspect.OperacionMedida;
 import com.gestion.hotelera.enums.EstadoHabitacion;
 import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.model.Cliente;
@@ -31,6 +32,10 @@ public class ReservaService {
     private final HabitacionService habitacionService;
     private final DescuentoService descuentoService;
     private final EmailService emailService;
+    private final IndiceDisponibilidad indiceDisponibilidad;
+    private final BloqueoHabitaciones bloqueoHabitaciones;
+    private final PlanificadorTransiciones planificadorTransiciones;
+    private final ResumenDiarioService resumenDiarioService;
 
     @Autowired
     public ReservaService(ReservaRepository reservaRepository,
@@ -38,26 +43,37 @@ public class ReservaService {
             ServicioRepository servicioRepository,
             HabitacionService habitacionService,
             DescuentoService descuentoService,
-            EmailService emailService) {
+            EmailService emailService,
+            IndiceDisponibilidad indiceDisponibilidad,
+            BloqueoHabitaciones bloqueoHabitaciones,
+            PlanificadorTransiciones planificadorTransiciones,
+            ResumenDiarioService resumenDiarioService) {
         this.reservaRepository = reservaRepository;
         this.auditoriaService = auditoriaService;
         this.servicioRepository = servicioRepository;
         this.habitacionService = habitacionService;
         this.descuentoService = descuentoService;
         this.emailService = emailService;
+        this.indiceDisponibilidad = indiceDisponibilidad;
+        this.bloqueoHabitaciones = bloqueoHabitaciones;
+        this.planificadorTransiciones = planificadorTransiciones;
+        this.resumenDiarioService = resumenDiarioService;
     }
 
     @Transactional
+    @OperacionMedida("reserva.crear")
     public @NonNull Reserva crearOActualizarReserva(@NonNull Reserva reserva) {
         validarReserva(reserva);
         Long habitacionId = reserva.getHabitacion().getId();
         Long reservaId = reserva.getId();
 
+        bloqueoHabitaciones.bloquearFila(habitacionId);
         verificarHabitacionExisteYDisponible(habitacionId);
         verificarDisponibilidadFechas(habitacionId, reserva, reservaId);
 
         try {
             Reserva guardada = reservaRepository.save(reserva);
+            notificarCambioReserva(guardada);
             actualizarEstadoHabitacionSegunReserva(guardada);
             registrarAuditoriaCreacionOActualizacion(guardada);
             enviarEmailConfirmacionSiEsNueva(reserva.getId() == null, guardada);
@@ -125,6 +141,7 @@ public class ReservaService {
     }
 
     @Transactional
+    @OperacionMedida("reserva.cancelar")
     public boolean cancelarReserva(@NonNull Long id, String userRole) {
         if (id == null) {
             return false;
@@ -133,8 +150,9 @@ public class ReservaService {
         return reservaRepository.findById(id)
                 .map(reserva -> {
                     validarCancelacion(reserva, userRole);
-                    reserva.setEstadoReserva(EstadoReserva.CANCELADA.getValor());
+                    reserva.setEstado(EstadoReserva.CANCELADA);
                     Reserva reservaCancelada = reservaRepository.save(reserva);
+                    notificarCambioReserva(reservaCancelada);
 
                     liberarHabitacion(reservaCancelada);
                     registrarAuditoriaCancelacion(reservaCancelada, userRole);
@@ -146,6 +164,7 @@ public class ReservaService {
     }
 
     @Transactional
+    @OperacionMedida("reserva.cancelar")
     public boolean cancelarReserva(Long id) {
         return cancelarReserva(id, "ROLE_ADMIN");
     }
@@ -158,6 +177,9 @@ public class ReservaService {
         return reservaRepository.findById(id)
                 .map(reserva -> {
                     reservaRepository.deleteById(id);
+                    indiceDisponibilidad.retirarReserva(id);
+                    planificadorTransiciones.cancelar(id);
+                    resumenDiarioService.contabilizarReservas(List.of(id));
                     auditoriaService.registrarAccion("ELIMINACION_RESERVA",
                             "Reserva (ID: " + id + ") eliminada físicamente.", "Reserva", id);
                     logger.info("Reserva eliminada físicamente: ID={}", id);
@@ -173,18 +195,19 @@ public class ReservaService {
         }
 
         reservaRepository.findById(id).ifPresent(reserva -> {
-            if (EstadoReserva.FINALIZADA.getValor().equalsIgnoreCase(reserva.getEstadoReserva())) {
+            if (reserva.getEstado() == EstadoReserva.FINALIZADA) {
                 return;
             }
 
-            String estadoAnterior = reserva.getEstadoReserva();
-            reserva.setEstadoReserva(EstadoReserva.FINALIZADA.getValor());
+            EstadoReserva estadoAnterior = reserva.getEstado();
+            reserva.setEstado(EstadoReserva.FINALIZADA);
 
             if (reserva.getFechaSalidaReal() == null) {
                 reserva.setFechaSalidaReal(LocalDate.now());
             }
 
             reservaRepository.save(reserva);
+            notificarCambioReserva(reserva);
             liberarHabitacion(reserva);
 
             auditoriaService.registrarAccion("FINALIZACION_RESERVA",
@@ -208,25 +231,15 @@ public class ReservaService {
 
     @Transactional(readOnly = true)
     public double calcularIngresosTotales() {
-        List<Reserva> reservas = reservaRepository.findAll();
-        return reservas.stream()
-                .filter(r -> EstadoReserva.FINALIZADA.getValor().equalsIgnoreCase(r.getEstadoReserva()))
-                .mapToDouble(Reserva::getTotalPagar)
-                .sum();
+        return resumenDiarioService.obtenerIngresosFinalizados();
     }
 
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getIngresosPorPeriodo(LocalDate inicio, LocalDate fin) {
-        List<Reserva> reservas = reservaRepository.findAll();
         Map<LocalDate, Double> ingresosPorFecha = inicializarMapaFechas(inicio, fin);
-
-        for (Reserva r : reservas) {
-            if (estaEnRangoDeFechas(r.getFechaInicio(), inicio, fin) && esReservaContabilizable(r)) {
-                double total = calcularTotalReserva(r);
-                ingresosPorFecha.merge(r.getFechaInicio(), total, Double::sum);
-            }
+        for (ResumenDiarioService.TotalesDia dia : resumenDiarioService.obtenerTotalesPorDia(inicio, fin)) {
+            ingresosPorFecha.put(dia.fecha(), dia.ingresos());
         }
-
         return convertirMapaALista(ingresosPorFecha);
     }
 
@@ -247,24 +260,26 @@ public class ReservaService {
 
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getMovimientoPorPeriodo(LocalDate inicio, LocalDate fin) {
-        List<Reserva> reservas = reservaRepository.findAll();
         Map<LocalDate, Map<String, Integer>> movimientos = inicializarMapaMovimientos(inicio, fin);
-
-        for (Reserva r : reservas) {
-            if (estaEnRangoDeFechas(r.getFechaInicio(), inicio, fin)) {
-                movimientos.get(r.getFechaInicio()).merge("checkIns", 1, Integer::sum);
-            }
-            if (estaEnRangoDeFechas(r.getFechaFin(), inicio, fin)) {
-                movimientos.get(r.getFechaFin()).merge("checkOuts", 1, Integer::sum);
-            }
+        for (ResumenDiarioService.TotalesDia dia : resumenDiarioService.obtenerTotalesPorDia(inicio, fin)) {
+            movimientos.get(dia.fecha()).put("checkIns", (int) dia.checkIns());
+            movimientos.get(dia.fecha()).put("checkOuts", (int) dia.checkOuts());
         }
-
         return convertirMovimientosALista(movimientos);
     }
 
+    /**
+     * Reservas en el estado indicado; 0 si el texto no es ningún estado.
+     */
     @Transactional(readOnly = true)
     public long contarReservasPorEstado(String estado) {
-        return reservaRepository.countByEstadoReservaIgnoreCase(estado);
+        EstadoReserva buscado;
+        try {
+            buscado = EstadoReserva.fromString(estado);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        return reservaRepository.countByEstadoReserva(buscado);
     }
 
     @Transactional(readOnly = true)
@@ -279,20 +294,12 @@ public class ReservaService {
 
     @Transactional(readOnly = true)
     public List<Reserva> obtenerLlegadasHoy() {
-        LocalDate hoy = LocalDate.now();
-        return reservaRepository.findAll().stream()
-                .filter(r -> r.getFechaInicio() != null && r.getFechaInicio().equals(hoy)
-                        && EstadoReserva.PENDIENTE.getValor().equalsIgnoreCase(r.getEstadoReserva()))
-                .toList();
+        return reservaRepository.findLlegadasConDetalle(LocalDate.now(), EstadoReserva.PENDIENTE);
     }
 
     @Transactional(readOnly = true)
     public List<Reserva> obtenerSalidasHoy() {
-        LocalDate hoy = LocalDate.now();
-        return reservaRepository.findAll().stream()
-                .filter(r -> r.getFechaFin() != null && r.getFechaFin().equals(hoy)
-                        && EstadoReserva.ACTIVA.getValor().equalsIgnoreCase(r.getEstadoReserva()))
-                .toList();
+        return reservaRepository.findSalidasConDetalle(LocalDate.now(), EstadoReserva.ACTIVA);
     }
 
     @Transactional
@@ -310,6 +317,7 @@ public class ReservaService {
 
         asignarServiciosAReserva(reserva, servicioIds, opciones);
         Reserva actualizada = reservaRepository.save(reserva);
+        notificarCambioReserva(actualizada);
 
         auditoriaService.registrarAccion("ASIGNACION_SERVICIOS_RESERVA",
                 "Servicios actualizados para la reserva ID: " + reservaId,
@@ -343,12 +351,12 @@ public class ReservaService {
     @Transactional(readOnly = true)
     public long contarReservasFinalizadasPorCliente(String username) {
         return reservaRepository.findAll().stream()
-                .filter(r -> perteneceACliente(r, username) &&
-                        EstadoReserva.FINALIZADA.getValor().equalsIgnoreCase(r.getEstadoReserva()))
+                .filter(r -> perteneceACliente(r, username) && r.getEstado() == EstadoReserva.FINALIZADA)
                 .count();
     }
 
     @Transactional
+    @OperacionMedida("reserva.checkin")
     public @NonNull Reserva realizarCheckIn(@NonNull Long reservaId) {
         Reserva reserva = reservaRepository.findById(reservaId)
                 .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
@@ -356,12 +364,13 @@ public class ReservaService {
         validarCheckIn(reserva);
 
         LocalDate hoy = LocalDate.now();
-        reserva.setEstadoReserva(EstadoReserva.ACTIVA.getValor());
+        reserva.setEstado(EstadoReserva.ACTIVA);
         reserva.setFechaCheckinReal(hoy);
         reserva.setHoraCheckinReal(java.time.LocalTime.now());
 
         actualizarHabitacionAOcupada(reserva);
         Reserva actualizada = reservaRepository.save(reserva);
+        notificarCambioReserva(reserva);
         enviarEmailCheckIn(actualizada);
 
         logger.info("Check-in realizado para reserva ID={}", reservaId);
@@ -369,6 +378,7 @@ public class ReservaService {
     }
 
     @Transactional
+    @OperacionMedida("reserva.checkout")
     public @NonNull Reserva realizarCheckOut(@NonNull Long reservaId) {
         Reserva reserva = reservaRepository.findById(reservaId)
                 .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
@@ -376,12 +386,13 @@ public class ReservaService {
         validarCheckOut(reserva);
 
         LocalDate hoy = LocalDate.now();
-        reserva.setEstadoReserva(EstadoReserva.FINALIZADA.getValor());
+        reserva.setEstado(EstadoReserva.FINALIZADA);
         reserva.setFechaSalidaReal(hoy);
         reserva.setHoraCheckoutReal(java.time.LocalTime.now());
 
         actualizarHabitacionADisponible(reserva);
         Reserva actualizada = reservaRepository.save(reserva);
+        notificarCambioReserva(reserva);
         enviarEmailCheckOut(actualizada, hoy);
 
         logger.info("Check-out realizado para reserva ID={}", reservaId);
@@ -389,6 +400,7 @@ public class ReservaService {
     }
 
     @Transactional
+    @OperacionMedida("reserva.descuento")
     public @NonNull Reserva aplicarDescuento(@NonNull Long reservaId, String codigoDescuento) {
         if (descuentoService == null) {
             throw new IllegalStateException("Servicio de descuentos no disponible");
@@ -413,7 +425,9 @@ public class ReservaService {
         logger.info("Descuento aplicado a reserva ID={}, Código={}, Monto={}",
                 reservaId, codigoDescuento, montoDescuento);
 
-        return reservaRepository.save(reserva);
+        Reserva actualizada = reservaRepository.save(reserva);
+        notificarCambioReserva(actualizada);
+        return actualizada;
     }
 
     // ============== MÉTODOS PRIVADOS DE AYUDA ==============
@@ -445,36 +459,67 @@ public class ReservaService {
             }
 
             var habitacion = habitacionOpt.get();
-            if (EstadoHabitacion.MANTENIMIENTO.getValor().equalsIgnoreCase(habitacion.getEstado())) {
+            if (habitacion.getEstadoHabitacion() == EstadoHabitacion.MANTENIMIENTO) {
                 throw new IllegalArgumentException("La habitación está en mantenimiento y no puede ser reservada");
             }
         }
     }
 
     private void verificarDisponibilidadFechas(Long habitacionId, Reserva reserva, Long reservaId) {
-        if (habitacionService != null && !habitacionService.estaDisponible(
-                habitacionId, reserva.getFechaInicio(), reserva.getFechaFin())) {
-
-            boolean existeConflicto = reservaRepository.existeReservaEnRangoFechas(
-                    habitacionId, reserva.getFechaInicio(), reserva.getFechaFin(), reservaId);
-
-            if (existeConflicto) {
-                List<Reserva> reservasConflictivas = reservaRepository.findReservasConflictivas(
-                        habitacionId, reserva.getFechaInicio(), reserva.getFechaFin(), reservaId);
-
-                StringBuilder mensaje = new StringBuilder(
-                        "La habitación ya está reservada en el rango de fechas seleccionado. ");
-                if (!reservasConflictivas.isEmpty()) {
-                    Reserva conflicto = reservasConflictivas.get(0);
-                    mensaje.append("Ya existe una reserva del ").append(conflicto.getFechaInicio())
-                            .append(" al ").append(conflicto.getFechaFin())
-                            .append(" con estado: ").append(conflicto.getEstadoReserva());
-                }
-                throw new IllegalArgumentException(mensaje.toString());
-            } else {
-                throw new IllegalArgumentException("La habitación seleccionada no está disponible");
-            }
+        LocalDate inicio = reserva.getFechaInicio();
+        LocalDate fin = reserva.getFechaFin();
+        if (habitacionService == null || habitacionService.estaDisponible(habitacionId, inicio, fin, reservaId)) {
+            verificarSolapamientoEnBaseDeDatos(habitacionId, inicio, fin, reservaId);
+            return;
+        }
+
+        Optional<EstanciaReservada> conflicto = buscarReservaConflictiva(habitacionId, inicio, fin, reservaId);
+        if (conflicto.isEmpty()) {
+            throw new IllegalArgumentException("La habitación seleccionada no está disponible");
+        }
+        lanzarConflicto(conflicto.get());
+    }
+
+    /**
+     * Con la fila de la habitación bloqueada, el índice en memoria de esta
+     * instancia puede no conocer reservas confirmadas por otra instancia; la
+     * comprobación definitiva se hace entonces contra la base de datos.
+     */
+    private void verificarSolapamientoEnBaseDeDatos(Long habitacionId, LocalDate inicio, LocalDate fin,
+            Long reservaId) {
+        if (!bloqueoHabitaciones.isBloqueoBaseDeDatos() || !indiceDisponibilidad.isInicializado()) {
+            return;
+        }
+        reservaRepository.findReservasConflictivas(habitacionId, inicio, fin, reservaId).stream()
+                .findFirst()
+                .map(EstanciaReservada::desde)
+                .ifPresent(this::lanzarConflicto);
+    }
+
+    private void lanzarConflicto(EstanciaReservada estancia) {
+        throw new IllegalArgumentException("La habitación ya está reservada en el rango de fechas seleccionado. "
+                + "Ya existe una reserva del " + estancia.fechaInicio() + " al " + estancia.fechaFin()
+                + " con estado: " + estancia.estadoReserva());
+    }
+
+    /**
+     * Reserva que impide ocupar las fechas. Con el índice cargado se resuelve
+     * en memoria; si no, con una sola consulta a la base de datos.
+     */
+    private Optional<EstanciaReservada> buscarReservaConflictiva(Long habitacionId, LocalDate inicio, LocalDate fin,
+            Long reservaId) {
+        if (indiceDisponibilidad.isInicializado()) {
+            return indiceDisponibilidad.buscarConflicto(habitacionId, inicio, fin, reservaId);
         }
+        return reservaRepository.findReservasConflictivas(habitacionId, inicio, fin, reservaId).stream()
+                .findFirst()
+                .map(EstanciaReservada::desde);
+    }
+
+    private void notificarCambioReserva(Reserva reserva) {
+        indiceDisponibilidad.actualizarReserva(reserva);
+        planificadorTransiciones.reprogramar(reserva);
+        resumenDiarioService.contabilizarReservas(List.of(reserva.getId()));
     }
 
     private void actualizarEstadoHabitacionSegunReserva(Reserva guardada) {
@@ -484,21 +529,19 @@ public class ReservaService {
 
         Long habitacionId = guardada.getHabitacion().getId();
         LocalDate hoy = LocalDate.now();
-        String estadoReserva = guardada.getEstadoReserva();
+        EstadoReserva estadoReserva = guardada.getEstado();
 
-        if (EstadoReserva.ACTIVA.getValor().equalsIgnoreCase(estadoReserva) ||
-                EstadoReserva.PENDIENTE.getValor().equalsIgnoreCase(estadoReserva)) {
+        if (estadoReserva == EstadoReserva.ACTIVA || estadoReserva == EstadoReserva.PENDIENTE) {
             if (guardada.getFechaInicio() != null && !guardada.getFechaInicio().isAfter(hoy)) {
                 habitacionService.actualizarEstadoHabitacion(habitacionId, EstadoHabitacion.OCUPADA.getValor());
             } else if (guardada.getFechaInicio() != null && guardada.getFechaInicio().isAfter(hoy)) {
                 var habitacionOpt = habitacionService.buscarHabitacionPorId(habitacionId);
                 if (habitacionOpt.isPresent() &&
-                        !EstadoHabitacion.MANTENIMIENTO.getValor().equalsIgnoreCase(habitacionOpt.get().getEstado())) {
+                        habitacionOpt.get().getEstadoHabitacion() != EstadoHabitacion.MANTENIMIENTO) {
                     habitacionService.actualizarEstadoHabitacion(habitacionId, EstadoHabitacion.DISPONIBLE.getValor());
                 }
             }
-        } else if (EstadoReserva.FINALIZADA.getValor().equalsIgnoreCase(estadoReserva) ||
-                EstadoReserva.CANCELADA.getValor().equalsIgnoreCase(estadoReserva)) {
+        } else if (estadoReserva == EstadoReserva.FINALIZADA || estadoReserva == EstadoReserva.CANCELADA) {
             habitacionService.actualizarEstadoHabitacion(habitacionId, EstadoHabitacion.DISPONIBLE.getValor());
         }
     }
@@ -565,20 +608,6 @@ public class ReservaService {
         return mapa;
     }
 
-    private boolean estaEnRangoDeFechas(LocalDate fecha, LocalDate inicio, LocalDate fin) {
-        return fecha != null && !fecha.isBefore(inicio) && !fecha.isAfter(fin);
-    }
-
-    private boolean esReservaContabilizable(Reserva r) {
-        return EstadoReserva.FINALIZADA.getValor().equalsIgnoreCase(r.getEstadoReserva()) ||
-                EstadoReserva.ACTIVA.getValor().equalsIgnoreCase(r.getEstadoReserva());
-    }
-
-    private double calcularTotalReserva(Reserva r) {
-        double total = r.getTotalPagar() != null ? r.getTotalPagar() : 0.0;
-        return total + r.calcularTotalServicios();
-    }
-
     private List<Map<String, Object>> convertirMapaALista(Map<LocalDate, Double> mapa) {
         List<Map<String, Object>> resultado = new ArrayList<>();
         for (Map.Entry<LocalDate, Double> entry : mapa.entrySet()) {
@@ -652,12 +681,11 @@ public class ReservaService {
     }
 
     private boolean esReservaActiva(Reserva r) {
-        return EstadoReserva.ACTIVA.getValor().equalsIgnoreCase(r.getEstadoReserva()) ||
-                EstadoReserva.PENDIENTE.getValor().equalsIgnoreCase(r.getEstadoReserva());
+        return r.getEstado() == EstadoReserva.ACTIVA || r.getEstado() == EstadoReserva.PENDIENTE;
     }
 
     private void validarCheckIn(Reserva reserva) {
-        if (!EstadoReserva.PENDIENTE.getValor().equalsIgnoreCase(reserva.getEstadoReserva())) {
+        if (reserva.getEstado() != EstadoReserva.PENDIENTE) {
             throw new IllegalStateException("Solo se puede realizar check-in de reservas pendientes");
         }
         LocalDate hoy = LocalDate.now();
@@ -687,7 +715,7 @@ public class ReservaService {
     }
 
     private void validarCheckOut(Reserva reserva) {
-        if (!EstadoReserva.ACTIVA.getValor().equalsIgnoreCase(reserva.getEstadoReserva())) {
+        if (reserva.getEstado() != EstadoReserva.ACTIVA) {
             throw new IllegalStateException("Solo se puede realizar check-out de reservas activas");
         }
     }
@@ -0,0 +1,15 @@
+package com.gestion.hotelera.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Evento publicado al contabilizar cambios de reservas. Quien necesite ver
+ * solo datos confirmados debe escucharlo tras el commit.
+ */
+public record ReservasModificadas(Set<Long> reservaIds) {
+
+    public ReservasModificadas(Collection<Long> reservaIds) {
+        this(Set.copyOf(reservaIds));
+    }
+}
@@ -0,0 +1,24 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.DimensionCubo;
+
+import java.util.List;
+
+/**
+ * Grupos de una consulta al cubo, ordenados por sus valores, y el total.
+ */
+public record ResultadoCubo(List<DimensionCubo> dimensiones, List<Grupo> grupos, Grupo total,
+        long reservasEnCubo, long duracionMicros) {
+
+    /**
+     * Ingresos, noches de habitación y reservas de una combinación de
+     * valores. RevPAR es null si no se puede saber la capacidad del grupo.
+     */
+    public record Grupo(List<String> valores, double ingresos, long nochesHabitacion, long reservas, Double revpar) {
+
+        /** Ingreso medio por noche de habitación vendida. */
+        public double adr() {
+            return nochesHabitacion > 0 ? ingresos / nochesHabitacion : 0.0;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.gestion.hotelera.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contenido generado por un trabajo de la cola de reportes, listo para
+ * descargar.
+ */
+public record ResultadoReporte(byte[] contenido, String tipoContenido, String archivo, long versionDatos,
+        LocalDateTime generadoEn) {
+
+    public int tamano() {
+        return contenido.length;
+    }
+}
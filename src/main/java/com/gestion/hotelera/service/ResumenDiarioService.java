@@ -0,0 +1,631 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.aspect.TareaExclusiva;
+import com.gestion.hotelera.config.EnrutadorDataSource;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.AporteResumenDiario;
+import com.gestion.hotelera.model.ResumenDiario;
+import com.gestion.hotelera.repository.AporteResumenDiarioRepository;
+import com.gestion.hotelera.repository.ReservaImporte;
+import com.gestion.hotelera.repository.ReservaRepository;
+import com.gestion.hotelera.repository.ResumenDiarioRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.Generator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Mantiene los resúmenes diarios por tipo de habitación que leen los reportes.
+ *
+ * Cada cambio de una reserva resta lo que la reserva tenía sumado (su
+ * {@link AporteResumenDiario}) y suma lo que aporta ahora, con UPDATE
+ * incrementales en la misma transacción que el cambio. Las consultas de
+ * reportes leen entonces una fila por día y tipo en lugar de todas las
+ * reservas. {@link #reconstruir()} recalcula todo desde cero para cargas
+ * iniciales o correcciones; las reservas que este nodo contabiliza mientras
+ * tanto se vuelven a contabilizar cuando la reconstrucción se confirma.
+ *
+ * La versión de los datos de reportes vive en versiones_datos y sube en la
+ * misma transacción que el cambio, así que todos los nodos ven la misma y
+ * un resultado cacheado en uno caduca cuando otro modifica los datos. Está
+ * repartida en {@value #FRACCIONES_VERSION} filas (la versión es la suma):
+ * cada transacción sube una al azar, y dos escrituras solo esperan una a la
+ * otra si eligen la misma. La suma leída se guarda
+ * app.reportes.version.cache-ms; un cambio confirmado en este nodo la
+ * invalida enseguida.
+ */
+@Service
+public class ResumenDiarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumenDiarioService.class);
+
+    static final String SIN_TIPO = "SIN_TIPO";
+    private static final int TAMANO_LOTE = 500;
+
+    private static final String COLUMNAS = "\"id\", \"fecha\", \"tipo_habitacion\", \"ingresos_habitacion\", "
+            + "\"ingresos_servicios\", \"descuentos\", \"ingresos_finalizados\", \"check_ins\", \"check_outs\", "
+            + "\"noches_ocupadas\"";
+    private static final String INSERTAR_FILA_MYSQL = ("INSERT INTO \"resumenes_diarios\" (" + COLUMNAS + ") "
+            + "VALUES (?, ?, ?, 0, 0, 0, 0, 0, 0, 0) ON DUPLICATE KEY UPDATE \"id\" = \"id\"").replace('"', '`');
+    private static final String INSERTAR_FILA_H2 = "MERGE INTO \"resumenes_diarios\" r USING (VALUES (1)) n(\"uno\") "
+            + "ON r.\"fecha\" = ? AND r.\"tipo_habitacion\" = ? WHEN NOT MATCHED THEN INSERT (" + COLUMNAS + ") "
+            + "VALUES (?, ?, ?, 0, 0, 0, 0, 0, 0, 0)";
+
+    static final String VERSION_REPORTES = "reportes";
+    static final int FRACCIONES_VERSION = 16;
+    // También suma la fila "reportes" que había antes de repartir la versión
+    private static final String LEER_VERSION = "SELECT COALESCE(SUM(\"version\"), 0) FROM \"versiones_datos\" "
+            + "WHERE \"nombre\" LIKE '" + VERSION_REPORTES + "%'";
+    private static final String SUBIR_VERSION = "UPDATE \"versiones_datos\" SET \"version\" = \"version\" + 1 "
+            + "WHERE \"nombre\" = ?";
+    private static final String SUBIR_VERSION_MYSQL = ("INSERT INTO \"versiones_datos\" (\"nombre\", \"version\") "
+            + "VALUES (?, 1) ON DUPLICATE KEY UPDATE \"version\" = \"version\" + 1").replace('"', '`');
+    private static final String SUBIR_VERSION_H2 = "MERGE INTO \"versiones_datos\" v USING (VALUES (1)) n(\"uno\") "
+            + "ON v.\"nombre\" = ? WHEN MATCHED THEN UPDATE SET \"version\" = v.\"version\" + 1 "
+            + "WHEN NOT MATCHED THEN INSERT (\"nombre\", \"version\") VALUES (?, 1)";
+
+    private final ResumenDiarioRepository resumenDiarioRepository;
+    private final AporteResumenDiarioRepository aporteRepository;
+    private final ReservaRepository reservaRepository;
+    private final EntityManager entityManager;
+    private final MigradorEsquema migradorEsquema;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventos;
+    private final TransactionTemplate transaccionNueva;
+
+    private final Object cerrojoReconstruccion = new Object();
+    /** Reservas contabilizadas durante la reconstrucción en curso; null si no hay ninguna. */
+    private Set<Long> modificadasDuranteReconstruccion;
+
+    private final long cacheVersionMs;
+    private final Clock reloj;
+    private final AtomicLong cambiosLocales = new AtomicLong();
+
+    private volatile ResultadoReconstruccion ultimaReconstruccion;
+    private volatile VersionLeida versionLeida;
+
+    /**
+     * Suma de la versión leída, con los cambios locales que había al leerla y
+     * el instante (ms del reloj) de la lectura.
+     */
+    private record VersionLeida(long version, long cambiosLocales, long leidaEn) {
+    }
+
+    public ResumenDiarioService(ResumenDiarioRepository resumenDiarioRepository,
+            AporteResumenDiarioRepository aporteRepository,
+            ReservaRepository reservaRepository,
+            EntityManager entityManager,
+            MigradorEsquema migradorEsquema,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventos,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.reportes.version.cache-ms:1000}") long cacheVersionMs,
+            Clock reloj) {
+        this.resumenDiarioRepository = resumenDiarioRepository;
+        this.aporteRepository = aporteRepository;
+        this.reservaRepository = reservaRepository;
+        this.entityManager = entityManager;
+        this.migradorEsquema = migradorEsquema;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventos = eventos;
+        // La repetición tras la reconstrucción no puede unirse a su transacción, ya terminada
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cacheVersionMs = Math.max(0, cacheVersionMs);
+        this.reloj = reloj;
+    }
+
+    /**
+     * Totales de un día para todos los tipos de habitación, redondeados a céntimos.
+     */
+    public record TotalesDia(LocalDate fecha, double ingresosHabitacion, double ingresosServicios,
+            double descuentos, long checkIns, long checkOuts, long nochesOcupadas) {
+
+        /** Estancia más servicios, sin restar descuentos. */
+        public double ingresos() {
+            return redondear(ingresosHabitacion + ingresosServicios);
+        }
+    }
+
+    /**
+     * Reservas leídas, filas de resumen escritas y duración de una reconstrucción.
+     */
+    public record ResultadoReconstruccion(LocalDateTime ejecutadaEn, int reservas, int filas, long duracionMs) {
+    }
+
+    /**
+     * Vuelve a contabilizar las reservas indicadas según su estado actual en
+     * la base de datos; las que ya no existen se retiran de los resúmenes.
+     * Debe llamarse dentro de la transacción que modificó las reservas.
+     * Publica {@link ReservasModificadas} con los IDs tratados.
+     */
+    @Transactional
+    public void contabilizarReservas(Collection<Long> reservaIds) {
+        Set<Long> ids = new TreeSet<>();
+        reservaIds.stream().filter(Objects::nonNull).forEach(ids::add);
+        if (ids.isEmpty()) {
+            return;
+        }
+        marcarCambioDatos();
+        eventos.publishEvent(new ReservasModificadas(ids));
+        reservaRepository.flush();
+
+        Movimientos movimientos = new Movimientos();
+        Map<Long, AporteResumenDiario> aportes = new HashMap<>();
+        for (AporteResumenDiario aporte : aporteRepository.findParaModificar(ids)) {
+            movimientos.sumar(aporte, -1);
+            aportes.put(aporte.getReservaId(), aporte);
+        }
+        for (ReservaImporte importe : reservaRepository.findImportesPorIds(ids)) {
+            AporteResumenDiario aporte = aportes.remove(importe.getId());
+            if (aporte == null) {
+                aporte = new AporteResumenDiario(importe.getId());
+            }
+            copiar(importe, aporte);
+            movimientos.sumar(aporte, 1);
+            aporteRepository.save(aporte);
+        }
+        // Las que quedan ya no existen
+        aporteRepository.deleteAll(aportes.values());
+
+        aplicar(movimientos);
+    }
+
+    /**
+     * Recalcula todos los resúmenes desde las reservas en una transacción:
+     * hasta confirmarla, los reportes siguen viendo los valores anteriores.
+     * Las reservas contabilizadas y confirmadas en este nodo mientras se
+     * ejecuta pueden no estar en lo que leyó; se apuntan y se vuelven a
+     * contabilizar tras el commit, en una transacción nueva. Los cambios
+     * confirmados a la vez en otro nodo no se ven aquí, así que conviene
+     * lanzarla con poca actividad.
+     * Devuelve el número de reservas contabilizadas.
+     */
+    @TareaExclusiva("reconstruccion-resumen-diario")
+    @Transactional
+    public int reconstruir() {
+        long inicio = System.nanoTime();
+        synchronized (cerrojoReconstruccion) {
+            modificadasDuranteReconstruccion = new HashSet<>();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new RepeticionTrasReconstruccion());
+        marcarCambioDatos();
+        aporteRepository.deleteAllInBatch();
+        resumenDiarioRepository.deleteAllInBatch();
+
+        Movimientos movimientos = new Movimientos();
+        int reservas = 0;
+        try (Stream<ReservaImporte> importes = reservaRepository.streamImportes()) {
+            Iterator<ReservaImporte> iterador = importes.iterator();
+            while (iterador.hasNext()) {
+                ReservaImporte importe = iterador.next();
+                AporteResumenDiario aporte = new AporteResumenDiario(importe.getId());
+                copiar(importe, aporte);
+                movimientos.sumar(aporte, 1);
+                entityManager.persist(aporte);
+                if (++reservas % TAMANO_LOTE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+
+        int filas = 0;
+        for (Map.Entry<Clave, Acumulado> entrada : movimientos.entradas()) {
+            entityManager.persist(entrada.getValue().aResumen(entrada.getKey()));
+            if (++filas % TAMANO_LOTE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ResultadoReconstruccion resultado = new ResultadoReconstruccion(LocalDateTime.now(reloj), reservas, filas,
+                (System.nanoTime() - inicio) / 1_000_000);
+        ultimaReconstruccion = resultado;
+        logger.info("Resúmenes diarios reconstruidos en {} ms - Reservas: {}, Filas: {}",
+                resultado.duracionMs(), reservas, filas);
+        return reservas;
+    }
+
+    /**
+     * Apunta las reservas contabilizadas por otras transacciones mientras se
+     * reconstruye, una vez confirmadas.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarReservas(ReservasModificadas evento) {
+        synchronized (cerrojoReconstruccion) {
+            if (modificadasDuranteReconstruccion != null) {
+                modificadasDuranteReconstruccion.addAll(evento.reservaIds());
+            }
+        }
+    }
+
+    /**
+     * Hay reservas pero ningún aporte: los resúmenes nunca se han calculado.
+     */
+    @Transactional(readOnly = true)
+    public boolean requiereReconstruccion() {
+        return aporteRepository.count() == 0 && reservaRepository.count() > 0;
+    }
+
+    /**
+     * Un elemento por cada día del periodo que tenga datos, en orden de fecha.
+     */
+    @Transactional(readOnly = true)
+    public List<TotalesDia> obtenerTotalesPorDia(LocalDate inicio, LocalDate fin) {
+        return resumenDiarioRepository.sumarPorDia(inicio, fin).stream()
+                .map(dia -> new TotalesDia(dia.getFecha(),
+                        redondear(valor(dia.getIngresosHabitacion())),
+                        redondear(valor(dia.getIngresosServicios())),
+                        redondear(valor(dia.getDescuentos())),
+                        valor(dia.getCheckIns()), valor(dia.getCheckOuts()), valor(dia.getNochesOcupadas())))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResumenDiario> obtenerPorDiaYTipo(LocalDate inicio, LocalDate fin) {
+        return resumenDiarioRepository.findByFechaBetweenOrderByFechaAscTipoHabitacionAsc(inicio, fin);
+    }
+
+    /**
+     * Importe de la estancia de todas las reservas finalizadas.
+     */
+    @Transactional(readOnly = true)
+    public double obtenerIngresosFinalizados() {
+        return redondear(resumenDiarioRepository.sumIngresosFinalizados());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> contarFilas() {
+        Map<String, Long> filas = new LinkedHashMap<>();
+        filas.put("resumenes", resumenDiarioRepository.count());
+        filas.put("aportes", aporteRepository.count());
+        return filas;
+    }
+
+    public ResultadoReconstruccion getUltimaReconstruccion() {
+        return ultimaReconstruccion;
+    }
+
+    /**
+     * Versión de los datos de reportes, común a todos los nodos. Sube cada
+     * vez que se confirma un cambio de reservas o habitaciones, así que sirve
+     * de clave para cachear resultados de reportes. Los cambios de otros
+     * nodos se ven como mucho con app.reportes.version.cache-ms de retraso;
+     * se lee del primario porque en la réplica podría faltar el último.
+     */
+    public long getVersionDatos() {
+        long locales = cambiosLocales.get();
+        VersionLeida leida = versionLeida;
+        if (leida != null && leida.cambiosLocales() == locales
+                && reloj.millis() - leida.leidaEn() < cacheVersionMs) {
+            return leida.version();
+        }
+        long version;
+        try (EnrutadorDataSource.Forzado primario = EnrutadorDataSource.forzarPrimario()) {
+            version = jdbcTemplate.queryForObject(LEER_VERSION, Long.class);
+        }
+        versionLeida = new VersionLeida(version, locales, reloj.millis());
+        return version;
+    }
+
+    /**
+     * Avisa de un cambio que afecta a los reportes. Con una transacción en
+     * curso la versión sube justo antes de confirmarla, una sola vez aunque
+     * se llame varias: la fila queda bloqueada lo menos posible y, si la
+     * transacción se deshace, la versión no cambia.
+     */
+    public void marcarCambioDatos() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            subirVersion();
+            cambiosLocales.incrementAndGet();
+            return;
+        }
+        boolean registrada = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(SubidaVersion.class::isInstance);
+        if (!registrada) {
+            TransactionSynchronizationManager.registerSynchronization(new SubidaVersion());
+        }
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    /**
+     * Sube la versión en la transacción que la registró, antes del commit, y
+     * descarta la versión leída de este nodo al confirmarse.
+     */
+    private final class SubidaVersion implements TransactionSynchronization {
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            subirVersion();
+        }
+
+        @Override
+        public void afterCommit() {
+            cambiosLocales.incrementAndGet();
+        }
+    }
+
+    /**
+     * Deja de apuntar reservas al terminar la reconstrucción y, si se
+     * confirmó, vuelve a contabilizar las apuntadas sobre los resúmenes nuevos.
+     */
+    private final class RepeticionTrasReconstruccion implements TransactionSynchronization {
+
+        @Override
+        public void afterCompletion(int estado) {
+            Set<Long> ids;
+            synchronized (cerrojoReconstruccion) {
+                ids = modificadasDuranteReconstruccion;
+                modificadasDuranteReconstruccion = null;
+            }
+            if (estado != STATUS_COMMITTED || ids == null || ids.isEmpty()) {
+                return;
+            }
+            try {
+                transaccionNueva.executeWithoutResult(transaccion -> contabilizarReservas(ids));
+                logger.info("{} reservas modificadas durante la reconstrucción vueltas a contabilizar", ids.size());
+            } catch (RuntimeException e) {
+                logger.error("Error al volver a contabilizar las reservas {} tras la reconstrucción: {}", ids,
+                        e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Suma uno a una de las filas de versión, elegida al azar, y la crea si
+     * aún no existe. En H2, si dos transacciones crean la fila a la vez, la
+     * segunda falla por clave duplicada y se queda con el UPDATE.
+     */
+    private void subirVersion() {
+        String fila = VERSION_REPORTES + "-" + ThreadLocalRandom.current().nextInt(FRACCIONES_VERSION);
+        if ("mysql".equals(migradorEsquema.getProveedor())) {
+            jdbcTemplate.update(SUBIR_VERSION_MYSQL, fila);
+            return;
+        }
+        try {
+            jdbcTemplate.update(SUBIR_VERSION_H2, fila, fila);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(SUBIR_VERSION, fila);
+        }
+    }
+
+    /**
+     * Crea las filas de día y tipo que falten y suma los movimientos, todo en
+     * la transacción en curso y en orden de fecha y tipo.
+     */
+    private void aplicar(Movimientos movimientos) {
+        movimientos.descartarVacios();
+        if (movimientos.vacio()) {
+            return;
+        }
+        Set<Clave> existentes = new HashSet<>();
+        resumenDiarioRepository.findByFechaBetweenAndTipoHabitacionIn(movimientos.primeraFecha(),
+                movimientos.ultimaFecha(), movimientos.tipos())
+                .forEach(resumen -> existentes.add(new Clave(resumen.getFecha(), resumen.getTipoHabitacion())));
+        for (Clave clave : movimientos.claves()) {
+            if (!existentes.contains(clave)) {
+                crearSiFalta(clave);
+            }
+        }
+
+        for (Map.Entry<Clave, Acumulado> entrada : movimientos.entradas()) {
+            Clave clave = entrada.getKey();
+            Acumulado delta = entrada.getValue();
+            int filas = resumenDiarioRepository.sumar(clave.fecha(), clave.tipoHabitacion(),
+                    delta.ingresosHabitacion, delta.ingresosServicios, delta.descuentos,
+                    delta.ingresosFinalizados, delta.checkIns, delta.checkOuts, delta.nochesOcupadas);
+            if (filas != 1) {
+                throw new IllegalStateException("No existe el resumen diario de " + clave.fecha()
+                        + " para el tipo " + clave.tipoHabitacion());
+            }
+        }
+    }
+
+    /**
+     * Inserta la fila a cero salvo que ya exista, con el JdbcTemplate sobre la
+     * conexión de la transacción en curso. En MySQL, si otra reserva está
+     * creando la misma fila, el INSERT espera a que confirme y no hace nada.
+     * H2 no tiene equivalente: el MERGE falla por clave duplicada cuando la
+     * otra transacción confirma, solo se deshace esa sentencia y la fila ya
+     * está para el UPDATE que viene después.
+     */
+    private void crearSiFalta(Clave clave) {
+        long id = nuevoId();
+        if ("mysql".equals(migradorEsquema.getProveedor())) {
+            jdbcTemplate.update(INSERTAR_FILA_MYSQL, id, clave.fecha(), clave.tipoHabitacion());
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERTAR_FILA_H2, clave.fecha(), clave.tipoHabitacion(), id, clave.fecha(),
+                    clave.tipoHabitacion());
+        } catch (DuplicateKeyException e) {
+            logger.debug("Fila de resumen {} {} creada por otra transacción", clave.fecha(), clave.tipoHabitacion());
+        }
+    }
+
+    /**
+     * Siguiente id de resumenes_diarios_seq, del mismo generador que usa persist.
+     */
+    private long nuevoId() {
+        SharedSessionContractImplementor sesion = entityManager.unwrap(SharedSessionContractImplementor.class);
+        Generator generador = sesion.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(ResumenDiario.class).getGenerator();
+        return (Long) ((BeforeExecutionGenerator) generador).generate(sesion, null, null, EventType.INSERT);
+    }
+
+    private static void copiar(ReservaImporte importe, AporteResumenDiario aporte) {
+        String tipo = importe.getTipoHabitacion();
+        aporte.setTipoHabitacion(tipo != null && !tipo.isBlank() ? tipo : SIN_TIPO);
+        aporte.setEstadoReserva(importe.getEstadoReserva());
+        aporte.setFechaInicio(importe.getFechaInicio());
+        aporte.setFechaFin(importe.getFechaFin());
+        aporte.setFechaSalidaReal(importe.getFechaSalidaReal());
+        aporte.setMontoHabitacion(valor(importe.getTotalPagar()));
+        aporte.setMontoServicios(valor(importe.getMontoServicios()));
+        aporte.setMontoDescuento(valor(importe.getMontoDescuento()));
+    }
+
+    private static boolean esEstado(AporteResumenDiario aporte, EstadoReserva estado) {
+        return estado.getValor().equalsIgnoreCase(aporte.getEstadoReserva());
+    }
+
+    /**
+     * Día siguiente a la última noche ocupada: la salida real si la reserva
+     * finalizó antes de lo previsto, si no la fecha de fin.
+     */
+    private static LocalDate finDeNoches(AporteResumenDiario aporte) {
+        LocalDate salida = aporte.getFechaSalidaReal();
+        if (esEstado(aporte, EstadoReserva.FINALIZADA) && salida != null
+                && salida.isAfter(aporte.getFechaInicio()) && salida.isBefore(aporte.getFechaFin())) {
+            return salida;
+        }
+        return aporte.getFechaFin();
+    }
+
+    private static double valor(Double valor) {
+        return valor != null ? valor : 0.0;
+    }
+
+    private static long valor(Long valor) {
+        return valor != null ? valor : 0L;
+    }
+
+    static double redondear(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+
+    private record Clave(LocalDate fecha, String tipoHabitacion) implements Comparable<Clave> {
+        @Override
+        public int compareTo(Clave otra) {
+            int porFecha = fecha.compareTo(otra.fecha);
+            return porFecha != 0 ? porFecha : tipoHabitacion.compareTo(otra.tipoHabitacion);
+        }
+    }
+
+    private static final class Acumulado {
+        double ingresosHabitacion;
+        double ingresosServicios;
+        double descuentos;
+        double ingresosFinalizados;
+        long checkIns;
+        long checkOuts;
+        long nochesOcupadas;
+
+        boolean vacio() {
+            return ingresosHabitacion == 0 && ingresosServicios == 0 && descuentos == 0
+                    && ingresosFinalizados == 0 && checkIns == 0 && checkOuts == 0 && nochesOcupadas == 0;
+        }
+
+        ResumenDiario aResumen(Clave clave) {
+            ResumenDiario resumen = new ResumenDiario(clave.fecha(), clave.tipoHabitacion());
+            resumen.setIngresosHabitacion(ingresosHabitacion);
+            resumen.setIngresosServicios(ingresosServicios);
+            resumen.setDescuentos(descuentos);
+            resumen.setIngresosFinalizados(ingresosFinalizados);
+            resumen.setCheckIns(checkIns);
+            resumen.setCheckOuts(checkOuts);
+            resumen.setNochesOcupadas(nochesOcupadas);
+            return resumen;
+        }
+    }
+
+    /**
+     * Incrementos pendientes por día y tipo, ordenados para que las
+     * transacciones concurrentes bloqueen las filas en el mismo orden.
+     */
+    private static final class Movimientos {
+        private final TreeMap<Clave, Acumulado> porClave = new TreeMap<>();
+
+        /**
+         * Suma (signo 1) o resta (signo -1) el aporte de una reserva: llegada
+         * e importes en la fecha de inicio, salida en la fecha de fin y una
+         * noche por cada día ocupado. Como en los reportes de siempre, las
+         * llegadas y salidas cuentan todas las reservas; los ingresos solo
+         * las activas y finalizadas.
+         */
+        void sumar(AporteResumenDiario aporte, int signo) {
+            String tipo = aporte.getTipoHabitacion();
+            LocalDate inicio = aporte.getFechaInicio();
+            Acumulado llegada = en(inicio, tipo);
+            llegada.checkIns += signo;
+            en(aporte.getFechaFin(), tipo).checkOuts += signo;
+
+            boolean finalizada = esEstado(aporte, EstadoReserva.FINALIZADA);
+            if (finalizada || esEstado(aporte, EstadoReserva.ACTIVA)) {
+                llegada.ingresosHabitacion += signo * aporte.getMontoHabitacion();
+                llegada.ingresosServicios += signo * aporte.getMontoServicios();
+                llegada.descuentos += signo * aporte.getMontoDescuento();
+            }
+            if (finalizada) {
+                llegada.ingresosFinalizados += signo * aporte.getMontoHabitacion();
+            }
+            if (!esEstado(aporte, EstadoReserva.CANCELADA)) {
+                LocalDate fin = finDeNoches(aporte);
+                for (LocalDate noche = inicio; noche.isBefore(fin); noche = noche.plusDays(1)) {
+                    en(noche, tipo).nochesOcupadas += signo;
+                }
+            }
+        }
+
+        private Acumulado en(LocalDate fecha, String tipo) {
+            return porClave.computeIfAbsent(new Clave(fecha, tipo), clave -> new Acumulado());
+        }
+
+        void descartarVacios() {
+            porClave.values().removeIf(Acumulado::vacio);
+        }
+
+        boolean vacio() {
+            return porClave.isEmpty();
+        }
+
+        Set<Clave> claves() {
+            return porClave.keySet();
+        }
+
+        Set<Map.Entry<Clave, Acumulado>> entradas() {
+            return porClave.entrySet();
+        }
+
+        LocalDate primeraFecha() {
+            return porClave.firstKey().fecha();
+        }
+
+        LocalDate ultimaFecha() {
+            return porClave.lastKey().fecha();
+        }
+
+        Set<String> tipos() {
+            Set<String> tipos = new HashSet<>();
+            porClave.keySet().forEach(clave -> tipos.add(clave.tipoHabitacion()));
+            return tipos;
+        }
+    }
+}
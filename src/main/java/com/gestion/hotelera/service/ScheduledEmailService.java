@@ -1,14 +1,18 @@
 package com.gestion.hotelera.service;
 
+import com.gestion.hotelera.aspect.TareaExclusiva;
 import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ReservaIntervalo;
 import com.gestion.hotelera.repository.ReservaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Servicio para enviar emails automatizados mediante tareas programadas
@@ -28,91 +32,63 @@ public class ScheduledEmailService {
 
     /**
      * Tarea programada que se ejecuta todos los días a las 9:00 AM
-     * Envía recordatorios de check-in a clientes con reservas para mañana
+     * Encola recordatorios de check-in para las reservas pendientes de mañana;
+     * la bandeja de salida los entrega por lotes. Solo la ejecuta el nodo con
+     * el lease, para no duplicar los correos.
+     * Devuelve el número de recordatorios encolados. Los errores se propagan:
+     * la transacción se deshace entera y TareaExclusivaAspect los registra.
      */
     @Scheduled(cron = "0 0 9 * * ?") // Ejecutar a las 9:00 AM todos los días
-    public void enviarRecordatoriosCheckIn() {
+    @TareaExclusiva("recordatorios-checkin")
+    @Transactional
+    public int enviarRecordatoriosCheckIn() {
         log.info("=== INICIANDO ENVÍO DE RECORDATORIOS DE CHECK-IN ===");
-
-        try {
-            LocalDate manana = LocalDate.now().plusDays(1);
-
-            // Buscar todas las reservas pendientes que tienen check-in mañana
-            List<Reserva> reservasMaana = reservaRepository.findAll().stream()
-                    .filter(r -> "PENDIENTE".equalsIgnoreCase(r.getEstadoReserva()))
-                    .filter(r -> r.getFechaInicio() != null && r.getFechaInicio().equals(manana))
-                    .filter(r -> r.getCliente() != null && r.getCliente().getEmail() != null)
-                    .toList();
-
-            log.info("Se encontraron {} reservas con check-in mañana ({})",
-                    reservasMaana.size(), manana);
-
-            int enviados = 0;
-            for (Reserva reserva : reservasMaana) {
-                try {
-                    String to = reserva.getCliente().getEmail();
-                    if (to != null && !to.trim().isEmpty()) {
-                        String nombre = reserva.getCliente().getNombres();
-                        String numeroReserva = String.valueOf(reserva.getId());
-                        String fechaCheckIn = reserva.getFechaInicio().toString();
-                        String habitacion = reserva.getHabitacion() != null
-                                ? reserva.getHabitacion().getNumero()
-                                : "Por asignar";
-
-                        emailService.enviarRecordatorioCheckIn(to, nombre, numeroReserva,
-                                fechaCheckIn, habitacion);
-                        enviados++;
-
-                        log.info("Recordatorio enviado a {} para reserva #{}", to, numeroReserva);
-                    }
-                } catch (Exception e) {
-                    log.error("Error al enviar recordatorio para reserva #{}",
-                            reserva.getId(), e);
-                }
+        LocalDate manana = LocalDate.now().plusDays(1);
+        int encolados = 0;
+
+        // Solo pendientes con check-in mañana y email, con el cliente ya cargado
+        try (Stream<Reserva> reservasManana = reservaRepository.streamPendientesQueInician(manana)) {
+            for (Reserva reserva : (Iterable<Reserva>) reservasManana::iterator) {
+                String numeroReserva = String.valueOf(reserva.getId());
+                emailService.enviarRecordatorioCheckIn(reserva.getCliente().getEmail(),
+                        reserva.getCliente().getNombres(), numeroReserva,
+                        reserva.getFechaInicio().toString(), reserva.getHabitacion().getNumero());
+                encolados++;
+                log.debug("Recordatorio encolado para la reserva #{}", numeroReserva);
             }
-
-            log.info("=== RECORDATORIOS COMPLETADOS: {}/{} enviados ===",
-                    enviados, reservasMaana.size());
-
-        } catch (Exception e) {
-            log.error("Error en la tarea programada de recordatorios", e);
         }
+
+        log.info("=== RECORDATORIOS COMPLETADOS: {} encolados para el {} ===", encolados, manana);
+        return encolados;
     }
 
     /**
      * Tarea programada que actualiza el estado de las habitaciones
-     * Se ejecuta cada 6 horas para asegurar sincronización
+     * Se ejecuta cada 6 horas para asegurar sincronización.
+     * Devuelve el número de reservas vencidas encontradas; los errores los
+     * registra TareaExclusivaAspect.
      */
     @Scheduled(cron = "0 0 */6 * * ?") // Ejecutar cada 6 horas
-    public void actualizarEstadosReservas() {
+    @TareaExclusiva("verificacion-estados-reservas")
+    public int actualizarEstadosReservas() {
         log.info("=== VERIFICANDO ESTADOS DE RESERVAS ===");
 
-        try {
-            LocalDate hoy = LocalDate.now();
-
-            // Buscar reservas que deberían estar finalizadas
-            List<Reserva> reservasVencidas = reservaRepository.findAll().stream()
-                    .filter(r -> "ACTIVA".equalsIgnoreCase(r.getEstadoReserva()) ||
-                            "PENDIENTE".equalsIgnoreCase(r.getEstadoReserva()))
-                    .filter(r -> r.getFechaFin() != null && r.getFechaFin().isBefore(hoy))
-                    .toList();
+        // Reservas que deberían estar finalizadas
+        List<ReservaIntervalo> reservasVencidas = reservaRepository.findIntervalosVencidos(LocalDate.now());
 
-            if (!reservasVencidas.isEmpty()) {
-                log.warn("Se encontraron {} reservas vencidas que deberían estar finalizadas",
-                        reservasVencidas.size());
+        if (!reservasVencidas.isEmpty()) {
+            log.warn("Se encontraron {} reservas vencidas que deberían estar finalizadas",
+                    reservasVencidas.size());
 
-                for (Reserva reserva : reservasVencidas) {
-                    log.warn("Reserva #{} vencida: fecha fin {} pero estado '{}'",
-                            reserva.getId(),
-                            reserva.getFechaFin(),
-                            reserva.getEstadoReserva());
-                }
+            for (ReservaIntervalo reserva : reservasVencidas) {
+                log.warn("Reserva #{} vencida: fecha fin {} pero estado '{}'",
+                        reserva.getId(),
+                        reserva.getFechaFin(),
+                        reserva.getEstadoReserva().getValor());
             }
-
-            log.info("=== VERIFICACIÓN COMPLETADA ===");
-
-        } catch (Exception e) {
-            log.error("Error en la tarea de verificación de estados", e);
         }
+
+        log.info("=== VERIFICACIÓN COMPLETADA ===");
+        return reservasVencidas.size();
     }
 }
@@ -88,9 +88,23 @@ public class ServicioService {
         guardar(servicio);
     }
 
+    /**
+     * Copia los datos del formulario sobre el servicio leído de la base de
+     * datos: guardar la instancia del formulario haría un merge con una
+     * versión que no coincide con la de la fila.
+     */
     @Transactional
     public void actualizarServicio(Servicio servicio) {
-        guardar(servicio);
+        Objects.requireNonNull(servicio, "El servicio a actualizar no puede ser nulo");
+        Servicio existente = servicioRepository.findById(servicio.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Servicio no encontrado"));
+        existente.setNombre(servicio.getNombre());
+        existente.setDescripcion(servicio.getDescripcion());
+        existente.setCategoria(servicio.getCategoria());
+        existente.setPrecio(servicio.getPrecio());
+        existente.setActivo(servicio.getActivo());
+        existente.setOpciones(servicio.getOpciones());
+        guardar(existente);
     }
 
     @Transactional
@@ -1,131 +1,137 @@
 package com.gestion.hotelera.service;
 
-import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.aspect.TareaExclusiva;
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.repository.ReservaIntervalo;
 import com.gestion.hotelera.repository.ReservaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Servicio para tareas programadas que mantienen la sincronización
  * entre reservas y estados de habitaciones.
+ *
+ * Las transiciones se resuelven por conjuntos: consultas por estado y fecha
+ * (indexadas), UPDATE masivos por lotes de IDs y una sola pasada sobre las
+ * habitaciones para reconciliar su estado.
  */
 @Service
 public class TareaProgramadaService {
 
     private static final Logger logger = LoggerFactory.getLogger(TareaProgramadaService.class);
 
+    private static final int TAMANO_LOTE = 1000;
+    private static final List<EstadoReserva> ESTADOS_EN_CURSO = List.of(EstadoReserva.PENDIENTE, EstadoReserva.ACTIVA);
+
     private final ReservaRepository reservaRepository;
     private final HabitacionService habitacionService;
+    private final IndiceDisponibilidad indiceDisponibilidad;
+    private final ResumenDiarioService resumenDiarioService;
+
+    private volatile ResultadoSincronizacion ultimaSincronizacion;
 
     public TareaProgramadaService(ReservaRepository reservaRepository,
-                                  HabitacionService habitacionService) {
+                                  HabitacionService habitacionService,
+                                  IndiceDisponibilidad indiceDisponibilidad,
+                                  ResumenDiarioService resumenDiarioService) {
         this.reservaRepository = reservaRepository;
         this.habitacionService = habitacionService;
+        this.indiceDisponibilidad = indiceDisponibilidad;
+        this.resumenDiarioService = resumenDiarioService;
+    }
+
+    /**
+     * Filas afectadas y duración de una ejecución de la sincronización.
+     */
+    public record ResultadoSincronizacion(LocalDateTime ejecutadaEn, int reservasFinalizadas,
+            int reservasActivadas, int habitacionesOcupadas, int habitacionesLiberadas, long duracionMs) {
     }
 
     /**
-     * Tarea programada que se ejecuta cada hora para:
+     * Barrido de respaldo: las transiciones se disparan en su momento desde
+     * PlanificadorTransiciones, y este barrido solo corrige lo que se haya
+     * escapado (por ejemplo, cambios hechos fuera de la aplicación).
      * 1. Finalizar reservas que han pasado su fecha de fin
      * 2. Activar reservas pendientes cuya fecha de inicio ha llegado
      * 3. Actualizar estados de habitaciones según las reservas
+     * Con varias instancias solo la ejecuta el nodo que tiene el lease.
+     * Devuelve el total de filas modificadas. Los errores no se capturan
+     * aquí: la transacción se deshace entera y TareaExclusivaAspect los
+     * registra fuera de ella.
      */
-    @Scheduled(fixedRate = 3600000) // Cada hora (3600000 ms = 1 hora)
+    @Scheduled(fixedRateString = "${app.tareas.sincronizacion.intervalo-ms:21600000}") // Por defecto cada 6 horas
+    @TareaExclusiva("sincronizacion-reservas")
     @Transactional
-    public void sincronizarReservasYHabitaciones() {
-        try {
-            LocalDate hoy = LocalDate.now();
-            logger.info("Iniciando sincronización de reservas y habitaciones - Fecha actual: {}", hoy);
-
-            // 1. Finalizar reservas que han pasado su fecha de fin
-            List<Reserva> reservasParaFinalizar = reservaRepository.findAll().stream()
-                    .filter(r -> (r.getEstadoReserva().equals("ACTIVA") || r.getEstadoReserva().equals("PENDIENTE")) &&
-                            r.getFechaFin() != null &&
-                            r.getFechaFin().isBefore(hoy))
-                    .toList();
-
-            int reservasFinalizadas = 0;
-            for (Reserva reserva : reservasParaFinalizar) {
-                try {
-                    reserva.setEstadoReserva("FINALIZADA");
-                    reservaRepository.save(reserva);
-
-                    // Liberar habitación
-                    if (reserva.getHabitacion() != null && habitacionService != null) {
-                        habitacionService.actualizarEstadoHabitacion(
-                                reserva.getHabitacion().getId(),
-                                "DISPONIBLE"
-                        );
-                    }
-
-                    reservasFinalizadas++;
-                    logger.info("Reserva ID {} finalizada automáticamente (fecha fin: {})",
-                            reserva.getId(), reserva.getFechaFin());
-                } catch (Exception e) {
-                    logger.error("Error al finalizar reserva ID {}: {}", reserva.getId(), e.getMessage());
-                }
-            }
-
-            // 2. Activar reservas pendientes cuya fecha de inicio ha llegado
-            List<Reserva> reservasParaActivar = reservaRepository.findAll().stream()
-                    .filter(r -> r.getEstadoReserva().equals("PENDIENTE") &&
-                            r.getFechaInicio() != null &&
-                            (r.getFechaInicio().isBefore(hoy) || r.getFechaInicio().equals(hoy)))
-                    .toList();
-
-            int reservasActivadas = 0;
-            for (Reserva reserva : reservasParaActivar) {
-                try {
-                    reserva.setEstadoReserva("ACTIVA");
-                    reservaRepository.save(reserva);
-
-                    // Marcar habitación como ocupada
-                    if (reserva.getHabitacion() != null && habitacionService != null) {
-                        habitacionService.actualizarEstadoHabitacion(
-                                reserva.getHabitacion().getId(),
-                                "OCUPADA"
-                        );
-                    }
-
-                    reservasActivadas++;
-                    logger.info("Reserva ID {} activada automáticamente (fecha inicio: {})",
-                            reserva.getId(), reserva.getFechaInicio());
-                } catch (Exception e) {
-                    logger.error("Error al activar reserva ID {}: {}", reserva.getId(), e.getMessage());
-                }
-            }
-
-            // 3. Sincronizar estados de habitaciones según reservas activas
-            sincronizarEstadosHabitaciones();
-
-            logger.info("Sincronización completada - Finalizadas: {}, Activadas: {}",
-                    reservasFinalizadas, reservasActivadas);
-
-        } catch (Exception e) {
-            logger.error("Error en la sincronización de reservas y habitaciones: {}", e.getMessage(), e);
-        }
+    public int sincronizarReservasYHabitaciones() {
+        long inicio = System.nanoTime();
+        LocalDate hoy = LocalDate.now();
+        logger.info("Iniciando sincronización de reservas y habitaciones - Fecha actual: {}", hoy);
+
+        // 1. Finalizar reservas que han pasado su fecha de fin
+        int reservasFinalizadas = cambiarEstadoReservas(reservaRepository.findIntervalosVencidos(hoy),
+                ESTADOS_EN_CURSO, EstadoReserva.FINALIZADA).size();
+
+        // 2. Activar reservas pendientes cuya fecha de inicio ha llegado
+        int reservasActivadas = cambiarEstadoReservas(reservaRepository.findIntervalosPendientesIniciados(hoy),
+                List.of(EstadoReserva.PENDIENTE), EstadoReserva.ACTIVA).size();
+
+        // 3. Sincronizar estados de habitaciones según reservas activas
+        int[] habitaciones = reconciliarHabitaciones(hoy);
+
+        ResultadoSincronizacion resultado = new ResultadoSincronizacion(LocalDateTime.now(),
+                reservasFinalizadas, reservasActivadas, habitaciones[0], habitaciones[1],
+                (System.nanoTime() - inicio) / 1_000_000);
+        ultimaSincronizacion = resultado;
+        logger.info("Sincronización completada en {} ms - Finalizadas: {}, Activadas: {}, "
+                + "Habitaciones ocupadas: {}, Habitaciones liberadas: {}",
+                resultado.duracionMs(), reservasFinalizadas, reservasActivadas,
+                resultado.habitacionesOcupadas(), resultado.habitacionesLiberadas());
+        return reservasFinalizadas + reservasActivadas + habitaciones[0] + habitaciones[1];
     }
 
     /**
-     * Tarea programada que se ejecuta diariamente a las 2 AM para una limpieza más exhaustiva
+     * Aplica las transiciones que el planificador encontró vencidas y
+     * reconcilia solo las habitaciones afectadas. Las reservas que cambiaron
+     * de estado desde que se programaron (por ejemplo, canceladas) se dejan
+     * como están. Devuelve los IDs de las reservas que se activaron.
      */
-    @Scheduled(cron = "0 0 2 * * ?") // Todos los días a las 2:00 AM
     @Transactional
-    public void limpiezaDiariaReservasYHabitaciones() {
-        try {
-            logger.info("Iniciando limpieza diaria de reservas y habitaciones - {}", LocalDateTime.now());
-            sincronizarReservasYHabitaciones();
-            sincronizarEstadosHabitaciones();
-            logger.info("Limpieza diaria completada");
-        } catch (Exception e) {
-            logger.error("Error en la limpieza diaria: {}", e.getMessage(), e);
-        }
+    public Set<Long> aplicarTransiciones(List<? extends ReservaIntervalo> aFinalizar,
+            List<? extends ReservaIntervalo> aActivar) {
+        long inicio = System.nanoTime();
+        int finalizadas = cambiarEstadoReservas(List.copyOf(aFinalizar), ESTADOS_EN_CURSO, EstadoReserva.FINALIZADA)
+                .size();
+        List<ReservaIntervalo> activadas = cambiarEstadoReservas(List.copyOf(aActivar),
+                List.of(EstadoReserva.PENDIENTE), EstadoReserva.ACTIVA);
+
+        Set<Long> afectadas = new HashSet<>();
+        aFinalizar.forEach(i -> afectadas.add(i.getHabitacionId()));
+        aActivar.forEach(i -> afectadas.add(i.getHabitacionId()));
+        afectadas.remove(null);
+        int[] habitaciones = reconciliarHabitaciones(LocalDate.now(),
+                habitacionService.obtenerHabitacionesPorIds(afectadas));
+
+        logger.info("Transiciones aplicadas en {} ms - Finalizadas: {}, Activadas: {}, "
+                + "Habitaciones ocupadas: {}, Habitaciones liberadas: {}",
+                (System.nanoTime() - inicio) / 1_000_000, finalizadas, activadas.size(), habitaciones[0],
+                habitaciones[1]);
+        Set<Long> ids = new HashSet<>();
+        activadas.forEach(intervalo -> ids.add(intervalo.getId()));
+        return ids;
     }
 
     /**
@@ -134,44 +140,87 @@ public class TareaProgramadaService {
      */
     @Transactional
     public void sincronizarEstadosHabitaciones() {
-        if (habitacionService == null) {
-            return;
-        }
+        reconciliarHabitaciones(LocalDate.now());
+    }
 
+    /**
+     * Calcula los resúmenes diarios de reportes la primera vez que arranca
+     * con reservas ya existentes. Con varias instancias solo lo hace una.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarResumenDiario() {
         try {
-            LocalDate hoy = LocalDate.now();
-
-            // Obtener todas las habitaciones
-            var todasHabitaciones = habitacionService.obtenerTodasLasHabitaciones();
-
-            // Obtener todas las reservas activas o pendientes
-            List<Reserva> reservasActivas = reservaRepository.findAll().stream()
-                    .filter(r -> (r.getEstadoReserva().equals("ACTIVA") || r.getEstadoReserva().equals("PENDIENTE")) &&
-                            r.getHabitacion() != null &&
-                            r.getFechaInicio() != null &&
-                            r.getFechaFin() != null)
-                    .toList();
-
-            // Para cada habitación, verificar si debería estar ocupada
-            for (var habitacion : todasHabitaciones) {
-                boolean deberiaEstarOcupada = reservasActivas.stream()
-                        .anyMatch(r -> r.getHabitacion().getId().equals(habitacion.getId()) &&
-                                !r.getFechaInicio().isAfter(hoy) &&
-                                !r.getFechaFin().isBefore(hoy));
-
-                String estadoActual = habitacion.getEstado();
-                String estadoEsperado = deberiaEstarOcupada ? "OCUPADA" : "DISPONIBLE";
-
-                // Solo actualizar si hay una discrepancia (y no está en mantenimiento)
-                if (!estadoActual.equals(estadoEsperado) && !"MANTENIMIENTO".equalsIgnoreCase(estadoActual)) {
-                    habitacionService.actualizarEstadoHabitacion(habitacion.getId(), estadoEsperado);
-                    logger.debug("Habitación {} sincronizada: {} -> {}",
-                            habitacion.getNumero(), estadoActual, estadoEsperado);
-                }
+            if (resumenDiarioService.requiereReconstruccion()) {
+                logger.info("Resúmenes diarios vacíos: reconstruyendo desde las reservas");
+                resumenDiarioService.reconstruir();
             }
         } catch (Exception e) {
-            logger.error("Error al sincronizar estados de habitaciones: {}", e.getMessage(), e);
+            logger.error("Error al reconstruir los resúmenes diarios: {}", e.getMessage(), e);
         }
     }
-}
 
+    public ResultadoSincronizacion getUltimaSincronizacion() {
+        return ultimaSincronizacion;
+    }
+
+    // ============== MÉTODOS PRIVADOS DE AYUDA ==============
+
+    /**
+     * Cambia de estado, por lotes, las reservas que sigan en alguno de los
+     * estados previos. Las filas se bloquean antes del UPDATE para saber
+     * exactamente cuáles cambian: solo esas llegan al índice y se devuelven.
+     */
+    private List<ReservaIntervalo> cambiarEstadoReservas(List<ReservaIntervalo> intervalos,
+            List<EstadoReserva> estadosPrevios, EstadoReserva nuevoEstado) {
+        List<ReservaIntervalo> cambiadas = new ArrayList<>();
+        for (int desde = 0; desde < intervalos.size(); desde += TAMANO_LOTE) {
+            List<ReservaIntervalo> lote = intervalos.subList(desde, Math.min(desde + TAMANO_LOTE, intervalos.size()));
+            Set<Long> ids = new HashSet<>(reservaRepository.bloquearEnEstados(
+                    lote.stream().map(ReservaIntervalo::getId).toList(), estadosPrevios));
+            if (ids.isEmpty()) {
+                continue;
+            }
+            reservaRepository.actualizarEstadoEnLote(ids, estadosPrevios, nuevoEstado);
+            resumenDiarioService.contabilizarReservas(ids);
+            lote.stream().filter(intervalo -> ids.contains(intervalo.getId())).forEach(cambiadas::add);
+        }
+        indiceDisponibilidad.actualizarEstadoReservas(cambiadas, nuevoEstado);
+        if (!cambiadas.isEmpty()) {
+            logger.debug("{} reservas cambiadas a {}", cambiadas.size(), nuevoEstado);
+        }
+        return cambiadas;
+    }
+
+    /**
+     * Una habitación debe estar OCUPADA si tiene una estancia en curso hoy
+     * (incluido el día de salida) y DISPONIBLE si no; las que están en
+     * mantenimiento no se tocan. Devuelve {ocupadas, liberadas}.
+     */
+    private int[] reconciliarHabitaciones(LocalDate hoy) {
+        return reconciliarHabitaciones(hoy, habitacionService.obtenerTodasLasHabitaciones());
+    }
+
+    private int[] reconciliarHabitaciones(LocalDate hoy, List<Habitacion> candidatas) {
+        if (candidatas.isEmpty()) {
+            return new int[] { 0, 0 };
+        }
+        Set<Long> conEstanciaEnCurso = new HashSet<>(reservaRepository.findHabitacionesConEstanciaEnCurso(hoy));
+        List<Habitacion> aOcupar = new ArrayList<>();
+        List<Habitacion> aLiberar = new ArrayList<>();
+        for (Habitacion habitacion : candidatas) {
+            EstadoHabitacion estadoActual = habitacion.getEstadoHabitacion();
+            if (estadoActual == EstadoHabitacion.MANTENIMIENTO) {
+                continue;
+            }
+            boolean deberiaEstarOcupada = conEstanciaEnCurso.contains(habitacion.getId());
+            EstadoHabitacion estadoEsperado = deberiaEstarOcupada ? EstadoHabitacion.OCUPADA : EstadoHabitacion.DISPONIBLE;
+            if (estadoEsperado != estadoActual) {
+                (deberiaEstarOcupada ? aOcupar : aLiberar).add(habitacion);
+            }
+        }
+        return new int[] {
+                habitacionService.cambiarEstadoEnLote(aOcupar, EstadoHabitacion.OCUPADA),
+                habitacionService.cambiarEstadoEnLote(aLiberar, EstadoHabitacion.DISPONIBLE)
+        };
+    }
+}
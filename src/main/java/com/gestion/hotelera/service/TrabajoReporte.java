@@ -0,0 +1,106 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoTrabajoReporte;
+import com.gestion.hotelera.enums.PrioridadReporte;
+import com.gestion.hotelera.enums.TipoReporte;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Un reporte pedido a la cola: parámetros, estado y, al terminar, su
+ * resultado o el error.
+ */
+public class TrabajoReporte {
+
+    private final String id;
+    private final ClaveReporte clave;
+    private final PrioridadReporte prioridad;
+    private final Clock reloj;
+    private final LocalDateTime creadoEn;
+    private volatile EstadoTrabajoReporte estado = EstadoTrabajoReporte.PENDIENTE;
+    private volatile LocalDateTime iniciadoEn;
+    private volatile LocalDateTime terminadoEn;
+    private volatile ResultadoReporte resultado;
+    private volatile boolean desdeCache;
+    private volatile String error;
+
+    TrabajoReporte(String id, ClaveReporte clave, PrioridadReporte prioridad, Clock reloj) {
+        this.id = id;
+        this.clave = clave;
+        this.prioridad = prioridad;
+        this.reloj = reloj;
+        this.creadoEn = LocalDateTime.now(reloj);
+    }
+
+    void iniciar() {
+        iniciadoEn = LocalDateTime.now(reloj);
+        estado = EstadoTrabajoReporte.EN_CURSO;
+    }
+
+    void completar(ResultadoReporte resultado, boolean desdeCache) {
+        this.resultado = resultado;
+        this.desdeCache = desdeCache;
+        terminadoEn = LocalDateTime.now(reloj);
+        estado = EstadoTrabajoReporte.COMPLETADO;
+    }
+
+    void fallar(String error) {
+        this.error = error;
+        terminadoEn = LocalDateTime.now(reloj);
+        estado = EstadoTrabajoReporte.FALLIDO;
+    }
+
+    ClaveReporte getClave() {
+        return clave;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public TipoReporte getTipo() {
+        return clave.tipo();
+    }
+
+    public LocalDate getFechaInicio() {
+        return clave.fechaInicio();
+    }
+
+    public LocalDate getFechaFin() {
+        return clave.fechaFin();
+    }
+
+    public PrioridadReporte getPrioridad() {
+        return prioridad;
+    }
+
+    public EstadoTrabajoReporte getEstado() {
+        return estado;
+    }
+
+    public LocalDateTime getCreadoEn() {
+        return creadoEn;
+    }
+
+    public LocalDateTime getIniciadoEn() {
+        return iniciadoEn;
+    }
+
+    public LocalDateTime getTerminadoEn() {
+        return terminadoEn;
+    }
+
+    public ResultadoReporte getResultado() {
+        return resultado;
+    }
+
+    public boolean isDesdeCache() {
+        return desdeCache;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,11 +1,20 @@
 package com.gestion.hotelera.service;
 
+import com.gestion.hotelera.repository.CredencialesUsuario;
 import com.gestion.hotelera.repository.UsuarioRepository;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+/**
+ * Carga el usuario de cada petición con una sola consulta a la tabla:
+ * nombre, contraseña, rol y estado, sin pasar por la caché de segundo nivel.
+ * La caché de este nodo no se entera de los cambios hechos en otro, así que
+ * la entidad Usuario cacheada queda solo para las lecturas que no deciden
+ * la autenticación.
+ */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
@@ -20,11 +29,20 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         if (username == null || username.trim().isEmpty()) {
             throw new UsernameNotFoundException("El nombre de usuario no puede estar vacío");
         }
+        CredencialesUsuario credenciales;
         try {
-            return usuarioRepository.findByUsername(username.trim())
-                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+            credenciales = usuarioRepository.findCredencialesByUsername(username.trim()).orElse(null);
         } catch (Exception e) {
             throw new UsernameNotFoundException("Error al buscar usuario");
         }
+        if (credenciales == null) {
+            throw new UsernameNotFoundException("Usuario no encontrado");
+        }
+        // Mismo criterio que Usuario.isEnabled: sin valor en la columna cuenta como activo
+        return User.withUsername(credenciales.getUsername())
+                .password(credenciales.getPassword())
+                .authorities(credenciales.getRol())
+                .disabled(Boolean.FALSE.equals(credenciales.getActivo()))
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.gestion.hotelera.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Al arrancar pide a la base de datos el plan (EXPLAIN) de las consultas
+ * frecuentes de reservas, auditoría, notificaciones y descuentos y avisa en
+ * el log de las que recorren una tabla completa: suele indicar que falta una
+ * migración de índices o que una consulta dejó de poder usarlos.
+ *
+ * En MySQL el optimizador puede preferir recorrer tablas pequeñas aunque
+ * exista el índice, así que un aviso con pocas filas no es preocupante.
+ */
+@Component
+public class VerificadorPlanes {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificadorPlanes.class);
+
+    /**
+     * Consulta a verificar, escrita con comillas dobles; en MySQL se cambian
+     * por acentos graves.
+     */
+    record ConsultaClave(String nombre, String sql) {
+    }
+
+    /**
+     * Plan de una consulta y si recorre alguna tabla completa.
+     */
+    public record ResultadoPlan(String consulta, boolean recorridoCompleto, String plan) {
+    }
+
+    static final List<ConsultaClave> CONSULTAS = List.of(
+            new ConsultaClave("reservas.solapamiento",
+                    "SELECT COUNT(*) FROM \"reservas\" WHERE \"habitacion_id\" = 1 "
+                            + "AND \"estado_reserva\" IN ('P', 'A') "
+                            + "AND \"fecha_inicio\" < DATE '2030-01-05' AND \"fecha_fin\" > DATE '2030-01-01'"),
+            new ConsultaClave("reservas.llegadas",
+                    "SELECT \"id\" FROM \"reservas\" WHERE \"fecha_inicio\" = DATE '2030-01-01'"),
+            new ConsultaClave("reservas.salidas",
+                    "SELECT \"id\" FROM \"reservas\" WHERE \"fecha_fin\" = DATE '2030-01-01'"),
+            new ConsultaClave("reservas.por-cliente",
+                    "SELECT \"id\" FROM \"reservas\" WHERE \"cliente_id\" = 1 "
+                            + "AND \"estado_reserva\" IN ('P', 'A')"),
+            new ConsultaClave("reservas.en-rango",
+                    "SELECT \"id\" FROM \"reservas\" WHERE \"estado_reserva\" IN ('P', 'A') "
+                            + "AND \"fecha_inicio\" < DATE '2030-02-01' AND \"fecha_fin\" > DATE '2030-01-01'"),
+            new ConsultaClave("reservas.por-estado",
+                    "SELECT COUNT(*) FROM \"reservas\" WHERE \"estado_reserva\" = 'A'"),
+            new ConsultaClave("habitaciones.por-estado",
+                    "SELECT COUNT(*) FROM \"habitaciones\" WHERE \"estado\" = 'D'"),
+            new ConsultaClave("reservas.salida-real",
+                    "SELECT COUNT(*) FROM \"reservas\" WHERE \"fecha_salida_real\" = DATE '2030-01-01'"),
+            new ConsultaClave("auditoria.periodo",
+                    "SELECT \"id\" FROM \"auditoria\" WHERE \"timestamp\" BETWEEN TIMESTAMP '2030-01-01 00:00:00' "
+                            + "AND TIMESTAMP '2030-01-31 23:59:59' ORDER BY \"timestamp\" DESC"),
+            new ConsultaClave("auditoria.empleado",
+                    "SELECT \"id\" FROM \"auditoria\" WHERE \"empleado_id\" = 1 ORDER BY \"timestamp\" DESC"),
+            new ConsultaClave("notificaciones.pendientes",
+                    "SELECT \"id\" FROM \"notificaciones\" WHERE \"leida\" = FALSE AND \"archivada\" = FALSE "
+                            + "ORDER BY \"fecha_creacion\" DESC"),
+            new ConsultaClave("notificaciones.archivadas",
+                    "SELECT \"id\" FROM \"notificaciones\" WHERE \"archivada\" = TRUE ORDER BY \"fecha_creacion\" DESC"),
+            new ConsultaClave("descuentos.vigentes",
+                    "SELECT \"id\" FROM \"descuentos\" WHERE \"activo\" = TRUE "
+                            + "AND \"fecha_inicio\" <= DATE '2030-01-01' AND \"fecha_fin\" >= DATE '2030-01-01'"),
+            new ConsultaClave("descuentos.codigo",
+                    "SELECT \"id\" FROM \"descuentos\" WHERE \"codigo\" = 'VERANO'"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MigradorEsquema migradorEsquema;
+    private final boolean habilitado;
+    private volatile List<ResultadoPlan> ultimaVerificacion = List.of();
+
+    public VerificadorPlanes(JdbcTemplate jdbcTemplate, MigradorEsquema migradorEsquema,
+            @Value("${app.migraciones.verificar-planes:true}") boolean habilitado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.migradorEsquema = migradorEsquema;
+        this.habilitado = habilitado;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificarAlArrancar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            long recorridos = verificar().stream().filter(ResultadoPlan::recorridoCompleto).count();
+            logger.info("Planes de {} consultas frecuentes verificados; {} recorren una tabla completa",
+                    CONSULTAS.size(), recorridos);
+        } catch (DataAccessException e) {
+            logger.warn("No se pudieron verificar los planes de las consultas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el plan de cada consulta frecuente y avisa de los recorridos completos.
+     */
+    public List<ResultadoPlan> verificar() {
+        String proveedor = migradorEsquema.getProveedor();
+        if (proveedor == null) {
+            return List.of();
+        }
+        List<ResultadoPlan> resultados = new ArrayList<>(CONSULTAS.size());
+        for (ConsultaClave consulta : CONSULTAS) {
+            ResultadoPlan resultado = "mysql".equals(proveedor)
+                    ? planMysql(consulta.nombre(), consulta.sql().replace('"', '`'))
+                    : planH2(consulta.nombre(), consulta.sql());
+            if (resultado.recorridoCompleto()) {
+                logger.warn("La consulta {} recorre una tabla completa: {}", resultado.consulta(), resultado.plan());
+            }
+            resultados.add(resultado);
+        }
+        ultimaVerificacion = List.copyOf(resultados);
+        return ultimaVerificacion;
+    }
+
+    public List<ResultadoPlan> getUltimaVerificacion() {
+        return ultimaVerificacion;
+    }
+
+    private ResultadoPlan planH2(String nombre, String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        return new ResultadoPlan(nombre, plan != null && plan.contains(".tableScan"), plan);
+    }
+
+    /**
+     * En MySQL cada fila del EXPLAIN es una tabla; type ALL es un recorrido completo.
+     */
+    private ResultadoPlan planMysql(String nombre, String sql) {
+        List<Map<String, Object>> filas = jdbcTemplate.queryForList("EXPLAIN " + sql);
+        boolean completo = filas.stream().anyMatch(fila -> "ALL".equalsIgnoreCase(String.valueOf(fila.get("type"))));
+        return new ResultadoPlan(nombre, completo, filas.toString());
+    }
+}
@@ -0,0 +1,16 @@
+-- Índices de las consultas frecuentes de ReservaRepository.
+-- (estado_reserva, fecha_inicio) y (estado_reserva, fecha_fin) ya los declara la entidad Reserva.
+
+-- Solapamiento de estancias por habitación (existeReservaEnRangoFechas, findReservasConflictivas, findByHabitacion)
+CREATE INDEX "idx_reservas_habitacion_estado_fechas"
+    ON "reservas" ("habitacion_id", "estado_reserva", "fecha_inicio", "fecha_fin");
+
+-- Llegadas y salidas de un día, en cualquier estado o filtrando después por estado
+CREATE INDEX "idx_reservas_fecha_inicio_estado" ON "reservas" ("fecha_inicio", "estado_reserva");
+CREATE INDEX "idx_reservas_fecha_fin_estado" ON "reservas" ("fecha_fin", "estado_reserva");
+
+-- Reservas de un cliente por estado (findByClienteAndEstadoReserva, existsByClienteAndEstadoReservaIn)
+CREATE INDEX "idx_reservas_cliente_estado" ON "reservas" ("cliente_id", "estado_reserva");
+
+-- Salidas reales (countByFechaSalidaReal, findByEstadoReservaAndFechaSalidaRealBetween)
+CREATE INDEX "idx_reservas_salida_real_estado" ON "reservas" ("fecha_salida_real", "estado_reserva");
@@ -0,0 +1,26 @@
+-- Estados de reservas y habitaciones guardados como código de una letra
+-- (EstadoReservaConverter, EstadoHabitacionConverter). Los valores antiguos
+-- se guardaban como texto libre, así que se normalizan sin distinguir
+-- mayúsculas; si queda alguno desconocido el cambio de tipo falla y hay que
+-- corregirlo a mano antes de reintentar.
+
+UPDATE "reservas" SET "estado_reserva" = CASE UPPER(TRIM("estado_reserva"))
+        WHEN 'PENDIENTE' THEN 'P'
+        WHEN 'ACTIVA' THEN 'A'
+        WHEN 'FINALIZADA' THEN 'F'
+        WHEN 'CANCELADA' THEN 'C'
+        ELSE "estado_reserva" END
+    WHERE CHAR_LENGTH("estado_reserva") > 1;
+
+UPDATE "habitaciones" SET "estado" = CASE UPPER(TRIM("estado"))
+        WHEN 'DISPONIBLE' THEN 'D'
+        WHEN 'OCUPADA' THEN 'O'
+        WHEN 'MANTENIMIENTO' THEN 'M'
+        ELSE "estado" END
+    WHERE CHAR_LENGTH("estado") > 1;
+
+ALTER TABLE "reservas" ALTER COLUMN "estado_reserva" SET DATA TYPE CHAR(1);
+ALTER TABLE "habitaciones" ALTER COLUMN "estado" SET DATA TYPE CHAR(1);
+
+-- Conteos y listados de habitaciones por estado (countByEstado, findByEstado)
+CREATE INDEX "idx_habitaciones_estado" ON "habitaciones" ("estado");
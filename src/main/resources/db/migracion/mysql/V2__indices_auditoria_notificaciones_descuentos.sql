@@ -0,0 +1,16 @@
+-- Índices de AuditoriaRepository, NotificacionRepository y DescuentoRepository.
+-- Las búsquedas por texto (LIKE '%...%') no pueden usar un índice B-tree y quedan fuera.
+
+-- Auditoría por periodo y listado ordenado por fecha
+CREATE INDEX `idx_auditoria_timestamp` ON `auditoria` (`timestamp`);
+-- Auditoría de un empleado (findByEmpleadoDni), ordenada por fecha
+CREATE INDEX `idx_auditoria_empleado_timestamp` ON `auditoria` (`empleado_id`, `timestamp`);
+
+-- Notificaciones pendientes, archivadas y listado completo, siempre por fecha de creación
+CREATE INDEX `idx_notificaciones_leida_archivada_fecha`
+    ON `notificaciones` (`leida`, `archivada`, `fecha_creacion`);
+CREATE INDEX `idx_notificaciones_archivada_fecha` ON `notificaciones` (`archivada`, `fecha_creacion`);
+CREATE INDEX `idx_notificaciones_fecha` ON `notificaciones` (`fecha_creacion`);
+
+-- Descuentos vigentes (findByActivoTrue, findDescuentosValidos, findDescuentosActivos); codigo ya es único
+CREATE INDEX `idx_descuentos_activo_vigencia` ON `descuentos` (`activo`, `fecha_inicio`, `fecha_fin`);
@@ -0,0 +1,27 @@
+-- Estados de reservas y habitaciones guardados como código de una letra
+-- (EstadoReservaConverter, EstadoHabitacionConverter). Los valores antiguos
+-- se guardaban como texto libre, así que se normalizan sin distinguir
+-- mayúsculas; si queda alguno desconocido el cambio de tipo falla y hay que
+-- corregirlo a mano antes de reintentar. Con CHAR(1) ASCII cada entrada de
+-- los índices por estado ocupa un byte en lugar de los 80 de VARCHAR(20).
+
+UPDATE `reservas` SET `estado_reserva` = CASE UPPER(TRIM(`estado_reserva`))
+        WHEN 'PENDIENTE' THEN 'P'
+        WHEN 'ACTIVA' THEN 'A'
+        WHEN 'FINALIZADA' THEN 'F'
+        WHEN 'CANCELADA' THEN 'C'
+        ELSE `estado_reserva` END
+    WHERE CHAR_LENGTH(`estado_reserva`) > 1;
+
+UPDATE `habitaciones` SET `estado` = CASE UPPER(TRIM(`estado`))
+        WHEN 'DISPONIBLE' THEN 'D'
+        WHEN 'OCUPADA' THEN 'O'
+        WHEN 'MANTENIMIENTO' THEN 'M'
+        ELSE `estado` END
+    WHERE CHAR_LENGTH(`estado`) > 1;
+
+ALTER TABLE `reservas` MODIFY `estado_reserva` CHAR(1) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+ALTER TABLE `habitaciones` MODIFY `estado` CHAR(1) CHARACTER SET ascii COLLATE ascii_bin NOT NULL;
+
+-- Conteos y listados de habitaciones por estado (countByEstado, findByEstado)
+CREATE INDEX `idx_habitaciones_estado` ON `habitaciones` (`estado`);
@@ -0,0 +1,27 @@
+-- Las tablas con más altas dejan AUTO_INCREMENT y toman los IDs de una
+-- secuencia en bloques de 50 (@SequenceGenerator con allocationSize = 50)
+-- para que Hibernate pueda agrupar los INSERT. MySQL no tiene secuencias:
+-- Hibernate las emula con una tabla <tabla>_seq de una fila (next_val) que
+-- crea ddl-auto. Aquí se adelanta cada una por encima del mayor ID ya
+-- asignado: el optimizador pooled reparte los IDs next_val - 49 .. next_val.
+
+INSERT INTO `auditoria_seq` (`next_val`) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM `auditoria_seq`);
+UPDATE `auditoria_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `auditoria`);
+
+INSERT INTO `reservas_seq` (`next_val`) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM `reservas_seq`);
+UPDATE `reservas_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `reservas`);
+
+INSERT INTO `pagos_seq` (`next_val`) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM `pagos_seq`);
+UPDATE `pagos_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `pagos`);
+
+INSERT INTO `notificaciones_seq` (`next_val`) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM `notificaciones_seq`);
+UPDATE `notificaciones_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `notificaciones`);
+
+INSERT INTO `correos_salientes_seq` (`next_val`) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM `correos_salientes_seq`);
+UPDATE `correos_salientes_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `correos_salientes`);
+
+INSERT INTO `ejecuciones_tareas_seq` (`next_val`) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM `ejecuciones_tareas_seq`);
+UPDATE `ejecuciones_tareas_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `ejecuciones_tareas`);
+
+INSERT INTO `resumenes_diarios_seq` (`next_val`) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM `resumenes_diarios_seq`);
+UPDATE `resumenes_diarios_seq` SET `next_val` = (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `resumenes_diarios`);
@@ -0,0 +1,127 @@
+// Actualización en vivo del panel de recepción y del dashboard (server-sent events).
+// Marcado que se actualiza:
+//   data-contador="nombre"            texto con el valor del contador (data-prefijo opcional)
+//   data-reserva-id / data-reserva-estado
+//                                     estado de una reserva; con data-quitar-si-no-es="ESTADO"
+//                                     la fila se retira cuando la reserva deja ese estado
+//   data-habitacion-id                tarjeta de habitación; cambia de color según su estado
+//   data-actividad                    contenedor de la actividad reciente
+//   data-actualizado                  texto con la hora de los últimos contadores
+const PanelEnVivo = (() => {
+  const COLORES_HABITACION = {
+    DISPONIBLE: ["border-green-500/50", "bg-green-500/10", "text-green-300"],
+    OCUPADA: ["border-red-500/50", "bg-red-500/10", "text-red-300"],
+    LIMPIEZA: ["border-orange-500/50", "bg-orange-500/10", "text-orange-300"],
+    MANTENIMIENTO: ["border-blue-500/50", "bg-blue-500/10", "text-blue-300"],
+  };
+  const TODOS_LOS_COLORES = Object.values(COLORES_HABITACION).flat();
+  const ACTIVIDAD_MAXIMA = 5;
+
+  function leer(evento) {
+    try {
+      return JSON.parse(evento.data);
+    } catch (e) {
+      return null;
+    }
+  }
+
+  function actualizarContadores(contadores) {
+    Object.entries(contadores).forEach(([nombre, valor]) => {
+      document.querySelectorAll(`[data-contador="${nombre}"]`).forEach((el) => {
+        el.textContent = (el.dataset.prefijo || "") + valor + (el.dataset.sufijo || "");
+      });
+    });
+    document.querySelectorAll("[data-actualizado]").forEach((el) => {
+      el.textContent = "Datos actualizados a las " + new Date().toLocaleTimeString();
+    });
+  }
+
+  function actualizarReservas(reservas) {
+    reservas.forEach((reserva) => {
+      document.querySelectorAll(`[data-reserva-id="${reserva.id}"]`).forEach((el) => {
+        const esperado = el.dataset.quitarSiNoEs;
+        if (esperado && reserva.estado !== esperado) {
+          el.remove();
+          return;
+        }
+        el.querySelectorAll("[data-reserva-estado]").forEach((estado) => {
+          estado.textContent = reserva.estado || "ELIMINADA";
+        });
+      });
+    });
+  }
+
+  function actualizarHabitaciones(habitaciones) {
+    habitaciones.forEach((habitacion) => {
+      const colores = COLORES_HABITACION[habitacion.estado] || COLORES_HABITACION.MANTENIMIENTO;
+      document.querySelectorAll(`[data-habitacion-id="${habitacion.id}"]`).forEach((tarjeta) => {
+        tarjeta.classList.remove(...TODOS_LOS_COLORES);
+        tarjeta.classList.add(colores[0], colores[1]);
+        tarjeta.querySelectorAll("[data-habitacion-etiqueta]").forEach((etiqueta) => {
+          etiqueta.classList.remove(...TODOS_LOS_COLORES);
+          etiqueta.classList.add(colores[2]);
+        });
+      });
+    });
+  }
+
+  function agregarActividad(actividad) {
+    const contenedor = document.querySelector("[data-actividad]");
+    if (!contenedor) return;
+    const estilos = {
+      RESERVA: ["bg-primary/20 text-primary", "book_online"],
+      CHECKIN: ["bg-green-500/20 text-green-400", "check_circle"],
+    };
+    const [clases, icono] = estilos[actividad.tipo] || ["bg-red-500/20 text-red-400", "cancel"];
+    const fila = document.createElement("div");
+    fila.className = "flex items-start gap-4";
+    fila.innerHTML = `
+      <div class="flex size-8 items-center justify-center rounded-full ${clases}">
+        <span class="material-symbols-outlined" style="font-size: 18px"></span>
+      </div>
+      <div class="flex-1">
+        <p class="text-sm font-medium text-text-light"></p>
+        <p class="text-sm text-text-dark"></p>
+        <p class="text-xs text-text-dark/70"></p>
+      </div>`;
+    fila.querySelector(".material-symbols-outlined").textContent = icono;
+    const textos = fila.querySelectorAll("p");
+    textos[0].textContent = actividad.titulo;
+    textos[1].textContent = actividad.descripcion;
+    textos[2].textContent = actividad.tiempo;
+    contenedor.prepend(fila);
+    while (contenedor.children.length > ACTIVIDAD_MAXIMA) {
+      contenedor.lastElementChild.remove();
+    }
+  }
+
+  function conectar(url) {
+    if (!window.EventSource) return;
+    const fuente = new EventSource(url);
+    fuente.addEventListener("contadores", (e) => {
+      const datos = leer(e);
+      if (datos) actualizarContadores(datos);
+    });
+    fuente.addEventListener("reservas", (e) => {
+      const datos = leer(e);
+      if (datos) actualizarReservas(datos);
+    });
+    fuente.addEventListener("habitaciones", (e) => {
+      const datos = leer(e);
+      if (datos) actualizarHabitaciones(datos);
+    });
+    fuente.addEventListener("actividad", (e) => {
+      const datos = leer(e);
+      if (datos) agregarActividad(datos);
+    });
+    fuente.onerror = () => {
+      // El navegador reintenta solo salvo que el servidor rechace la conexión
+      if (fuente.readyState === EventSource.CLOSED) {
+        setTimeout(() => conectar(url), 15000);
+      }
+    };
+    return fuente;
+  }
+
+  return { conectar };
+})();
@@ -0,0 +1,77 @@
+package com.gestion.hotelera.actuator;
+
+import com.gestion.hotelera.service.ReservaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latencias del camino crítico y de los repositorios, y su resumen en
+ * /actuator/hotelperf.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Medición de operaciones del camino crítico")
+class RendimientoEndpointTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RendimientoEndpoint rendimientoEndpoint;
+
+    @Test
+    @DisplayName("Debería medir operaciones y repositorios con resultado, tipo de error y percentiles")
+    void deberiaMedirOperacionesYRepositorios() {
+        long errores = llamadas("reserva.checkin", "error", "IllegalArgumentException");
+
+        assertThrows(IllegalArgumentException.class, () -> reservaService.realizarCheckIn(-1L));
+
+        assertEquals(errores + 1, llamadas("reserva.checkin", "error", "IllegalArgumentException"));
+        Timer checkIn = meterRegistry.get("hotel.operacion").tag("operacion", "reserva.checkin").timer();
+        assertEquals(2, checkIn.takeSnapshot().percentileValues().length);
+        Timer findById = meterRegistry.get(RendimientoEndpoint.REPOSITORIOS)
+                .tag("repository", "ReservaRepository").tag("method", "findById").timer();
+        assertTrue(findById.count() > 0);
+
+        Map<String, Object> resumen = rendimientoEndpoint.rendimiento(1_000);
+        List<Map<String, Object>> operaciones = filas(resumen, "operaciones");
+        Map<String, Object> fila = operaciones.stream()
+                .filter(o -> "reserva.checkin".equals(o.get("operacion")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("error", fila.get("resultado"));
+        assertEquals("IllegalArgumentException", fila.get("error"));
+        assertTrue((double) fila.get("p99Ms") >= 0);
+        assertTrue(filas(resumen, "repositorios").stream()
+                .anyMatch(r -> "ReservaRepository.findById".equals(r.get("operacion"))));
+        for (int i = 1; i < operaciones.size(); i++) {
+            assertTrue((double) operaciones.get(i - 1).get("p99Ms") >= (double) operaciones.get(i).get("p99Ms"));
+        }
+        assertEquals(1, filas(rendimientoEndpoint.rendimiento(1), "repositorios").size());
+    }
+
+    private long llamadas(String operacion, String resultado, String error) {
+        Timer timer = meterRegistry.find("hotel.operacion")
+                .tags("operacion", operacion, "resultado", resultado, "error", error)
+                .timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> filas(Map<String, Object> resumen, String clave) {
+        return (List<Map<String, Object>>) resumen.get(clave);
+    }
+}
@@ -0,0 +1,73 @@
+package com.gestion.hotelera.aspect;
+
+import com.gestion.hotelera.service.CoordinadorTareas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TareaExclusivaAspectTest {
+
+    @Mock
+    private CoordinadorTareas coordinadorTareas;
+
+    private Tareas tareas;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory fabrica = new AspectJProxyFactory(new Tareas());
+        fabrica.addAspect(new TareaExclusivaAspect(coordinadorTareas));
+        tareas = fabrica.getProxy();
+    }
+
+    @Test
+    void deberiaDevolverElValorPorDefectoSiOtroNodoTieneElLease() throws Throwable {
+        when(coordinadorTareas.ejecutar(anyString(), any(), any())).thenAnswer(inv -> inv.getArgument(2));
+
+        assertEquals(0L, tareas.contar());
+        assertFalse(tareas.comprobar());
+        assertNull(tareas.describir());
+    }
+
+    @Test
+    void deberiaPropagarLosErroresSalvoEnLasTareasProgramadas() throws Throwable {
+        when(coordinadorTareas.ejecutar(anyString(), any(), any())).thenAnswer(inv ->
+                inv.<CoordinadorTareas.Tarea<?>>getArgument(1).ejecutar());
+
+        assertThrows(IllegalStateException.class, () -> tareas.comprobar());
+        assertEquals(0, tareas.programada());
+    }
+
+    static class Tareas {
+
+        @TareaExclusiva("contar")
+        public long contar() {
+            return 5L;
+        }
+
+        @TareaExclusiva("comprobar")
+        public boolean comprobar() {
+            throw new IllegalStateException("fallo");
+        }
+
+        @TareaExclusiva("describir")
+        public String describir() {
+            return "hecho";
+        }
+
+        @Scheduled(fixedDelay = 1000)
+        @TareaExclusiva("programada")
+        public int programada() {
+            throw new IllegalStateException("fallo");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.gestion.hotelera.benchmark;
+
+import com.gestion.hotelera.HoteleraApplication;
+import com.gestion.hotelera.model.Auditoria;
+import com.gestion.hotelera.repository.AuditoriaRepository;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserciones por segundo de 100.000 registros de auditoría en una
+ * transacción, antes y después de pasar Auditoria a IDs de secuencia:
+ * <ul>
+ * <li>antes: IDs IDENTITY (sobrescritos con benchmark/auditoria-identidad.xml)
+ * y saveAll; Hibernate inserta fila a fila para leer cada ID generado.</li>
+ * <li>despues: secuencia con bloques de 50 y guardarEnLote; los INSERT van
+ * en lotes JDBC de hibernate.jdbc.batch_size.</li>
+ * </ul>
+ * H2 se usa a través de un servidor TCP local para que cada sentencia pague
+ * un viaje de ida y vuelta, como contra un servidor real; en memoria dentro
+ * del mismo proceso las dos variantes cuestan casi lo mismo. Aun así el
+ * cliente de H2 envía las filas de un lote una a una, así que la ganancia
+ * de rewriteBatchedStatements solo se ve contra MySQL. La base
+ * "mysql" es H2 en modo MySQL con el dialecto de MySQL, así que las
+ * secuencias se emulan con la tabla auditoria_seq como en producción. Con
+ * la variable BENCHMARK_MYSQL_URL se usa en su lugar un MySQL real; la base
+ * indicada se borra y se vuelve a crear, y la URL debería llevar
+ * rewriteBatchedStatements=true.
+ *
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=AuditoriaInsercionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(AuditoriaInsercionBenchmark.FILAS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AuditoriaInsercionBenchmark {
+
+    static final int FILAS = 100_000;
+
+    @Param({ "h2", "mysql" })
+    public String base;
+
+    @Param({ "antes", "despues" })
+    public String ids;
+
+    private Server servidorH2;
+    private ConfigurableApplicationContext contexto;
+    private AuditoriaRepository auditoriaRepository;
+    private TransactionTemplate transaccion;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        List<String> propiedades = new ArrayList<>(List.of("server.port=0", "logging.level.root=WARN",
+                "app.migraciones.verificar-planes=false"));
+        String mysql = System.getenv("BENCHMARK_MYSQL_URL");
+        if ("mysql".equals(base) && mysql != null && !mysql.isBlank()) {
+            propiedades.addAll(List.of("spring.datasource.url=" + mysql,
+                    "spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver",
+                    "spring.datasource.username=" + System.getenv().getOrDefault("BENCHMARK_MYSQL_USER", "root"),
+                    "spring.datasource.password=" + System.getenv().getOrDefault("BENCHMARK_MYSQL_PASSWORD", ""),
+                    "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect"));
+        } else {
+            servidorH2 = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            String url = "jdbc:h2:tcp://localhost:" + servidorH2.getPort() + "/mem:auditoria-" + base + "-" + ids;
+            if ("h2".equals(base)) {
+                propiedades.add("spring.datasource.url=" + url + ";DB_CLOSE_DELAY=-1");
+            } else {
+                propiedades.addAll(List.of(
+                        "spring.datasource.url=" + url + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect"));
+            }
+        }
+        if ("antes".equals(ids)) {
+            propiedades.add("spring.jpa.mapping-resources=benchmark/auditoria-identidad.xml");
+        }
+        contexto = new SpringApplicationBuilder(HoteleraApplication.class)
+                .profiles("test")
+                .properties(propiedades.toArray(String[]::new))
+                .run();
+        auditoriaRepository = contexto.getBean(AuditoriaRepository.class);
+        transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+    }
+
+    @Setup(Level.Iteration)
+    public void vaciar() {
+        auditoriaRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+        if (servidorH2 != null) {
+            servidorH2.stop();
+        }
+    }
+
+    @Benchmark
+    public int insertar() {
+        List<Auditoria> registros = new ArrayList<>(FILAS);
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < FILAS; i++) {
+            registros.add(new Auditoria(ahora, null, "BENCHMARK", "Registro de prueba " + i, "Reserva", (long) i));
+        }
+        List<Auditoria> guardados = "antes".equals(ids)
+                ? transaccion.execute(estado -> auditoriaRepository.saveAll(registros))
+                : auditoriaRepository.guardarEnLote(registros);
+        return guardados.size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(AuditoriaInsercionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,165 @@
+package com.gestion.hotelera.benchmark;
+
+import com.gestion.hotelera.HoteleraApplication;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import com.gestion.hotelera.service.EstanciaReservada;
+import com.gestion.hotelera.service.IndiceDisponibilidad;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la detección de conflictos de reservas con las consultas JPQL
+ * (existeReservaEnRangoFechas + findReservasConflictivas) frente al árbol de
+ * intervalos del índice de disponibilidad.
+ *
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConflictoReservaBenchmark {
+
+    private static final int HABITACIONES = 100;
+    private static final int NOCHES_POR_ESTANCIA = 3;
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2020, 1, 1);
+
+    @Param({ "1000", "100000", "1000000" })
+    public int reservas;
+
+    private ConfigurableApplicationContext contexto;
+    private ReservaRepository reservaRepository;
+    private IndiceDisponibilidad indice;
+    private long[] habitacionIds;
+    private int estanciasPorHabitacion;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(HoteleraApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark" + reservas + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        reservaRepository = contexto.getBean(ReservaRepository.class);
+        indice = contexto.getBean(IndiceDisponibilidad.class);
+
+        Cliente cliente = new Cliente();
+        cliente.setNombres("Benchmark");
+        cliente.setApellidos("Reservas");
+        cliente.setDni("99999999");
+        Long clienteId = contexto.getBean(ClienteRepository.class).save(cliente).getId();
+
+        HabitacionRepository habitacionRepository = contexto.getBean(HabitacionRepository.class);
+        habitacionIds = new long[HABITACIONES];
+        for (int i = 0; i < HABITACIONES; i++) {
+            habitacionIds[i] = habitacionRepository
+                    .save(new Habitacion("B" + (1000 + i), "Doble", 80.0, "DISPONIBLE")).getId();
+        }
+
+        estanciasPorHabitacion = Math.max(1, reservas / HABITACIONES);
+        insertarReservas(contexto.getBean(JdbcTemplate.class), clienteId);
+        indice.reconstruir();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Optional<String> conflictoConJpql() {
+        long habitacionId = habitacionAleatoria();
+        LocalDate inicio = diaOcupadoAleatorio();
+        LocalDate fin = inicio.plusDays(2);
+        if (!reservaRepository.existeReservaEnRangoFechas(habitacionId, inicio, fin, null)) {
+            return Optional.empty();
+        }
+        return reservaRepository.findReservasConflictivas(habitacionId, inicio, fin, null).stream()
+                .findFirst()
+                .map(r -> r.getFechaInicio() + " " + r.getEstadoReserva());
+    }
+
+    @Benchmark
+    public Optional<String> conflictoConIndice() {
+        long habitacionId = habitacionAleatoria();
+        LocalDate inicio = diaOcupadoAleatorio();
+        return indice.buscarConflicto(habitacionId, inicio, inicio.plusDays(2), null)
+                .map(e -> e.fechaInicio() + " " + e.estadoReserva());
+    }
+
+    @Benchmark
+    public boolean sinConflictoConJpql() {
+        LocalDate inicio = diaLibreAleatorio();
+        return reservaRepository.existeReservaEnRangoFechas(habitacionAleatoria(), inicio, inicio.plusDays(1), null);
+    }
+
+    @Benchmark
+    public Optional<EstanciaReservada> sinConflictoConIndice() {
+        LocalDate inicio = diaLibreAleatorio();
+        return indice.buscarConflicto(habitacionAleatoria(), inicio, inicio.plusDays(1), null);
+    }
+
+    private void insertarReservas(JdbcTemplate jdbc, Long clienteId) {
+        String sql = "INSERT INTO \"reservas\" (\"id\", \"cliente_id\", \"habitacion_id\", \"fecha_inicio\", "
+                + "\"fecha_fin\", \"hora_entrada\", \"hora_salida\", \"dias_estadia\", \"total_pagar\", "
+                + "\"estado_reserva\", \"monto_descuento\") "
+                + "VALUES (NEXT VALUE FOR \"reservas_seq\", ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < reservas; i++) {
+            long habitacionId = habitacionIds[i % HABITACIONES];
+            LocalDate inicio = PRIMER_DIA.plusDays((long) (i / HABITACIONES) * NOCHES_POR_ESTANCIA);
+            lote.add(new Object[] { clienteId, habitacionId, Date.valueOf(inicio),
+                    Date.valueOf(inicio.plusDays(NOCHES_POR_ESTANCIA - 1)), Time.valueOf(LocalTime.of(14, 0)),
+                    Time.valueOf(LocalTime.of(12, 0)), NOCHES_POR_ESTANCIA - 1, 160.0,
+                    (i % 2 == 0 ? EstadoReserva.PENDIENTE : EstadoReserva.ACTIVA).getCodigo(), 0.0 });
+            if (lote.size() == 5_000) {
+                jdbc.batchUpdate(sql, lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            jdbc.batchUpdate(sql, lote);
+        }
+    }
+
+    private long habitacionAleatoria() {
+        return habitacionIds[ThreadLocalRandom.current().nextInt(HABITACIONES)];
+    }
+
+    private LocalDate diaOcupadoAleatorio() {
+        int estancia = ThreadLocalRandom.current().nextInt(estanciasPorHabitacion);
+        return PRIMER_DIA.plusDays((long) estancia * NOCHES_POR_ESTANCIA);
+    }
+
+    /** Último día de cada bloque: la estancia termina antes y la siguiente empieza después. */
+    private LocalDate diaLibreAleatorio() {
+        int estancia = ThreadLocalRandom.current().nextInt(estanciasPorHabitacion);
+        return PRIMER_DIA.plusDays((long) estancia * NOCHES_POR_ESTANCIA + NOCHES_POR_ESTANCIA - 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ConflictoReservaBenchmark.class.getSimpleName()).build()).run();
+    }
+}
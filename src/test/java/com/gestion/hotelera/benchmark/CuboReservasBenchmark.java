@@ -0,0 +1,112 @@
+package com.gestion.hotelera.benchmark;
+
+import com.gestion.hotelera.enums.DimensionCubo;
+import com.gestion.hotelera.service.ConsultaCubo;
+import com.gestion.hotelera.service.CuboColumnar;
+import com.gestion.hotelera.service.ResultadoCubo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas típicas del análisis multidimensional sobre el cubo columnar con
+ * millones de reservas sintéticas: agrupar por tipo y mes en un año con
+ * filtro de canal, y agrupar por tipo, mes, nacionalidad y descuento sin
+ * filtros (decenas de miles de combinaciones, agregadas en tabla hash). Incluye
+ * también el coste de aplicar un lote de cambios incrementales.
+ *
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CuboReservasBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CuboReservasBenchmark {
+
+    private static final String[] TIPOS = { "Simple", "Doble", "Matrimonial", "Suite", "Familiar" };
+    private static final String[] METODOS = { "TARJETA", "EFECTIVO", "YAPE", "PLIN", "TRANSFERENCIA" };
+    private static final String[] CANALES = { "WEB", "MOSTRADOR", "TELEFONO", "AGENCIA" };
+    private static final String[] ESTADOS = { "ACTIVA", "FINALIZADA", "CANCELADA", "PENDIENTE" };
+    private static final String[] NACIONALIDADES = { "Peruana", "Chilena", "Argentina", "Colombiana",
+            "Ecuatoriana", "Boliviana", "Brasileña", "Mexicana", "Española", "Estadounidense" };
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2020, 1, 1);
+
+    @Param({ "1000000", "5000000" })
+    public int reservas;
+
+    private CuboColumnar cubo;
+    private ForkJoinPool pool;
+    private Random aleatorio;
+    private ConsultaCubo porTipoYMes;
+    private ConsultaCubo muchasCombinaciones;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        aleatorio = new Random(7);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        cubo = new CuboColumnar();
+        for (long id = 1; id <= reservas; id++) {
+            cubo.guardar(fila(id));
+        }
+        Map<String, Long> habitaciones = Map.of("Simple", 40L, "Doble", 40L, "Matrimonial", 30L,
+                "Suite", 10L, "Familiar", 20L);
+        porTipoYMes = new ConsultaCubo(List.of(DimensionCubo.TIPO_HABITACION, DimensionCubo.MES),
+                Map.of(DimensionCubo.CANAL, Set.of("WEB", "AGENCIA"),
+                        DimensionCubo.ESTADO, Set.of("ACTIVA", "FINALIZADA")),
+                LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), habitaciones);
+        muchasCombinaciones = new ConsultaCubo(List.of(DimensionCubo.TIPO_HABITACION, DimensionCubo.MES,
+                DimensionCubo.NACIONALIDAD, DimensionCubo.DESCUENTO), Map.of(), null, null, habitaciones);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public ResultadoCubo tipoYMesConFiltros() {
+        return cubo.consultar(porTipoYMes, pool);
+    }
+
+    @Benchmark
+    public ResultadoCubo muchasCombinaciones() {
+        return cubo.consultar(muchasCombinaciones, pool);
+    }
+
+    /**
+     * Lote de 500 reservas modificadas, como el refresco incremental.
+     */
+    @Benchmark
+    public int refrescoIncremental() {
+        for (int i = 0; i < 500; i++) {
+            cubo.guardar(fila(1 + aleatorio.nextInt(reservas)));
+        }
+        return cubo.getReservas();
+    }
+
+    private CuboColumnar.Fila fila(long id) {
+        LocalDate inicio = PRIMER_DIA.plusDays(aleatorio.nextInt(6 * 365));
+        return new CuboColumnar.Fila(id, elegir(TIPOS), inicio, inicio.plusDays(1 + aleatorio.nextInt(7)),
+                elegir(ESTADOS), elegir(METODOS), elegir(CANALES),
+                aleatorio.nextInt(5) == 0 ? "PROMO" + aleatorio.nextInt(20) : null, elegir(NACIONALIDADES),
+                50 + aleatorio.nextInt(150_000) / 100.0);
+    }
+
+    private String elegir(String[] valores) {
+        return valores[aleatorio.nextInt(valores.length)];
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CuboReservasBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+package com.gestion.hotelera.benchmark;
+
+import com.gestion.hotelera.HoteleraApplication;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.IndicadoresReporte;
+import com.gestion.hotelera.repository.ReservaRepository;
+import com.gestion.hotelera.service.ReporteService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara los KPIs de la pantalla de reportes calculados como antes (todas
+ * las reservas cargadas y filtradas en memoria) frente a la consulta de
+ * agregación de ReporteReservaRepository, para una ventana de 30 días.
+ *
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=IndicadoresReporteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class IndicadoresReporteBenchmark {
+
+    private static final int HABITACIONES = 100;
+    private static final int NOCHES_POR_ESTANCIA = 3;
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2020, 1, 1);
+    private static final EstadoReserva[] ESTADOS = { EstadoReserva.PENDIENTE, EstadoReserva.ACTIVA,
+            EstadoReserva.FINALIZADA, EstadoReserva.CANCELADA };
+
+    @Param({ "10000", "500000" })
+    public int reservas;
+
+    private ConfigurableApplicationContext contexto;
+    private ReservaRepository reservaRepository;
+    private HabitacionRepository habitacionRepository;
+    private ReporteService reporteService;
+    private LocalDate inicio;
+    private LocalDate fin;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(HoteleraApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:reportes" + reservas + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        reservaRepository = contexto.getBean(ReservaRepository.class);
+        habitacionRepository = contexto.getBean(HabitacionRepository.class);
+        reporteService = contexto.getBean(ReporteService.class);
+
+        Cliente cliente = new Cliente();
+        cliente.setNombres("Benchmark");
+        cliente.setApellidos("Reportes");
+        cliente.setDni("99999998");
+        Long clienteId = contexto.getBean(ClienteRepository.class).save(cliente).getId();
+
+        long[] habitacionIds = new long[HABITACIONES];
+        for (int i = 0; i < HABITACIONES; i++) {
+            habitacionIds[i] = habitacionRepository
+                    .save(new Habitacion("R" + (1000 + i), "Doble", 80.0, "DISPONIBLE")).getId();
+        }
+        insertarReservas(contexto.getBean(JdbcTemplate.class), clienteId, habitacionIds);
+
+        // Ventana de 30 días a mitad del histórico
+        int bloques = Math.max(1, reservas / HABITACIONES);
+        inicio = PRIMER_DIA.plusDays((long) (bloques / 2) * NOCHES_POR_ESTANCIA);
+        fin = inicio.plusDays(30);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public double[] indicadoresEnMemoria() {
+        List<Reserva> enPeriodo = reservaRepository.findAll().stream()
+                .filter(r -> !r.getFechaInicio().isBefore(inicio) && !r.getFechaFin().isAfter(fin))
+                .toList();
+        double ingresos = enPeriodo.stream()
+                .filter(r -> "FINALIZADA".equals(r.getEstadoReserva()) || "ACTIVA".equals(r.getEstadoReserva()))
+                .mapToDouble(Reserva::getTotalPagar)
+                .sum();
+        long ocupadas = enPeriodo.stream()
+                .filter(r -> "ACTIVA".equals(r.getEstadoReserva()))
+                .map(Reserva::getHabitacion)
+                .distinct()
+                .count();
+        long finalizadas = enPeriodo.stream().filter(r -> "FINALIZADA".equals(r.getEstadoReserva())).count();
+        long total = habitacionRepository.count();
+        return new double[] { ingresos, total > 0 ? (double) ocupadas / total * 100 : 0.0,
+                finalizadas > 0 ? ingresos / finalizadas : 0.0 };
+    }
+
+    @Benchmark
+    public double[] indicadoresEnSql() {
+        IndicadoresReporte indicadores = reporteService.calcularIndicadores(inicio, fin);
+        return new double[] { indicadores.getIngresos(), indicadores.getTasaOcupacion(), indicadores.getAdr() };
+    }
+
+    private void insertarReservas(JdbcTemplate jdbc, Long clienteId, long[] habitacionIds) {
+        String sql = "INSERT INTO \"reservas\" (\"id\", \"cliente_id\", \"habitacion_id\", \"fecha_inicio\", "
+                + "\"fecha_fin\", \"hora_entrada\", \"hora_salida\", \"dias_estadia\", \"total_pagar\", "
+                + "\"estado_reserva\", \"monto_descuento\") "
+                + "VALUES (NEXT VALUE FOR \"reservas_seq\", ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < reservas; i++) {
+            LocalDate llegada = PRIMER_DIA.plusDays((long) (i / HABITACIONES) * NOCHES_POR_ESTANCIA);
+            lote.add(new Object[] { clienteId, habitacionIds[i % HABITACIONES], Date.valueOf(llegada),
+                    Date.valueOf(llegada.plusDays(NOCHES_POR_ESTANCIA - 1)), Time.valueOf(LocalTime.of(14, 0)),
+                    Time.valueOf(LocalTime.of(12, 0)), NOCHES_POR_ESTANCIA - 1, 160.0 + i % 7,
+                    ESTADOS[i % ESTADOS.length].getCodigo(), 0.0 });
+            if (lote.size() == 5_000) {
+                jdbc.batchUpdate(sql, lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            jdbc.batchUpdate(sql, lote);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(IndicadoresReporteBenchmark.class.getSimpleName()).build()).run();
+    }
+}
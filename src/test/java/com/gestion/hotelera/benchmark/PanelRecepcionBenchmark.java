@@ -0,0 +1,160 @@
+package com.gestion.hotelera.benchmark;
+
+import com.gestion.hotelera.HoteleraApplication;
+import com.gestion.hotelera.controller.RecepcionController;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.service.AuditoriaService;
+import com.gestion.hotelera.service.ConsultasParalelas;
+import com.gestion.hotelera.service.HabitacionService;
+import com.gestion.hotelera.service.ReservaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia (p50/p99) del panel de recepción con sus consultas ejecutadas una
+ * tras otra frente a en paralelo con {@link ConsultasParalelas}. Parte de las
+ * reservas empiezan o terminan hoy para que los listados de llegadas y
+ * salidas no salgan vacíos.
+ *
+ * Con H2 en memoria no hay latencia de red: la mejora solo aparece si hay
+ * varios núcleos libres. Contra MySQL, donde cada consulta espera al
+ * servidor, la página tarda lo que su consulta más lenta.
+ *
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PanelRecepcionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PanelRecepcionBenchmark {
+
+    private static final int HABITACIONES = 200;
+    private static final EstadoReserva[] ESTADOS = { EstadoReserva.PENDIENTE, EstadoReserva.ACTIVA,
+            EstadoReserva.FINALIZADA, EstadoReserva.CANCELADA };
+
+    @Param({ "10000", "200000" })
+    public int reservas;
+
+    private ConfigurableApplicationContext contexto;
+    private ConsultasParalelas secuenciales;
+    private ConsultasParalelas paralelas;
+    private RecepcionController panelSecuencial;
+    private RecepcionController panelParalelo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(HoteleraApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:recepcion" + reservas + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+
+        Cliente cliente = new Cliente();
+        cliente.setNombres("Benchmark");
+        cliente.setApellidos("Recepcion");
+        cliente.setDni("99999997");
+        Long clienteId = contexto.getBean(ClienteRepository.class).save(cliente).getId();
+
+        HabitacionRepository habitacionRepository = contexto.getBean(HabitacionRepository.class);
+        long[] habitacionIds = new long[HABITACIONES];
+        for (int i = 0; i < HABITACIONES; i++) {
+            habitacionIds[i] = habitacionRepository
+                    .save(new Habitacion("P" + (1000 + i), "Doble", 80.0, i % 3 == 0 ? "OCUPADA" : "DISPONIBLE"))
+                    .getId();
+        }
+        insertarReservas(contexto.getBean(JdbcTemplate.class), clienteId, habitacionIds);
+
+        PlatformTransactionManager transactionManager = contexto.getBean(PlatformTransactionManager.class);
+        secuenciales = new ConsultasParalelas(transactionManager, new SimpleMeterRegistry(), 0, 0, 10_000);
+        paralelas = new ConsultasParalelas(transactionManager, new SimpleMeterRegistry(), 4, 4, 10_000);
+        panelSecuencial = panel(secuenciales);
+        panelParalelo = panel(paralelas);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        secuenciales.detener();
+        paralelas.detener();
+        contexto.close();
+    }
+
+    @Benchmark
+    public ExtendedModelMap secuencial() {
+        ExtendedModelMap modelo = new ExtendedModelMap();
+        panelSecuencial.mostrarPanelRecepcion(modelo);
+        return modelo;
+    }
+
+    @Benchmark
+    public ExtendedModelMap paralelo() {
+        ExtendedModelMap modelo = new ExtendedModelMap();
+        panelParalelo.mostrarPanelRecepcion(modelo);
+        return modelo;
+    }
+
+    private RecepcionController panel(ConsultasParalelas consultas) {
+        return new RecepcionController(contexto.getBean(ReservaService.class),
+                contexto.getBean(HabitacionService.class), contexto.getBean(AuditoriaService.class), consultas);
+    }
+
+    /**
+     * Histórico de estancias de 3 noches; una de cada 50 reservas empieza hoy
+     * y otra termina hoy.
+     */
+    private void insertarReservas(JdbcTemplate jdbc, Long clienteId, long[] habitacionIds) {
+        String sql = "INSERT INTO \"reservas\" (\"id\", \"cliente_id\", \"habitacion_id\", \"fecha_inicio\", "
+                + "\"fecha_fin\", \"hora_entrada\", \"hora_salida\", \"dias_estadia\", \"total_pagar\", "
+                + "\"estado_reserva\", \"monto_descuento\") "
+                + "VALUES (NEXT VALUE FOR \"reservas_seq\", ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        LocalDate hoy = LocalDate.now();
+        LocalDate primerDia = hoy.minusDays((long) (reservas / HABITACIONES) * 3);
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < reservas; i++) {
+            LocalDate llegada = primerDia.plusDays((long) (i / HABITACIONES) * 3);
+            EstadoReserva estado = ESTADOS[i % ESTADOS.length];
+            if (i % 50 == 0) {
+                llegada = hoy;
+                estado = EstadoReserva.PENDIENTE;
+            } else if (i % 50 == 1) {
+                llegada = hoy.minusDays(2);
+                estado = EstadoReserva.ACTIVA;
+            }
+            lote.add(new Object[] { clienteId, habitacionIds[i % HABITACIONES], Date.valueOf(llegada),
+                    Date.valueOf(llegada.plusDays(2)), Time.valueOf(LocalTime.of(14, 0)),
+                    Time.valueOf(LocalTime.of(12, 0)), 2, 160.0 + i % 7, estado.getCodigo(), 0.0 });
+            if (lote.size() == 5_000) {
+                jdbc.batchUpdate(sql, lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            jdbc.batchUpdate(sql, lote);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(PanelRecepcionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
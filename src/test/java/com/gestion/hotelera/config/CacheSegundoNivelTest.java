@@ -0,0 +1,216 @@
+package com.gestion.hotelera.config;
+
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Servicio;
+import com.gestion.hotelera.model.Usuario;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ServicioRepository;
+import com.gestion.hotelera.repository.UsuarioRepository;
+import com.gestion.hotelera.service.HabitacionService;
+import com.gestion.hotelera.service.ServicioService;
+import com.gestion.hotelera.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Caché de segundo nivel: búsquedas por identificador natural y listas
+ * activas que, ya en caché, no llegan a la base de datos.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Caché de segundo nivel")
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ServicioService servicioService;
+
+    @Autowired
+    private ServicioRepository servicioRepository;
+
+    @Autowired
+    private HabitacionRepository habitacionRepository;
+
+    @Autowired
+    private HabitacionService habitacionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics estadisticas;
+    private Usuario usuario;
+    private Habitacion habitacion;
+    private final List<Servicio> servicios = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        estadisticas.setStatisticsEnabled(false);
+        // Los tests que simulan otro nodo dejan copias antiguas en la caché
+        entityManagerFactory.getCache().evictAll();
+        if (usuario != null) {
+            usuarioRepository.deleteById(usuario.getId());
+        }
+        if (habitacion != null) {
+            habitacionRepository.deleteById(habitacion.getId());
+        }
+        servicioRepository.deleteAllById(servicios.stream().map(Servicio::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Debería autenticar con una sola consulta de credenciales y dejar la caché a las demás lecturas")
+    void deberiaAutenticarSinLaCache() {
+        usuario = usuarioRepository.save(new Usuario("cache.recepcion", "clave-cifrada", "ROLE_RECEPCIONISTA"));
+        usuarioRepository.findByUsername("cache.recepcion");
+
+        medir();
+        for (int i = 0; i < 5; i++) {
+            UserDetails cargado = userDetailsService.loadUserByUsername("cache.recepcion");
+            assertEquals("cache.recepcion", cargado.getUsername());
+            assertEquals("ROLE_RECEPCIONISTA", cargado.getAuthorities().iterator().next().getAuthority());
+        }
+
+        // Una consulta por petición, aunque la entidad no esté en caché, y sin tocar la caché
+        assertEquals(5, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getNaturalIdCacheHitCount() + estadisticas.getNaturalIdCacheMissCount());
+        assertEquals(0, estadisticas.getCacheRegionStatistics("usuarios").getHitCount());
+
+        // Las lecturas que no autentican siguen saliendo de la caché
+        double aciertosPrevios = aciertos("usuarios-username");
+        assertEquals("cache.recepcion", usuarioRepository.findByUsername("cache.recepcion").orElseThrow()
+                .getUsername());
+        assertEquals(0, estadisticas.getNaturalIdQueryExecutionCount());
+        assertEquals(1, estadisticas.getNaturalIdCacheHitCount());
+        assertTrue(aciertos("usuarios-username") >= aciertosPrevios + 1);
+    }
+
+    @Test
+    @DisplayName("Debería rechazar al usuario desactivado o con otra contraseña en otro nodo")
+    void deberiaLeerLasCredencialesActuales() {
+        usuario = usuarioRepository.save(new Usuario("cache.baja", "clave-cifrada", "ROLE_RECEPCIONISTA"));
+        assertTrue(userDetailsService.loadUserByUsername("cache.baja").isEnabled());
+        // La entidad está en la caché con los valores antiguos
+        assertTrue(usuarioRepository.findById(usuario.getId()).orElseThrow().isEnabled());
+
+        otroNodo("UPDATE \"usuarios\" SET \"activo\" = FALSE, \"password\" = 'clave-nueva', "
+                + "\"version\" = \"version\" + 1 WHERE \"id\" = ?", usuario.getId());
+
+        UserDetails cargado = userDetailsService.loadUserByUsername("cache.baja");
+        assertFalse(cargado.isEnabled());
+        assertEquals("clave-nueva", cargado.getPassword());
+    }
+
+    @Test
+    @DisplayName("Debería servir los servicios activos desde la caché hasta que cambie la tabla")
+    void deberiaCachearLaListaDeServiciosActivos() {
+        servicios.add(servicioRepository.save(new Servicio("Spa cache", "Circuito de aguas", 40.0, true)));
+        int activos = servicioService.listarServiciosActivos().size();
+
+        medir();
+        assertEquals(activos, servicioService.listarServiciosActivos().size());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+
+        servicios.add(servicioRepository.save(new Servicio("Traslado cache", "Aeropuerto", 25.0, true)));
+        assertEquals(activos + 1, servicioService.listarServiciosActivos().size());
+    }
+
+    @Test
+    @DisplayName("Debería seguir el cambio de número de una habitación")
+    void deberiaActualizarElNumeroEnLaCache() {
+        habitacion = habitacionRepository.save(new Habitacion("C901", "Doble Cache", 90.0, "DISPONIBLE"));
+        assertEquals(habitacion.getId(), habitacionRepository.findByNumero("C901").orElseThrow().getId());
+
+        habitacion.setNumero("C902");
+        habitacion = habitacionRepository.save(habitacion);
+
+        assertTrue(habitacionRepository.findByNumero("C901").isEmpty());
+        assertEquals(habitacion.getId(), habitacionRepository.findByNumero("C902").orElseThrow().getId());
+        assertTrue(habitacionRepository.findAll().stream().anyMatch(h -> "C902".equals(h.getNumero())));
+    }
+
+    @Test
+    @DisplayName("Debería releer la habitación de la base de datos antes de cambiar su estado")
+    void deberiaCambiarElEstadoSobreLaFilaActual() {
+        habitacion = habitacionRepository.save(new Habitacion("C911", "Doble Cache", 90.0, "DISPONIBLE"));
+        assertEquals("DISPONIBLE", habitacionRepository.findById(habitacion.getId()).orElseThrow().getEstado());
+
+        // Otro nodo ocupa la habitación: la copia en caché de este sigue diciendo DISPONIBLE
+        otroNodo("UPDATE \"habitaciones\" SET \"estado\" = 'O', \"version\" = \"version\" + 1 WHERE \"id\" = ?",
+                habitacion.getId());
+        assertEquals("DISPONIBLE", habitacionRepository.findById(habitacion.getId()).orElseThrow().getEstado());
+
+        assertEquals("DISPONIBLE", habitacionService.actualizarEstadoHabitacion(habitacion.getId(), "DISPONIBLE")
+                .getEstado());
+        assertEquals("D", jdbcTemplate.queryForObject("SELECT \"estado\" FROM \"habitaciones\" WHERE \"id\" = ?",
+                String.class, habitacion.getId()));
+        assertEquals(2, habitacionRepository.findById(habitacion.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar una actualización hecha sobre una copia antigua de la caché")
+    void deberiaRechazarEscriturasSobreUnaCopiaAntigua() {
+        Servicio servicio = servicioRepository.save(new Servicio("Lavandería cache", "Por prenda", 5.0, true));
+        servicios.add(servicio);
+        servicioRepository.findById(servicio.getId()).orElseThrow();
+
+        otroNodo("UPDATE \"servicios\" SET \"precio\" = 6.0, \"version\" = \"version\" + 1 WHERE \"id\" = ?",
+                servicio.getId());
+
+        Servicio formulario = new Servicio("Lavandería cache", "Por prenda", 7.0, true);
+        formulario.setId(servicio.getId());
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> servicioService.actualizarServicio(formulario));
+        assertEquals(6.0, jdbcTemplate.queryForObject("SELECT \"precio\" FROM \"servicios\" WHERE \"id\" = ?",
+                Double.class, servicio.getId()));
+    }
+
+    /**
+     * Escribe directamente en la base de datos, como lo haría otra instancia
+     * de la aplicación: la caché de segundo nivel de este contexto no se entera.
+     */
+    private void otroNodo(String sql, Long id) {
+        jdbcTemplate.update(sql, id);
+    }
+
+    private void medir() {
+        estadisticas.clear();
+        estadisticas.setStatisticsEnabled(true);
+    }
+
+    private double aciertos(String region) {
+        return meterRegistry.get("cache.gets").tag("cache", region).tag("result", "hit").functionCounter().count();
+    }
+}
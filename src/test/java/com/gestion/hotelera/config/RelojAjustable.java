@@ -0,0 +1,46 @@
+package com.gestion.hotelera.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reloj parado en el instante en que se crea (al milisegundo) que solo
+ * avanza cuando el test lo adelanta.
+ */
+public class RelojAjustable extends Clock {
+
+    private final AtomicReference<Instant> instante;
+    private final ZoneId zona;
+
+    public RelojAjustable() {
+        this(new AtomicReference<>(Instant.now().truncatedTo(ChronoUnit.MILLIS)), ZoneId.systemDefault());
+    }
+
+    private RelojAjustable(AtomicReference<Instant> instante, ZoneId zona) {
+        this.instante = instante;
+        this.zona = zona;
+    }
+
+    public void avanzar(Duration duracion) {
+        instante.updateAndGet(actual -> actual.plus(duracion));
+    }
+
+    @Override
+    public Instant instant() {
+        return instante.get();
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zona;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zona) {
+        return new RelojAjustable(instante, zona);
+    }
+}
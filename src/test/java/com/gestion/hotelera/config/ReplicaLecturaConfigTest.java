@@ -0,0 +1,234 @@
+package com.gestion.hotelera.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.jdbc.DataSourcePoolMetricsAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enrutado de lecturas con dos bases H2 en memoria como primario y réplica.
+ * La replicación no existe: los tests escriben a mano en la réplica el
+ * latido que le habría llegado. Cada base tiene una tabla "origen" con su
+ * nombre para saber a cuál fue cada consulta. El intervalo de latidos es
+ * largo para que el hilo del monitor no compruebe por su cuenta: los tests
+ * llaman a comprobar() cuando lo necesitan. El reloj está parado y los tests
+ * lo adelantan para cerrar ventanas y caducar medidas.
+ */
+@DisplayName("Réplica de lectura")
+class ReplicaLecturaConfigTest {
+
+    private static final String ORIGEN = "SELECT \"nombre\" FROM \"origen\"";
+
+    /** Bases nuevas en cada test: las H2 en memoria sobreviven al contexto. */
+    private final String base = "replica-" + UUID.randomUUID();
+
+    private final RelojAjustable reloj = new RelojAjustable();
+
+    private final ApplicationContextRunner contexto = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    DataSourceTransactionManagerAutoConfiguration.class, TransactionAutoConfiguration.class,
+                    JdbcTemplateAutoConfiguration.class, MetricsAutoConfiguration.class,
+                    CompositeMeterRegistryAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class,
+                    DataSourcePoolMetricsAutoConfiguration.class))
+            .withUserConfiguration(ReplicaLecturaConfig.class)
+            .withBean(Clock.class, () -> reloj)
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:" + base + "-primario;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.username=sa",
+                    "app.datasource.replica.url=jdbc:h2:mem:" + base + "-replica;DB_CLOSE_DELAY=-1",
+                    "app.datasource.replica.ventana-lectura-propia-ms=300",
+                    "app.datasource.replica.retraso-maximo-ms=2000",
+                    "app.datasource.replica.latido-ms=60000",
+                    "app.tareas.nodo=nodo-test");
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Debería leer de la réplica y escribir en el primario")
+    void deberiaSepararLecturasYEscrituras() {
+        contexto.run(ctx -> {
+            preparar(ctx, reloj.millis());
+
+            assertEquals("replica", leer(ctx));
+            assertEquals("primario", escribirYLeer(ctx));
+            assertEquals(1, contador(ctx, "replica", "lectura"));
+            assertTrue(contador(ctx, "primario", "escritura") >= 1);
+            MeterRegistry registry = ctx.getBean(MeterRegistry.class);
+            assertNotNull(registry.find("hikaricp.connections.active").tag("pool", "replica").gauge());
+            assertNotNull(registry.find("hikaricp.connections.active").tag("pool", "primario").gauge());
+            assertEquals(1, registry.get("hotel.datasource.replica.utilizable").gauge().value());
+        });
+    }
+
+    @Test
+    @DisplayName("Debería leer del primario durante la ventana de lectura propia")
+    void deberiaLeerSusPropiasEscrituras() {
+        contexto.run(ctx -> {
+            preparar(ctx, reloj.millis());
+            autenticar("ana");
+
+            escribirYLeer(ctx);
+            assertEquals("primario", leer(ctx));
+            // Otro usuario en otro hilo sigue leyendo de la réplica
+            assertEquals("replica", CompletableFuture.supplyAsync(() -> {
+                autenticar("luis");
+                return leer(ctx);
+            }).join());
+            assertEquals(1, contador(ctx, "primario", "lectura-propia"));
+
+            reloj.avanzar(Duration.ofMillis(301));
+            assertEquals("replica", leer(ctx));
+        });
+    }
+
+    @Test
+    @DisplayName("Debería leer del primario mientras se fuerce, también en otro hilo")
+    void deberiaLeerDelPrimarioSiSeFuerza() {
+        contexto.run(ctx -> {
+            preparar(ctx, reloj.millis());
+
+            try (var forzado = EnrutadorDataSource.forzarPrimario()) {
+                assertEquals("primario", leer(ctx));
+                try (var anidado = EnrutadorDataSource.forzarPrimario()) {
+                    assertEquals("primario", leer(ctx));
+                }
+                // Cerrar el anidado no quita el forzado exterior
+                assertEquals("primario", leer(ctx));
+                assertEquals("replica", CompletableFuture.supplyAsync(() -> leer(ctx)).join());
+            }
+            assertEquals(3, contador(ctx, "primario", "forzado"));
+            assertFalse(EnrutadorDataSource.isPrimarioForzado());
+            assertEquals("replica", leer(ctx));
+        });
+    }
+
+    @Test
+    @DisplayName("Debería mandar las lecturas al primario si la réplica se retrasa o no responde")
+    void deberiaUsarElPrimarioSiLaReplicaSeRetrasa() {
+        contexto.run(ctx -> {
+            MonitorReplica monitor = preparar(ctx, reloj.millis());
+            EnrutadorDataSource enrutador = ctx.getBean(EnrutadorDataSource.class);
+
+            // El latido escrito en el primario no llega a la réplica: sigue con uno de hace un minuto
+            latidoEnReplica(ctx, reloj.millis() - 60_000);
+            monitor.comprobar();
+            assertTrue(enrutador.getRetrasoReplicaMs() >= 60_000);
+            assertEquals("primario", leer(ctx));
+            assertEquals(1, contador(ctx, "primario", "replica-retrasada"));
+
+            // La réplica se pone al día con el último latido del primario
+            latidoEnReplica(ctx, new JdbcTemplate(ctx.getBean("poolPrimario", DataSource.class))
+                    .queryForObject("SELECT \"marca\" FROM \"latidos_replica\"", Long.class));
+            monitor.comprobar();
+            assertEquals(0, enrutador.getRetrasoReplicaMs());
+            assertEquals("replica", leer(ctx));
+
+            new JdbcTemplate(ctx.getBean("poolReplica", DataSource.class))
+                    .execute("DROP TABLE \"latidos_replica\"");
+            monitor.comprobar();
+            assertFalse(enrutador.isReplicaUtilizable());
+            assertEquals("primario", leer(ctx));
+            assertTrue(Double.isNaN(ctx.getBean(MeterRegistry.class)
+                    .get("hotel.datasource.replica.retraso").gauge().value()));
+        });
+    }
+
+    @Test
+    @DisplayName("Debería mandar las lecturas al primario si la medida del retraso caduca")
+    void deberiaUsarElPrimarioSiLaMedidaCaduca() {
+        contexto.run(ctx -> {
+            preparar(ctx, reloj.millis());
+            EnrutadorDataSource enrutador = ctx.getBean(EnrutadorDataSource.class);
+            assertEquals("replica", leer(ctx));
+
+            // Última medida: réplica al día, pero de hace más de tres latidos (el monitor no la renovó)
+            reloj.avanzar(Duration.ofMillis(3 * 60_000 + 1));
+            assertEquals(-1, enrutador.getRetrasoReplicaMs());
+            assertFalse(enrutador.isReplicaUtilizable());
+            assertEquals("primario", leer(ctx));
+            assertEquals(1, contador(ctx, "primario", "retraso-desconocido"));
+
+            ctx.getBean(MonitorReplica.class).comprobar();
+            assertEquals("replica", leer(ctx));
+        });
+    }
+
+    /**
+     * Crea las tablas en las dos bases, deja en la réplica un latido con la
+     * marca indicada y hace la primera comprobación.
+     */
+    private MonitorReplica preparar(AssertableApplicationContext ctx, long marcaReplica) {
+        for (String pool : new String[] { "poolPrimario", "poolReplica" }) {
+            JdbcTemplate jdbc = new JdbcTemplate(ctx.getBean(pool, DataSource.class));
+            jdbc.execute("CREATE TABLE \"latidos_replica\" (\"nodo\" VARCHAR(150) PRIMARY KEY, "
+                    + "\"marca\" BIGINT NOT NULL)");
+            jdbc.execute("CREATE TABLE \"origen\" (\"nombre\" VARCHAR(20))");
+            jdbc.update("INSERT INTO \"origen\" VALUES (?)", "poolPrimario".equals(pool) ? "primario" : "replica");
+        }
+        latidoEnReplica(ctx, marcaReplica);
+        MonitorReplica monitor = ctx.getBean(MonitorReplica.class);
+        monitor.comprobar();
+        return monitor;
+    }
+
+    private static void latidoEnReplica(AssertableApplicationContext ctx, long marca) {
+        JdbcTemplate replica = new JdbcTemplate(ctx.getBean("poolReplica", DataSource.class));
+        replica.update("DELETE FROM \"latidos_replica\"");
+        replica.update("INSERT INTO \"latidos_replica\" VALUES (?, ?)", "nodo-test", marca);
+    }
+
+    private static String leer(AssertableApplicationContext ctx) {
+        TransactionTemplate lectura = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+        lectura.setReadOnly(true);
+        return lectura.execute(estado -> ctx.getBean(JdbcTemplate.class).queryForObject(ORIGEN, String.class));
+    }
+
+    /**
+     * Actualiza una fila en una transacción de escritura y devuelve de qué base leyó dentro de ella.
+     */
+    private static String escribirYLeer(AssertableApplicationContext ctx) {
+        JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+        return new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class)).execute(estado -> {
+            jdbc.update("UPDATE \"origen\" SET \"nombre\" = \"nombre\"");
+            return jdbc.queryForObject(ORIGEN, String.class);
+        });
+    }
+
+    private static double contador(AssertableApplicationContext ctx, String destino, String motivo) {
+        var contador = ctx.getBean(MeterRegistry.class).find(EnrutadorDataSource.METRICA)
+                .tag("destino", destino).tag("motivo", motivo).counter();
+        return contador != null ? contador.count() : 0;
+    }
+
+    private static void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(usuario,
+                null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+    }
+}
@@ -0,0 +1,153 @@
+package com.gestion.hotelera.metrics;
+
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReporteReservaRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Gauges de negocio leídos de la instantánea que refresca una sola consulta.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Métricas de negocio del hotel")
+class HotelMetricsTest {
+
+    @Autowired
+    private ReporteReservaRepository reporteReservaRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private HabitacionRepository habitacionRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    private final List<Reserva> reservas = new ArrayList<>();
+    private final List<Habitacion> habitaciones = new ArrayList<>();
+    private Cliente cliente;
+
+    @AfterEach
+    void tearDown() {
+        reservaRepository.deleteAll(reservas);
+        habitacionRepository.deleteAll(habitaciones);
+        if (cliente != null) {
+            clienteRepository.delete(cliente);
+        }
+    }
+
+    @Test
+    @DisplayName("Debería dar los mismos valores que las consultas por separado")
+    void deberiaCoincidirConLasConsultasPorSeparado() {
+        cliente = new Cliente();
+        cliente.setNombres("Marta");
+        cliente.setApellidos("Metricas");
+        cliente.setDni("73456789");
+        cliente = clienteRepository.save(cliente);
+        Habitacion ocupada = habitacion("MT01", "OCUPADA");
+        Habitacion libre = habitacion("MT02", "disponible");
+        habitacion("MT03", "MANTENIMIENTO");
+        LocalDate hoy = LocalDate.now();
+        reservar(ocupada, hoy, 2, 200.0, "ACTIVA");
+        reservar(libre, hoy.minusDays(3), 3, 310.5, "finalizada");
+        reservar(libre, hoy.plusDays(5), 1, 90.0, "PENDIENTE");
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HotelMetrics metrics = new HotelMetrics(registry, reporteReservaRepository);
+        assertTrue(Double.isNaN(gauge(registry, "hotel.reservas.total")));
+
+        metrics.refrescar();
+
+        double ingresos = reservaRepository.findAll().stream()
+                .filter(r -> r.getEstado() == EstadoReserva.FINALIZADA)
+                .mapToDouble(Reserva::getTotalPagar)
+                .sum();
+        long totalHabitaciones = habitacionRepository.count();
+        long ocupadas = habitacionRepository.countByEstado(EstadoHabitacion.OCUPADA);
+        assertEquals(reservaRepository.count(), gauge(registry, "hotel.reservas.total"));
+        assertEquals(reservaRepository.countByEstadoReserva(EstadoReserva.ACTIVA), gauge(registry, "hotel.reservas.activas"));
+        assertEquals(reservaRepository.countByEstadoReserva(EstadoReserva.PENDIENTE),
+                gauge(registry, "hotel.reservas.pendientes"));
+        assertEquals(reservaRepository.countByEstadoReserva(EstadoReserva.FINALIZADA),
+                gauge(registry, "hotel.reservas.finalizadas"));
+        assertEquals(reservaRepository.countByFechaInicio(hoy), gauge(registry, "hotel.checkins.hoy"));
+        assertEquals(reservaRepository.countByFechaFin(hoy), gauge(registry, "hotel.checkouts.hoy"));
+        assertEquals(totalHabitaciones, gauge(registry, "hotel.habitaciones.total"));
+        assertEquals(habitacionRepository.countByEstado(EstadoHabitacion.DISPONIBLE),
+                gauge(registry, "hotel.habitaciones.disponibles"));
+        assertEquals(ocupadas, gauge(registry, "hotel.habitaciones.ocupadas"));
+        assertEquals(habitacionRepository.countByEstado(EstadoHabitacion.MANTENIMIENTO),
+                gauge(registry, "hotel.habitaciones.mantenimiento"));
+        assertEquals(ocupadas * 100.0 / totalHabitaciones, gauge(registry, "hotel.habitaciones.ocupacion.porcentaje"),
+                0.0001);
+        assertEquals(clienteRepository.count(), gauge(registry, "hotel.clientes.total"));
+        assertEquals(ingresos, gauge(registry, "hotel.ingresos.total"), 0.001);
+        assertEquals(1, registry.get("hotel.metrics.refresh").tag("resultado", "ok").timer().count());
+        assertTrue(gauge(registry, "hotel.metrics.antiguedad") < 60);
+    }
+
+    @Test
+    @DisplayName("Debería leer los gauges sin consultar y conservar los valores si el refresco falla")
+    void deberiaLeerLaInstantaneaSinConsultar() {
+        ReporteReservaRepository repositorio = mock(ReporteReservaRepository.class);
+        when(repositorio.calcularIndicadoresMetricas(any()))
+                .thenReturn(reporteReservaRepository.calcularIndicadoresMetricas(LocalDate.now()))
+                .thenThrow(new QueryTimeoutException("base de datos lenta"));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        HotelMetrics metrics = new HotelMetrics(registry, repositorio);
+
+        metrics.refrescar();
+        double reservasTotales = gauge(registry, "hotel.reservas.total");
+        // Los scrapes leen la instantánea: no llegan al repositorio
+        for (int i = 0; i < 10; i++) {
+            registry.getMeters().forEach(meter -> meter.measure().forEach(medida -> medida.getValue()));
+        }
+        verify(repositorio, times(1)).calcularIndicadoresMetricas(any());
+        metrics.refrescar();
+
+        verify(repositorio, times(2)).calcularIndicadoresMetricas(any());
+        assertEquals(reservasTotales, gauge(registry, "hotel.reservas.total"));
+        assertEquals(1, registry.get("hotel.metrics.refresh").tag("resultado", "error").timer().count());
+        assertFalse(Double.isNaN(gauge(registry, "hotel.metrics.antiguedad")));
+    }
+
+    private static double gauge(MeterRegistry registry, String nombre) {
+        return registry.get(nombre).gauge().value();
+    }
+
+    private Habitacion habitacion(String numero, String estado) {
+        Habitacion habitacion = habitacionRepository.save(new Habitacion(numero, "Doble Metricas", 85.0, estado));
+        habitaciones.add(habitacion);
+        return habitacion;
+    }
+
+    private void reservar(Habitacion habitacion, LocalDate inicio, int noches, double total, String estado) {
+        reservas.add(reservaRepository.save(new Reserva(cliente, habitacion, inicio, inicio.plusDays(noches),
+                LocalTime.of(14, 0), LocalTime.of(12, 0), noches, total, estado)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.Auditoria;
+import com.gestion.hotelera.repository.AuditoriaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Registros de auditoría en lote: IDs de secuencia e INSERT agrupados en
+ * lotes JDBC en lugar de uno por fila.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Auditoría en lote")
+class AuditoriaLoteTest {
+
+    private static final int REGISTROS = 120;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @Autowired
+    private AuditoriaRepository auditoriaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Auditoria> creados = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        auditoriaRepository.deleteAllById(creados.stream().map(Auditoria::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Debería insertar los registros en lotes JDBC")
+    void deberiaInsertarEnLotes() {
+        Map<Long, String> detalles = new LinkedHashMap<>();
+        for (long id = 1; id <= REGISTROS; id++) {
+            detalles.put(id, "Cambio en lote " + id);
+        }
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        estadisticas.setStatisticsEnabled(true);
+        try {
+            creados.addAll(auditoriaService.registrarAccionesEnLote("CAMBIO_LOTE", "Reserva", detalles));
+
+            // Tres lotes de 50 y unas pocas lecturas de la secuencia, no una sentencia por fila
+            assertTrue(estadisticas.getPrepareStatementCount() < 20,
+                    "Sentencias preparadas: " + estadisticas.getPrepareStatementCount());
+        } finally {
+            estadisticas.setStatisticsEnabled(false);
+        }
+        assertEquals(REGISTROS, creados.size());
+        assertTrue(creados.stream().map(Auditoria::getId).allMatch(Objects::nonNull));
+        assertEquals(REGISTROS, creados.stream().map(Auditoria::getId).distinct().count());
+        assertEquals(REGISTROS, auditoriaRepository.findAllById(creados.stream().map(Auditoria::getId).toList())
+                .size());
+    }
+
+    @Test
+    @DisplayName("Debería actualizar con guardarEnLote las entidades ya guardadas")
+    void deberiaActualizarLasExistentes() {
+        creados.addAll(auditoriaService.registrarAccionesEnLote("CAMBIO_LOTE", "Reserva",
+                Map.of(1L, "Detalle inicial", 2L, "Detalle inicial")));
+        creados.forEach(registro -> registro.setDetalleAccion("Detalle corregido"));
+
+        List<Auditoria> guardados = auditoriaRepository.guardarEnLote(creados);
+
+        assertEquals(creados.stream().map(Auditoria::getId).toList(),
+                guardados.stream().map(Auditoria::getId).toList());
+        assertTrue(auditoriaRepository.findAllById(creados.stream().map(Auditoria::getId).toList()).stream()
+                .allMatch(registro -> "Detalle corregido".equals(registro.getDetalleAccion())));
+    }
+}
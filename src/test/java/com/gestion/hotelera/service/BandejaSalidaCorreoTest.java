@@ -0,0 +1,239 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.RelojAjustable;
+import com.gestion.hotelera.enums.EstadoCorreo;
+import com.gestion.hotelera.model.CorreoSaliente;
+import com.gestion.hotelera.repository.CorreoSalienteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bandeja de salida contra la base de datos de pruebas y un servidor SMTP
+ * falso en localhost.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Bandeja de salida de correos")
+class BandejaSalidaCorreoTest {
+
+    @Autowired
+    private CorreoSalienteRepository correoSalienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ServidorSmtpFalso smtp;
+    private JavaMailSenderImpl mailSender;
+    private SimpleMeterRegistry metricas;
+    private RelojAjustable reloj;
+    private BandejaSalidaCorreo bandeja;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new ServidorSmtpFalso();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPuerto());
+        metricas = new SimpleMeterRegistry();
+        reloj = new RelojAjustable();
+        bandeja = new BandejaSalidaCorreo(correoSalienteRepository, new EnvioCorreoSmtp(mailSender, 0), metricas,
+                true, 2, 50, 3, 60_000, 3_600_000, reloj);
+        emailService = new EmailService(bandeja);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@oasisdigital.com");
+        ReflectionTestUtils.setField(emailService, "emailEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        bandeja.detener();
+        smtp.close();
+        correoSalienteRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Debería enviar tras el commit sin que la transacción espere al servidor SMTP")
+    void deberiaEnviarTrasElCommit() throws Exception {
+        smtp.setRetardoMs(800);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        long inicio = System.nanoTime();
+        transaccion.executeWithoutResult(estado -> {
+            emailService.enviarNotificacionCheckIn("huesped@example.com", "Ana", "42");
+            assertEquals(EstadoCorreo.PENDIENTE.getValor(), correoSalienteRepository.findAll().get(0).getEstado());
+            assertTrue(smtp.getMensajes().isEmpty());
+        });
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        assertTrue(duracionMs < 800, "La transacción no debe esperar al SMTP: " + duracionMs + " ms");
+
+        esperar(() -> smtp.getMensajes().size() == 1);
+        assertTrue(smtp.getMensajes().get(0).contains("Check-in Realizado"));
+        esperar(() -> EstadoCorreo.ENVIADO.getValor().equals(unico().getEstado()));
+        assertEquals(1, unico().getIntentos());
+        assertEquals(1.0, metricas.get("hotel.correos.procesados").tag("resultado", "enviado").counter().count());
+    }
+
+    @Test
+    @DisplayName("No debería quedar correo si la transacción se revierte")
+    void noDeberiaEnviarSiSeRevierte() throws Exception {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> {
+            emailService.enviarNotificacionPago("huesped@example.com", "Ana", "42", 100.0, "TARJETA");
+            estado.setRollbackOnly();
+        });
+
+        // Un correo confirmado después sale en el mismo drenaje que habría llevado al revertido
+        emailService.enviarNotificacionCheckIn("otro@example.com", "Luis", "43");
+        bandeja.sondear();
+        esperar(() -> EstadoCorreo.ENVIADO.getValor().equals(unico().getEstado()));
+        assertEquals(1, correoSalienteRepository.count());
+        assertEquals(1, smtp.getMensajes().size());
+        assertTrue(smtp.getMensajes().get(0).contains("otro@example.com"));
+    }
+
+    @Test
+    @DisplayName("No debería encolar un correo sin destinatario válido ni romper la transacción que lo pide")
+    void noDeberiaEncolarCorreosInvalidos() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> {
+            emailService.enviarNotificacionCheckIn("   ", "Ana", "42");
+            emailService.enviarNotificacionCheckIn("a".repeat(150) + "@example.com", "Ana", "42");
+            emailService.enviarEncuestaPostEstadia("huesped@example.com", "Ana".repeat(2_000), "42", "2025-05-14");
+        });
+
+        CorreoSaliente encuesta = unico();
+        assertEquals(1, correoSalienteRepository.count());
+        assertEquals("huesped@example.com", encuesta.getDestinatario());
+        assertEquals(4_000, encuesta.getCuerpo().length());
+    }
+
+    @Test
+    @DisplayName("Debería reintentar con espera creciente y descartar al agotar los intentos")
+    void deberiaReintentarYDescartar() throws Exception {
+        smtp.fallarProximos(2);
+        emailService.enviarNotificacionCheckOut("huesped@example.com", "Ana", "42");
+        esperar(() -> unico().getIntentos() == 1);
+        // Antes de la espera no se reintenta; la segunda espera dobla la primera
+        reintentarTras(Duration.ofSeconds(59));
+        assertEquals(1, unico().getIntentos());
+        reintentarTras(Duration.ofSeconds(1));
+        esperar(() -> unico().getIntentos() == 2);
+        reintentarTras(Duration.ofSeconds(119));
+        assertEquals(2, unico().getIntentos());
+        reintentarTras(Duration.ofSeconds(1));
+        esperar(() -> EstadoCorreo.ENVIADO.getValor().equals(unico().getEstado()));
+        assertEquals(3, unico().getIntentos());
+        assertEquals(2.0, metricas.get("hotel.correos.procesados").tag("resultado", "reintento").counter().count());
+        correoSalienteRepository.deleteAll();
+
+        smtp.fallarProximos(10);
+        emailService.enviarNotificacionCheckOut("huesped@example.com", "Ana", "43");
+        esperar(() -> unico().getIntentos() == 1);
+        reintentarTras(Duration.ofMinutes(1));
+        esperar(() -> unico().getIntentos() == 2);
+        reintentarTras(Duration.ofMinutes(2));
+        esperar(() -> EstadoCorreo.FALLIDO.getValor().equals(unico().getEstado()));
+        CorreoSaliente descartado = unico();
+        assertEquals(3, descartado.getIntentos());
+        assertTrue(descartado.getUltimoError().contains("451"));
+        assertEquals(1.0, metricas.get("hotel.correos.procesados").tag("resultado", "fallido").counter().count());
+        bandeja.sondear();
+        assertEquals(1.0, metricas.get("hotel.correos.bandeja").tag("estado", "FALLIDO").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Debería entregar un lote en una sola sesión SMTP y aislar los rechazos")
+    void deberiaEnviarElLoteEnUnaSesion() throws Exception {
+        // Reintento lejano para que el rechazado no abra una segunda sesión durante la prueba
+        bandeja.detener();
+        bandeja = new BandejaSalidaCorreo(correoSalienteRepository, new EnvioCorreoSmtp(mailSender, 0), metricas,
+                true, 2, 50, 3, 60_000, 60_000, reloj);
+        emailService = new EmailService(bandeja);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@oasisdigital.com");
+        ReflectionTestUtils.setField(emailService, "emailEnabled", true);
+        smtp.fallarProximos(1);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> {
+            for (int i = 1; i <= 20; i++) {
+                emailService.enviarRecordatorioCheckIn("huesped" + i + "@example.com", "Huésped " + i,
+                        String.valueOf(i), "2025-05-14", "101");
+            }
+        });
+
+        esperar(() -> smtp.getMensajes().size() == 19);
+        esperar(() -> correoSalienteRepository.findAll().stream()
+                .filter(c -> EstadoCorreo.ENVIADO.getValor().equals(c.getEstado())).count() == 19);
+        assertEquals(1, smtp.getSesiones());
+        CorreoSaliente rechazado = correoSalienteRepository.findAll().stream()
+                .filter(c -> EstadoCorreo.PENDIENTE.getValor().equals(c.getEstado()))
+                .findFirst().orElseThrow();
+        assertEquals(1, rechazado.getIntentos());
+        assertTrue(rechazado.getUltimoError().contains("451"));
+    }
+
+    @Test
+    @DisplayName("Debería reclamar solo los correos que admite el límite por minuto")
+    void deberiaReclamarSoloLoQueAdmiteElLimite() throws Exception {
+        bandeja.detener();
+        bandeja = new BandejaSalidaCorreo(correoSalienteRepository, new EnvioCorreoSmtp(mailSender, 60), metricas,
+                true, 1, 50, 3, 60_000, 60_000, reloj); // uno por segundo
+        emailService = new EmailService(bandeja);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@oasisdigital.com");
+        ReflectionTestUtils.setField(emailService, "emailEnabled", true);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> {
+            for (int i = 1; i <= 61; i++) {
+                emailService.enviarRecordatorioCheckIn("huesped" + i + "@example.com", "Huésped " + i,
+                        String.valueOf(i), "2025-05-14", "101");
+            }
+        });
+
+        // El primer lote deja 10 fichas: los 11 restantes esperan cupo sin estar reclamados
+        esperar(() -> contar(EstadoCorreo.ENVIADO) == 50);
+        assertEquals(0, contar(EstadoCorreo.ENVIANDO));
+        assertEquals(11, contar(EstadoCorreo.PENDIENTE));
+
+        esperar(() -> contar(EstadoCorreo.ENVIADO) == 61);
+        assertEquals(61, smtp.getMensajes().size());
+        assertEquals(2, smtp.getSesiones());
+    }
+
+    private void reintentarTras(Duration espera) {
+        reloj.avanzar(espera);
+        bandeja.sondear();
+    }
+
+    private long contar(EstadoCorreo estado) {
+        return correoSalienteRepository.findAll().stream().filter(c -> estado.getValor().equals(c.getEstado()))
+                .count();
+    }
+
+    private CorreoSaliente unico() {
+        return correoSalienteRepository.findAll().get(0);
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                fail("La condición no se cumplió a tiempo");
+            }
+            Thread.sleep(50);
+        }
+    }
+}
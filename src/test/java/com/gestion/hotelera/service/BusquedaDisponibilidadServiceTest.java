@@ -0,0 +1,124 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BusquedaDisponibilidadServiceTest {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(30);
+
+    @Mock
+    private HabitacionRepository habitacionRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    private BusquedaDisponibilidadService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BusquedaDisponibilidadService(habitacionRepository, reservaRepository, indiceDisponibilidad);
+    }
+
+    private void prepararHabitaciones() {
+        when(habitacionRepository.findAll()).thenReturn(List.of(
+                habitacion(1L, "101", "Simple", 50.0, "DISPONIBLE"),
+                habitacion(2L, "201", "Doble", 80.0, "DISPONIBLE"),
+                habitacion(3L, "202", "Doble", 70.0, "DISPONIBLE"),
+                habitacion(4L, "301", "Suite", 150.0, "DISPONIBLE"),
+                habitacion(5L, "302", "Suite", 140.0, "MANTENIMIENTO")));
+        when(reservaRepository.findIntervalosActivosEnRango(any(), any())).thenReturn(List.of(
+                intervalo(3L, DIA.minusDays(2), DIA.plusDays(1)),
+                intervalo(1L, DIA.plusDays(3), DIA.plusDays(5))));
+    }
+
+    @Test
+    void deberiaOrdenarPorPrecioYContarPorTipoConUnaSolaConsulta() {
+        prepararHabitaciones();
+
+        var resultado = service.buscar(new BusquedaDisponibilidadService.Criterios(DIA, DIA.plusDays(2), null));
+
+        assertEquals(List.of(1L, 2L, 4L), resultado.habitaciones().stream().map(Habitacion::getId).toList());
+        assertEquals(Map.of("Doble", 1L, "Simple", 1L, "Suite", 1L), resultado.disponiblesPorTipo());
+        verify(habitacionRepository, times(1)).findAll();
+        verify(reservaRepository, times(1)).findIntervalosActivosEnRango(DIA, DIA.plusDays(2));
+    }
+
+    @Test
+    void deberiaFiltrarPorTipoPrecioYHuespedes() {
+        prepararHabitaciones();
+
+        var porTipo = service.buscar(new BusquedaDisponibilidadService.Criterios(DIA.plusDays(1), DIA.plusDays(3), "doble"));
+        assertEquals(List.of(3L, 2L), porTipo.habitaciones().stream().map(Habitacion::getId).toList());
+
+        var porPrecio = service.buscar(new BusquedaDisponibilidadService.Criterios(
+                DIA.plusDays(1), DIA.plusDays(3), null, 60.0, 100.0, null));
+        assertEquals(List.of(3L, 2L), porPrecio.habitaciones().stream().map(Habitacion::getId).toList());
+
+        var porHuespedes = service.buscar(new BusquedaDisponibilidadService.Criterios(
+                DIA.plusDays(1), DIA.plusDays(3), null, null, null, 3));
+        assertEquals(List.of(4L), porHuespedes.habitaciones().stream().map(Habitacion::getId).toList());
+    }
+
+    @Test
+    void deberiaProponerLaVentanaMasBarataCercana() {
+        prepararHabitaciones();
+
+        // La simple está reservada del día 3 al 5: la ventana pedida no la incluye
+        var criterios = new BusquedaDisponibilidadService.Criterios(DIA.plusDays(3), DIA.plusDays(5), "Simple");
+        assertTrue(service.buscar(criterios).habitaciones().isEmpty());
+
+        var ventanas = service.buscarFechasFlexibles(criterios, 2, 3);
+
+        assertEquals(List.of(-2L, 2L), ventanas.stream().map(v -> v.desplazamientoDias()).toList());
+        assertEquals(DIA.plusDays(1), ventanas.get(0).fechaInicio());
+        assertEquals(100.0, ventanas.get(0).total());
+        assertEquals(1L, ventanas.get(0).habitacion().getId());
+    }
+
+    @Test
+    void deberiaRechazarRangosInvalidos() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BusquedaDisponibilidadService.Criterios(DIA, DIA, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BusquedaDisponibilidadService.Criterios(DIA, DIA.plusDays(1), null, 100.0, 50.0, null));
+    }
+
+    private static Habitacion habitacion(Long id, String numero, String tipo, Double precio, String estado) {
+        Habitacion habitacion = new Habitacion(numero, tipo, precio, estado);
+        habitacion.setId(id);
+        return habitacion;
+    }
+
+    private static ReservaIntervalo intervalo(Long habitacionId, LocalDate inicio, LocalDate fin) {
+        return new ReservaIntervalo() {
+            public Long getId() { return habitacionId * 10; }
+            public Long getHabitacionId() { return habitacionId; }
+            public LocalDate getFechaInicio() { return inicio; }
+            public LocalDate getFechaFin() { return fin; }
+            public EstadoReserva getEstadoReserva() { return EstadoReserva.PENDIENTE; }
+        };
+    }
+}
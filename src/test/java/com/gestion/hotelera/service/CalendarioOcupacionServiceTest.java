@@ -0,0 +1,126 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoCalendario;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarioOcupacionServiceTest {
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    @Mock
+    private HabitacionRepository habitacionRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private IndiceDisponibilidad propio;
+
+    @Test
+    void deberiaMarcarNochesSalidasYMantenimientoDesdeElIndice() {
+        when(habitacionRepository.findAll()).thenReturn(List.of(
+                habitacion(2L, "102", "MANTENIMIENTO"),
+                habitacion(1L, "101", "DISPONIBLE")));
+        when(reservaRepository.findIntervalosActivos()).thenReturn(List.of(
+                intervalo(10L, 1L, HOY.minusDays(1), HOY.plusDays(2)),
+                intervalo(11L, 1L, HOY.plusDays(4), HOY.plusDays(5)),
+                intervalo(12L, 1L, HOY.plusDays(5), HOY.plusDays(6))));
+        IndiceDisponibilidad indice = new IndiceDisponibilidad(reservaRepository, habitacionRepository, propio);
+        indice.reconstruir();
+        CalendarioOcupacionService service = new CalendarioOcupacionService(habitacionRepository,
+                reservaRepository, indice);
+
+        CalendarioOcupacionService.MatrizOcupacion matriz = service.construir(HOY, 7);
+
+        assertEquals("101", matriz.getHabitaciones().get(0).getNumero());
+        assertEquals(EstadoCalendario.OCUPADA, matriz.estado(0, 0));
+        assertEquals(EstadoCalendario.LIMPIEZA, matriz.estado(0, 2));
+        assertEquals(EstadoCalendario.OCUPADA, matriz.estado(0, 5)); // salida y entrada el mismo día
+        assertEquals(EstadoCalendario.LIMPIEZA, matriz.estado(0, 6));
+        assertEquals(EstadoCalendario.MANTENIMIENTO, matriz.estado(1, 0));
+        assertEquals(List.of(new CalendarioOcupacionService.Tramo('O', 2), new CalendarioOcupacionService.Tramo('C', 1),
+                new CalendarioOcupacionService.Tramo('L', 1), new CalendarioOcupacionService.Tramo('O', 2),
+                new CalendarioOcupacionService.Tramo('C', 1)), matriz.tramos(0));
+        assertEquals(List.of(new CalendarioOcupacionService.Tramo('M', 1), new CalendarioOcupacionService.Tramo('L', 6)),
+                matriz.tramos(1));
+        verify(reservaRepository, never()).findIntervalosActivosEnRango(any(), any());
+    }
+
+    @Test
+    void deberiaUsarUnaSolaConsultaPorRangoSinIndice() {
+        List<Habitacion> habitaciones = new ArrayList<>();
+        List<ReservaIntervalo> intervalos = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            habitaciones.add(habitacion(id, String.valueOf(1000 + id), "DISPONIBLE"));
+            for (int dia = (int) (id % 3); dia < 90; dia += 4) {
+                intervalos.add(intervalo(id * 1000 + dia, id, HOY.plusDays(dia), HOY.plusDays(dia + 3)));
+            }
+        }
+        when(habitacionRepository.findAll()).thenReturn(habitaciones);
+        when(reservaRepository.findIntervalosActivosEnRango(HOY.minusDays(1), HOY.plusDays(90))).thenReturn(intervalos);
+        CalendarioOcupacionService service = new CalendarioOcupacionService(habitacionRepository, reservaRepository);
+
+        CalendarioOcupacionService.MatrizOcupacion matriz = service.construir(HOY, 90);
+        List<CalendarioOcupacionService.FilaCodificada> filas = matriz.codificar();
+
+        // Una consulta de habitaciones y otra de intervalos para todo el rango, no una por habitación o día
+        verify(habitacionRepository, times(1)).findAll();
+        verify(reservaRepository, times(1)).findIntervalosActivosEnRango(HOY.minusDays(1), HOY.plusDays(90));
+        verifyNoMoreInteractions(habitacionRepository, reservaRepository);
+
+        assertEquals(500, filas.size());
+        filas.forEach(fila -> assertEquals(90, fila.tramos().stream().mapToInt(CalendarioOcupacionService.Tramo::dias).sum()));
+        assertEquals(EstadoCalendario.OCUPADA, matriz.estado(0, 1));
+        assertEquals(EstadoCalendario.LIMPIEZA, matriz.estado(0, 4));
+    }
+
+    @Test
+    void deberiaCalcularVentanasYNavegacion() {
+        LocalDate fecha = LocalDate.of(2025, 5, 14);
+
+        var semana = CalendarioOcupacionService.ventana(CalendarioOcupacionService.Vista.SEMANA, fecha);
+        assertEquals(LocalDate.of(2025, 5, 12), semana.desde());
+        assertEquals(7, semana.dias());
+        assertEquals(LocalDate.of(2025, 5, 5), semana.anterior());
+
+        var trimestre = CalendarioOcupacionService.ventana(CalendarioOcupacionService.Vista.desde("trimestre"), fecha);
+        assertEquals(LocalDate.of(2025, 4, 1), trimestre.desde());
+        assertEquals(LocalDate.of(2025, 7, 1), trimestre.siguiente());
+        assertEquals(91, trimestre.dias());
+
+        assertThrows(IllegalArgumentException.class, () -> CalendarioOcupacionService.Vista.desde("anio"));
+    }
+
+    private static Habitacion habitacion(Long id, String numero, String estado) {
+        Habitacion habitacion = new Habitacion(numero, "Doble", 80.0, estado);
+        habitacion.setId(id);
+        return habitacion;
+    }
+
+    private static ReservaIntervalo intervalo(Long id, Long habitacionId, LocalDate inicio, LocalDate fin) {
+        return new ReservaIntervalo() {
+            public Long getId() { return id; }
+            public Long getHabitacionId() { return habitacionId; }
+            public LocalDate getFechaInicio() { return inicio; }
+            public LocalDate getFechaFin() { return fin; }
+            public EstadoReserva getEstadoReserva() { return EstadoReserva.ACTIVA; }
+        };
+    }
+}
@@ -2,8 +2,10 @@ package com.gestion.hotelera.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +15,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Reserva;
 import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import com.gestion.hotelera.repository.UsuarioRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @ExtendWith(MockitoExtension.class)
 public class ClienteServiceTest {
@@ -23,12 +29,25 @@ public class ClienteServiceTest {
     
     @Mock
     private AuditoriaService auditoriaService;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
     
     private ClienteService clienteService;
 
     @BeforeEach
     void setUp() {
-        clienteService = new ClienteService(clienteRepository, auditoriaService);
+        clienteService = new ClienteService(clienteRepository, auditoriaService, reservaRepository,
+                usuarioRepository, passwordEncoder, resumenDiarioService);
     }
 
     @Test
@@ -64,4 +83,25 @@ public class ClienteServiceTest {
         assertThat(encontrado).isPresent();
         assertThat(encontrado.get().getNombres()).isEqualTo("Carlos");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testEliminarClienteRetiraSusReservasDeLosResumenes() {
+        Cliente cliente = new Cliente();
+        cliente.setId(7L);
+        cliente.setDni("55667788");
+        Reserva finalizada = new Reserva();
+        finalizada.setId(70L);
+        finalizada.setEstadoReserva("FINALIZADA");
+        Reserva cancelada = new Reserva();
+        cancelada.setId(71L);
+        cancelada.setEstadoReserva("CANCELADA");
+
+        when(clienteRepository.findById(7L)).thenReturn(Optional.of(cliente));
+        when(reservaRepository.findByCliente(cliente)).thenReturn(List.of(finalizada, cancelada));
+
+        assertThat(clienteService.eliminarClientePorId(7L)).isTrue();
+
+        verify(reservaRepository).deleteAll(List.of(finalizada, cancelada));
+        verify(resumenDiarioService).contabilizarReservas(List.of(70L, 71L));
+    }
+}
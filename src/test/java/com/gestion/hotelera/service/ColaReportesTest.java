@@ -0,0 +1,223 @@
+package com.gestion.hotelera.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gestion.hotelera.config.RelojAjustable;
+import com.gestion.hotelera.enums.EstadoTrabajoReporte;
+import com.gestion.hotelera.enums.PrioridadReporte;
+import com.gestion.hotelera.enums.TipoReporte;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.thymeleaf.ITemplateEngine;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cola de reportes")
+class ColaReportesTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2030, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2030, 1, 31);
+
+    @Mock
+    private ReporteService reporteService;
+
+    @Mock
+    private ReservaService reservaService;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    @Mock
+    private ITemplateEngine templateEngine;
+
+    private final AtomicLong version = new AtomicLong();
+    private final RelojAjustable reloj = new RelojAjustable();
+    private ColaReportes cola;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(resumenDiarioService.getVersionDatos()).thenAnswer(invocacion -> version.get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cola != null) {
+            cola.detener();
+        }
+    }
+
+    @Test
+    @DisplayName("Debería reutilizar el resultado hasta que cambie la versión de datos")
+    void deberiaReutilizarResultadoMientrasNoCambienLosDatos() throws Exception {
+        cola = nuevaCola(2, 10);
+        when(reservaService.getIngresosPorPeriodo(INICIO, FIN)).thenReturn(List.of(Map.of("fecha", "2030-01-01")));
+
+        TrabajoReporte primero = esperar(cola.enviar(TipoReporte.INGRESOS, INICIO, FIN, null));
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, primero.getEstado());
+        assertFalse(primero.isDesdeCache());
+        assertEquals("[{\"fecha\":\"2030-01-01\"}]",
+                new String(primero.getResultado().contenido(), StandardCharsets.UTF_8));
+
+        TrabajoReporte segundo = cola.enviar(TipoReporte.INGRESOS, INICIO, FIN, PrioridadReporte.ALTA);
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, segundo.getEstado());
+        assertTrue(segundo.isDesdeCache());
+        assertSame(primero.getResultado(), segundo.getResultado());
+        assertEquals(1, cola.getResultadosEnCache());
+
+        version.incrementAndGet();
+        TrabajoReporte tercero = esperar(cola.enviar(TipoReporte.INGRESOS, INICIO, FIN, null));
+        assertFalse(tercero.isDesdeCache());
+        verify(reservaService, times(2)).getIngresosPorPeriodo(INICIO, FIN);
+        assertEquals(1, cola.getResultadosEnCache());
+    }
+
+    @Test
+    @DisplayName("Debería atender primero la prioridad alta y unir peticiones iguales")
+    void deberiaOrdenarPorPrioridad() throws Exception {
+        cola = nuevaCola(1, 10);
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        List<LocalDate> orden = new CopyOnWriteArrayList<>();
+        when(reservaService.getMovimientoPorPeriodo(any(), any())).thenAnswer(invocacion -> {
+            LocalDate inicio = invocacion.getArgument(0);
+            if (inicio.equals(INICIO)) {
+                bloqueo.await(5, TimeUnit.SECONDS);
+            }
+            orden.add(inicio);
+            return List.of();
+        });
+
+        TrabajoReporte ocupando = cola.enviar(TipoReporte.MOVIMIENTO, INICIO, FIN, null);
+        esperarEstado(ocupando, EstadoTrabajoReporte.EN_CURSO);
+        TrabajoReporte baja = cola.enviar(TipoReporte.MOVIMIENTO, INICIO.plusDays(1), FIN, PrioridadReporte.BAJA);
+        TrabajoReporte normal = cola.enviar(TipoReporte.MOVIMIENTO, INICIO.plusDays(2), FIN, PrioridadReporte.NORMAL);
+        TrabajoReporte alta = cola.enviar(TipoReporte.MOVIMIENTO, INICIO.plusDays(3), FIN, PrioridadReporte.ALTA);
+        assertSame(baja, cola.enviar(TipoReporte.MOVIMIENTO, INICIO.plusDays(1), FIN, PrioridadReporte.ALTA));
+        assertEquals(3, cola.getTrabajosEnCola());
+
+        bloqueo.countDown();
+        esperar(baja);
+        esperar(normal);
+        esperar(alta);
+        assertEquals(List.of(INICIO, INICIO.plusDays(3), INICIO.plusDays(2), INICIO.plusDays(1)), orden);
+    }
+
+    @Test
+    @DisplayName("Debería rechazar trabajos con la cola llena y registrar los fallos")
+    void deberiaRechazarConColaLlena() throws Exception {
+        cola = nuevaCola(1, 1);
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        when(reporteService.obtenerModeloIndicadores(any(), any())).thenAnswer(invocacion -> {
+            bloqueo.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("Base de datos no disponible");
+        });
+
+        TrabajoReporte ocupando = cola.enviar(TipoReporte.INDICADORES, INICIO, FIN, null);
+        esperarEstado(ocupando, EstadoTrabajoReporte.EN_CURSO);
+        cola.enviar(TipoReporte.INDICADORES, INICIO, FIN.plusDays(1), null);
+        assertThrows(IllegalStateException.class,
+                () -> cola.enviar(TipoReporte.INDICADORES, INICIO, FIN.plusDays(2), null));
+        assertThrows(IllegalArgumentException.class, () -> cola.enviar(TipoReporte.INDICADORES, FIN, INICIO, null));
+
+        bloqueo.countDown();
+        esperar(ocupando);
+        assertEquals(EstadoTrabajoReporte.FALLIDO, ocupando.getEstado());
+        assertEquals("Base de datos no disponible", ocupando.getError());
+        assertEquals(0, cola.getResultadosEnCache());
+        assertTrue(cola.obtenerTrabajo(ocupando.getId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Debería crear un trabajo nuevo tras uno que falla enseguida")
+    void deberiaOlvidarElTrabajoQueFallaEnseguida() throws Exception {
+        cola = nuevaCola(2, 10);
+        when(reservaService.getMovimientoPorPeriodo(INICIO, FIN))
+                .thenThrow(new IllegalStateException("Base de datos no disponible"));
+
+        // El trabajo puede terminar antes de que enviar() vuelva: no debe quedar como "en curso"
+        TrabajoReporte anterior = null;
+        for (int i = 0; i < 200; i++) {
+            TrabajoReporte trabajo = esperar(cola.enviar(TipoReporte.MOVIMIENTO, INICIO, FIN, null));
+            assertNotSame(anterior, trabajo);
+            assertEquals(EstadoTrabajoReporte.FALLIDO, trabajo.getEstado());
+            anterior = trabajo;
+        }
+    }
+
+    @Test
+    @DisplayName("Debería dar por fallido el trabajo que termina con un Error")
+    void deberiaFallarElTrabajoQueLanzaUnError() throws Exception {
+        cola = nuevaCola(1, 10);
+        when(reservaService.getMovimientoPorPeriodo(INICIO, FIN))
+                .thenThrow(new OutOfMemoryError("Java heap space"))
+                .thenReturn(List.of());
+
+        TrabajoReporte fallido = esperar(cola.enviar(TipoReporte.MOVIMIENTO, INICIO, FIN, null));
+        assertEquals(EstadoTrabajoReporte.FALLIDO, fallido.getEstado());
+        assertEquals("Java heap space", fallido.getError());
+
+        // La misma petición ya no se une al trabajo fallido
+        TrabajoReporte siguiente = esperar(cola.enviar(TipoReporte.MOVIMIENTO, INICIO, FIN, null));
+        assertNotSame(fallido, siguiente);
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, siguiente.getEstado());
+    }
+
+    @Test
+    @DisplayName("Debería olvidar resultados y trabajos terminados al vencer la retención")
+    void deberiaCaducarTrasLaRetencion() throws Exception {
+        cola = nuevaCola(1, 10);
+        when(reservaService.getMovimientoPorPeriodo(INICIO, FIN)).thenReturn(List.of());
+
+        TrabajoReporte primero = esperar(cola.enviar(TipoReporte.MOVIMIENTO, INICIO, FIN, null));
+        reloj.avanzar(Duration.ofMinutes(59));
+        assertTrue(cola.enviar(TipoReporte.MOVIMIENTO, INICIO, FIN, null).isDesdeCache());
+        assertTrue(cola.obtenerTrabajo(primero.getId()).isPresent());
+
+        reloj.avanzar(Duration.ofMinutes(2));
+        TrabajoReporte nuevo = esperar(cola.enviar(TipoReporte.MOVIMIENTO, INICIO, FIN, null));
+        assertFalse(nuevo.isDesdeCache());
+        assertTrue(cola.obtenerTrabajo(primero.getId()).isEmpty());
+        verify(reservaService, times(2)).getMovimientoPorPeriodo(INICIO, FIN);
+    }
+
+    private ColaReportes nuevaCola(int hilos, int capacidad) {
+        return new ColaReportes(reporteService, reservaService, resumenDiarioService, templateEngine,
+                new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry(),
+                hilos, capacidad, Thread.NORM_PRIORITY, 3_600_000, 10, 1_000_000, reloj);
+    }
+
+    private static TrabajoReporte esperar(TrabajoReporte trabajo) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!trabajo.getEstado().isTerminado() && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(trabajo.getEstado().isTerminado(), "El trabajo no terminó a tiempo");
+        return trabajo;
+    }
+
+    private static void esperarEstado(TrabajoReporte trabajo, EstadoTrabajoReporte estado) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (trabajo.getEstado() != estado && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(estado, trabajo.getEstado());
+    }
+}
@@ -0,0 +1,166 @@
+package com.gestion.hotelera.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Consultas en paralelo de una página")
+class ConsultasParalelasTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConsultasParalelas consultasParalelas;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consultasParalelas = new ConsultasParalelas(transactionManager, meterRegistry, 4, 2, 5_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consultasParalelas.detener();
+    }
+
+    @Test
+    @DisplayName("Debería ejecutar las consultas a la vez y devolver sus resultados")
+    void deberiaEjecutarConsultasALaVez() {
+        // Cada consulta espera a las demás: solo terminan si corren a la vez
+        CountDownLatch todas = new CountDownLatch(3);
+        ConsultasParalelas.Lote lote = consultasParalelas.nuevoLote("prueba");
+        Supplier<Integer> uno = lote.enviar("uno", () -> esperarALasDemas(todas, 1), -1);
+        Supplier<Integer> dos = lote.enviar("dos", () -> esperarALasDemas(todas, 2), -1);
+        Supplier<Integer> tres = lote.enviar("tres", () -> esperarALasDemas(todas, 3), -1);
+
+        assertThrows(IllegalStateException.class, uno::get);
+        lote.esperar();
+
+        assertFalse(lote.isParcial());
+        assertEquals(List.of(1, 2, 3), List.of(uno.get(), dos.get(), tres.get()));
+        assertEquals(1, meterRegistry.get("hotel.pagina").tag("parcial", "false").timer().count());
+        assertEquals(1, meterRegistry.get("hotel.pagina.consulta")
+                .tag("consulta", "dos").tag("resultado", "ok").timer().count());
+    }
+
+    @Test
+    @DisplayName("Debería usar el valor por defecto si una consulta falla o vence el plazo")
+    void deberiaDegradarAlValorPorDefecto() {
+        CountDownLatch nunca = new CountDownLatch(1);
+        ConsultasParalelas.Lote lote = consultasParalelas.nuevoLote("prueba", Duration.ofMillis(200));
+        Supplier<Long> rapida = lote.enviar("rapida", () -> 7L, 0L);
+        Supplier<Long> lenta = lote.enviar("lenta", () -> {
+            try {
+                nunca.await();
+            } catch (InterruptedException e) {
+                // La cancelación por plazo interrumpe la consulta
+                Thread.currentThread().interrupt();
+            }
+            return 9L;
+        }, 0L);
+        Supplier<Long> fallida = lote.enviar("fallida", () -> {
+            throw new IllegalStateException("sin conexión");
+        }, 0L);
+
+        long inicio = System.nanoTime();
+        lote.esperar();
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - inicio).toMillis() < 2_000);
+        assertTrue(lote.isParcial());
+        assertEquals(List.of("lenta", "fallida"), lote.getIncompletas());
+        assertEquals(7L, rapida.get());
+        assertEquals(0L, lenta.get());
+        assertEquals(0L, fallida.get());
+        assertEquals(1, meterRegistry.get("hotel.pagina.consulta")
+                .tag("consulta", "lenta").tag("resultado", "plazo").timer().count());
+        assertEquals(1, meterRegistry.get("hotel.pagina.consulta")
+                .tag("consulta", "fallida").tag("resultado", "error").timer().count());
+        assertEquals(1, meterRegistry.get("hotel.pagina").tag("parcial", "true").timer().count());
+    }
+
+    @Test
+    @DisplayName("Debería ejecutar en el hilo que llama si no hay hilos configurados")
+    void deberiaEjecutarEnLineaSinHilos() {
+        ConsultasParalelas enLinea = new ConsultasParalelas(transactionManager, meterRegistry, 0, 0, 1_000);
+        Thread llamador = Thread.currentThread();
+        ConsultasParalelas.Lote lote = enLinea.nuevoLote("prueba");
+        Supplier<Boolean> mismoHilo = lote.enviar("hilo", () -> Thread.currentThread() == llamador, false);
+        lote.esperar();
+
+        assertTrue(mismoHilo.get());
+        assertThrows(IllegalStateException.class, () -> lote.enviar("tarde", () -> 1, 0));
+    }
+
+    @Test
+    @DisplayName("Debería ejecutar en el hilo que llama las consultas que no tienen hilo libre")
+    void deberiaEjecutarEnLineaSiNoHayHiloLibre() {
+        ConsultasParalelas acotadas = new ConsultasParalelas(transactionManager, meterRegistry, 2, 1, 5_000);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Thread llamador = Thread.currentThread();
+        try {
+            // La primera página ocupa su único hilo: su segunda consulta corre aquí
+            ConsultasParalelas.Lote recepcion = acotadas.nuevoLote("recepcion");
+            Supplier<Boolean> bloqueada = recepcion.enviar("bloqueada", () -> esperar(liberar), false);
+            Supplier<Boolean> propia = recepcion.enviar("propia", () -> Thread.currentThread() == llamador, false);
+
+            // Otra página ocupa el último hilo: la tercera no espera en cola, corre aquí
+            ConsultasParalelas.Lote dashboard = acotadas.nuevoLote("dashboard");
+            Supplier<Boolean> otra = dashboard.enviar("otra", () -> esperar(liberar), false);
+            ConsultasParalelas.Lote informes = acotadas.nuevoLote("informes");
+            Supplier<Boolean> sinHilo = informes.enviar("sin-hilo", () -> Thread.currentThread() == llamador, false);
+            informes.esperar();
+            assertTrue(sinHilo.get());
+
+            liberar.countDown();
+            recepcion.esperar();
+            dashboard.esperar();
+            assertEquals(List.of(true, true, true), List.of(bloqueada.get(), propia.get(), otra.get()));
+            assertEquals(1, meterRegistry.get("hotel.pagina.consulta.en-linea").tag("pagina", "recepcion")
+                    .counter().count());
+            assertEquals(1, meterRegistry.get("hotel.pagina.consulta.en-linea").tag("pagina", "informes")
+                    .counter().count());
+            assertNull(meterRegistry.find("hotel.pagina.consulta.en-linea").tag("pagina", "dashboard").counter());
+        } finally {
+            liberar.countDown();
+            acotadas.detener();
+        }
+    }
+
+    private static boolean esperar(CountDownLatch liberar) {
+        try {
+            return liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static int esperarALasDemas(CountDownLatch todas, int valor) {
+        todas.countDown();
+        try {
+            if (!todas.await(2, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Las consultas no se ejecutaron a la vez");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return valor;
+    }
+}
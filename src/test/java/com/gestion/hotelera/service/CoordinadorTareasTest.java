@@ -0,0 +1,185 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.RelojAjustable;
+import com.gestion.hotelera.model.EjecucionTarea;
+import com.gestion.hotelera.repository.BloqueoTareaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Varios nodos en la misma JVM: cada uno es un contexto hijo con su propio
+ * CoordinadorTareas sobre la misma base de datos H2 del contexto de pruebas.
+ * Todos comparten un reloj parado que el test adelanta para que los leases
+ * caduquen sin esperar.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Coordinación de tareas entre nodos")
+class CoordinadorTareasTest {
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Autowired
+    private BloqueoTareaService bloqueoTareaService;
+
+    @Autowired
+    private BloqueoTareaRepository bloqueoTareaRepository;
+
+    private final List<AnnotationConfigApplicationContext> nodos = new ArrayList<>();
+    private final RelojAjustable reloj = new RelojAjustable();
+
+    @AfterEach
+    void tearDown() {
+        nodos.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    @Test
+    @DisplayName("Debería ejecutar la tarea en un solo nodo aunque todos la disparen a la vez")
+    void deberiaEjecutarEnUnSoloNodo() throws Exception {
+        List<CoordinadorTareas> coordinadores = List.of(nodo("nodo-a", 5_000), nodo("nodo-b", 5_000),
+                nodo("nodo-c", 5_000));
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(coordinadores.size());
+        try {
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (CoordinadorTareas coordinador : coordinadores) {
+                resultados.add(hilos.submit(() -> {
+                    salida.await();
+                    return ejecutar(coordinador, "prueba-concurrente", () -> {
+                        ejecuciones.incrementAndGet();
+                        Thread.sleep(200);
+                        return 7;
+                    });
+                }));
+            }
+            salida.countDown();
+            int filas = 0;
+            for (Future<Integer> resultado : resultados) {
+                filas += resultado.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(1, ejecuciones.get());
+            assertEquals(7, filas);
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        List<EjecucionTarea> historial = bloqueoTareaService.obtenerUltimasEjecuciones("prueba-concurrente", 10);
+        assertEquals(1, historial.size());
+        assertEquals(EjecucionTarea.COMPLETADA, historial.get(0).getResultado());
+        assertEquals(7, historial.get(0).getFilasProcesadas());
+        assertTrue(historial.get(0).getDuracionMs() >= 200);
+        assertEquals(historial.get(0).getNodo(),
+                bloqueoTareaRepository.findById("prueba-concurrente").orElseThrow().getPropietario());
+    }
+
+    @Test
+    @DisplayName("Debería mantener el lease con latidos y cederlo cuando el propietario cae")
+    void deberiaRenovarYConmutarAlExpirar() throws Exception {
+        CoordinadorTareas nodoA = nodo("nodo-a", 300);
+        CoordinadorTareas nodoB = nodo("nodo-b", 300);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> larga = hilo.submit(() -> ejecutar(nodoA, "prueba-latido", () -> {
+                enCurso.countDown();
+                assertTrue(terminar.await(10, TimeUnit.SECONDS));
+                return 1;
+            }));
+            assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+            reloj.avanzar(Duration.ofMillis(200));
+            esperarLatido("prueba-latido", LocalDateTime.now(reloj).plusNanos(300_000_000));
+            // Más que la duración del lease desde que se tomó: solo el latido lo mantiene
+            reloj.avanzar(Duration.ofMillis(200));
+            assertEquals(0, ejecutar(nodoB, "prueba-latido", () -> 2));
+            terminar.countDown();
+            assertEquals(1, larga.get(5, TimeUnit.SECONDS));
+        } finally {
+            hilo.shutdownNow();
+        }
+
+        // nodo-a cae con el lease tomado: nadie lo libera y expira solo
+        nodoA.detener();
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        assertTrue(bloqueoTareaService.adquirir("prueba-caida", nodoA.getNodo(), ahora, ahora.plusNanos(300_000_000)));
+        assertEquals(0, ejecutar(nodoB, "prueba-caida", () -> 3));
+        reloj.avanzar(Duration.ofMillis(300));
+        assertEquals(3, ejecutar(nodoB, "prueba-caida", () -> 3));
+        assertEquals(nodoB.getNodo(), bloqueoTareaRepository.findById("prueba-caida").orElseThrow().getPropietario());
+    }
+
+    @Test
+    @DisplayName("Debería registrar el error y liberar el lease si la tarea falla")
+    void deberiaRegistrarErrores() throws Exception {
+        CoordinadorTareas nodoA = nodo("nodo-a", 5_000);
+
+        assertThrows(IllegalStateException.class, () -> ejecutar(nodoA, "prueba-error", () -> {
+            throw new IllegalStateException("Sin conexión SMTP");
+        }));
+
+        EjecucionTarea ejecucion = bloqueoTareaService.obtenerUltimasEjecuciones("prueba-error", 1).get(0);
+        assertEquals(EjecucionTarea.ERROR, ejecucion.getResultado());
+        assertTrue(ejecucion.getMensajeError().contains("Sin conexión SMTP"));
+        assertEquals(5, ejecutar(nodo("nodo-b", 5_000), "prueba-error", () -> 5));
+    }
+
+    /**
+     * Espera a que el planificador de latidos del nodo lleve el lease al
+     * menos hasta el instante indicado.
+     */
+    private void esperarLatido(String tarea, LocalDateTime hasta) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bloqueoTareaRepository.findById(tarea).orElseThrow().getBloqueadoHasta().isBefore(hasta)) {
+            assertTrue(System.nanoTime() < limite, "Ningún latido renovó el lease de " + tarea);
+            Thread.sleep(10);
+        }
+    }
+
+    private static int ejecutar(CoordinadorTareas coordinador, String tarea, Callable<Integer> trabajo)
+            throws Exception {
+        try {
+            return coordinador.ejecutar(tarea, trabajo::call, 0);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CoordinadorTareas nodo(String nombre, long duracionLeaseMs) {
+        // Solo se hereda la fábrica de beans: con setParent el cierre del nodo llegaría como evento al
+        // contexto de pruebas y cerraría su MeterRegistry
+        AnnotationConfigApplicationContext nodo = new AnnotationConfigApplicationContext();
+        nodo.getBeanFactory().setParentBeanFactory(contexto.getAutowireCapableBeanFactory());
+        nodo.getEnvironment().getPropertySources().addFirst(new MapPropertySource("nodo", Map.of(
+                "app.tareas.nodo", nombre,
+                "app.tareas.bloqueo.duracion-ms", String.valueOf(duracionLeaseMs),
+                "app.tareas.bloqueo.retencion-minima-ms", "0")));
+        // Mismo nombre que el reloj del contexto de pruebas para sustituirlo en el nodo
+        nodo.registerBean("reloj", Clock.class, () -> reloj);
+        nodo.register(CoordinadorTareas.class);
+        nodo.refresh();
+        nodos.add(nodo);
+        return nodo.getBean(CoordinadorTareas.class);
+    }
+}
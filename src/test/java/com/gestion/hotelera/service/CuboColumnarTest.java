@@ -0,0 +1,181 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.DimensionCubo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agregaciones del cubo columnar comparadas con un recorrido directo de las filas.
+ */
+@DisplayName("Cubo columnar de reservas")
+class CuboColumnarTest {
+
+    private static final String[] TIPOS = {"Simple", "Doble", "Suite"};
+    private static final String[] METODOS = {"TARJETA", "EFECTIVO", "YAPE", null};
+    private static final String[] CANALES = {"WEB", "MOSTRADOR", "TELEFONO"};
+    private static final String[] DESCUENTOS = {null, "VERANO10", "VIP"};
+    private static final String[] NACIONALIDADES = {"Peruana", "Chilena", "Argentina", "Colombiana"};
+    private static final String[] ESTADOS = {"ACTIVA", "FINALIZADA", "CANCELADA", "PENDIENTE"};
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Debería agrupar y filtrar igual que un recorrido directo, también tras cambios")
+    void deberiaCoincidirConRecorridoDirecto() {
+        Random aleatorio = new Random(42);
+        Map<Long, CuboColumnar.Fila> filas = new HashMap<>();
+        CuboColumnar cubo = new CuboColumnar();
+        // Más filas que un tramo del escaneo para que se repartan entre tareas
+        for (long id = 1; id <= 150_000; id++) {
+            CuboColumnar.Fila fila = filaAleatoria(id, aleatorio);
+            filas.put(id, fila);
+            cubo.guardar(fila);
+        }
+
+        ConsultaCubo consulta = new ConsultaCubo(List.of(DimensionCubo.TIPO_HABITACION, DimensionCubo.MES),
+                Map.of(DimensionCubo.CANAL, Set.of("WEB", "TELEFONO"),
+                        DimensionCubo.ESTADO, Set.of("ACTIVA", "FINALIZADA")),
+                LocalDate.of(2030, 2, 10), LocalDate.of(2030, 6, 20), Map.of("Simple", 10L, "Doble", 6L));
+        comparar(filas, cubo, consulta);
+
+        // Cambios incrementales: se modifican y retiran reservas y se añaden otras
+        for (long id = 1; id <= 20_000; id++) {
+            CuboColumnar.Fila fila = filaAleatoria(id, aleatorio);
+            filas.put(id, fila);
+            cubo.guardar(fila);
+        }
+        for (long id = 20_001; id <= 30_000; id++) {
+            filas.remove(id);
+            cubo.retirar(id);
+        }
+        cubo.retirar(999_999);
+        for (long id = 200_000; id <= 205_000; id++) {
+            CuboColumnar.Fila fila = filaAleatoria(id, aleatorio);
+            filas.put(id, fila);
+            cubo.guardar(fila);
+        }
+        assertEquals(filas.size(), cubo.getReservas());
+        comparar(filas, cubo, consulta);
+
+        // Todas las dimensiones a la vez usan la tabla hash en lugar de arrays directos
+        comparar(filas, cubo, new ConsultaCubo(List.of(DimensionCubo.values()), Map.of(), null, null, null));
+        comparar(filas, cubo, new ConsultaCubo(List.of(DimensionCubo.METODO_PAGO, DimensionCubo.DESCUENTO),
+                Map.of(DimensionCubo.NACIONALIDAD, Set.of("Peruana", "Desconocida")), null, null, null));
+    }
+
+    @Test
+    @DisplayName("Debería calcular RevPAR con habitaciones del tipo y días del mes dentro del periodo")
+    void deberiaCalcularRevpar() {
+        CuboColumnar cubo = new CuboColumnar();
+        cubo.guardar(fila(1, "Suite", LocalDate.of(2030, 1, 30), 3, 300.0));
+        cubo.guardar(fila(2, "Suite", LocalDate.of(2030, 2, 5), 2, 200.0));
+        cubo.guardar(fila(3, "Doble", LocalDate.of(2030, 2, 6), 1, 90.0));
+
+        ResultadoCubo resultado = cubo.consultar(new ConsultaCubo(
+                List.of(DimensionCubo.TIPO_HABITACION, DimensionCubo.MES), Map.of(),
+                LocalDate.of(2030, 1, 21), LocalDate.of(2030, 2, 28), Map.of("Suite", 2L)), pool);
+
+        assertEquals(3, resultado.grupos().size());
+        ResultadoCubo.Grupo dobleFebrero = resultado.grupos().get(0);
+        assertEquals(List.of("Doble", "2030-02"), dobleFebrero.valores());
+        assertNull(dobleFebrero.revpar());
+        ResultadoCubo.Grupo suiteEnero = resultado.grupos().get(1);
+        assertEquals(List.of("Suite", "2030-01"), suiteEnero.valores());
+        // 2 suites x 11 días de enero dentro del periodo
+        assertEquals(300.0 / 22, suiteEnero.revpar(), 1e-9);
+        assertEquals(100.0, suiteEnero.adr(), 1e-9);
+        assertEquals(200.0 / 56, resultado.grupos().get(2).revpar(), 1e-9);
+        assertEquals(590.0 / (2 * 39), resultado.total().revpar(), 1e-9);
+        assertEquals(6, resultado.total().nochesHabitacion());
+
+        // Sin periodo no se sabe cuántas noches había disponibles
+        assertNull(cubo.consultar(new ConsultaCubo(List.of(), Map.of(), null, null, Map.of("Suite", 2L)), pool)
+                .total().revpar());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar consultas mal formadas")
+    void deberiaRechazarConsultasInvalidas() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsultaCubo(
+                List.of(DimensionCubo.MES, DimensionCubo.MES), Map.of(), null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new ConsultaCubo(
+                List.of(), Map.of(DimensionCubo.MES, Set.of("2030-01")), null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new ConsultaCubo(
+                List.of(), Map.of(), LocalDate.of(2030, 2, 1), LocalDate.of(2030, 1, 1), null));
+        assertThrows(IllegalArgumentException.class, () -> DimensionCubo.fromParametro("pais"));
+        assertEquals(DimensionCubo.METODO_PAGO, DimensionCubo.fromParametro(" Metodo "));
+    }
+
+    private void comparar(Map<Long, CuboColumnar.Fila> filas, CuboColumnar cubo, ConsultaCubo consulta) {
+        Map<List<String>, double[]> esperado = new TreeMap<>((a, b) -> String.join("\u0000", a)
+                .compareTo(String.join("\u0000", b)));
+        for (CuboColumnar.Fila fila : filas.values()) {
+            if (consulta.desde() != null && fila.fechaInicio().isBefore(consulta.desde())
+                    || consulta.hasta() != null && fila.fechaInicio().isAfter(consulta.hasta())) {
+                continue;
+            }
+            boolean pasa = consulta.filtros().entrySet().stream()
+                    .allMatch(filtro -> filtro.getValue().contains(fila.valor(filtro.getKey())));
+            if (!pasa) {
+                continue;
+            }
+            List<String> clave = new ArrayList<>();
+            for (DimensionCubo dimension : consulta.agrupar()) {
+                clave.add(dimension == DimensionCubo.MES
+                        ? YearMonth.from(fila.fechaInicio()).toString() : fila.valor(dimension));
+            }
+            double[] acumulado = esperado.computeIfAbsent(clave, k -> new double[3]);
+            acumulado[0] += fila.ingresos();
+            acumulado[1] += fila.fechaFin().toEpochDay() - fila.fechaInicio().toEpochDay();
+            acumulado[2]++;
+        }
+
+        ResultadoCubo resultado = cubo.consultar(consulta, pool);
+        assertEquals(esperado.size(), resultado.grupos().size());
+        int i = 0;
+        for (Map.Entry<List<String>, double[]> entrada : esperado.entrySet()) {
+            ResultadoCubo.Grupo grupo = resultado.grupos().get(i++);
+            assertEquals(entrada.getKey(), grupo.valores());
+            assertEquals(entrada.getValue()[0], grupo.ingresos(), 1e-6);
+            assertEquals((long) entrada.getValue()[1], grupo.nochesHabitacion());
+            assertEquals((long) entrada.getValue()[2], grupo.reservas());
+        }
+        assertEquals(esperado.values().stream().mapToDouble(a -> a[2]).sum(), resultado.total().reservas());
+    }
+
+    private static CuboColumnar.Fila filaAleatoria(long id, Random aleatorio) {
+        LocalDate inicio = LocalDate.of(2030, 1, 1).plusDays(aleatorio.nextInt(240));
+        return new CuboColumnar.Fila(id, elegir(TIPOS, aleatorio), inicio, inicio.plusDays(1 + aleatorio.nextInt(6)),
+                elegir(ESTADOS, aleatorio), elegir(METODOS, aleatorio), elegir(CANALES, aleatorio),
+                elegir(DESCUENTOS, aleatorio), elegir(NACIONALIDADES, aleatorio),
+                Math.round(aleatorio.nextDouble() * 50_000) / 100.0);
+    }
+
+    private static CuboColumnar.Fila fila(long id, String tipo, LocalDate inicio, int noches, double ingresos) {
+        return new CuboColumnar.Fila(id, tipo, inicio, inicio.plusDays(noches), "ACTIVA", "TARJETA", "WEB",
+                null, "Peruana", ingresos);
+    }
+
+    private static String elegir(String[] valores, Random aleatorio) {
+        return valores[aleatorio.nextInt(valores.length)];
+    }
+}
@@ -0,0 +1,175 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.dto.PagoRequest;
+import com.gestion.hotelera.enums.DimensionCubo;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReporteReservaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cubo de reservas alimentado por los flujos reales: la carga inicial y
+ * los cambios de reservas y pagos confirmados después.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Cubo de análisis de reservas")
+class CuboReservasServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2034, 4, 10);
+    private static final String TIPO = "Suite Cubo";
+
+    @Autowired
+    private CuboReservasService cuboReservasService;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private HabitacionService habitacionService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    private final List<Habitacion> habitaciones = new ArrayList<>();
+    private final List<Reserva> reservas = new ArrayList<>();
+    private Cliente cliente;
+
+    @AfterEach
+    void tearDown() {
+        reservas.forEach(reserva -> reservaService.eliminarReservaFisica(reserva.getId()));
+        habitaciones.forEach(h -> habitacionService.eliminarHabitacion(h.getId()));
+        if (cliente != null) {
+            clienteRepository.delete(cliente);
+        }
+    }
+
+    @Test
+    @DisplayName("Debería reflejar pagos, cancelaciones y borrados tras el commit")
+    void deberiaRefrescarConLosCambiosConfirmados() {
+        cliente = new Cliente();
+        cliente.setNombres("Carla");
+        cliente.setApellidos("Cubo");
+        cliente.setDni("73456789");
+        cliente.setNacionalidad("Peruana");
+        cliente = clienteRepository.save(cliente);
+        Habitacion primera = habitacion("CB01");
+        Habitacion segunda = habitacion("CB02");
+
+        Reserva pagada = reservar(primera, DIA, 2, 300.0);
+        Reserva cancelada = reservar(segunda, DIA.plusDays(1), 3, 450.0);
+        Reserva borrada = reservar(primera, DIA.plusDays(25), 1, 150.0);
+
+        // Carga inicial: las reservas pendientes no suman ingresos
+        ResultadoCubo inicial = consultar();
+        assertTrue(inicial.grupos().isEmpty());
+        assertEquals(3, consultarEstados(Set.of("PENDIENTE")).total().reservas());
+
+        pagar(pagada, "TARJETA", "WEB");
+        pagar(borrada, "YAPE", "MOSTRADOR");
+        reservaService.cancelarReserva(cancelada.getId());
+
+        ResultadoCubo conPagos = consultar();
+        assertEquals(2, conPagos.grupos().size());
+        ResultadoCubo.Grupo tarjeta = conPagos.grupos().get(0);
+        assertEquals(List.of(TIPO, "2034-04", "TARJETA", "WEB", "Peruana"), tarjeta.valores());
+        assertEquals(2, tarjeta.nochesHabitacion());
+        assertEquals(tarjeta.ingresos() / 2, tarjeta.adr(), 1e-9);
+        // 2 habitaciones del tipo durante los 21 días de abril del periodo
+        assertEquals(tarjeta.ingresos() / 42, tarjeta.revpar(), 1e-9);
+        assertEquals(List.of(TIPO, "2034-05", "YAPE", "MOSTRADOR", "Peruana"), conPagos.grupos().get(1).valores());
+        assertEquals(1, consultarEstados(Set.of("CANCELADA")).total().reservas());
+
+        reservaService.eliminarReservaFisica(borrada.getId());
+        reservas.remove(borrada);
+        ResultadoCubo sinBorrada = consultar();
+        assertEquals(1, sinBorrada.grupos().size());
+        assertEquals(tarjeta.ingresos(), sinBorrada.total().ingresos(), 1e-9);
+        assertEquals(0, cuboReservasService.getReservasPendientes());
+    }
+
+    @Test
+    @DisplayName("Debería conservar las reservas pendientes si falla su lectura")
+    void deberiaConservarPendientesSiFallaLaLectura() {
+        ReporteReservaRepository repositorio = mock(ReporteReservaRepository.class);
+        when(repositorio.streamCubo()).thenReturn(Stream.empty());
+        when(repositorio.findCuboPorIds(any()))
+                .thenThrow(new DataAccessResourceFailureException("Conexión perdida"))
+                .thenReturn(List.of());
+        CuboReservasService servicio = new CuboReservasService(repositorio, mock(HabitacionRepository.class),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1, 0, 0);
+        try {
+            servicio.recargar();
+            servicio.alModificarReservas(new ReservasModificadas(List.of(1L, 2L)));
+
+            servicio.refrescar();
+            assertEquals(2, servicio.getReservasPendientes());
+
+            servicio.refrescar();
+            assertEquals(0, servicio.getReservasPendientes());
+            verify(repositorio, times(2)).findCuboPorIds(any());
+        } finally {
+            servicio.detener();
+        }
+    }
+
+    private ResultadoCubo consultar() {
+        return cuboReservasService.consultar(new ConsultaCubo(
+                List.of(DimensionCubo.TIPO_HABITACION, DimensionCubo.MES, DimensionCubo.METODO_PAGO,
+                        DimensionCubo.CANAL, DimensionCubo.NACIONALIDAD),
+                Map.of(DimensionCubo.TIPO_HABITACION, Set.of(TIPO)), DIA, DIA.plusDays(30), null));
+    }
+
+    private ResultadoCubo consultarEstados(Set<String> estados) {
+        return cuboReservasService.consultar(new ConsultaCubo(List.of(),
+                Map.of(DimensionCubo.TIPO_HABITACION, Set.of(TIPO), DimensionCubo.ESTADO, estados),
+                DIA, DIA.plusDays(30), null));
+    }
+
+    private void pagar(Reserva reserva, String metodo, String canal) {
+        PagoRequest pago = new PagoRequest();
+        pago.setReservaId(reserva.getId());
+        pago.setMetodo(metodo);
+        pago.setCanal(canal);
+        assertTrue(pagoService.procesarPago(pago).isExito());
+    }
+
+    private Habitacion habitacion(String numero) {
+        Habitacion habitacion = habitacionService.crearHabitacion(new Habitacion(numero, TIPO, 150.0, "DISPONIBLE"));
+        habitaciones.add(habitacion);
+        return habitacion;
+    }
+
+    private Reserva reservar(Habitacion habitacion, LocalDate inicio, int noches, double total) {
+        Reserva reserva = reservaService.crearOActualizarReserva(new Reserva(cliente, habitacion, inicio,
+                inicio.plusDays(noches), LocalTime.of(14, 0), LocalTime.of(12, 0), noches, total, "PENDIENTE"));
+        reservas.add(reserva);
+        return reserva;
+    }
+}
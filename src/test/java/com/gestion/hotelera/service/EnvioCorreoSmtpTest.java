@@ -0,0 +1,72 @@
+package com.gestion.hotelera.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvioCorreoSmtpTest {
+
+    private ServidorSmtpFalso smtp;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new ServidorSmtpFalso();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPuerto());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    @Test
+    void deberiaInformarPorDestinatarioDentroDeUnaSesion() throws Exception {
+        smtp.fallarProximos(1);
+
+        List<EnvioCorreoSmtp.ResultadoEnvio> resultados = new EnvioCorreoSmtp(mailSender, 0).enviarLote(mensajes(5));
+
+        assertEquals(1, smtp.getSesiones());
+        assertEquals(4, smtp.getMensajes().size());
+        assertFalse(resultados.get(0).enviado());
+        assertEquals("cliente0@example.com", resultados.get(0).destinatario());
+        assertTrue(resultados.subList(1, 5).stream().allMatch(EnvioCorreoSmtp.ResultadoEnvio::enviado));
+    }
+
+    @Test
+    void deberiaRespetarElLimitePorMinuto() throws Exception {
+        EnvioCorreoSmtp envio = new EnvioCorreoSmtp(mailSender, 60); // uno por segundo
+
+        long inicio = System.nanoTime();
+        List<EnvioCorreoSmtp.ResultadoEnvio> resultados = envio.enviarLote(mensajes(61));
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertTrue(resultados.stream().allMatch(EnvioCorreoSmtp.ResultadoEnvio::enviado));
+        assertEquals(61, smtp.getMensajes().size());
+        // Los 60 primeros agotan la cuota del minuto; el último espera a que se rellene
+        assertTrue(duracionMs >= 900, "Debió esperar cupo, tardó " + duracionMs + " ms");
+        assertEquals(2, smtp.getSesiones());
+    }
+
+    private static List<SimpleMailMessage> mensajes(int cantidad) {
+        List<SimpleMailMessage> mensajes = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            SimpleMailMessage mensaje = new SimpleMailMessage();
+            mensaje.setFrom("noreply@oasisdigital.com");
+            mensaje.setTo("cliente" + i + "@example.com");
+            mensaje.setSubject("Recordatorio");
+            mensaje.setText("Su reserva es mañana");
+            mensajes.add(mensaje);
+        }
+        return mensajes;
+    }
+}
@@ -0,0 +1,187 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exportación de reservas en CSV y XLSX escrita en streaming.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Exportación de reservas")
+class ExportacionReservaServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2032, 8, 1);
+    private static final LocalDate FIN = INICIO.plusDays(30);
+
+    @Autowired
+    private ExportacionReservaService exportacionReservaService;
+
+    @Autowired
+    private HabitacionService habitacionService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    private final List<Reserva> reservas = new ArrayList<>();
+    private Habitacion habitacion;
+    private Cliente cliente;
+
+    @AfterEach
+    void tearDown() {
+        reservaRepository.deleteAll(reservas);
+        if (habitacion != null) {
+            habitacionService.eliminarHabitacion(habitacion.getId());
+        }
+        if (cliente != null) {
+            clienteRepository.delete(cliente);
+        }
+    }
+
+    @Test
+    @DisplayName("Debería exportar a CSV con gzip las reservas del periodo")
+    void deberiaExportarCsvComprimido() throws Exception {
+        prepararReservas();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            assertEquals(2, exportacionReservaService.exportar(INICIO, FIN, ExportacionReservaService.Formato.CSV, gzip));
+        }
+        String csv;
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            csv = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        String[] lineas = csv.substring(1).split("\r\n");
+        assertEquals('\uFEFF', csv.charAt(0));
+        assertEquals(3, lineas.length);
+        assertEquals(String.join(",", ExportacionReservaService.COLUMNAS), lineas[0]);
+        assertEquals(reservas.get(0).getId() + ",Ana,Díaz,73456789,EX01,\"Suite, \"\"Exportación\"\"\","
+                + "2032-08-01,2032-08-03,2,ACTIVA,200.5", lineas[1]);
+        assertTrue(lineas[2].endsWith(",FINALIZADA,100.25"));
+    }
+
+    @Test
+    @DisplayName("Debería escribir como texto los valores que empiezan como una fórmula")
+    void deberiaNeutralizarFormulasEnCsv() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EscritorCsv escritor = new EscritorCsv(bytes)) {
+            escritor.fila("=HYPERLINK(\"http://x\")", "+1", "-2", "@SUMA", "\tTab", "\rRetorno", "Ana-María", -3.5);
+        }
+
+        String csv = new String(bytes.toByteArray(), StandardCharsets.UTF_8).substring(1);
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\",'+1,'-2,'@SUMA,'\tTab,\"'\rRetorno\",Ana-María,-3.5\r\n", csv);
+    }
+
+    @Test
+    @DisplayName("Debería exportar a XLSX un libro con fechas y números tipados")
+    void deberiaExportarXlsx() throws Exception {
+        prepararReservas();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        exportacionReservaService.exportar(INICIO, FIN, ExportacionReservaService.Formato.XLSX, bytes);
+
+        Map<String, Document> partes = leerXlsx(bytes.toByteArray());
+        assertTrue(partes.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml")));
+        Document hoja = partes.get("xl/worksheets/sheet1.xml");
+        assertEquals(3, hoja.getElementsByTagName("row").getLength());
+        assertEquals("Suite, \"Exportación\"", hoja.getElementsByTagName("row").item(1).getChildNodes().item(5).getTextContent());
+        // 2032-08-01 como número de serie de Excel, con estilo de fecha
+        assertEquals("48427", hoja.getElementsByTagName("row").item(1).getChildNodes().item(6).getTextContent());
+        assertEquals("1", ((org.w3c.dom.Element) hoja.getElementsByTagName("row").item(1).getChildNodes().item(6))
+                .getAttribute("s"));
+    }
+
+    @Test
+    @DisplayName("Debería abrir otra hoja con encabezado al llenar la anterior")
+    void deberiaRepartirFilasEnVariasHojas() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EscritorXlsx escritor = new EscritorXlsx(bytes, "Reservas", 3)) {
+            escritor.encabezado("ID", "Nota");
+            for (int i = 1; i <= 5; i++) {
+                escritor.fila(i, i % 2 == 0 ? "<par & \u0001>" : null);
+            }
+        }
+
+        Map<String, Document> partes = leerXlsx(bytes.toByteArray());
+        assertEquals(3, partes.get("xl/workbook.xml").getElementsByTagName("sheet").getLength());
+        assertEquals(3, partes.get("xl/worksheets/sheet1.xml").getElementsByTagName("row").getLength());
+        assertEquals(3, partes.get("xl/worksheets/sheet2.xml").getElementsByTagName("row").getLength());
+        Document ultima = partes.get("xl/worksheets/sheet3.xml");
+        assertEquals(2, ultima.getElementsByTagName("row").getLength());
+        assertEquals("ID", ultima.getElementsByTagName("row").item(0).getFirstChild().getTextContent());
+        assertEquals("<par & >", partes.get("xl/worksheets/sheet1.xml").getElementsByTagName("row").item(2)
+                .getChildNodes().item(1).getTextContent());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar formatos no soportados")
+    void deberiaRechazarFormatoDesconocido() {
+        assertEquals(ExportacionReservaService.Formato.XLSX, ExportacionReservaService.Formato.desde("xlsx"));
+        assertEquals(ExportacionReservaService.Formato.CSV, ExportacionReservaService.Formato.desde(null));
+        assertThrows(IllegalArgumentException.class, () -> ExportacionReservaService.Formato.desde("pdf"));
+    }
+
+    private void prepararReservas() {
+        cliente = new Cliente();
+        cliente.setNombres("Ana");
+        cliente.setApellidos("Díaz");
+        cliente.setDni("73456789");
+        cliente = clienteRepository.save(cliente);
+        habitacion = habitacionService.crearHabitacion(new Habitacion("EX01", "Suite, \"Exportación\"", 100.25, "DISPONIBLE"));
+
+        reservar(INICIO, 2, 200.5, "ACTIVA");
+        reservar(INICIO.plusDays(5), 1, 100.25, "FINALIZADA");
+        // Termina fuera del periodo
+        reservar(FIN.minusDays(1), 3, 300.75, "PENDIENTE");
+    }
+
+    private void reservar(LocalDate inicio, int noches, double total, String estado) {
+        reservas.add(reservaRepository.save(new Reserva(cliente, habitacion, inicio, inicio.plusDays(noches),
+                LocalTime.of(14, 0), LocalTime.of(12, 0), noches, total, estado)));
+    }
+
+    private static Map<String, Document> leerXlsx(byte[] contenido) throws Exception {
+        Map<String, Document> partes = new LinkedHashMap<>();
+        DocumentBuilderFactory fabrica = DocumentBuilderFactory.newInstance();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(contenido))) {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null) {
+                partes.put(entrada.getName(),
+                        fabrica.newDocumentBuilder().parse(new ByteArrayInputStream(zip.readAllBytes())));
+            }
+        }
+        return partes;
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -32,6 +33,21 @@ class GestionEstadoHabitacionTest {
     @Mock
     private AuditoriaService auditoriaService;
 
+    @Mock
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    @Mock
+    private BloqueoHabitaciones bloqueoHabitaciones;
+
+    @Mock
+    private PlanificadorTransiciones planificadorTransiciones;
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
     @Mock
     private ServicioRepository servicioRepository;
 
@@ -46,14 +62,19 @@ class GestionEstadoHabitacionTest {
 
     @BeforeEach
     void setUp() {
-        habitacionService = new HabitacionService(habitacionRepository, auditoriaService);
+        habitacionService = new HabitacionService(habitacionRepository, auditoriaService, reservaRepository,
+                indiceDisponibilidad, resumenDiarioService, eventos);
         reservaService = new ReservaService(
                 reservaRepository,
                 auditoriaService,
                 servicioRepository,
                 habitacionService,
                 descuentoService,
-                emailService);
+                emailService,
+                indiceDisponibilidad,
+                bloqueoHabitaciones,
+                planificadorTransiciones,
+                resumenDiarioService);
     }
 
     @Test
@@ -73,6 +94,7 @@ class GestionEstadoHabitacionTest {
         reserva.setId(1L);
 
         when(habitacionRepository.findById(1L)).thenReturn(Optional.of(habitacion));
+        when(habitacionRepository.leerParaEscribir(1L)).thenReturn(Optional.of(habitacion));
         when(reservaRepository.save(any(Reserva.class))).thenReturn(reserva);
 
         // Act
@@ -99,7 +121,7 @@ class GestionEstadoHabitacionTest {
         reserva.setId(1L);
 
         when(reservaRepository.findById(1L)).thenReturn(Optional.of(reserva));
-        when(habitacionRepository.findById(1L)).thenReturn(Optional.of(habitacion));
+        when(habitacionRepository.leerParaEscribir(1L)).thenReturn(Optional.of(habitacion));
         when(reservaRepository.save(any(Reserva.class))).thenReturn(reserva);
 
         // Act
@@ -127,7 +149,7 @@ class GestionEstadoHabitacionTest {
         reserva.setId(1L);
 
         when(reservaRepository.findById(1L)).thenReturn(Optional.of(reserva));
-        when(habitacionRepository.findById(1L)).thenReturn(Optional.of(habitacion));
+        when(habitacionRepository.leerParaEscribir(1L)).thenReturn(Optional.of(habitacion));
         when(reservaRepository.save(any(Reserva.class))).thenReturn(reserva);
 
         // Act
@@ -1,5 +1,6 @@
 package com.gestion.hotelera.service;
 
+import com.gestion.hotelera.enums.EstadoHabitacion;
 import com.gestion.hotelera.model.Habitacion;
 import com.gestion.hotelera.repository.HabitacionRepository;
 import com.gestion.hotelera.repository.ReservaRepository;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -24,13 +26,23 @@ class HabitacionDisponibilidadTest {
     
     @Mock
     private AuditoriaService auditoriaService;
+
+    @Mock
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    @Mock
+    private ApplicationEventPublisher eventos;
     
     private HabitacionService habitacionService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        habitacionService = new HabitacionService(habitacionRepository, auditoriaService, reservaRepository);
+        habitacionService = new HabitacionService(habitacionRepository, auditoriaService, reservaRepository,
+                indiceDisponibilidad, resumenDiarioService, eventos);
     }
 
     @Test
@@ -50,7 +62,7 @@ class HabitacionDisponibilidadTest {
         List<Habitacion> todasDisponibles = Arrays.asList(habitacion1, habitacion2, habitacion3);
         List<Long> habitacionesReservadas = Arrays.asList(2L); // Cliente ya tiene reservada la habitación 2
         
-        when(habitacionRepository.findByEstado("DISPONIBLE")).thenReturn(todasDisponibles);
+        when(habitacionRepository.findByEstado(EstadoHabitacion.DISPONIBLE)).thenReturn(todasDisponibles);
         when(reservaRepository.findHabitacionesReservadasPorCliente(clienteId)).thenReturn(habitacionesReservadas);
         
         // Act
@@ -62,7 +74,7 @@ class HabitacionDisponibilidadTest {
         assertFalse(resultado.contains(habitacion2)); // Esta debe estar excluida
         assertTrue(resultado.contains(habitacion3));
         
-        verify(habitacionRepository).findByEstado("DISPONIBLE");
+        verify(habitacionRepository).findByEstado(EstadoHabitacion.DISPONIBLE);
         verify(reservaRepository).findHabitacionesReservadasPorCliente(clienteId);
     }
 
@@ -72,7 +84,7 @@ class HabitacionDisponibilidadTest {
         Habitacion habitacion1 = new Habitacion("101", "Simple", 50.0, "DISPONIBLE");
         List<Habitacion> todasDisponibles = Arrays.asList(habitacion1);
         
-        when(habitacionRepository.findByEstado("DISPONIBLE")).thenReturn(todasDisponibles);
+        when(habitacionRepository.findByEstado(EstadoHabitacion.DISPONIBLE)).thenReturn(todasDisponibles);
         
         // Act
         List<Habitacion> resultado = habitacionService.obtenerHabitacionesDisponiblesParaCliente(null);
@@ -81,7 +93,7 @@ class HabitacionDisponibilidadTest {
         assertEquals(1, resultado.size());
         assertEquals(habitacion1, resultado.get(0));
         
-        verify(habitacionRepository).findByEstado("DISPONIBLE");
+        verify(habitacionRepository).findByEstado(EstadoHabitacion.DISPONIBLE);
         verify(reservaRepository, never()).findHabitacionesReservadasPorCliente(any());
     }
 
@@ -96,7 +108,7 @@ class HabitacionDisponibilidadTest {
         List<Habitacion> todasDisponibles = Arrays.asList(habitacion1);
         List<Long> habitacionesReservadas = Arrays.asList(); // Sin reservas activas
         
-        when(habitacionRepository.findByEstado("DISPONIBLE")).thenReturn(todasDisponibles);
+        when(habitacionRepository.findByEstado(EstadoHabitacion.DISPONIBLE)).thenReturn(todasDisponibles);
         when(reservaRepository.findHabitacionesReservadasPorCliente(clienteId)).thenReturn(habitacionesReservadas);
         
         // Act
@@ -106,7 +118,7 @@ class HabitacionDisponibilidadTest {
         assertEquals(1, resultado.size());
         assertEquals(habitacion1, resultado.get(0));
         
-        verify(habitacionRepository).findByEstado("DISPONIBLE");
+        verify(habitacionRepository).findByEstado(EstadoHabitacion.DISPONIBLE);
         verify(reservaRepository).findHabitacionesReservadasPorCliente(clienteId);
     }
 }
\ No newline at end of file
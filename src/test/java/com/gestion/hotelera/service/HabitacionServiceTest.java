@@ -1,7 +1,9 @@
 package com.gestion.hotelera.service;
 
+import com.gestion.hotelera.enums.EstadoHabitacion;
 import com.gestion.hotelera.model.Habitacion;
 import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,12 +25,25 @@ public class HabitacionServiceTest {
     
     @Mock
     private AuditoriaService auditoriaService;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    @Mock
+    private ApplicationEventPublisher eventos;
     
     private HabitacionService habitacionService;
 
     @BeforeEach
     void setUp() {
-        habitacionService = new HabitacionService(habitacionRepository, auditoriaService);
+        habitacionService = new HabitacionService(habitacionRepository, auditoriaService, reservaRepository,
+                indiceDisponibilidad, resumenDiarioService, eventos);
     }
 
     @Test
@@ -70,7 +86,7 @@ public class HabitacionServiceTest {
         h1.setNumero("301");
         h1.setEstado("MANTENIMIENTO");
 
-        when(habitacionRepository.findByEstado("MANTENIMIENTO")).thenReturn(List.of(h1));
+        when(habitacionRepository.findByEstado(EstadoHabitacion.MANTENIMIENTO)).thenReturn(List.of(h1));
 
         List<Habitacion> mantenimiento = habitacionService.obtenerHabitacionesEnMantenimiento();
 
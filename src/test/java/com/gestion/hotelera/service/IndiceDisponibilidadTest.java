@@ -0,0 +1,161 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IndiceDisponibilidadTest {
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private HabitacionRepository habitacionRepository;
+
+    @Mock
+    private IndiceDisponibilidad propio;
+
+    private IndiceDisponibilidad indice;
+    private final List<ReservaIntervalo> intervalos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Habitacion h1 = new Habitacion("101", "Simple", 50.0, "DISPONIBLE");
+        h1.setId(1L);
+        Habitacion h2 = new Habitacion("102", "Doble", 80.0, "DISPONIBLE");
+        h2.setId(2L);
+        Habitacion h3 = new Habitacion("103", "Suite", 150.0, "MANTENIMIENTO");
+        h3.setId(3L);
+
+        intervalos.add(intervalo(10L, 1L, HOY, HOY.plusDays(3)));
+        intervalos.add(intervalo(11L, 2L, HOY.plusDays(70), HOY.plusDays(200)));
+
+        when(habitacionRepository.findAll()).thenReturn(List.of(h1, h2, h3));
+        when(reservaRepository.findIntervalosActivos()).thenAnswer(inv -> List.copyOf(intervalos));
+
+        indice = new IndiceDisponibilidad(reservaRepository, habitacionRepository, propio);
+        indice.reconstruir();
+    }
+
+    @Test
+    void deberiaDetectarSolapamientoPorNoches() {
+        assertFalse(indice.estaLibre(1L, HOY.plusDays(2), HOY.plusDays(5)));
+        assertTrue(indice.estaLibre(1L, HOY.plusDays(3), HOY.plusDays(5))); // día de salida libre
+        assertTrue(indice.estaLibre(1L, HOY.minusDays(4), HOY));
+        assertFalse(indice.estaLibre(2L, HOY.plusDays(100), HOY.plusDays(101)));
+        assertTrue(indice.estaLibre(2L, HOY.plusDays(200), HOY.plusDays(400)));
+    }
+
+    @Test
+    void deberiaContarDisponiblesExcluyendoOcupadasYMantenimiento() {
+        assertEquals(1, indice.contarDisponiblesEn(HOY));
+        assertEquals(List.of(1L), List.copyOf(indice.obtenerIdsOcupadasEn(HOY)));
+    }
+
+    @Test
+    void deberiaLiberarNochesAlCancelarSinAfectarOtrasReservas() {
+        Reserva nueva = reserva(12L, 1L, HOY.plusDays(2), HOY.plusDays(6), "PENDIENTE");
+        indice.actualizarReserva(nueva);
+        assertFalse(indice.estaLibre(1L, HOY.plusDays(5), HOY.plusDays(6)));
+
+        indice.actualizarReserva(reserva(10L, 1L, HOY, HOY.plusDays(3), "CANCELADA"));
+
+        assertTrue(indice.estaLibre(1L, HOY, HOY.plusDays(2)));
+        assertFalse(indice.estaLibre(1L, HOY.plusDays(2), HOY.plusDays(3)));
+    }
+
+    @Test
+    void deberiaDevolverElPrimerConflictoIgnorandoLaReservaExcluida() {
+        indice.actualizarReserva(reserva(12L, 1L, HOY.plusDays(2), HOY.plusDays(6), "ACTIVA"));
+
+        EstanciaReservada conflicto = indice.buscarConflicto(1L, HOY.plusDays(1), HOY.plusDays(5), null).orElseThrow();
+        assertEquals(10L, conflicto.reservaId());
+        assertEquals(HOY.plusDays(3), conflicto.fechaFin());
+
+        conflicto = indice.buscarConflicto(1L, HOY.plusDays(1), HOY.plusDays(5), 10L).orElseThrow();
+        assertEquals(12L, conflicto.reservaId());
+        assertEquals(EstadoReserva.ACTIVA, conflicto.estadoReserva());
+
+        assertTrue(indice.buscarConflicto(1L, HOY.plusDays(2), HOY.plusDays(6), 12L).isPresent());
+        assertTrue(indice.buscarConflicto(1L, HOY.plusDays(6), HOY.plusDays(9), null).isEmpty());
+        assertEquals(2, indice.buscarConflictos(1L, HOY, HOY.plusDays(10), null, 10).size());
+    }
+
+    @Test
+    void deberiaMoverLaReservaDeHabitacionYRetirarlaPorId() {
+        indice.actualizarReserva(reserva(10L, 2L, HOY, HOY.plusDays(3), "PENDIENTE"));
+
+        assertTrue(indice.estaLibre(1L, HOY, HOY.plusDays(3)));
+        assertFalse(indice.estaLibre(2L, HOY, HOY.plusDays(3)));
+
+        indice.retirarReserva(10L);
+
+        assertTrue(indice.estaLibre(2L, HOY, HOY.plusDays(3)));
+        assertFalse(indice.estaLibre(2L, HOY.plusDays(100), HOY.plusDays(101)));
+    }
+
+    @Test
+    void deberiaReportarDiscrepanciasFrenteALaBaseDeDatos() {
+        assertTrue(indice.verificarConsistencia().isEmpty());
+
+        intervalos.add(intervalo(13L, 2L, HOY, HOY.plusDays(1)));
+
+        List<String> discrepancias = indice.verificarConsistencia();
+        assertEquals(2, discrepancias.size());
+        assertTrue(discrepancias.get(0).contains("reserva 13"));
+    }
+
+    @Test
+    void deberiaConservarLosCambiosConfirmadosDuranteLaRecarga() {
+        // La reserva 14 se confirma mientras la recarga lee los intervalos que aún no la incluyen
+        when(reservaRepository.findIntervalosActivos()).thenAnswer(inv -> {
+            List<ReservaIntervalo> leidos = List.copyOf(intervalos);
+            indice.actualizarReserva(reserva(14L, 2L, HOY, HOY.plusDays(2), "PENDIENTE"));
+            indice.actualizarReserva(reserva(10L, 1L, HOY, HOY.plusDays(3), "CANCELADA"));
+            return leidos;
+        });
+
+        indice.reconstruir();
+
+        assertFalse(indice.estaLibre(2L, HOY, HOY.plusDays(1)));
+        assertTrue(indice.estaLibre(1L, HOY, HOY.plusDays(3)));
+    }
+
+    private static Reserva reserva(Long id, Long habitacionId, LocalDate inicio, LocalDate fin, String estado) {
+        Reserva reserva = new Reserva();
+        reserva.setId(id);
+        reserva.setHabitacion(new Habitacion(habitacionId));
+        reserva.setFechaInicio(inicio);
+        reserva.setFechaFin(fin);
+        reserva.setEstadoReserva(estado);
+        return reserva;
+    }
+
+    private static ReservaIntervalo intervalo(Long id, Long habitacionId, LocalDate inicio, LocalDate fin) {
+        return new ReservaIntervalo() {
+            public Long getId() { return id; }
+            public Long getHabitacionId() { return habitacionId; }
+            public LocalDate getFechaInicio() { return inicio; }
+            public LocalDate getFechaFin() { return fin; }
+            public EstadoReserva getEstadoReserva() { return EstadoReserva.PENDIENTE; }
+        };
+    }
+}
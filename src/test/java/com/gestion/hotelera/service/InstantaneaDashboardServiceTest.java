@@ -0,0 +1,214 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.RelojAjustable;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import com.gestion.hotelera.repository.TotalPorEstado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Instantánea del dashboard")
+class InstantaneaDashboardServiceTest {
+
+    @Mock
+    private ReservaService reservaService;
+
+    @Mock
+    private HabitacionService habitacionService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private EmpleadoService empleadoService;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private HabitacionRepository habitacionRepository;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicLong version = new AtomicLong();
+    private final RelojAjustable reloj = new RelojAjustable();
+    private ConsultasParalelas consultasParalelas;
+
+    @BeforeEach
+    void setUp() {
+        consultasParalelas = new ConsultasParalelas(transactionManager, new SimpleMeterRegistry(), 4, 2, 5_000);
+        lenient().when(resumenDiarioService.getVersionDatos()).thenAnswer(invocacion -> version.get());
+        lenient().when(habitacionRepository.contarPorEstado()).thenReturn(List.of(
+                total("DISPONIBLE", 6), total("OCUPADA", 3), total("MANTENIMIENTO", 1)));
+        lenient().when(reservaRepository.contarPorEstado()).thenReturn(List.of(
+                total("PENDIENTE", 4), total("activa", 2), total("FINALIZADA", 7)));
+        lenient().when(reservaService.calcularIngresosTotales()).thenReturn(1250.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consultasParalelas.detener();
+    }
+
+    @Test
+    @DisplayName("Debería calcular una sola vez para muchas peticiones simultáneas")
+    void deberiaCalcularUnaVezConPeticionesSimultaneas() throws Exception {
+        InstantaneaDashboardService servicio = nuevoServicio(60_000);
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(reservaService.getIngresosUltimosDias(anyInt())).thenAnswer(invocacion -> {
+            dentro.countDown();
+            assertTrue(liberar.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        int peticiones = 50;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(peticiones);
+        try {
+            List<Future<InstantaneaDashboard>> resultados = new ArrayList<>();
+            for (int i = 0; i < peticiones; i++) {
+                resultados.add(ejecutor.submit(servicio::obtener));
+            }
+            assertTrue(dentro.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            liberar.countDown();
+
+            InstantaneaDashboard primera = resultados.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<InstantaneaDashboard> resultado : resultados) {
+                assertSame(primera, resultado.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        assertEquals(1, servicio.getCalculos());
+        verify(reservaService, times(1)).calcularIngresosTotales();
+    }
+
+    @Test
+    @DisplayName("Debería agrupar conteos y recalcular solo cuando cambian los datos o vence el TTL")
+    void deberiaRecalcularAlCambiarDatosOVencer() throws Exception {
+        InstantaneaDashboardService servicio = nuevoServicio(60_000);
+
+        InstantaneaDashboard primera = servicio.obtener();
+        assertEquals(10, primera.totalHabitaciones());
+        assertEquals(3, primera.habitacionesOcupadas());
+        assertEquals(1, primera.habitacionesMantenimiento());
+        assertEquals(13, primera.totalReservas());
+        assertEquals(4, primera.reservasPendientes());
+        assertEquals(2, primera.reservasActivas());
+        assertEquals(1250.5, primera.comoModelo().get("ingresosTotales"));
+        assertEquals(0L, primera.comoModelo().get("antiguedadInstantanea"));
+        assertSame(primera, servicio.obtener());
+
+        // Un cambio confirmado de reservas, pagos o habitaciones sube la versión
+        version.incrementAndGet();
+        InstantaneaDashboard segunda = servicio.obtener();
+        assertNotSame(primera, segunda);
+        assertSame(segunda, servicio.obtener());
+        assertEquals(2, servicio.getCalculos());
+
+        reloj.avanzar(Duration.ofSeconds(59));
+        assertSame(segunda, servicio.obtener());
+        reloj.avanzar(Duration.ofSeconds(2));
+        assertNotSame(segunda, servicio.obtener());
+        assertEquals(3, servicio.getCalculos());
+    }
+
+    @Test
+    @DisplayName("Debería mostrar datos parciales si falla una consulta y no reutilizarlos")
+    void deberiaReintentarTrasUnFallo() {
+        InstantaneaDashboardService servicio = nuevoServicio(60_000);
+        when(clienteService.contarClientes()).thenThrow(new IllegalStateException("sin conexión")).thenReturn(8L);
+
+        InstantaneaDashboard parcial = servicio.obtener();
+        assertTrue(parcial.parcial());
+        assertEquals(0, parcial.totalClientes());
+        assertEquals(10, parcial.totalHabitaciones());
+        assertEquals(true, parcial.comoModelo().get("datosParciales"));
+
+        InstantaneaDashboard completa = servicio.obtener();
+        assertFalse(completa.parcial());
+        assertEquals(8, completa.totalClientes());
+        assertSame(completa, servicio.obtener());
+    }
+
+    @Test
+    @DisplayName("Debería liberar a quien espera aunque el cálculo termine con un Error")
+    void deberiaLiberarALosQueEsperanSiElCalculoFallaConError() throws Exception {
+        InstantaneaDashboardService servicio = nuevoServicio(60_000);
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(resumenDiarioService.getVersionDatos()).thenAnswer(invocacion -> {
+            dentro.countDown();
+            assertTrue(liberar.await(5, TimeUnit.SECONDS));
+            throw new OutOfMemoryError("simulado");
+        }).thenAnswer(invocacion -> version.get());
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+        try {
+            Future<InstantaneaDashboard> calculando = ejecutor.submit(servicio::obtener);
+            assertTrue(dentro.await(5, TimeUnit.SECONDS));
+            Future<InstantaneaDashboard> esperando = ejecutor.submit(servicio::obtener);
+            Thread.sleep(100);
+            liberar.countDown();
+
+            ExecutionException primero = assertThrows(ExecutionException.class,
+                    () -> calculando.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, primero.getCause());
+            ExecutionException segundo = assertThrows(ExecutionException.class,
+                    () -> esperando.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, segundo.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        // El siguiente intento vuelve a calcular
+        assertEquals(10, servicio.obtener().totalHabitaciones());
+    }
+
+    private InstantaneaDashboardService nuevoServicio(long ttlMs) {
+        return new InstantaneaDashboardService(reservaService, habitacionService, clienteService, empleadoService,
+                reservaRepository, habitacionRepository, resumenDiarioService, consultasParalelas, ttlMs, reloj);
+    }
+
+    private static TotalPorEstado total(String estado, long total) {
+        return new TotalPorEstado() {
+            @Override
+            public String getEstado() {
+                return estado;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+}
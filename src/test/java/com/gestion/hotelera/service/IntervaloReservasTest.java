@@ -0,0 +1,68 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervaloReservasTest {
+
+    @Test
+    void deberiaCoincidirConBusquedaLinealTrasInsercionesYBorrados() {
+        Random random = new Random(42);
+        IntervaloReservas arbol = new IntervaloReservas();
+        List<IntervaloReservas.Estancia> referencia = new ArrayList<>();
+
+        for (long id = 1; id <= 2_000; id++) {
+            long inicio = random.nextInt(3_000);
+            IntervaloReservas.Estancia estancia = new IntervaloReservas.Estancia(
+                    inicio, inicio + 1 + random.nextInt(15), id, EstadoReserva.PENDIENTE);
+            arbol.insertar(estancia);
+            referencia.add(estancia);
+            if (random.nextInt(3) == 0) {
+                IntervaloReservas.Estancia borrada = referencia.remove(random.nextInt(referencia.size()));
+                assertTrue(arbol.eliminar(borrada.inicio, borrada.reservaId));
+            }
+        }
+        assertEquals(referencia.size(), arbol.size());
+
+        for (int consulta = 0; consulta < 500; consulta++) {
+            long inicio = random.nextInt(3_050);
+            long fin = inicio + 1 + random.nextInt(30);
+            Long excluida = referencia.get(random.nextInt(referencia.size())).reservaId;
+
+            List<Long> esperadas = referencia.stream()
+                    .filter(e -> e.inicio < fin && e.fin > inicio && !e.reservaId.equals(excluida))
+                    .sorted(Comparator.<IntervaloReservas.Estancia>comparingLong(e -> e.inicio)
+                            .thenComparing(e -> e.reservaId))
+                    .map(e -> e.reservaId)
+                    .toList();
+            List<Long> obtenidas = arbol.buscarSolapamientos(inicio, fin, excluida, Integer.MAX_VALUE).stream()
+                    .map(e -> e.reservaId)
+                    .toList();
+
+            assertEquals(esperadas, obtenidas);
+            List<IntervaloReservas.Estancia> primera = arbol.buscarSolapamientos(inicio, fin, excluida, 1);
+            assertEquals(esperadas.isEmpty() ? List.of() : esperadas.subList(0, 1),
+                    primera.stream().map(e -> e.reservaId).toList());
+        }
+    }
+
+    @Test
+    void noDeberiaConsiderarSolapadoElDiaDeSalida() {
+        IntervaloReservas arbol = new IntervaloReservas();
+        arbol.insertar(new IntervaloReservas.Estancia(10, 13, 1L, EstadoReserva.ACTIVA));
+
+        assertTrue(arbol.buscarSolapamientos(13, 15, null, 1).isEmpty());
+        assertTrue(arbol.buscarSolapamientos(7, 10, null, 1).isEmpty());
+        assertEquals(1, arbol.buscarSolapamientos(12, 13, null, 1).size());
+        assertFalse(arbol.eliminar(11, 1L));
+        assertTrue(arbol.eliminar(10, 1L));
+        assertEquals(0, arbol.size());
+    }
+}
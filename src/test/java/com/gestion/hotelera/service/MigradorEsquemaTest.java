@@ -0,0 +1,175 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoHabitacion;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.EstadoReservaConverter;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.MigracionEsquema;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.MigracionEsquemaRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Migraciones versionadas aplicadas al arrancar y planes de las consultas
+ * frecuentes sobre H2.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Migraciones del esquema")
+class MigradorEsquemaTest {
+
+    @Autowired
+    private MigradorEsquema migradorEsquema;
+
+    @Autowired
+    private MigracionEsquemaRepository migracionEsquemaRepository;
+
+    @Autowired
+    private VerificadorPlanes verificadorPlanes;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CoordinadorTareas coordinadorTareas;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private HabitacionRepository habitacionRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Test
+    @DisplayName("Debería aplicar cada script una vez y crear los índices")
+    void deberiaAplicarLosScriptsUnaVez() {
+        List<MigradorEsquema.Script> scripts = migradorEsquema.buscarScripts("h2");
+        List<MigracionEsquema> aplicadas = migracionEsquemaRepository.findAll();
+
+        assertEquals(scripts.size(), aplicadas.size());
+        assertEquals(1, scripts.get(0).version());
+        assertEquals("indices reservas", scripts.get(0).descripcion());
+        assertEquals(0, migradorEsquema.migrar());
+        Integer indices = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE INDEX_NAME IN ('idx_reservas_habitacion_estado_fechas', 'idx_auditoria_timestamp', "
+                + "'idx_notificaciones_leida_archivada_fecha', 'idx_descuentos_activo_vigencia')", Integer.class);
+        assertEquals(4, indices);
+    }
+
+    @Test
+    @DisplayName("Debería usar un índice en todas las consultas frecuentes")
+    void deberiaUsarIndicesEnLasConsultasFrecuentes() {
+        List<VerificadorPlanes.ResultadoPlan> planes = verificadorPlanes.verificar();
+
+        assertEquals(VerificadorPlanes.CONSULTAS.size(), planes.size());
+        planes.forEach(plan -> assertFalse(plan.recorridoCompleto(), plan.consulta() + ": " + plan.plan()));
+    }
+
+    @Test
+    @DisplayName("Debería fallar si un script aplicado cambió")
+    void deberiaFallarSiUnScriptCambio() {
+        MigracionEsquemaRepository repositorio = mock(MigracionEsquemaRepository.class);
+        when(repositorio.findAll()).thenReturn(List.of(new MigracionEsquema(1, "indices reservas",
+                "V1__indices_reservas.sql", 42L, LocalDateTime.now(), 5L)));
+        MigradorEsquema migrador = new MigradorEsquema(dataSource, repositorio, coordinadorTareas, true,
+                "classpath:db/migracion", 0, 10);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, migrador::migrar);
+        assertTrue(error.getMessage().contains("V1__indices_reservas.sql"));
+        verify(repositorio, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debería esperar a que el nodo con el lease aplique todas las migraciones")
+    void deberiaEsperarAlNodoQueMigra() throws Throwable {
+        List<MigracionEsquema> todas = migracionEsquemaRepository.findAll();
+        MigracionEsquemaRepository repositorio = mock(MigracionEsquemaRepository.class);
+        when(repositorio.findAll()).thenReturn(List.of(), todas.subList(0, 1), todas);
+        MigradorEsquema migrador = new MigradorEsquema(dataSource, repositorio, otroNodoMigrando(), true,
+                "classpath:db/migracion", 5_000, 10);
+
+        migrador.afterSingletonsInstantiated();
+
+        verify(repositorio, times(3)).findAll();
+        verify(repositorio, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debería fallar al arrancar si otro nodo no termina de migrar a tiempo")
+    void deberiaFallarSiLaMigracionNoTermina() throws Throwable {
+        MigracionEsquemaRepository repositorio = mock(MigracionEsquemaRepository.class);
+        when(repositorio.findAll()).thenReturn(List.of());
+        MigradorEsquema migrador = new MigradorEsquema(dataSource, repositorio, otroNodoMigrando(), true,
+                "classpath:db/migracion", 50, 10);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                migrador::afterSingletonsInstantiated);
+        assertTrue(error.getMessage().contains("pendientes"));
+    }
+
+    @Test
+    @DisplayName("Debería guardar los estados como código de una letra y contar por igualdad exacta")
+    void deberiaGuardarLosEstadosComoCodigo() {
+        Cliente cliente = new Cliente();
+        cliente.setNombres("Elena");
+        cliente.setApellidos("Codigos");
+        cliente.setDni("74567890");
+        cliente = clienteRepository.save(cliente);
+        Habitacion habitacion = habitacionRepository.save(new Habitacion("CE01", "Doble Codigos", 90.0, "ocupada"));
+        long activas = reservaRepository.countByEstadoReserva(EstadoReserva.ACTIVA);
+        Reserva reserva = reservaRepository.save(new Reserva(cliente, habitacion, LocalDate.now(),
+                LocalDate.now().plusDays(2), LocalTime.of(14, 0), LocalTime.of(12, 0), 2, 180.0, "Activa"));
+        try {
+            assertEquals("A", jdbcTemplate.queryForObject(
+                    "SELECT \"estado_reserva\" FROM \"reservas\" WHERE \"id\" = ?", String.class, reserva.getId()));
+            assertEquals("O", jdbcTemplate.queryForObject(
+                    "SELECT \"estado\" FROM \"habitaciones\" WHERE \"id\" = ?", String.class, habitacion.getId()));
+            assertEquals(activas + 1, reservaRepository.countByEstadoReserva(EstadoReserva.ACTIVA));
+            Reserva leida = reservaRepository.findById(reserva.getId()).orElseThrow();
+            assertSame(EstadoReserva.ACTIVA, leida.getEstado());
+            assertEquals("ACTIVA", leida.getEstadoReserva());
+            assertSame(EstadoHabitacion.OCUPADA,
+                    habitacionRepository.findById(habitacion.getId()).orElseThrow().getEstadoHabitacion());
+            // Las filas que aún no pasaron por V3 se siguen leyendo
+            assertSame(EstadoReserva.FINALIZADA, new EstadoReservaConverter().convertToEntityAttribute("finalizada"));
+        } finally {
+            reservaRepository.delete(reserva);
+            habitacionRepository.delete(habitacion);
+            clienteRepository.delete(cliente);
+        }
+    }
+
+    /**
+     * Coordinador en el que el lease de las migraciones siempre lo tiene otro nodo.
+     */
+    @SuppressWarnings("unchecked")
+    private static CoordinadorTareas otroNodoMigrando() throws Throwable {
+        CoordinadorTareas coordinador = mock(CoordinadorTareas.class);
+        when(coordinador.ejecutar(eq(MigradorEsquema.TAREA), any(CoordinadorTareas.Tarea.class), any()))
+                .thenAnswer(invocacion -> invocacion.getArgument(2));
+        return coordinador;
+    }
+}
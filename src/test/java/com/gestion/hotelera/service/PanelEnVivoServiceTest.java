@@ -0,0 +1,226 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.RelojAjustable;
+import com.gestion.hotelera.repository.ReservaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Panel en vivo por server-sent events")
+class PanelEnVivoServiceTest {
+
+    @Mock
+    private ReservaService reservaService;
+
+    @Mock
+    private HabitacionService habitacionService;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private InstantaneaDashboardService instantaneaDashboardService;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
+
+    private final RelojAjustable reloj = new RelojAjustable();
+    private SimpleMeterRegistry meterRegistry;
+    private PanelEnVivoService servicio;
+    private final List<EmisorDePrueba> emisores = new CopyOnWriteArrayList<>();
+    private final CountDownLatch liberarLento = new CountDownLatch(1);
+    private volatile boolean siguienteLento;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        servicio = new PanelEnVivoService(reservaService, habitacionService, reservaRepository,
+                instantaneaDashboardService, resumenDiarioService, meterRegistry, 2, 4, 100, 60_000, 50, 1_000,
+                15_000, reloj) {
+            @Override
+            protected SseEmitter nuevoEmisor(long timeoutMs) {
+                EmisorDePrueba emisor = new EmisorDePrueba(siguienteLento ? liberarLento : null);
+                emisores.add(emisor);
+                return emisor;
+            }
+        };
+        lenient().when(instantaneaDashboardService.obtener()).thenReturn(new InstantaneaDashboard(10, 6, 3, 1, 20,
+                13, 4, 2, 1, 1, 2, 1250.5, List.of(), List.of(), false, 0, LocalDateTime.now()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberarLento.countDown();
+        servicio.detener();
+    }
+
+    @Test
+    @DisplayName("Debería enviar cada evento solo a los paneles que lo muestran")
+    void deberiaDifundirPorPanel() throws Exception {
+        servicio.suscribir(PanelEnVivoService.RECEPCION);
+        servicio.suscribir(PanelEnVivoService.DASHBOARD);
+        EmisorDePrueba recepcion = emisores.get(0);
+        EmisorDePrueba dashboard = emisores.get(1);
+
+        servicio.alModificarHabitaciones(new HabitacionesModificadas(Map.of(7L, "OCUPADA")));
+        servicio.alRegistrarActividad(new ActividadRegistrada("CHECKIN", "Check-in hab. 101", 1,
+                LocalDateTime.now()));
+
+        recepcion.esperarEventos(3);
+        dashboard.esperarEventos(2);
+        assertTrue(recepcion.contiene("event:habitaciones") && recepcion.contiene("event:actividad"));
+        assertTrue(dashboard.contiene("event:habitaciones"));
+        assertFalse(dashboard.contiene("event:actividad"));
+        assertEquals(2, servicio.getClientesConectados());
+    }
+
+    @Test
+    @DisplayName("Debería desconectar al cliente lento sin frenar a los demás")
+    void deberiaExpulsarAlClienteLento() throws Exception {
+        servicio.suscribir(PanelEnVivoService.RECEPCION);
+        siguienteLento = true;
+        servicio.suscribir(PanelEnVivoService.RECEPCION);
+        EmisorDePrueba rapido = emisores.get(0);
+        EmisorDePrueba lento = emisores.get(1);
+        assertTrue(lento.bloqueado.await(5, TimeUnit.SECONDS));
+
+        // El cliente rápido vacía su cola a cada evento; la del lento (4 eventos) se llena
+        for (int i = 0; i < 10; i++) {
+            servicio.alModificarHabitaciones(new HabitacionesModificadas(Map.of((long) i, "LIMPIEZA")));
+            rapido.esperarEventos(i + 2);
+        }
+
+        assertEquals(1, servicio.getClientesConectados());
+        assertEquals(1, meterRegistry.get("hotel.panel.sse.desconexiones").tag("motivo", "lento").counter().count());
+        assertEquals(1.0, meterRegistry.get("hotel.panel.sse.clientes").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Debería desconectar a los clientes con la escritura bloqueada y seguir atendiendo a los demás")
+    void deberiaExpulsarAlClienteBloqueado() throws Exception {
+        // Dos conexiones TCP atascadas ocupan los dos hilos del pool
+        siguienteLento = true;
+        servicio.suscribir(PanelEnVivoService.RECEPCION);
+        servicio.suscribir(PanelEnVivoService.DASHBOARD);
+        assertTrue(emisores.get(0).bloqueado.await(5, TimeUnit.SECONDS));
+        assertTrue(emisores.get(1).bloqueado.await(5, TimeUnit.SECONDS));
+        siguienteLento = false;
+        servicio.suscribir(PanelEnVivoService.RECEPCION);
+        EmisorDePrueba sano = emisores.get(2);
+
+        reloj.avanzar(Duration.ofMillis(51));
+        servicio.vigilarEscrituras();
+
+        sano.esperarEventos(1);
+        for (int i = 0; i < 10; i++) {
+            servicio.alModificarHabitaciones(new HabitacionesModificadas(Map.of((long) i, "LIMPIEZA")));
+            sano.esperarEventos(i + 2);
+        }
+        assertEquals(1, servicio.getClientesConectados());
+        assertEquals(2, meterRegistry.get("hotel.panel.sse.desconexiones").tag("motivo", "bloqueado").counter()
+                .count());
+        assertNull(meterRegistry.find("hotel.panel.sse.desconexiones").tag("motivo", "lento").counter());
+
+        // Al liberarse, las escrituras atascadas terminan y sus emisores se cierran
+        liberarLento.countDown();
+        emisores.get(0).esperarCierre();
+        emisores.get(1).esperarCierre();
+    }
+
+    @Test
+    @DisplayName("Debería calcular los contadores una vez para todos los clientes y solo si cambian los datos")
+    void deberiaCalcularContadoresUnaVez() throws Exception {
+        servicio.difundirCambios();
+        verifyNoInteractions(habitacionService, instantaneaDashboardService, resumenDiarioService);
+
+        when(resumenDiarioService.getVersionDatos()).thenReturn(5L);
+        when(habitacionService.contarHabitaciones()).thenReturn(10L);
+        when(habitacionService.contarOcupadas()).thenReturn(3L);
+        for (int i = 0; i < 3; i++) {
+            servicio.suscribir(PanelEnVivoService.RECEPCION);
+        }
+
+        servicio.difundirCambios();
+        servicio.difundirCambios();
+
+        verify(habitacionService, times(1)).contarOcupadas();
+        verify(instantaneaDashboardService, times(1)).obtener();
+        for (EmisorDePrueba emisor : emisores) {
+            emisor.esperarEventos(2);
+            assertTrue(emisor.contiene("porcentajeOcupacion=30"));
+        }
+    }
+
+    /**
+     * Emisor que guarda lo enviado; el de un cliente lento se bloquea al
+     * enviar hasta que se le libera.
+     */
+    private static final class EmisorDePrueba extends SseEmitter {
+
+        private final List<String> enviados = new CopyOnWriteArrayList<>();
+        private final CountDownLatch bloqueado = new CountDownLatch(1);
+        private final CountDownLatch cerrado = new CountDownLatch(1);
+        private final CountDownLatch lento;
+
+        EmisorDePrueba(CountDownLatch lento) {
+            this.lento = lento;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (lento != null) {
+                bloqueado.countDown();
+                try {
+                    lento.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder texto = new StringBuilder();
+            builder.build().forEach(parte -> texto.append(parte.getData()));
+            enviados.add(texto.toString());
+        }
+
+        @Override
+        public void complete() {
+            cerrado.countDown();
+            super.complete();
+        }
+
+        void esperarCierre() throws InterruptedException {
+            assertTrue(cerrado.await(5, TimeUnit.SECONDS), "El emisor no se cerró");
+        }
+
+        void esperarEventos(int cuantos) throws InterruptedException {
+            long limite = System.currentTimeMillis() + 5_000;
+            while (enviados.size() < cuantos && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+            assertTrue(enviados.size() >= cuantos, "Eventos recibidos: " + enviados);
+        }
+
+        boolean contiene(String texto) {
+            return enviados.stream().anyMatch(enviado -> enviado.contains(texto));
+        }
+    }
+}
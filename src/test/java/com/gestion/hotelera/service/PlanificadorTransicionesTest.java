@@ -0,0 +1,134 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.RelojAjustable;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanificadorTransicionesTest {
+
+    private final RelojAjustable reloj = new RelojAjustable();
+    private final LocalDate hoy = LocalDate.now(reloj);
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private TareaProgramadaService tareaProgramadaService;
+
+    private PlanificadorTransiciones planificador;
+
+    @BeforeEach
+    void setUp() {
+        when(reservaRepository.findIntervalosActivos()).thenReturn(List.of(
+                intervalo(1L, hoy.minusDays(3), hoy.minusDays(1), EstadoReserva.ACTIVA),
+                intervalo(2L, hoy, hoy.plusDays(2), EstadoReserva.PENDIENTE),
+                intervalo(3L, hoy.plusDays(1), hoy.plusDays(4), EstadoReserva.PENDIENTE)));
+        planificador = new PlanificadorTransiciones(reservaRepository, tareaProgramadaService, reloj);
+        planificador.reconstruir();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deberiaDispararSoloLasTransicionesVencidasYEncadenarLaFinalizacion() {
+        when(tareaProgramadaService.aplicarTransiciones(anyList(), anyList())).thenReturn(Set.of(2L));
+        assertEquals(3, planificador.getPendientes());
+        assertEquals(inicioDelDia(hoy), planificador.proximoInstante().orElseThrow());
+
+        assertEquals(2, planificador.procesarVencidos(reloj.millis()));
+
+        ArgumentCaptor<List<EstanciaReservada>> finalizar = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<EstanciaReservada>> activar = ArgumentCaptor.forClass(List.class);
+        verify(tareaProgramadaService).aplicarTransiciones(finalizar.capture(), activar.capture());
+        assertEquals(List.of(1L), finalizar.getValue().stream().map(EstanciaReservada::reservaId).toList());
+        assertEquals(List.of(2L), activar.getValue().stream().map(EstanciaReservada::reservaId).toList());
+
+        // La reserva 2 queda activa esperando su finalización; la 3 se activa mañana
+        assertEquals(2, planificador.getPendientes());
+        assertEquals(inicioDelDia(hoy.plusDays(1)), planificador.proximoInstante().orElseThrow());
+        assertEquals(0, planificador.procesarVencidos(reloj.millis()));
+
+        reloj.avanzar(Duration.ofMillis(inicioDelDia(hoy.plusDays(1)) - reloj.millis()));
+        assertEquals(1, planificador.procesarVencidos(reloj.millis()));
+    }
+
+    @Test
+    void deberiaOlvidarLaActivacionQueNoSeAplico() {
+        // La reserva 2 se canceló entre la programación y el UPDATE: la base de datos no la activa
+        when(tareaProgramadaService.aplicarTransiciones(anyList(), anyList())).thenReturn(Set.of());
+
+        assertEquals(2, planificador.procesarVencidos(reloj.millis()));
+
+        assertEquals(1, planificador.getPendientes());
+        assertEquals(inicioDelDia(hoy.plusDays(1)), planificador.proximoInstante().orElseThrow());
+    }
+
+    @Test
+    void deberiaReprogramarEdicionesYOlvidarCancelaciones() {
+        planificador.reprogramar(reserva(2L, hoy.plusDays(5), hoy.plusDays(6), "PENDIENTE"));
+        planificador.reprogramar(reserva(1L, hoy.minusDays(3), hoy.minusDays(1), "CANCELADA"));
+
+        assertEquals(2, planificador.getPendientes());
+        assertEquals(0, planificador.procesarVencidos(reloj.millis()));
+        verify(tareaProgramadaService, never()).aplicarTransiciones(anyList(), anyList());
+        assertEquals(inicioDelDia(hoy.plusDays(1)), planificador.proximoInstante().orElseThrow());
+
+        planificador.cancelar(3L);
+        assertEquals(inicioDelDia(hoy.plusDays(5)), planificador.proximoInstante().orElseThrow());
+    }
+
+    @Test
+    void deberiaReintentarSiFallaLaAplicacion() {
+        when(tareaProgramadaService.aplicarTransiciones(anyList(), anyList()))
+                .thenThrow(new IllegalStateException("Base de datos no disponible"));
+        long ahora = reloj.millis();
+
+        assertEquals(0, planificador.procesarVencidos(ahora));
+
+        assertEquals(3, planificador.getPendientes());
+        assertTrue(planificador.proximoInstante().orElseThrow() > ahora);
+    }
+
+    private static long inicioDelDia(LocalDate fecha) {
+        return fecha.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Reserva reserva(Long id, LocalDate inicio, LocalDate fin, String estado) {
+        Reserva reserva = new Reserva();
+        reserva.setId(id);
+        reserva.setHabitacion(new Habitacion(10L));
+        reserva.setFechaInicio(inicio);
+        reserva.setFechaFin(fin);
+        reserva.setEstadoReserva(estado);
+        return reserva;
+    }
+
+    private static ReservaIntervalo intervalo(Long id, LocalDate inicio, LocalDate fin, EstadoReserva estado) {
+        return new ReservaIntervalo() {
+            public Long getId() { return id; }
+            public Long getHabitacionId() { return 10L; }
+            public LocalDate getFechaInicio() { return inicio; }
+            public LocalDate getFechaFin() { return fin; }
+            public EstadoReserva getEstadoReserva() { return estado; }
+        };
+    }
+}
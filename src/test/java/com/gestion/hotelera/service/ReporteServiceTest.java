@@ -0,0 +1,153 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoTrabajoReporte;
+import com.gestion.hotelera.enums.TipoReporte;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.IndicadoresReporte;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KPIs de reportes calculados con la consulta de agregación, comparados con
+ * el cálculo anterior sobre todas las reservas en memoria.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Indicadores de reportes")
+class ReporteServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2032, 5, 1);
+    private static final LocalDate FIN = INICIO.plusDays(30);
+
+    @Autowired
+    private ReporteService reporteService;
+
+    @Autowired
+    private HabitacionService habitacionService;
+
+    @Autowired
+    private ColaReportes colaReportes;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    private final List<Habitacion> habitaciones = new ArrayList<>();
+    private final List<Reserva> reservas = new ArrayList<>();
+    private Cliente cliente;
+
+    @AfterEach
+    void tearDown() {
+        reservaRepository.deleteAll(reservas);
+        habitaciones.forEach(h -> habitacionService.eliminarHabitacion(h.getId()));
+        if (cliente != null) {
+            clienteRepository.delete(cliente);
+        }
+    }
+
+    @Test
+    @DisplayName("Debería dar los mismos KPIs que el cálculo en memoria")
+    void deberiaCoincidirConElCalculoEnMemoria() throws Exception {
+        cliente = new Cliente();
+        cliente.setNombres("Rosa");
+        cliente.setApellidos("Reporte");
+        cliente.setDni("72345678");
+        cliente = clienteRepository.save(cliente);
+        Habitacion primera = habitacion("RP01");
+        Habitacion segunda = habitacion("RP02");
+
+        reservar(primera, INICIO, 2, 150.5, "ACTIVA");
+        reservar(primera, INICIO.plusDays(5), 3, 210.25, "ACTIVA");
+        reservar(segunda, INICIO.plusDays(2), 1, 99.99, "FINALIZADA");
+        reservar(segunda, INICIO.plusDays(10), 4, 400.0, "FINALIZADA");
+        reservar(segunda, INICIO.plusDays(15), 2, 180.0, "PENDIENTE");
+        reservar(primera, INICIO.plusDays(20), 2, 175.0, "CANCELADA");
+        // Fuera de la ventana: empieza antes o termina después
+        reservar(segunda, INICIO.minusDays(1), 2, 500.0, "ACTIVA");
+        reservar(primera, FIN.minusDays(1), 3, 700.0, "FINALIZADA");
+
+        IndicadoresReporte indicadores = reporteService.calcularIndicadores(INICIO, FIN);
+
+        List<Reserva> enPeriodo = reservaRepository.findAll().stream()
+                .filter(r -> !r.getFechaInicio().isBefore(INICIO) && !r.getFechaFin().isAfter(FIN))
+                .toList();
+        double ingresos = enPeriodo.stream()
+                .filter(r -> "FINALIZADA".equals(r.getEstadoReserva()) || "ACTIVA".equals(r.getEstadoReserva()))
+                .mapToDouble(Reserva::getTotalPagar)
+                .sum();
+        long ocupadas = enPeriodo.stream()
+                .filter(r -> "ACTIVA".equals(r.getEstadoReserva()))
+                .map(r -> r.getHabitacion().getId())
+                .distinct()
+                .count();
+        long finalizadas = enPeriodo.stream().filter(r -> "FINALIZADA".equals(r.getEstadoReserva())).count();
+        long total = habitacionService.contarHabitaciones();
+
+        assertEquals(ingresos, indicadores.getIngresos());
+        assertEquals(860.74, indicadores.getIngresos(), 0.001);
+        assertEquals(ocupadas, indicadores.getHabitacionesOcupadas());
+        assertEquals(finalizadas, indicadores.getReservasFinalizadas());
+        assertEquals(total, indicadores.getTotalHabitaciones());
+        assertEquals(String.format("%.1f", (double) ocupadas / total * 100),
+                String.format("%.1f", indicadores.getTasaOcupacion()));
+        assertEquals(String.format("%.2f", ingresos / finalizadas), String.format("%.2f", indicadores.getAdr()));
+
+        List<Reserva> listado = reporteService.obtenerReservasDelPeriodo(INICIO, FIN);
+        assertEquals(enPeriodo.stream().map(Reserva::getId).toList(), listado.stream().map(Reserva::getId).toList());
+        assertEquals("RP01", listado.get(0).getHabitacion().getNumero());
+        assertEquals("Rosa", listado.get(0).getCliente().getNombres());
+
+        // La versión imprimible generada en la cola de reportes
+        TrabajoReporte trabajo = colaReportes.enviar(TipoReporte.IMPRESION, INICIO, FIN, null);
+        for (int i = 0; i < 500 && !trabajo.getEstado().isTerminado(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, trabajo.getEstado(), trabajo.getError());
+        String html = new String(trabajo.getResultado().contenido(), StandardCharsets.UTF_8);
+        assertTrue(html.contains("RP01"));
+        assertTrue(html.contains("Rosa Reporte"));
+        assertTrue(html.contains("S/. 860.74"));
+        assertTrue(colaReportes.enviar(TipoReporte.IMPRESION, INICIO, FIN, null).isDesdeCache());
+    }
+
+    @Test
+    @DisplayName("Debería devolver ceros en un periodo sin reservas")
+    void deberiaDevolverCerosSinReservas() {
+        IndicadoresReporte indicadores = reporteService.calcularIndicadores(LocalDate.of(2033, 1, 1),
+                LocalDate.of(2033, 1, 31));
+        assertEquals(0.0, indicadores.getIngresos());
+        assertEquals(0L, indicadores.getHabitacionesOcupadas());
+        assertEquals(0L, indicadores.getReservasFinalizadas());
+        assertEquals(0.0, indicadores.getAdr());
+        assertEquals(0.0, indicadores.getTasaOcupacion());
+    }
+
+    private Habitacion habitacion(String numero) {
+        Habitacion habitacion = habitacionService.crearHabitacion(new Habitacion(numero, "Doble Reporte", 90.0, "DISPONIBLE"));
+        habitaciones.add(habitacion);
+        return habitacion;
+    }
+
+    private void reservar(Habitacion habitacion, LocalDate inicio, int noches, double total, String estado) {
+        reservas.add(reservaRepository.save(new Reserva(cliente, habitacion, inicio, inicio.plusDays(noches),
+                LocalTime.of(14, 0), LocalTime.of(12, 0), noches, total, estado)));
+    }
+}
@@ -17,13 +17,26 @@ class ReservaCalculoTest {
     
     @Mock
     private AuditoriaService auditoriaService;
+
+    @Mock
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Mock
+    private BloqueoHabitaciones bloqueoHabitaciones;
+
+    @Mock
+    private PlanificadorTransiciones planificadorTransiciones;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
     
     private ReservaService reservaService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        reservaService = new ReservaService(reservaRepository, auditoriaService);
+        reservaService = new ReservaService(reservaRepository, auditoriaService, null, null, null, null,
+                indiceDisponibilidad, bloqueoHabitaciones, planificadorTransiciones, resumenDiarioService);
     }
 
     @Test
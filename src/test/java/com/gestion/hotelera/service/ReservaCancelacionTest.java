@@ -38,6 +38,18 @@ class ReservaCancelacionTest {
         @Mock
         private EmailService emailService;
 
+        @Mock
+        private IndiceDisponibilidad indiceDisponibilidad;
+
+        @Mock
+        private BloqueoHabitaciones bloqueoHabitaciones;
+
+        @Mock
+        private PlanificadorTransiciones planificadorTransiciones;
+
+        @Mock
+        private ResumenDiarioService resumenDiarioService;
+
         private ReservaService reservaService;
 
         @BeforeEach
@@ -49,7 +61,11 @@ class ReservaCancelacionTest {
                                 servicioRepository,
                                 habitacionService,
                                 descuentoService,
-                                emailService);
+                                emailService,
+                                indiceDisponibilidad,
+                                bloqueoHabitaciones,
+                                planificadorTransiciones,
+                                resumenDiarioService);
         }
 
         @Test
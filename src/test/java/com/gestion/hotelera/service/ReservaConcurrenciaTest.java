@@ -0,0 +1,137 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de estrés: muchas reservas concurrentes sobre pocas habitaciones y
+ * fechas solapadas. Ninguna habitación debe quedar con noches reservadas dos veces.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Reservas concurrentes")
+class ReservaConcurrenciaTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaConcurrenciaTest.class);
+
+    private static final int HABITACIONES = 4;
+    private static final int HILOS = 8;
+    private static final int INTENTOS = 2_000;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private HabitacionService habitacionService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    private final List<Habitacion> habitaciones = new ArrayList<>();
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = new Cliente();
+        cliente.setNombres("Cliente");
+        cliente.setApellidos("Concurrente");
+        cliente.setDni("87654321");
+        cliente = clienteRepository.save(cliente);
+        for (int i = 0; i < HABITACIONES; i++) {
+            habitaciones.add(habitacionService.crearHabitacion(
+                    new Habitacion("C" + (900 + i), "Doble", 80.0, "DISPONIBLE")));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        habitaciones.forEach(h -> habitacionService.eliminarHabitacion(h.getId()));
+        clienteRepository.delete(cliente);
+    }
+
+    @Test
+    @DisplayName("No debería permitir reservas solapadas en la misma habitación")
+    void noDeberiaPermitirReservasSolapadas() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger aceptadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        LocalDate manana = LocalDate.now().plusDays(1);
+
+        for (int i = 0; i < INTENTOS; i++) {
+            tareas.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Habitacion habitacion = habitaciones.get(random.nextInt(HABITACIONES));
+                LocalDate inicio = manana.plusDays(random.nextInt(60));
+                LocalDate fin = inicio.plusDays(1 + random.nextInt(4));
+                salida.await();
+                try {
+                    reservaService.crearOActualizarReserva(new Reserva(cliente, new Habitacion(habitacion.getId()),
+                            inicio, fin, LocalTime.of(14, 0), LocalTime.of(12, 0),
+                            (int) (fin.toEpochDay() - inicio.toEpochDay()), 80.0, "PENDIENTE"));
+                    aceptadas.incrementAndGet();
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    rechazadas.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long inicioNs = System.nanoTime();
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(2, TimeUnit.MINUTES);
+        }
+        double segundos = (System.nanoTime() - inicioNs) / 1e9;
+        pool.shutdown();
+
+        logger.info("Reservas concurrentes: {} intentos en {} s ({}/s), {} aceptadas, {} rechazadas", INTENTOS,
+                String.format("%.2f", segundos), Math.round(INTENTOS / segundos), aceptadas.get(), rechazadas.get());
+
+        assertEquals(INTENTOS, aceptadas.get() + rechazadas.get());
+        assertTrue(aceptadas.get() > 0);
+        Set<Long> ids = new HashSet<>();
+        habitaciones.forEach(h -> ids.add(h.getId()));
+        Map<Long, List<Reserva>> porHabitacion = new HashMap<>();
+        for (Reserva reserva : reservaRepository.findAll()) {
+            if (ids.contains(reserva.getHabitacion().getId())) {
+                porHabitacion.computeIfAbsent(reserva.getHabitacion().getId(), k -> new ArrayList<>()).add(reserva);
+            }
+        }
+        assertEquals(aceptadas.get(), porHabitacion.values().stream().mapToInt(List::size).sum());
+        porHabitacion.forEach((habitacionId, reservas) -> {
+            reservas.sort(Comparator.comparing(Reserva::getFechaInicio));
+            for (int i = 1; i < reservas.size(); i++) {
+                Reserva anterior = reservas.get(i - 1);
+                Reserva actual = reservas.get(i);
+                assertFalse(actual.getFechaInicio().isBefore(anterior.getFechaFin()),
+                        "Habitación " + habitacionId + ": reserva " + actual.getId()
+                                + " se solapa con la reserva " + anterior.getId());
+            }
+        });
+    }
+}
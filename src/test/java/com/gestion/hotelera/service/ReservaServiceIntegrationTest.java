@@ -44,6 +44,18 @@ class ReservaServiceIntegrationTest {
     
     @Mock
     private AuditoriaService auditoriaService;
+
+    @Mock
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Mock
+    private BloqueoHabitaciones bloqueoHabitaciones;
+
+    @Mock
+    private PlanificadorTransiciones planificadorTransiciones;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
     
     @InjectMocks
     private ReservaService reservaService;
@@ -151,31 +163,14 @@ class ReservaServiceIntegrationTest {
     @DisplayName("Debería calcular ingresos totales de reservas finalizadas")
     void deberiaCalcularIngresosTotalesDeReservasFinalizadas() {
         // Given
-        Reserva reservaFinalizada1 = crearReserva(
-            LocalDate.now().minusDays(5), 
-            LocalDate.now().minusDays(3), 
-            "FINALIZADA", 
-            500.0);
-        Reserva reservaFinalizada2 = crearReserva(
-            LocalDate.now().minusDays(3), 
-            LocalDate.now().minusDays(1), 
-            "FINALIZADA", 
-            550.0);
-        Reserva reservaPendiente = crearReserva(
-            LocalDate.now().plusDays(1), 
-            LocalDate.now().plusDays(3), 
-            "PENDIENTE", 
-            300.0);
-        
-        when(reservaRepository.findAll()).thenReturn(Arrays.asList(
-            reservaFinalizada1, reservaFinalizada2, reservaPendiente));
+        when(resumenDiarioService.obtenerIngresosFinalizados()).thenReturn(1050.0);
         
         // When
         double ingresos = reservaService.calcularIngresosTotales();
         
         // Then
         assertThat(ingresos).isEqualTo(1050.0);
-        verify(reservaRepository).findAll();
+        verify(reservaRepository, never()).findAll();
     }
 
     @Test
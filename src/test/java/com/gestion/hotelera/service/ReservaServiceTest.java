@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.gestion.hotelera.enums.EstadoReserva;
 import com.gestion.hotelera.model.Cliente;
 import com.gestion.hotelera.model.Habitacion;
 import com.gestion.hotelera.model.Reserva;
@@ -37,6 +38,18 @@ class ReservaServiceTest {
     
     @Mock
     private AuditoriaService auditoriaService;
+
+    @Mock
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Mock
+    private BloqueoHabitaciones bloqueoHabitaciones;
+
+    @Mock
+    private PlanificadorTransiciones planificadorTransiciones;
+
+    @Mock
+    private ResumenDiarioService resumenDiarioService;
     
     private ReservaService reservaService;
     
@@ -46,7 +59,8 @@ class ReservaServiceTest {
 
     @BeforeEach
     void setUp() {
-        reservaService = new ReservaService(reservaRepository, auditoriaService);
+        reservaService = new ReservaService(reservaRepository, auditoriaService, null, null, null, null,
+                indiceDisponibilidad, bloqueoHabitaciones, planificadorTransiciones, resumenDiarioService);
         
         // Datos de prueba
         cliente = new Cliente();
@@ -212,25 +226,14 @@ class ReservaServiceTest {
         @DisplayName("Debería calcular ingresos totales de reservas finalizadas")
         void deberiaCalcularIngresosTotales() {
             // Given
-            Reserva reserva1 = new Reserva();
-            reserva1.setEstadoReserva("FINALIZADA");
-            reserva1.setTotalPagar(300.0);
-            
-            Reserva reserva2 = new Reserva();
-            reserva2.setEstadoReserva("PENDIENTE");
-            reserva2.setTotalPagar(200.0);
-            
-            Reserva reserva3 = new Reserva();
-            reserva3.setEstadoReserva("FINALIZADA");
-            reserva3.setTotalPagar(500.0);
-            
-            when(reservaRepository.findAll()).thenReturn(Arrays.asList(reserva1, reserva2, reserva3));
+            when(resumenDiarioService.obtenerIngresosFinalizados()).thenReturn(800.0);
             
             // When
             Double ingresos = reservaService.calcularIngresosTotales();
             
             // Then
             assertThat(ingresos).isEqualTo(800.0);
+            verify(reservaRepository, never()).findAll();
         }
     }
 
@@ -313,7 +316,7 @@ class ReservaServiceTest {
         @DisplayName("Debería contar reservas por estado")
         void deberiaContarReservasPorEstado() {
             // Given
-            when(reservaRepository.countByEstadoReservaIgnoreCase("PENDIENTE")).thenReturn(3L);
+            when(reservaRepository.countByEstadoReserva(EstadoReserva.PENDIENTE)).thenReturn(3L);
             
             // When
             long cantidad = reservaService.contarReservasPorEstado("PENDIENTE");
@@ -322,6 +325,30 @@ class ReservaServiceTest {
             assertThat(cantidad).isEqualTo(3L);
         }
         
+        @Test
+        @DisplayName("Debería devolver cero para un estado desconocido")
+        void deberiaDevolverCeroParaEstadoDesconocido() {
+            // When
+            long cantidad = reservaService.contarReservasPorEstado("EN_ESPERA");
+            
+            // Then
+            assertThat(cantidad).isZero();
+            verify(reservaRepository, never()).countByEstadoReserva(any());
+        }
+        
+        @Test
+        @DisplayName("Debería rechazar un estado desconocido o vacío")
+        void deberiaRechazarEstadoDesconocido() {
+            // When / Then
+            assertThatThrownBy(() -> reserva.setEstadoReserva("EN_ESPERA"))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> reserva.setEstadoReserva(" "))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> habitacion.setEstado(""))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(reserva.getEstado()).isEqualTo(EstadoReserva.PENDIENTE);
+        }
+        
         @Test
         @DisplayName("Debería contar check-ins de hoy")
         void deberiaContarCheckInsHoy() {
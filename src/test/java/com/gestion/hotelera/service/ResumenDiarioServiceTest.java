@@ -0,0 +1,334 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.config.RelojAjustable;
+import com.gestion.hotelera.dto.PagoRequest;
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.model.ResumenDiario;
+import com.gestion.hotelera.model.Servicio;
+import com.gestion.hotelera.repository.AporteResumenDiarioRepository;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import com.gestion.hotelera.repository.ResumenDiarioRepository;
+import com.gestion.hotelera.repository.ServicioRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Resúmenes diarios mantenidos por los flujos reales de reservas y pagos,
+ * comparados con el cálculo sobre todas las reservas y con una reconstrucción.
+ * Las fechas están lejos en el futuro para no mezclarse con otros tests.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Resúmenes diarios de reportes")
+class ResumenDiarioServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2031, 3, 10);
+
+    @Autowired
+    private ResumenDiarioService resumenDiarioService;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private TareaProgramadaService tareaProgramadaService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ResumenDiarioRepository resumenDiarioRepository;
+
+    @Autowired
+    private HabitacionService habitacionService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ServicioRepository servicioRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private AporteResumenDiarioRepository aporteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MigradorEsquema migradorEsquema;
+
+    private final List<Habitacion> habitaciones = new ArrayList<>();
+    private final List<Reserva> reservas = new ArrayList<>();
+    private Cliente cliente;
+    private Servicio servicio;
+
+    @AfterEach
+    void tearDown() {
+        reservas.forEach(reserva -> reservaService.eliminarReservaFisica(reserva.getId()));
+        resumenDiarioRepository.deleteAll(resumenDiarioService.obtenerPorDiaYTipo(DIA, DIA.plusDays(30)));
+        if (servicio != null) {
+            servicioRepository.delete(servicio);
+        }
+        habitaciones.forEach(h -> habitacionService.eliminarHabitacion(h.getId()));
+        if (cliente != null) {
+            clienteRepository.delete(cliente);
+        }
+    }
+
+    @Test
+    @DisplayName("Debería seguir cada cambio de reserva y pago y coincidir con el cálculo completo")
+    void deberiaCoincidirConElCalculoCompleto() {
+        cliente = cliente("71234567");
+        Habitacion suite = habitacion("RS01", "Suite Resumen", 100.0);
+        Habitacion doble = habitacion("RS02", "Doble Resumen", 100.0);
+        servicio = servicioRepository.save(new Servicio("Spa resumen", "Circuito", 50.0, true));
+
+        Reserva pagada = reservar(suite, DIA, 3, 300.0);
+        Reserva finalizada = reservar(doble, DIA.plusDays(1), 1, 100.0);
+        Reserva cancelada = reservar(suite, DIA.plusDays(5), 2, 200.0);
+
+        PagoRequest pago = new PagoRequest();
+        pago.setReservaId(pagada.getId());
+        assertTrue(pagoService.procesarPago(pago).isExito());
+        reservaService.asignarServicios(pagada.getId(), List.of(servicio.getId()), List.of());
+        reservaService.cancelarReserva(cancelada.getId());
+        tareaProgramadaService.aplicarTransiciones(List.of(), reservaRepository.findIntervalosActivos().stream()
+                .filter(intervalo -> intervalo.getId().equals(finalizada.getId()))
+                .toList());
+        reservaService.finalizarReserva(finalizada.getId());
+
+        LocalDate fin = DIA.plusDays(7);
+        List<ResumenDiarioService.TotalesDia> totales = resumenDiarioService.obtenerTotalesPorDia(DIA, fin);
+        assertEquals(350.0, totales.get(0).ingresos());
+        assertEquals(1, totales.get(0).nochesOcupadas());
+        assertEquals(100.0, totales.get(1).ingresos());
+        assertEquals(2, totales.get(1).nochesOcupadas());
+
+        // Mismo resultado que el cálculo sobre todas las reservas
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        assertEquals(transaccion.execute(estado -> ingresosCalculados(fin)),
+                porFecha(reservaService.getIngresosPorPeriodo(DIA, fin), "ingresos"));
+        assertEquals(transaccion.execute(estado -> movimientosCalculados(fin, true)),
+                porFecha(reservaService.getMovimientoPorPeriodo(DIA, fin), "checkIns"));
+        assertEquals(transaccion.execute(estado -> movimientosCalculados(fin, false)),
+                porFecha(reservaService.getMovimientoPorPeriodo(DIA, fin), "checkOuts"));
+
+        // La reconstrucción desde cero deja exactamente las mismas filas
+        List<String> incremental = filas(fin);
+        assertTrue(resumenDiarioService.reconstruir() >= 3);
+        assertEquals(incremental, filas(fin));
+        assertFalse(resumenDiarioService.requiereReconstruccion());
+        assertEquals(reservaRepository.findAll().stream()
+                        .filter(r -> r.getEstado() == EstadoReserva.FINALIZADA)
+                        .mapToDouble(Reserva::getTotalPagar)
+                        .sum(),
+                reservaService.calcularIngresosTotales(), 0.001);
+
+        // Borrar las reservas retira su aporte
+        reservas.forEach(reserva -> reservaService.eliminarReservaFisica(reserva.getId()));
+        reservas.clear();
+        assertTrue(resumenDiarioService.obtenerTotalesPorDia(DIA, fin).stream()
+                .allMatch(dia -> dia.ingresos() == 0 && dia.checkIns() == 0 && dia.nochesOcupadas() == 0));
+    }
+
+    @Test
+    @DisplayName("Debería sumar sin perder cambios cuando varias reservas tocan el mismo día a la vez")
+    void deberiaSumarReservasConcurrentes() throws Exception {
+        cliente = cliente("71234568");
+        int hilos = 6;
+        List<Habitacion> libres = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            libres.add(habitacion("RS1" + i, "Familiar Resumen", 80.0));
+        }
+        LocalDate llegada = DIA.plusDays(20);
+
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Reserva>> creadas = new ArrayList<>();
+            for (Habitacion habitacion : libres) {
+                creadas.add(ejecutor.submit(() -> {
+                    salida.await();
+                    return reservaService.crearOActualizarReserva(nuevaReserva(habitacion, llegada, 2, 160.0));
+                }));
+            }
+            salida.countDown();
+            for (Future<Reserva> creada : creadas) {
+                reservas.add(creada.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        List<ResumenDiario> filas = resumenDiarioService.obtenerPorDiaYTipo(llegada, llegada.plusDays(2));
+        assertEquals(3, filas.size());
+        assertEquals(hilos, filas.get(0).getCheckIns());
+        assertEquals(hilos, filas.get(0).getNochesOcupadas());
+        assertEquals(hilos, filas.get(1).getNochesOcupadas());
+        assertEquals(hilos, filas.get(2).getCheckOuts());
+    }
+
+    @Test
+    @DisplayName("Debería subir la versión de datos una vez por transacción confirmada y verla desde otro nodo")
+    void deberiaCompartirLaVersionDeDatos() {
+        long inicial = resumenDiarioService.getVersionDatos();
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        transaccion.executeWithoutResult(estado -> {
+            resumenDiarioService.marcarCambioDatos();
+            resumenDiarioService.marcarCambioDatos();
+            assertEquals(inicial, resumenDiarioService.getVersionDatos());
+        });
+        assertEquals(inicial + 1, resumenDiarioService.getVersionDatos());
+
+        transaccion.executeWithoutResult(estado -> {
+            resumenDiarioService.marcarCambioDatos();
+            estado.setRollbackOnly();
+        });
+        assertEquals(inicial + 1, resumenDiarioService.getVersionDatos());
+
+        // Otra instancia confirma un cambio: un nodo que ya leyó la versión lo ve cuando caduca su lectura
+        RelojAjustable reloj = new RelojAjustable();
+        ResumenDiarioService nodo = new ResumenDiarioService(resumenDiarioRepository, aporteRepository,
+                reservaRepository, entityManager, migradorEsquema, jdbcTemplate, eventos, transactionManager, 1_000,
+                reloj);
+        assertEquals(inicial + 1, nodo.getVersionDatos());
+        jdbcTemplate.update("UPDATE \"versiones_datos\" SET \"version\" = \"version\" + 1 "
+                + "WHERE \"nombre\" = (SELECT MAX(\"nombre\") FROM \"versiones_datos\")");
+        reloj.avanzar(Duration.ofMillis(999));
+        assertEquals(inicial + 1, nodo.getVersionDatos());
+        reloj.avanzar(Duration.ofMillis(1));
+        assertEquals(inicial + 2, nodo.getVersionDatos());
+    }
+
+    @Test
+    @DisplayName("Debería volver a contabilizar tras la reconstrucción las reservas cambiadas durante ella")
+    void deberiaRepetirLosCambiosDuranteLaReconstruccion() throws Exception {
+        cliente = cliente("71234569");
+        Habitacion suite = habitacion("RS30", "Suite Resumen", 100.0);
+        LocalDate llegada = DIA.plusDays(10);
+        Reserva reserva = reservar(suite, llegada, 2, 200.0);
+
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> {
+            resumenDiarioService.reconstruir();
+            // Otra transacción confirma un cambio que la reconstrucción ya no lee
+            CompletableFuture.runAsync(() -> transaccion.executeWithoutResult(otra -> {
+                Reserva leida = reservaRepository.findById(reserva.getId()).orElseThrow();
+                leida.setEstadoReserva("CANCELADA");
+                reservaRepository.save(leida);
+                eventos.publishEvent(new ReservasModificadas(List.of(reserva.getId())));
+            })).join();
+            assertEquals(1, fila(llegada, "Suite Resumen").getNochesOcupadas());
+        });
+
+        // Cancelada: deja de ocupar noches
+        assertEquals(0, fila(llegada, "Suite Resumen").getNochesOcupadas());
+        assertEquals(0, fila(llegada.plusDays(1), "Suite Resumen").getNochesOcupadas());
+    }
+
+    private ResumenDiario fila(LocalDate fecha, String tipo) {
+        return resumenDiarioService.obtenerPorDiaYTipo(fecha, fecha).stream()
+                .filter(r -> r.getTipoHabitacion().equals(tipo))
+                .findFirst().orElseThrow();
+    }
+
+    private List<String> filas(LocalDate fin) {
+        return resumenDiarioService.obtenerPorDiaYTipo(DIA, fin).stream()
+                .filter(r -> r.getTipoHabitacion().endsWith("Resumen"))
+                .filter(r -> r.getCheckIns() != 0 || r.getCheckOuts() != 0 || r.getNochesOcupadas() != 0)
+                .map(r -> String.join("|", r.getFecha().toString(), r.getTipoHabitacion(),
+                        String.valueOf(r.getIngresosHabitacion()), String.valueOf(r.getIngresosServicios()),
+                        String.valueOf(r.getIngresosFinalizados()), String.valueOf(r.getCheckIns()),
+                        String.valueOf(r.getCheckOuts()), String.valueOf(r.getNochesOcupadas())))
+                .toList();
+    }
+
+    private Map<String, Object> porFecha(List<Map<String, Object>> dias, String campo) {
+        Map<String, Object> valores = new TreeMap<>();
+        dias.forEach(dia -> valores.put((String) dia.get("fecha"), dia.get(campo)));
+        return valores;
+    }
+
+    private Map<String, Object> ingresosCalculados(LocalDate fin) {
+        Map<String, Object> ingresos = new TreeMap<>();
+        DIA.datesUntil(fin.plusDays(1)).forEach(fecha -> ingresos.put(fecha.toString(), 0.0));
+        reservaRepository.findAll().stream()
+                .filter(r -> r.getEstado() == EstadoReserva.FINALIZADA || r.getEstado() == EstadoReserva.ACTIVA)
+                .filter(r -> ingresos.containsKey(r.getFechaInicio().toString()))
+                .forEach(r -> ingresos.merge(r.getFechaInicio().toString(),
+                        r.getTotalPagar() + r.calcularTotalServicios(), (a, b) -> (Double) a + (Double) b));
+        return ingresos;
+    }
+
+    private Map<String, Object> movimientosCalculados(LocalDate fin, boolean llegadas) {
+        Map<String, Object> movimientos = new TreeMap<>();
+        DIA.datesUntil(fin.plusDays(1)).forEach(fecha -> movimientos.put(fecha.toString(), 0));
+        reservaRepository.findAll().stream()
+                .map(r -> (llegadas ? r.getFechaInicio() : r.getFechaFin()).toString())
+                .filter(movimientos::containsKey)
+                .forEach(fecha -> movimientos.merge(fecha, 1, (a, b) -> (Integer) a + (Integer) b));
+        return movimientos;
+    }
+
+    private Cliente cliente(String dni) {
+        Cliente nuevo = new Cliente();
+        nuevo.setNombres("Rita");
+        nuevo.setApellidos("Resumen");
+        nuevo.setDni(dni);
+        return clienteRepository.save(nuevo);
+    }
+
+    private Habitacion habitacion(String numero, String tipo, double precio) {
+        Habitacion habitacion = habitacionService.crearHabitacion(new Habitacion(numero, tipo, precio, "DISPONIBLE"));
+        habitaciones.add(habitacion);
+        return habitacion;
+    }
+
+    private Reserva reservar(Habitacion habitacion, LocalDate inicio, int noches, double total) {
+        Reserva reserva = reservaService.crearOActualizarReserva(nuevaReserva(habitacion, inicio, noches, total));
+        reservas.add(reserva);
+        return reserva;
+    }
+
+    private Reserva nuevaReserva(Habitacion habitacion, LocalDate inicio, int noches, double total) {
+        return new Reserva(cliente, habitacion, inicio, inicio.plusDays(noches), LocalTime.of(14, 0),
+                LocalTime.of(12, 0), noches, total, "PENDIENTE");
+    }
+}
@@ -0,0 +1,117 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Recordatorios de check-in: la consulta debe traer solo las reservas
+ * pendientes de mañana con email, ya con cliente y habitación cargados.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Recordatorios de check-in")
+class ScheduledEmailServiceTest {
+
+    private static final LocalDate MANANA = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private HabitacionRepository habitacionRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Reserva> reservas = new ArrayList<>();
+    private final List<Cliente> clientes = new ArrayList<>();
+    private Habitacion habitacion;
+
+    @AfterEach
+    void tearDown() {
+        reservaRepository.deleteAll(reservas);
+        clienteRepository.deleteAll(clientes);
+        habitacionRepository.delete(habitacion);
+    }
+
+    @Test
+    @DisplayName("Debería encolar un recordatorio por reserva pendiente de mañana con email")
+    void deberiaSeleccionarSoloPendientesDeManana() {
+        habitacion = habitacionRepository.save(new Habitacion("R901", "Doble", 80.0, "DISPONIBLE"));
+        Cliente conEmail = cliente("81234567", "ana@example.com");
+        Cliente sinEmail = cliente("81234568", null);
+        reservar(conEmail, MANANA, "PENDIENTE");
+        reservar(sinEmail, MANANA, "PENDIENTE");
+        reservar(conEmail, MANANA, "CANCELADA");
+        reservar(conEmail, MANANA.plusDays(1), "PENDIENTE");
+
+        EmailService emailService = mock(EmailService.class);
+        ScheduledEmailService service = new ScheduledEmailService(reservaRepository, emailService);
+        Integer encolados = new TransactionTemplate(transactionManager)
+                .execute(estado -> service.enviarRecordatoriosCheckIn());
+
+        assertEquals(1, encolados);
+        verify(emailService).enviarRecordatorioCheckIn(eq("ana@example.com"), eq("Ana"),
+                eq(String.valueOf(reservas.get(0).getId())), eq(MANANA.toString()), eq("R901"));
+        verify(emailService, times(1)).enviarRecordatorioCheckIn(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Debería propagar el error al encolar en lugar de dar por enviados los recordatorios")
+    void deberiaPropagarElErrorAlEncolar() {
+        habitacion = habitacionRepository.save(new Habitacion("R902", "Doble", 80.0, "DISPONIBLE"));
+        reservar(cliente("81234569", "luis@example.com"), MANANA, "PENDIENTE");
+
+        EmailService emailService = mock(EmailService.class);
+        doThrow(new DataAccessResourceFailureException("Sin conexión")).when(emailService)
+                .enviarRecordatorioCheckIn(anyString(), any(), any(), any(), any());
+        ScheduledEmailService service = new ScheduledEmailService(reservaRepository, emailService);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> new TransactionTemplate(transactionManager)
+                .execute(estado -> service.enviarRecordatoriosCheckIn()));
+    }
+
+    private Cliente cliente(String dni, String email) {
+        Cliente cliente = new Cliente();
+        cliente.setNombres("Ana");
+        cliente.setApellidos("Recordatorio");
+        cliente.setDni(dni);
+        cliente.setEmail(email);
+        cliente = clienteRepository.save(cliente);
+        clientes.add(cliente);
+        return cliente;
+    }
+
+    private void reservar(Cliente cliente, LocalDate inicio, String estado) {
+        reservas.add(reservaRepository.save(new Reserva(cliente, habitacion, inicio, inicio.plusDays(2),
+                LocalTime.of(14, 0), LocalTime.of(12, 0), 2, 160.0, estado)));
+    }
+}
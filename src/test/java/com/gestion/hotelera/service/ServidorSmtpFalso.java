@@ -0,0 +1,119 @@
+package com.gestion.hotelera.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo en localhost para pruebas: acepta los mensajes y los
+ * guarda en memoria. Puede responder con errores temporales a los primeros
+ * envíos y tardar un tiempo fijo en cada uno, como un servidor lento.
+ */
+class ServidorSmtpFalso implements AutoCloseable {
+
+    private final ServerSocket socket;
+    private final Thread hilo;
+    private final List<String> mensajes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger fallosPendientes = new AtomicInteger();
+    private final AtomicInteger sesiones = new AtomicInteger();
+    private volatile long retardoMs;
+
+    ServidorSmtpFalso() throws IOException {
+        socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        hilo = new Thread(this::aceptar, "smtp-falso");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    int getPuerto() {
+        return socket.getLocalPort();
+    }
+
+    List<String> getMensajes() {
+        return mensajes;
+    }
+
+    /** Conexiones SMTP abiertas por los clientes hasta ahora. */
+    int getSesiones() {
+        return sesiones.get();
+    }
+
+    /** Los próximos {@code fallos} envíos se rechazan con un 451. */
+    void fallarProximos(int fallos) {
+        fallosPendientes.set(fallos);
+    }
+
+    void setRetardoMs(long retardoMs) {
+        this.retardoMs = retardoMs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void aceptar() {
+        while (!socket.isClosed()) {
+            try {
+                Socket cliente = socket.accept();
+                sesiones.incrementAndGet();
+                Thread sesion = new Thread(() -> atender(cliente), "smtp-falso-sesion");
+                sesion.setDaemon(true);
+                sesion.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket cliente) {
+        try (cliente;
+                BufferedReader entrada = new BufferedReader(
+                        new InputStreamReader(cliente.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter salida = new PrintWriter(cliente.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            responder(salida, "220 localhost SMTP de pruebas");
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                String comando = linea.toUpperCase();
+                if (comando.startsWith("EHLO") || comando.startsWith("HELO")) {
+                    responder(salida, "250 localhost");
+                } else if (comando.startsWith("MAIL FROM")) {
+                    if (fallosPendientes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                        responder(salida, "451 4.3.0 Servicio no disponible temporalmente");
+                    } else {
+                        responder(salida, "250 OK");
+                    }
+                } else if (comando.startsWith("DATA")) {
+                    responder(salida, "354 Fin con <CRLF>.<CRLF>");
+                    StringBuilder mensaje = new StringBuilder();
+                    while ((linea = entrada.readLine()) != null && !linea.equals(".")) {
+                        mensaje.append(linea).append('\n');
+                    }
+                    Thread.sleep(retardoMs);
+                    mensajes.add(mensaje.toString());
+                    responder(salida, "250 OK");
+                } else if (comando.startsWith("QUIT")) {
+                    responder(salida, "221 Adiós");
+                    return;
+                } else {
+                    responder(salida, "250 OK"); // RCPT, RSET, NOOP
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // La sesión terminó
+        }
+    }
+
+    private static void responder(PrintWriter salida, String respuesta) {
+        salida.print(respuesta + "\r\n");
+        salida.flush();
+    }
+}
@@ -0,0 +1,148 @@
+package com.gestion.hotelera.service;
+
+import com.gestion.hotelera.enums.EstadoReserva;
+import com.gestion.hotelera.model.Cliente;
+import com.gestion.hotelera.model.Habitacion;
+import com.gestion.hotelera.model.Reserva;
+import com.gestion.hotelera.repository.ClienteRepository;
+import com.gestion.hotelera.repository.HabitacionRepository;
+import com.gestion.hotelera.repository.ReservaIntervalo;
+import com.gestion.hotelera.repository.ReservaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sincronización programada contra la base de datos de pruebas: las
+ * actualizaciones masivas deben dejar reservas, habitaciones e índice al día.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Tareas programadas")
+class TareaProgramadaServiceTest {
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    @Autowired
+    private TareaProgramadaService tareaProgramadaService;
+
+    @Autowired
+    private HabitacionService habitacionService;
+
+    @Autowired
+    private HabitacionRepository habitacionRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    private final List<Habitacion> habitaciones = new ArrayList<>();
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = new Cliente();
+        cliente.setNombres("Cliente");
+        cliente.setApellidos("Programado");
+        cliente.setDni("76543210");
+        cliente = clienteRepository.save(cliente);
+        habitaciones.add(habitacionRepository.save(new Habitacion("T801", "Doble", 80.0, "OCUPADA")));
+        habitaciones.add(habitacionRepository.save(new Habitacion("T802", "Doble", 80.0, "DISPONIBLE")));
+        habitaciones.add(habitacionRepository.save(new Habitacion("T803", "Doble", 80.0, "DISPONIBLE")));
+        habitaciones.add(habitacionRepository.save(new Habitacion("T804", "Doble", 80.0, "OCUPADA")));
+        habitaciones.add(habitacionRepository.save(new Habitacion("T805", "Suite", 150.0, "MANTENIMIENTO")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        habitaciones.forEach(h -> habitacionService.eliminarHabitacion(h.getId()));
+        clienteRepository.delete(cliente);
+    }
+
+    @Test
+    @DisplayName("Debería finalizar, activar y reconciliar habitaciones en bloque")
+    void deberiaSincronizarEnBloque() {
+        Reserva vencida = reservar(0, HOY.minusDays(5), HOY.minusDays(2), "ACTIVA");
+        Reserva iniciada = reservar(1, HOY.minusDays(1), HOY.plusDays(2), "PENDIENTE");
+        Reserva futura = reservar(2, HOY.plusDays(3), HOY.plusDays(5), "PENDIENTE");
+        Reserva enMantenimiento = reservar(4, HOY, HOY.plusDays(1), "PENDIENTE");
+        indiceDisponibilidad.reconstruir();
+
+        tareaProgramadaService.sincronizarReservasYHabitaciones();
+
+        assertEquals("FINALIZADA", estadoReserva(vencida));
+        assertEquals("ACTIVA", estadoReserva(iniciada));
+        assertEquals("PENDIENTE", estadoReserva(futura));
+        assertEquals("ACTIVA", estadoReserva(enMantenimiento));
+
+        assertEquals("DISPONIBLE", estadoHabitacion(0));
+        assertEquals("OCUPADA", estadoHabitacion(1));
+        assertEquals("DISPONIBLE", estadoHabitacion(2));
+        assertEquals("DISPONIBLE", estadoHabitacion(3));
+        assertEquals("MANTENIMIENTO", estadoHabitacion(4));
+
+        assertTrue(indiceDisponibilidad.estaLibre(habitaciones.get(0).getId(), HOY.minusDays(5), HOY.minusDays(2)));
+        assertEquals(EstadoReserva.ACTIVA, indiceDisponibilidad
+                .buscarConflicto(habitaciones.get(1).getId(), HOY, HOY.plusDays(1), null)
+                .orElseThrow().estadoReserva());
+
+        TareaProgramadaService.ResultadoSincronizacion resultado = tareaProgramadaService.getUltimaSincronizacion();
+        assertNotNull(resultado);
+        assertTrue(resultado.reservasFinalizadas() >= 1);
+        assertTrue(resultado.reservasActivadas() >= 2);
+        assertTrue(resultado.habitacionesOcupadas() >= 1);
+        assertTrue(resultado.habitacionesLiberadas() >= 2);
+    }
+
+    @Test
+    @DisplayName("Debería dejar fuera del índice la reserva cancelada entre la consulta y el UPDATE")
+    void deberiaIgnorarLaReservaCanceladaEntretanto() {
+        Reserva iniciada = reservar(2, HOY, HOY.plusDays(2), "PENDIENTE");
+        indiceDisponibilidad.reconstruir();
+        List<ReservaIntervalo> instantanea = reservaRepository.findIntervalosPendientesIniciados(HOY).stream()
+                .filter(intervalo -> intervalo.getId().equals(iniciada.getId()))
+                .toList();
+        assertEquals(1, instantanea.size());
+
+        reservaService.cancelarReserva(iniciada.getId());
+        Set<Long> activadas = tareaProgramadaService.aplicarTransiciones(List.of(), instantanea);
+
+        assertTrue(activadas.isEmpty());
+        assertEquals("CANCELADA", estadoReserva(iniciada));
+        assertTrue(indiceDisponibilidad.estaLibre(habitaciones.get(2).getId(), HOY, HOY.plusDays(2)));
+    }
+
+    private Reserva reservar(int habitacion, LocalDate inicio, LocalDate fin, String estado) {
+        return reservaRepository.save(new Reserva(cliente, habitaciones.get(habitacion), inicio, fin,
+                LocalTime.of(14, 0), LocalTime.of(12, 0), (int) (fin.toEpochDay() - inicio.toEpochDay()), 80.0,
+                estado));
+    }
+
+    private String estadoReserva(Reserva reserva) {
+        return reservaRepository.findById(reserva.getId()).orElseThrow().getEstadoReserva();
+    }
+
+    private String estadoHabitacion(int indice) {
+        return habitacionRepository.findById(habitaciones.get(indice).getId()).orElseThrow().getEstado();
+    }
+}